@@ -0,0 +1,103 @@
+package com.oviva.epa.client;
+
+import com.oviva.epa.client.model.*;
+import de.gematik.epa.ihe.model.document.Document;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.security.cert.X509Certificate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking variant of {@link KonnektorService}. No thread waits for the Konnektor while a
+ * request is in flight, the returned futures are completed on the executor configured in {@link
+ * KonnektorServiceBuilder#executor(java.util.concurrent.Executor)}.
+ *
+ * <p>Failures complete the futures exceptionally with the same exceptions the {@link
+ * KonnektorService} throws, e.g. {@link KonnektorException}.
+ */
+public interface AsyncKonnektorService {
+
+  /**
+   * @see KonnektorService#readRsaAuthenticationCertificateForCard(String)
+   */
+  @NonNull
+  CompletableFuture<X509Certificate> readRsaAuthenticationCertificateForCard(
+      @NonNull String cardHandle);
+
+  /**
+   * @see KonnektorService#readEccAuthenticationCertificateForCard(String)
+   */
+  @NonNull
+  CompletableFuture<X509Certificate> readEccAuthenticationCertificateForCard(
+      @NonNull String cardHandle);
+
+  /**
+   * @see KonnektorService#authSignRsaPss(String, byte[])
+   */
+  @NonNull
+  CompletableFuture<byte[]> authSignRsaPss(@NonNull String cardHandle, byte[] bytesToSign);
+
+  /**
+   * @see KonnektorService#authSignEcdsa(String, byte[])
+   */
+  @NonNull
+  CompletableFuture<byte[]> authSignEcdsa(@NonNull String cardHandle, byte[] bytesToSign);
+
+  /**
+   * @see KonnektorService#verifySmcPin(String)
+   */
+  @NonNull
+  CompletableFuture<PinStatus> verifySmcPin(@NonNull String cardHandle);
+
+  /**
+   * @see KonnektorService#getAuthorizationState(RecordIdentifier)
+   */
+  @NonNull
+  CompletableFuture<List<AuthorizedApplication>> getAuthorizationState(
+      @NonNull RecordIdentifier recordIdentifier);
+
+  /**
+   * <b>IMPORTANT: There is strict rate-limiting on this endpoint. Currently once per day.</b>
+   *
+   * @see KonnektorService#getAuthorizationList()
+   */
+  @NonNull
+  CompletableFuture<List<AuthorizationEntry>> getAuthorizationList();
+
+  /**
+   * @see KonnektorService#writeDocument(RecordIdentifier, Document)
+   */
+  @NonNull
+  CompletableFuture<WriteDocumentResponse> writeDocument(
+      @NonNull RecordIdentifier recordIdentifier, @NonNull Document document);
+
+  /**
+   * @see KonnektorService#replaceDocument(RecordIdentifier, Document, UUID)
+   */
+  @NonNull
+  CompletableFuture<WriteDocumentResponse> replaceDocument(
+      @NonNull RecordIdentifier recordIdentifier,
+      @NonNull Document document,
+      @NonNull UUID documentToReplaceId);
+
+  /**
+   * @see KonnektorService#writeDocumentSet(RecordIdentifier, List)
+   */
+  @NonNull
+  CompletableFuture<WriteDocumentResponse> writeDocumentSet(
+      @NonNull RecordIdentifier recordIdentifier, @NonNull List<Document> documents);
+
+  /**
+   * @see KonnektorService#replaceDocumentSet(RecordIdentifier, List)
+   */
+  @NonNull
+  CompletableFuture<WriteDocumentResponse> replaceDocumentSet(
+      @NonNull RecordIdentifier recordIdentifier, @NonNull List<DocumentReplacement> replacements);
+
+  /**
+   * @see KonnektorService#getHomeCommunityID(String)
+   */
+  @NonNull
+  CompletableFuture<String> getHomeCommunityID(@NonNull String kvnr);
+}
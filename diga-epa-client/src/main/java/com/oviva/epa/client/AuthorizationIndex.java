@@ -0,0 +1,376 @@
+package com.oviva.epa.client;
+
+import com.oviva.epa.client.model.AuthorizationEntry;
+import com.oviva.epa.client.model.RecordIdentifier;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * A compact local copy of the daily {@link KonnektorService#getAuthorizationList()}, answering
+ * whether a KVNR is authorized without calling the Konnektor. The list may only be fetched once a
+ * day (A_19008-01), the index keeps it across restarts.
+ *
+ * <p>The snapshot is stored in a memory-mapped file. KVNRs of the usual form, a letter and nine
+ * digits, are packed into a long and kept sorted for binary search, home community IDs are stored
+ * once in a dictionary and {@code validTo} as epoch day. Each record takes 16 bytes. The few KVNRs
+ * of other forms are kept as strings in a separate section.
+ *
+ * <p>An index is immutable and safe to share, {@link #store(Path, LocalDate, Collection)} writes a
+ * new one. The file of an index still in use may be replaced, it stays mapped until the index is
+ * garbage collected.
+ */
+public final class AuthorizationIndex {
+
+  private static final int MAGIC = 0x45504149; // EPAI
+  private static final int VERSION = 1;
+
+  // magic, version, snapshot day, packed count, dictionary size, overflow count
+  private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4 + 4;
+
+  // packed kvnr, validTo, home community id
+  private static final int RECORD_SIZE = 8 + 4 + 4;
+
+  private static final int NO_DATE = Integer.MIN_VALUE;
+  private static final long NOT_PACKABLE = -1;
+
+  private final ByteBuffer records;
+  private final int count;
+  private final String[] homeCommunityIds;
+  private final Map<String, AuthorizationEntry> overflow;
+  @Nullable private final LocalDate snapshotDate;
+
+  /**
+   * @param added records in this snapshot only
+   * @param removed records in the previous snapshot only
+   * @param changed records in both, with a different home community ID or validTo, as in this
+   *     snapshot
+   */
+  public record Diff(
+      @NonNull List<AuthorizationEntry> added,
+      @NonNull List<AuthorizationEntry> removed,
+      @NonNull List<AuthorizationEntry> changed) {}
+
+  private AuthorizationIndex(
+      ByteBuffer records,
+      int count,
+      String[] homeCommunityIds,
+      Map<String, AuthorizationEntry> overflow,
+      @Nullable LocalDate snapshotDate) {
+    this.records = records;
+    this.count = count;
+    this.homeCommunityIds = homeCommunityIds;
+    this.overflow = overflow;
+    this.snapshotDate = snapshotDate;
+  }
+
+  /** an index without any records, e.g. before the first snapshot */
+  @NonNull
+  public static AuthorizationIndex empty() {
+    return new AuthorizationIndex(ByteBuffer.allocate(0), 0, new String[0], Map.of(), null);
+  }
+
+  /** Opens an index stored before, a missing file yields an {@link #empty()} index. */
+  @NonNull
+  public static AuthorizationIndex open(@NonNull Path file) {
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      var buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      return read(buf, file);
+    } catch (NoSuchFileException e) {
+      return empty();
+    } catch (IOException e) {
+      throw new UncheckedIOException("failed to open authorization index %s".formatted(file), e);
+    }
+  }
+
+  /**
+   * Stores a snapshot of the authorization list, replacing the file atomically.
+   *
+   * @param snapshotDate the day the list was fetched
+   * @return the index of the new snapshot
+   */
+  @NonNull
+  public static AuthorizationIndex store(
+      @NonNull Path file,
+      @NonNull LocalDate snapshotDate,
+      @NonNull Collection<AuthorizationEntry> entries) {
+
+    var packed = new TreeMap<Long, AuthorizationEntry>();
+    var overflow = new LinkedHashMap<String, AuthorizationEntry>();
+    var dictionary = new LinkedHashMap<String, Integer>();
+    for (var e : entries) {
+      var kvnr = e.recordIdentifier().kvnr();
+      dictionary.putIfAbsent(
+          nullToEmpty(e.recordIdentifier().homeCommunityId()), dictionary.size());
+      var key = pack(kvnr);
+      if (key == NOT_PACKABLE) {
+        overflow.put(kvnr, e);
+      } else {
+        packed.put(key, e);
+      }
+    }
+
+    try {
+      var dir = file.toAbsolutePath().getParent();
+      var tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+      try {
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+          out.writeInt(MAGIC);
+          out.writeInt(VERSION);
+          out.writeLong(snapshotDate.toEpochDay());
+          out.writeInt(packed.size());
+          out.writeInt(dictionary.size());
+          out.writeInt(overflow.size());
+
+          for (var e : packed.entrySet()) {
+            out.writeLong(e.getKey());
+            out.writeInt(epochDay(e.getValue().validTo()));
+            out.writeInt(
+                dictionary.get(nullToEmpty(e.getValue().recordIdentifier().homeCommunityId())));
+          }
+          for (var hcid : dictionary.keySet()) {
+            writeString(out, hcid);
+          }
+          for (var e : overflow.values()) {
+            writeString(out, e.recordIdentifier().kvnr());
+            out.writeInt(epochDay(e.validTo()));
+            out.writeInt(dictionary.get(nullToEmpty(e.recordIdentifier().homeCommunityId())));
+          }
+        }
+        try (var channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+          channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } finally {
+        Files.deleteIfExists(tmp);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("failed to store authorization index %s".formatted(file), e);
+    }
+
+    return open(file);
+  }
+
+  /** the day of the snapshot, null if the index is empty */
+  @Nullable
+  public LocalDate snapshotDate() {
+    return snapshotDate;
+  }
+
+  /** number of records in the snapshot */
+  public int size() {
+    return count + overflow.size();
+  }
+
+  /** the record and validity of the KVNR, null if it is not in the snapshot */
+  @Nullable
+  public AuthorizationEntry lookup(@NonNull String kvnr) {
+    var key = pack(kvnr);
+    if (key == NOT_PACKABLE) {
+      return overflow.get(kvnr);
+    }
+
+    var i = search(key);
+    return i < 0 ? null : entryAt(i);
+  }
+
+  /** whether the KVNR is in the snapshot and its authorization is valid on the given day */
+  public boolean isAuthorized(@NonNull String kvnr, @NonNull LocalDate day) {
+    var entry = lookup(kvnr);
+    return entry != null && (entry.validTo() == null || !entry.validTo().isBefore(day));
+  }
+
+  /** all records, sorted by KVNR except those not of the usual form, which come last */
+  @NonNull
+  public List<AuthorizationEntry> entries() {
+    var entries = new ArrayList<AuthorizationEntry>(size());
+    for (int i = 0; i < count; i++) {
+      entries.add(entryAt(i));
+    }
+    entries.addAll(overflow.values());
+    return entries;
+  }
+
+  /** what changed compared to an older snapshot */
+  @NonNull
+  public Diff diff(@NonNull AuthorizationIndex previous) {
+    var added = new ArrayList<AuthorizationEntry>();
+    var removed = new ArrayList<AuthorizationEntry>();
+    var changed = new ArrayList<AuthorizationEntry>();
+
+    // both are sorted, walk them side by side
+    int i = 0;
+    int j = 0;
+    while (i < count || j < previous.count) {
+      var cmp =
+          i == count ? 1 : j == previous.count ? -1 : Long.compare(keyAt(i), previous.keyAt(j));
+      if (cmp < 0) {
+        added.add(entryAt(i++));
+      } else if (cmp > 0) {
+        removed.add(previous.entryAt(j++));
+      } else {
+        var current = entryAt(i++);
+        if (!current.equals(previous.entryAt(j++))) {
+          changed.add(current);
+        }
+      }
+    }
+
+    for (var e : overflow.values()) {
+      var before = previous.overflow.get(e.recordIdentifier().kvnr());
+      if (before == null) {
+        added.add(e);
+      } else if (!before.equals(e)) {
+        changed.add(e);
+      }
+    }
+    for (var e : previous.overflow.values()) {
+      if (!overflow.containsKey(e.recordIdentifier().kvnr())) {
+        removed.add(e);
+      }
+    }
+
+    return new Diff(added, removed, changed);
+  }
+
+  private int search(long key) {
+    int lo = 0;
+    int hi = count - 1;
+    while (lo <= hi) {
+      var mid = (lo + hi) >>> 1;
+      var k = keyAt(mid);
+      if (k < key) {
+        lo = mid + 1;
+      } else if (k > key) {
+        hi = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  private long keyAt(int i) {
+    return records.getLong(i * RECORD_SIZE);
+  }
+
+  private AuthorizationEntry entryAt(int i) {
+    var pos = i * RECORD_SIZE;
+    var kvnr = unpack(records.getLong(pos));
+    var validTo = fromEpochDay(records.getInt(pos + 8));
+    var hcid = homeCommunityIds[records.getInt(pos + 12)];
+    return new AuthorizationEntry(new RecordIdentifier(kvnr, emptyToNull(hcid)), validTo);
+  }
+
+  private static AuthorizationIndex read(ByteBuffer buf, Path file) {
+    if (buf.remaining() < HEADER_SIZE || buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION) {
+      throw new IllegalArgumentException("not an authorization index: %s".formatted(file));
+    }
+
+    var snapshotDate = LocalDate.ofEpochDay(buf.getLong(8));
+    var count = buf.getInt(16);
+    var dictionarySize = buf.getInt(20);
+    var overflowCount = buf.getInt(24);
+
+    var recordsEnd = HEADER_SIZE + (long) count * RECORD_SIZE;
+    if (count < 0 || recordsEnd > buf.capacity()) {
+      throw new IllegalArgumentException("truncated authorization index: %s".formatted(file));
+    }
+    var records = buf.slice(HEADER_SIZE, count * RECORD_SIZE);
+
+    var tail = buf.position((int) recordsEnd);
+    var homeCommunityIds = new String[dictionarySize];
+    for (int i = 0; i < dictionarySize; i++) {
+      homeCommunityIds[i] = readString(tail);
+    }
+
+    var overflow = new HashMap<String, AuthorizationEntry>();
+    for (int i = 0; i < overflowCount; i++) {
+      var kvnr = readString(tail);
+      var validTo = fromEpochDay(tail.getInt());
+      var hcid = homeCommunityIds[tail.getInt()];
+      overflow.put(
+          kvnr, new AuthorizationEntry(new RecordIdentifier(kvnr, emptyToNull(hcid)), validTo));
+    }
+
+    return new AuthorizationIndex(records, count, homeCommunityIds, overflow, snapshotDate);
+  }
+
+  /**
+   * Packs a KVNR of the usual form, a letter followed by nine digits, into a long: the letter times
+   * 10^9 plus the digits. Sorting the packed values sorts the KVNRs.
+   */
+  static long pack(@Nullable String kvnr) {
+    if (kvnr == null || kvnr.length() != 10) {
+      return NOT_PACKABLE;
+    }
+    var letter = kvnr.charAt(0);
+    if (letter < 'A' || letter > 'Z') {
+      return NOT_PACKABLE;
+    }
+    long digits = 0;
+    for (int i = 1; i < 10; i++) {
+      var c = kvnr.charAt(i);
+      if (c < '0' || c > '9') {
+        return NOT_PACKABLE;
+      }
+      digits = digits * 10 + (c - '0');
+    }
+    return (letter - 'A') * 1_000_000_000L + digits;
+  }
+
+  static String unpack(long packed) {
+    var letter = (char) ('A' + packed / 1_000_000_000L);
+    return letter + "%09d".formatted(packed % 1_000_000_000L);
+  }
+
+  private static int epochDay(@Nullable LocalDate date) {
+    return date == null ? NO_DATE : Math.toIntExact(date.toEpochDay());
+  }
+
+  @Nullable
+  private static LocalDate fromEpochDay(int epochDay) {
+    return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+  }
+
+  private static void writeString(DataOutputStream out, String s) throws IOException {
+    var bytes = s.getBytes(StandardCharsets.UTF_8);
+    out.writeShort(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buf) {
+    var bytes = new byte[Short.toUnsignedInt(buf.getShort())];
+    buf.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static String nullToEmpty(@Nullable String s) {
+    return Objects.requireNonNullElse(s, "");
+  }
+
+  @Nullable
+  private static String emptyToNull(String s) {
+    return s.isEmpty() ? null : s;
+  }
+}
@@ -0,0 +1,165 @@
+package com.oviva.epa.client;
+
+import com.oviva.epa.client.model.AuthorizedApplication;
+import com.oviva.epa.client.model.RecordIdentifier;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches the result of {@link KonnektorService#getAuthorizationState(RecordIdentifier)}, see {@link
+ * KonnektorServiceBuilder#authorizationStateCache(AuthorizationStateCache)}.
+ *
+ * <p>A result is kept until the earliest {@code validTo} of its applications has passed, but no
+ * longer than the max age. A record without any authorization is kept for the max age as well, an
+ * authorization granted meanwhile is only seen after that or after an {@link
+ * #invalidate(RecordIdentifier) invalidation}. Failed writes to a record invalidate its entry. At
+ * most {@code maxEntries} are kept, the least recently used are evicted first.
+ */
+public final class AuthorizationStateCache {
+
+  public static final Duration DEFAULT_MAX_AGE = Duration.ofHours(1);
+  public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+  // validTo is a day in the telematics infrastructure
+  private static final ZoneId ZONE = ZoneId.of("Europe/Berlin");
+
+  private final Duration maxAge;
+  private final int maxEntries;
+  private final Clock clock;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  // access ordered, guarded by itself
+  private final LinkedHashMap<RecordIdentifier, Entry> entries;
+
+  private record Entry(List<AuthorizedApplication> applications, Instant expiresAt) {}
+
+  AuthorizationStateCache(@NonNull Duration maxAge, int maxEntries, @NonNull Clock clock) {
+    this.maxAge = maxAge;
+    this.maxEntries = maxEntries;
+    this.clock = clock;
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<RecordIdentifier, Entry> eldest) {
+            return size() > AuthorizationStateCache.this.maxEntries;
+          }
+        };
+  }
+
+  /** a cache with a max age of one hour and 10000 entries */
+  @NonNull
+  public static AuthorizationStateCache create() {
+    return create(DEFAULT_MAX_AGE, DEFAULT_MAX_ENTRIES);
+  }
+
+  @NonNull
+  public static AuthorizationStateCache create(@NonNull Duration maxAge, int maxEntries) {
+    if (maxAge == null || maxAge.isNegative() || maxAge.isZero()) {
+      throw new IllegalArgumentException("maxAge must be positive");
+    }
+    if (maxEntries < 1) {
+      throw new IllegalArgumentException("maxEntries must be positive");
+    }
+    return new AuthorizationStateCache(maxAge, maxEntries, Clock.systemUTC());
+  }
+
+  /** the cached authorizations of the record or the ones loaded, which are cached */
+  @NonNull
+  public List<AuthorizedApplication> get(
+      @NonNull RecordIdentifier recordIdentifier,
+      @NonNull Supplier<List<AuthorizedApplication>> loader) {
+    var cached = cached(recordIdentifier);
+    if (cached != null) {
+      hits.incrementAndGet();
+      return cached;
+    }
+
+    misses.incrementAndGet();
+    var applications = loader.get();
+    put(recordIdentifier, applications);
+    return applications;
+  }
+
+  /** Records known authorizations, e.g. from resolving a record. */
+  public void put(
+      @NonNull RecordIdentifier recordIdentifier,
+      @NonNull List<AuthorizedApplication> applications) {
+    var now = clock.instant();
+    var expiresAt = expiresAt(now, applications);
+    if (!now.isBefore(expiresAt)) {
+      return;
+    }
+    synchronized (entries) {
+      entries.put(recordIdentifier, new Entry(List.copyOf(applications), expiresAt));
+    }
+  }
+
+  public void invalidate(@NonNull RecordIdentifier recordIdentifier) {
+    synchronized (entries) {
+      entries.remove(recordIdentifier);
+    }
+  }
+
+  public void invalidateAll() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  /** the number of lookups answered from the cache */
+  public long hits() {
+    return hits.get();
+  }
+
+  /** the number of lookups that had to call the Konnektor */
+  public long misses() {
+    return misses.get();
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  @Nullable
+  private List<AuthorizedApplication> cached(RecordIdentifier recordIdentifier) {
+    synchronized (entries) {
+      var entry = entries.get(recordIdentifier);
+      if (entry == null) {
+        return null;
+      }
+      if (!clock.instant().isBefore(entry.expiresAt())) {
+        entries.remove(recordIdentifier);
+        return null;
+      }
+      return entry.applications();
+    }
+  }
+
+  private Instant expiresAt(Instant now, List<AuthorizedApplication> applications) {
+    var expiresAt = now.plus(maxAge);
+    for (var application : applications) {
+      if (application.validTo() == null) {
+        continue;
+      }
+      // valid until the end of the day
+      var end = application.validTo().plusDays(1).atStartOfDay(ZONE).toInstant();
+      if (end.isBefore(expiresAt)) {
+        expiresAt = end;
+      }
+    }
+    return expiresAt;
+  }
+}
@@ -0,0 +1,294 @@
+package com.oviva.epa.client;
+
+import com.oviva.epa.client.model.SigningRejectedException;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Schedules the signatures of {@link KonnektorService#authSignEcdsa(String, byte[])}, {@link
+ * KonnektorService#authSignRsaPss(String, byte[])} and {@link
+ * KonnektorService#signDocuments(String, com.oviva.epa.client.model.CardCertificate.Crypt,
+ * java.util.List)}, see {@link KonnektorServiceBuilder#signingScheduler(CardSigningScheduler)}. A
+ * card only computes a few signatures at once, more calls to the Konnektor just queue up there
+ * until they time out.
+ *
+ * <p>At most {@code maxInFlightPerCard} signatures run at once per card, further callers wait in
+ * order of arrival. Callers are rejected with a {@link SigningRejectedException} if {@code
+ * maxQueuedPerCard} callers wait for the card already or if they waited longer than {@code
+ * maxWait}. Callers asking for the same signature while it is queued or running share its result.
+ *
+ * <p>Cards are told apart by the Konnektor and their handle, handles are only valid for the
+ * Konnektor that issued them and may be the same for cards of different Konnektors.
+ */
+public final class CardSigningScheduler {
+
+  public static final int DEFAULT_MAX_IN_FLIGHT_PER_CARD = 2;
+  public static final int DEFAULT_MAX_QUEUED_PER_CARD = 64;
+  public static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(10);
+
+  private final boolean enabled;
+  private final int maxInFlightPerCard;
+  private final int maxQueuedPerCard;
+  private final Duration maxWait;
+
+  // a lane per card in use, a handful per Konnektor, removed once idle
+  private final ConcurrentHashMap<LaneKey, Lane> lanes = new ConcurrentHashMap<>();
+
+  private final LongAdder signatures = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder coalesced = new LongAdder();
+  private final LongAdder waitNanos = new LongAdder();
+  private final LongAdder latencyNanos = new LongAdder();
+
+  private record LaneKey(String konnektor, String cardHandle) {}
+
+  private static final class Lane {
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // callers of sign or signAll on this lane, only changed within a compute of the lanes
+    private int users;
+
+    // signatures queued or running by algorithm and hash
+    private final ConcurrentHashMap<String, CompletableFuture<byte[]>> pending =
+        new ConcurrentHashMap<>();
+
+    Lane(int maxInFlight) {
+      this.permits = new Semaphore(maxInFlight, true);
+    }
+  }
+
+  private CardSigningScheduler(
+      boolean enabled, int maxInFlightPerCard, int maxQueuedPerCard, Duration maxWait) {
+    this.enabled = enabled;
+    this.maxInFlightPerCard = maxInFlightPerCard;
+    this.maxQueuedPerCard = maxQueuedPerCard;
+    this.maxWait = maxWait;
+  }
+
+  /** a scheduler with 2 signatures in flight and 64 queued per card, waiting 10 seconds at most */
+  @NonNull
+  public static CardSigningScheduler create() {
+    return create(DEFAULT_MAX_IN_FLIGHT_PER_CARD, DEFAULT_MAX_QUEUED_PER_CARD, DEFAULT_MAX_WAIT);
+  }
+
+  @NonNull
+  public static CardSigningScheduler create(
+      int maxInFlightPerCard, int maxQueuedPerCard, @NonNull Duration maxWait) {
+    if (maxInFlightPerCard < 1) {
+      throw new IllegalArgumentException("maxInFlightPerCard must be positive");
+    }
+    if (maxQueuedPerCard < 0) {
+      throw new IllegalArgumentException("maxQueuedPerCard must not be negative");
+    }
+    if (maxWait == null || maxWait.isNegative()) {
+      throw new IllegalArgumentException("maxWait must not be negative");
+    }
+    return new CardSigningScheduler(true, maxInFlightPerCard, maxQueuedPerCard, maxWait);
+  }
+
+  /** a scheduler signing right away, nothing is limited or counted */
+  @NonNull
+  public static CardSigningScheduler disabled() {
+    return new CardSigningScheduler(false, 0, 0, Duration.ZERO);
+  }
+
+  /**
+   * Runs the signer once the card has capacity, or shares the result of the same signature queued
+   * or running already.
+   *
+   * @param konnektor identifies the Konnektor the card is inserted in
+   * @param algorithm tells signatures of the same hash apart
+   * @throws SigningRejectedException if the card is too busy
+   */
+  @NonNull
+  public byte[] sign(
+      @NonNull String konnektor,
+      @NonNull String cardHandle,
+      @NonNull String algorithm,
+      @NonNull byte[] hash,
+      @NonNull Supplier<byte[]> signer) {
+    if (!enabled) {
+      return signer.get();
+    }
+
+    var key = algorithm + ":" + HexFormat.of().formatHex(hash);
+    return inLane(konnektor, cardHandle, lane -> sign(lane, key, signer));
+  }
+
+  private byte[] sign(Lane lane, String key, Supplier<byte[]> signer) {
+    var mine = new CompletableFuture<byte[]>();
+    var running = lane.pending.putIfAbsent(key, mine);
+    if (running != null) {
+      coalesced.increment();
+      return join(running).clone();
+    }
+
+    try {
+      var signature = schedule(lane, signer);
+      mine.complete(signature);
+      return signature.clone();
+    } catch (RuntimeException e) {
+      mine.completeExceptionally(e);
+      throw e;
+    } finally {
+      lane.pending.remove(key, mine);
+    }
+  }
+
+  /**
+   * Runs a signer signing several documents with one call as soon as the card has capacity. The
+   * call takes a single slot of the card, its result is not shared with other callers.
+   *
+   * @param konnektor identifies the Konnektor the card is inserted in
+   * @throws SigningRejectedException if the card is too busy
+   */
+  public <T> T signAll(
+      @NonNull String konnektor, @NonNull String cardHandle, @NonNull Supplier<T> signer) {
+    if (!enabled) {
+      return signer.get();
+    }
+
+    return inLane(konnektor, cardHandle, lane -> schedule(lane, signer));
+  }
+
+  private <T> T inLane(String konnektor, String cardHandle, Function<Lane, T> fn) {
+    var laneKey = new LaneKey(konnektor, cardHandle);
+    var lane =
+        lanes.compute(
+            laneKey,
+            (k, l) -> {
+              var joined = l != null ? l : new Lane(maxInFlightPerCard);
+              joined.users++;
+              return joined;
+            });
+    try {
+      return fn.apply(lane);
+    } finally {
+      // the last caller leaving removes the lane, card handles change as cards are re-inserted
+      lanes.computeIfPresent(laneKey, (k, l) -> --l.users == 0 ? null : l);
+    }
+  }
+
+  private <T> T schedule(Lane lane, Supplier<T> signer) {
+    if (lane.waiting.incrementAndGet() > maxQueuedPerCard && lane.permits.availablePermits() == 0) {
+      lane.waiting.decrementAndGet();
+      rejected.increment();
+      throw new SigningRejectedException(
+          "signing queue of card full, %d waiting".formatted(maxQueuedPerCard));
+    }
+
+    var enqueued = System.nanoTime();
+    boolean acquired;
+    try {
+      acquired = lane.permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      rejected.increment();
+      throw new SigningRejectedException("interrupted waiting for card", e);
+    } finally {
+      lane.waiting.decrementAndGet();
+    }
+    if (!acquired) {
+      rejected.increment();
+      throw new SigningRejectedException("card busy, waited " + maxWait);
+    }
+
+    var started = System.nanoTime();
+    waitNanos.add(started - enqueued);
+    lane.inFlight.incrementAndGet();
+    try {
+      return signer.get();
+    } finally {
+      lane.inFlight.decrementAndGet();
+      lane.permits.release();
+      latencyNanos.add(System.nanoTime() - started);
+      signatures.increment();
+    }
+  }
+
+  private static byte[] join(CompletableFuture<byte[]> running) {
+    try {
+      return running.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  /** the number of callers waiting for any card */
+  public int queueDepth() {
+    return lanes.values().stream().mapToInt(l -> l.waiting.get()).sum();
+  }
+
+  /** the number of callers waiting for cards with the handle, on any Konnektor */
+  public int queueDepth(@NonNull String cardHandle) {
+    return lanes.entrySet().stream()
+        .filter(e -> e.getKey().cardHandle().equals(cardHandle))
+        .mapToInt(e -> e.getValue().waiting.get())
+        .sum();
+  }
+
+  /** the number of signatures running on any card */
+  public int inFlight() {
+    return lanes.values().stream().mapToInt(l -> l.inFlight.get()).sum();
+  }
+
+  /** the number of signatures running on cards with the handle, on any Konnektor */
+  public int inFlight(@NonNull String cardHandle) {
+    return lanes.entrySet().stream()
+        .filter(e -> e.getKey().cardHandle().equals(cardHandle))
+        .mapToInt(e -> e.getValue().inFlight.get())
+        .sum();
+  }
+
+  /** the number of cards currently signing or waited for */
+  int laneCount() {
+    return lanes.size();
+  }
+
+  /** the number of signatures asked from the Konnektor, successful or not */
+  public long signatures() {
+    return signatures.sum();
+  }
+
+  /** the number of callers rejected because a card was too busy */
+  public long rejected() {
+    return rejected.sum();
+  }
+
+  /** the number of callers that shared the result of a signature asked for already */
+  public long coalesced() {
+    return coalesced.sum();
+  }
+
+  /** the average time waited for a card before signing */
+  @NonNull
+  public Duration averageWait() {
+    return average(waitNanos);
+  }
+
+  /** the average time a signature took once started */
+  @NonNull
+  public Duration averageLatency() {
+    return average(latencyNanos);
+  }
+
+  private Duration average(LongAdder totalNanos) {
+    var count = signatures.sum();
+    return count == 0 ? Duration.ZERO : Duration.ofNanos(totalNanos.sum() / count);
+  }
+}
@@ -0,0 +1,38 @@
+package com.oviva.epa.client;
+
+import com.oviva.epa.client.model.WriteDocumentResponse;
+import com.oviva.epa.client.model.WriteRequest;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Writes only the latest version of a document. Versions are identified by the health record and a
+ * logical key chosen by the caller, e.g. the kind of report. At most one version per key is written
+ * at a time, versions submitted meanwhile replace each other so only the latest is written next.
+ *
+ * <p>A version that is superseded before it was written takes the place of the one it superseded:
+ * it is written with the {@link WriteRequest#documentToReplaceId()} of the first version it
+ * superseded, or as new document if that one was. The futures of superseded versions complete with
+ * the outcome of the version written in their place.
+ *
+ * <p>See {@link CoalescingWriterBuilder}.
+ */
+public interface CoalescingWriter extends AutoCloseable {
+
+  /**
+   * Submits a new version of the document identified by the record of the request and the given
+   * key, it is written in the background.
+   *
+   * @return completes once this version, or one superseding it, was written
+   */
+  @NonNull
+  CompletableFuture<WriteDocumentResponse> submit(
+      @NonNull String logicalKey, @NonNull WriteRequest request);
+
+  /** number of versions waiting to be written, not counting superseded ones */
+  int pending();
+
+  /** Stops writing, the futures of versions not written yet complete exceptionally. */
+  @Override
+  void close();
+}
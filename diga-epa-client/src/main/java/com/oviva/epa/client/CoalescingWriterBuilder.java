@@ -0,0 +1,38 @@
+package com.oviva.epa.client;
+
+import com.oviva.epa.client.internal.BulkDocumentWriter;
+import com.oviva.epa.client.internal.CoalescingWriterImpl;
+
+public class CoalescingWriterBuilder {
+
+  private KonnektorService service;
+  private int concurrency = BulkDocumentWriter.DEFAULT_CONCURRENCY;
+
+  private CoalescingWriterBuilder() {}
+
+  public static CoalescingWriterBuilder newBuilder() {
+    return new CoalescingWriterBuilder();
+  }
+
+  public CoalescingWriterBuilder service(KonnektorService service) {
+    this.service = service;
+    return this;
+  }
+
+  /** number of documents written concurrently across all keys, defaults to 4 */
+  public CoalescingWriterBuilder concurrency(int concurrency) {
+    this.concurrency = concurrency;
+    return this;
+  }
+
+  public CoalescingWriter build() {
+    if (service == null) {
+      throw new IllegalArgumentException("service missing");
+    }
+    if (concurrency < 1) {
+      throw new IllegalArgumentException("concurrency must be positive");
+    }
+
+    return new CoalescingWriterImpl(service, concurrency);
+  }
+}
@@ -0,0 +1,148 @@
+package com.oviva.epa.client;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the content last written per health record and document type, see {@link
+ * KonnektorServiceBuilder#deduplicationIndex(DeduplicationIndex)}. Uploads of a document whose
+ * content did not change since are skipped.
+ *
+ * <p>The index holds at most {@code maxEntries}, the least recently used are evicted first. An
+ * evicted or unknown document is simply written again.
+ *
+ * <p>The index can be {@link #save(Path) saved} and {@link #load(Path, int) loaded} again to
+ * survive restarts. The file contains KVNRs and must be protected accordingly.
+ */
+public final class DeduplicationIndex {
+
+  private static final String SEPARATOR = "\t";
+
+  private final int maxEntries;
+
+  // access ordered, guarded by itself
+  private final LinkedHashMap<Key, Entry> entries;
+
+  private record Key(String kvnr, String typeCode) {}
+
+  /**
+   * @param hash hex encoded SHA-256 of the content last written
+   * @param requestId the request id of the Konnektor when it was written
+   */
+  public record Entry(@NonNull String hash, @NonNull String requestId) {}
+
+  private DeduplicationIndex(int maxEntries) {
+    this.maxEntries = maxEntries;
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > DeduplicationIndex.this.maxEntries;
+          }
+        };
+  }
+
+  /** an empty index */
+  @NonNull
+  public static DeduplicationIndex create(int maxEntries) {
+    if (maxEntries < 1) {
+      throw new IllegalArgumentException("maxEntries must be positive");
+    }
+    return new DeduplicationIndex(maxEntries);
+  }
+
+  /**
+   * Loads an index saved before, a missing file yields an empty index. Malformed lines are skipped,
+   * their documents are written again.
+   */
+  @NonNull
+  public static DeduplicationIndex load(@NonNull Path file, int maxEntries) {
+    var index = create(maxEntries);
+
+    try (var lines = Files.lines(file, StandardCharsets.UTF_8)) {
+      lines.forEachOrdered(
+          line -> {
+            var fields = line.split(SEPARATOR, -1);
+            if (fields.length == 4) {
+              index.put(fields[0], fields[1], new Entry(fields[2], fields[3]));
+            }
+          });
+    } catch (NoSuchFileException e) {
+      return index;
+    } catch (IOException e) {
+      throw new UncheckedIOException(
+          "failed to load deduplication index from %s".formatted(file), e);
+    }
+    return index;
+  }
+
+  /**
+   * Saves the index to the given file, replacing it atomically. Entries are written from least to
+   * most recently used, loading them again keeps that order.
+   */
+  public void save(@NonNull Path file) {
+    var lines = new ArrayList<String>();
+    synchronized (entries) {
+      entries.forEach(
+          (k, v) ->
+              lines.add(String.join(SEPARATOR, k.kvnr(), k.typeCode(), v.hash(), v.requestId())));
+    }
+
+    try {
+      var dir = file.toAbsolutePath().getParent();
+      var tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+      try {
+        Files.write(tmp, lines, StandardCharsets.UTF_8);
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } finally {
+        Files.deleteIfExists(tmp);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("failed to save deduplication index to %s".formatted(file), e);
+    }
+  }
+
+  /** the content last written for the record and document type, if known */
+  @Nullable
+  public Entry get(@NonNull String kvnr, @NonNull String typeCode) {
+    synchronized (entries) {
+      return entries.get(new Key(kvnr, typeCode));
+    }
+  }
+
+  public void put(@NonNull String kvnr, @NonNull String typeCode, @NonNull Entry entry) {
+    if (kvnr.contains(SEPARATOR) || typeCode.contains(SEPARATOR)) {
+      // can't be saved, would only ever be written anyway
+      return;
+    }
+    synchronized (entries) {
+      entries.put(new Key(kvnr, typeCode), entry);
+    }
+  }
+
+  /**
+   * Forgets everything known for the record, e.g. after documents were deleted from it. The next
+   * upload is written regardless of its content.
+   */
+  public void invalidate(@NonNull String kvnr) {
+    synchronized (entries) {
+      entries.keySet().removeIf(k -> k.kvnr().equals(kvnr));
+    }
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+}
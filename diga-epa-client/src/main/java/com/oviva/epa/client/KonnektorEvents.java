@@ -0,0 +1,24 @@
+package com.oviva.epa.client;
+
+import com.oviva.epa.client.model.KonnektorEvent;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.function.Consumer;
+
+/**
+ * Subscriptions to events of a Konnektor, e.g. cards inserted or removed. The Konnektor pushes the
+ * events to a local receiver, the subscriptions are renewed before they terminate and subscribed
+ * again if the Konnektor lost them.
+ *
+ * <p>See {@link KonnektorEventsBuilder}.
+ */
+public interface KonnektorEvents extends AutoCloseable {
+
+  /** called with every event received, on the thread reading the connection of the Konnektor */
+  void addListener(@NonNull Consumer<KonnektorEvent> listener);
+
+  void removeListener(@NonNull Consumer<KonnektorEvent> listener);
+
+  /** Unsubscribes and stops receiving events. */
+  @Override
+  void close();
+}
@@ -0,0 +1,123 @@
+package com.oviva.epa.client;
+
+import com.oviva.epa.client.internal.KonnektorEventsImpl;
+import com.oviva.epa.client.internal.svc.model.KonnektorContext;
+import com.oviva.epa.client.konn.KonnektorConnection;
+import com.oviva.epa.client.model.KonnektorEvent;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import javax.net.ssl.SSLContext;
+
+public class KonnektorEventsBuilder {
+
+  private KonnektorConnection connection;
+  private String workplaceId = "a";
+  private String mandantId = "m";
+  private String clientSystemId = "c";
+  private String userId = "admin";
+  private InetSocketAddress listenAddress = new InetSocketAddress(0);
+  private String eventToHost;
+  private SSLContext sslContext;
+  private List<String> topics =
+      List.of(KonnektorEvent.CARD_INSERTED, KonnektorEvent.CARD_REMOVED, KonnektorEvent.CARD_PIN);
+  private Duration renewBefore = Duration.ofMinutes(5);
+
+  private KonnektorEventsBuilder() {}
+
+  public static KonnektorEventsBuilder newBuilder() {
+    return new KonnektorEventsBuilder();
+  }
+
+  public KonnektorEventsBuilder connection(KonnektorConnection connection) {
+    this.connection = connection;
+    return this;
+  }
+
+  public KonnektorEventsBuilder workplaceId(String workplace) {
+    this.workplaceId = workplace;
+    return this;
+  }
+
+  public KonnektorEventsBuilder mandantId(String mandantId) {
+    this.mandantId = mandantId;
+    return this;
+  }
+
+  public KonnektorEventsBuilder clientSystemId(String clientSystemId) {
+    this.clientSystemId = clientSystemId;
+    return this;
+  }
+
+  public KonnektorEventsBuilder userId(String userId) {
+    this.userId = userId;
+    return this;
+  }
+
+  /** the local address events are received on, defaults to an ephemeral port on all interfaces */
+  public KonnektorEventsBuilder listenAddress(InetSocketAddress listenAddress) {
+    this.listenAddress = listenAddress;
+    return this;
+  }
+
+  /** the host name or address the Konnektor reaches the receiver at, required */
+  public KonnektorEventsBuilder eventToHost(String eventToHost) {
+    this.eventToHost = eventToHost;
+    return this;
+  }
+
+  /**
+   * receives the events over TLS, the Konnektor must present a client certificate the context
+   * trusts. Required in production, without it anyone reaching the port can inject events.
+   */
+  public KonnektorEventsBuilder sslContext(SSLContext sslContext) {
+    this.sslContext = sslContext;
+    return this;
+  }
+
+  /** the topics subscribed to, defaults to cards inserted and removed as well as PIN events */
+  public KonnektorEventsBuilder topics(List<String> topics) {
+    this.topics = topics;
+    return this;
+  }
+
+  /** how long before their termination subscriptions are renewed, defaults to 5 minutes */
+  public KonnektorEventsBuilder renewBefore(Duration renewBefore) {
+    this.renewBefore = renewBefore;
+    return this;
+  }
+
+  /** starts receiving and subscribes, fails if the Konnektor refuses a subscription */
+  public KonnektorEvents build() {
+    if (connection == null) {
+      throw new IllegalArgumentException("konnektor connection required");
+    }
+    if (workplaceId == null || mandantId == null || clientSystemId == null) {
+      throw new IllegalArgumentException("workplaceId, mandantId and clientSystemId required");
+    }
+    if (listenAddress == null) {
+      throw new IllegalArgumentException("listenAddress required");
+    }
+    if (eventToHost == null || eventToHost.isBlank()) {
+      throw new IllegalArgumentException("eventToHost required");
+    }
+    if (topics == null || topics.isEmpty()) {
+      throw new IllegalArgumentException("at least one topic required");
+    }
+    if (renewBefore == null || renewBefore.isNegative()) {
+      throw new IllegalArgumentException("renewBefore must not be negative");
+    }
+
+    var events =
+        new KonnektorEventsImpl(
+            connection.eventService(),
+            new KonnektorContext(mandantId, clientSystemId, workplaceId, userId),
+            listenAddress,
+            sslContext,
+            eventToHost,
+            topics,
+            renewBefore);
+    events.start();
+    return events;
+  }
+}
@@ -1,14 +1,25 @@
 package com.oviva.epa.client;
 
+import com.oviva.epa.client.internal.BulkDocumentWriter;
+import com.oviva.epa.client.internal.BulkRecordResolver;
 import com.oviva.epa.client.model.*;
 import de.gematik.epa.ihe.model.document.Document;
+import de.gematik.epa.ihe.model.document.DocumentMetadata;
 import de.gematik.epa.ihe.model.simple.AuthorInstitution;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import java.security.cert.X509Certificate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
-public interface KonnektorService {
+public interface KonnektorService extends AutoCloseable {
+  /**
+   * The institutions of all inserted SMC-Bs. Fails if any of the cards could not be read, rather
+   * than leaving it out.
+   */
   @NonNull
   List<AuthorInstitution> getAuthorInstitutions();
 
@@ -21,6 +32,19 @@ public interface KonnektorService {
   @NonNull
   X509Certificate readEccAuthenticationCertificateForCard(@NonNull String cardHandle);
 
+  /**
+   * Reads the certificates of several cards, e.g. of all SMC-Bs after startup. All references of a
+   * crypt type are read with a single call per card, cards are read concurrently. References a card
+   * has no certificate for are left out.
+   *
+   * @return the certificates in order of the card handles
+   */
+  @NonNull
+  List<CardCertificate> readCardCertificates(
+      @NonNull Collection<String> cardHandles,
+      @NonNull Set<CardCertificate.Ref> refs,
+      @NonNull Set<CardCertificate.Crypt> crypts);
+
   /**
    * Uses the AuthSignatureServiceBinding::ExternalAuthenticate method of a specified card to sign
    * arbitrary bytes.
@@ -54,6 +78,21 @@ public interface KonnektorService {
   @NonNull
   PinStatus verifySmcPin(@NonNull String cardHandle);
 
+  /**
+   * Signs many contents as CMS signatures with a single SignDocument call, the card is unlocked
+   * once for all of them. A request the Konnektor failed to sign does not fail the others, its
+   * error is part of its result.
+   *
+   * @param cardHandle the handle of the card used to sign, e.g. an SMC-B
+   * @param crypt the key of the card to sign with
+   * @return a result per request in the order of the requests
+   */
+  @NonNull
+  List<SignatureResult> signDocuments(
+      @NonNull String cardHandle,
+      @NonNull CardCertificate.Crypt crypt,
+      @NonNull List<SignatureRequest> requests);
+
   /** Determines the authorization state for a given electronic health record. */
   @NonNull
   List<AuthorizedApplication> getAuthorizationState(@NonNull RecordIdentifier recordIdentifier);
@@ -70,6 +109,17 @@ public interface KonnektorService {
   @NonNull
   List<AuthorizationEntry> getAuthorizationList();
 
+  /**
+   * Like {@link #getAuthorizationList()}, though the entries are handed to the consumer as they are
+   * read from the response instead of collecting them, memory stays flat no matter how many
+   * insurants authorized. The consumer is called on the thread reading the response, an exception
+   * thrown by it aborts the call.
+   *
+   * <p>The list is only complete once this returns. If the Konnektor answers with an error after
+   * entries were handed out already, this still throws.
+   */
+  void getAuthorizationList(@NonNull Consumer<AuthorizationEntry> consumer);
+
   @NonNull
   WriteDocumentResponse writeDocument(
       @NonNull RecordIdentifier recordIdentifier, @NonNull Document document);
@@ -80,6 +130,88 @@ public interface KonnektorService {
       @NonNull Document document,
       @NonNull UUID documentToReplaceId);
 
+  /**
+   * Writes a document whose content is streamed from the given source as MTOM attachment, the heap
+   * needed does not depend on the document size. The size and hash of the metadata are taken from
+   * the source.
+   */
+  @NonNull
+  WriteDocumentResponse writeDocument(
+      @NonNull RecordIdentifier recordIdentifier,
+      @NonNull DocumentMetadata metadata,
+      @NonNull DocumentSource content);
+
+  /**
+   * Replaces a document with content streamed from the given source.
+   *
+   * @see #writeDocument(RecordIdentifier, DocumentMetadata, DocumentSource)
+   */
+  @NonNull
+  WriteDocumentResponse replaceDocument(
+      @NonNull RecordIdentifier recordIdentifier,
+      @NonNull DocumentMetadata metadata,
+      @NonNull DocumentSource content,
+      @NonNull UUID documentToReplaceId);
+
+  /**
+   * Writes several documents into one health record with a single submission set, e.g. a MIO bundle
+   * along with its PDF rendition. The submission is atomic, either all documents are written or
+   * none.
+   *
+   * @throws WriteDocumentException if the registry rejects the submission, see {@link
+   *     WriteDocumentException#errorsByDocument()} for the errors per document
+   */
+  @NonNull
+  WriteDocumentResponse writeDocumentSet(
+      @NonNull RecordIdentifier recordIdentifier, @NonNull List<Document> documents);
+
+  /**
+   * Replaces several documents of one health record with a single submission set.
+   *
+   * @see #writeDocumentSet(RecordIdentifier, List)
+   */
+  @NonNull
+  WriteDocumentResponse replaceDocumentSet(
+      @NonNull RecordIdentifier recordIdentifier, @NonNull List<DocumentReplacement> replacements);
+
+  /**
+   * Writes or replaces many documents, at most one submission per health record runs at a time.
+   * Writing starts right away, the stream yields a result per request as they complete. A failing
+   * request does not stop the others, its error is part of its result.
+   *
+   * <p>The stream must be consumed or closed, closing it early stops submitting further requests.
+   * Every request goes through {@link #writeDocument(RecordIdentifier, Document)} or {@link
+   * #replaceDocument(RecordIdentifier, Document, UUID)} of this service. Services built by {@link
+   * KonnektorServiceBuilder} use its bulk settings, others write with the defaults.
+   */
+  @NonNull
+  default Stream<WriteResult> writeDocuments(@NonNull Collection<WriteRequest> requests) {
+    return BulkDocumentWriter.defaultWriter().write(this, requests);
+  }
+
+  /**
+   * Resolves the health record of many KVNRs, i.e. looks up the home community ID and the
+   * authorization state of each. KVNRs are resolved concurrently, the stream yields a result per
+   * distinct KVNR as they complete. A failing KVNR does not stop the others, its error is part of
+   * its result.
+   *
+   * <p>The stream must be consumed or closed, closing it early stops resolving further KVNRs. Every
+   * KVNR goes through {@link #getHomeCommunityID(String)} and {@link
+   * #getAuthorizationState(RecordIdentifier)} of this service. Services built by {@link
+   * KonnektorServiceBuilder} use its bulk settings, others resolve with the defaults.
+   */
+  @NonNull
+  default Stream<RecordResolution> resolveRecords(@NonNull Collection<String> kvnrs) {
+    return BulkRecordResolver.defaultResolver().resolve(this, kvnrs);
+  }
+
   @NonNull
   String getHomeCommunityID(@NonNull String kvnr);
+
+  /**
+   * Stops background work of the service, e.g. listening to card events. Requests already running
+   * are not affected.
+   */
+  @Override
+  default void close() {}
 }
@@ -1,18 +1,53 @@
 package com.oviva.epa.client;
 
+import com.oviva.epa.client.internal.AsyncKonnektorServiceImpl;
+import com.oviva.epa.client.internal.AuthorizationStateCachingKonnektorService;
+import com.oviva.epa.client.internal.BulkDocumentWriter;
+import com.oviva.epa.client.internal.BulkKonnektorService;
+import com.oviva.epa.client.internal.BulkRecordResolver;
+import com.oviva.epa.client.internal.DeduplicatingKonnektorService;
+import com.oviva.epa.client.internal.ExceptionMappedAsyncKonnektorService;
 import com.oviva.epa.client.internal.ExceptionMappedKonnektorService;
 import com.oviva.epa.client.internal.KonnektorServiceImpl;
+import com.oviva.epa.client.internal.PooledKonnektorService;
+import com.oviva.epa.client.internal.svc.CardCertificateCache;
+import com.oviva.epa.client.internal.svc.CardRegistry;
+import com.oviva.epa.client.internal.svc.HomeCommunityIdCache;
 import com.oviva.epa.client.internal.svc.model.KonnektorContext;
 import com.oviva.epa.client.konn.KonnektorConnection;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 public class KonnektorServiceBuilder {
 
-  private KonnektorConnection connection;
+  private List<KonnektorConnection> connections;
+  private Duration ejectionTime = Duration.ofSeconds(30);
+  private int maxFailures = 3;
+  private boolean routeByKvnr;
   private String workplaceId = "a";
   private String mandantId = "m";
   private String clientSystemId = "c";
   private String userId = "admin";
   private String userAgent = "DiGA-Lib-Test/0.0.1";
+  private Executor executor = ForkJoinPool.commonPool();
+  private int bulkWriteConcurrency = BulkDocumentWriter.DEFAULT_CONCURRENCY;
+  private int bulkResolveConcurrency = BulkRecordResolver.DEFAULT_CONCURRENCY;
+  private double bulkResolveRate;
+  private DeduplicationIndex deduplicationIndex;
+  private AuthorizationStateCache authorizationStateCache;
+  private Duration homeCommunityIdTtl = Duration.ZERO;
+  private Duration homeCommunityIdNegativeTtl = Duration.ZERO;
+  private Set<Integer> homeCommunityIdNoRecordCodes = Set.of();
+  private int homeCommunityIdMaxEntries;
+  private Duration cardRegistryTtl = Duration.ZERO;
+  private int cardCertificateCacheSize;
+  private KonnektorEvents konnektorEvents;
+  private CardSigningScheduler signingScheduler;
 
   private KonnektorServiceBuilder() {}
 
@@ -21,7 +56,37 @@ public class KonnektorServiceBuilder {
   }
 
   public KonnektorServiceBuilder connection(KonnektorConnection connection) {
-    this.connection = connection;
+    this.connections = connection == null ? null : List.of(connection);
+    return this;
+  }
+
+  /**
+   * Connections to several Konnektors, calls are balanced over them. Konnektors failing repeatedly
+   * are ejected for a while, see {@link #ejectionTime(Duration)}.
+   */
+  public KonnektorServiceBuilder connections(List<KonnektorConnection> connections) {
+    this.connections = connections;
+    return this;
+  }
+
+  /** how long a failing Konnektor is not used when pooling several, defaults to 30 seconds */
+  public KonnektorServiceBuilder ejectionTime(Duration ejectionTime) {
+    this.ejectionTime = ejectionTime;
+    return this;
+  }
+
+  /** consecutive transport errors after which a pooled Konnektor is ejected, defaults to 3 */
+  public KonnektorServiceBuilder maxFailures(int maxFailures) {
+    this.maxFailures = maxFailures;
+    return this;
+  }
+
+  /**
+   * Routes all calls for the same KVNR to the same pooled Konnektor as long as it is available,
+   * e.g. to profit from its caches.
+   */
+  public KonnektorServiceBuilder routeByKvnr(boolean routeByKvnr) {
+    this.routeByKvnr = routeByKvnr;
     return this;
   }
 
@@ -51,9 +116,245 @@ public class KonnektorServiceBuilder {
     return this;
   }
 
+  /**
+   * executor completing the futures of the {@link AsyncKonnektorService}, defaults to the common
+   * {@link ForkJoinPool}
+   */
+  public KonnektorServiceBuilder executor(Executor executor) {
+    this.executor = executor;
+    return this;
+  }
+
+  /**
+   * the maximum number of concurrent submissions of {@link
+   * KonnektorService#writeDocuments(java.util.Collection)}, defaults to 4
+   */
+  public KonnektorServiceBuilder bulkWriteConcurrency(int bulkWriteConcurrency) {
+    this.bulkWriteConcurrency = bulkWriteConcurrency;
+    return this;
+  }
+
+  /**
+   * the maximum number of KVNRs resolved concurrently by {@link
+   * KonnektorService#resolveRecords(java.util.Collection)}, defaults to 8
+   */
+  public KonnektorServiceBuilder bulkResolveConcurrency(int bulkResolveConcurrency) {
+    this.bulkResolveConcurrency = bulkResolveConcurrency;
+    return this;
+  }
+
+  /**
+   * the maximum rate of Konnektor calls per second made by {@link
+   * KonnektorService#resolveRecords(java.util.Collection)}, each KVNR takes two calls. Defaults to
+   * 0, no limit.
+   */
+  public KonnektorServiceBuilder bulkResolveRate(double callsPerSecond) {
+    this.bulkResolveRate = callsPerSecond;
+    return this;
+  }
+
+  /**
+   * Skips writing a document if its content is the same as the one last written for the record and
+   * document type, the request id of that write is returned instead. Not enabled by default.
+   */
+  public KonnektorServiceBuilder deduplicationIndex(DeduplicationIndex deduplicationIndex) {
+    this.deduplicationIndex = deduplicationIndex;
+    return this;
+  }
+
+  /**
+   * Answers {@link
+   * KonnektorService#getAuthorizationState(com.oviva.epa.client.model.RecordIdentifier)} from the
+   * cache until the authorizations expire. Keep a reference to read its counters or to invalidate
+   * entries. Not enabled by default.
+   */
+  public KonnektorServiceBuilder authorizationStateCache(
+      AuthorizationStateCache authorizationStateCache) {
+    this.authorizationStateCache = authorizationStateCache;
+    return this;
+  }
+
+  /**
+   * Caches the home community ID of a KVNR for the given TTL, e.g. 24 hours. The cache is seeded by
+   * {@link KonnektorService#getAuthorizationList()}, a write failing for a record drops the ID of
+   * its KVNR. Not enabled by default.
+   *
+   * <p>KVNRs the Konnektor answered a fault with one of the given trace codes for, i.e. the codes
+   * the Konnektor in use reports a KVNR without record with, are cached for the negative TTL. Other
+   * faults are never cached.
+   */
+  public KonnektorServiceBuilder homeCommunityIdCache(
+      Duration ttl, int maxEntries, Duration negativeTtl, Set<Integer> noRecordCodes) {
+    this.homeCommunityIdTtl = ttl;
+    this.homeCommunityIdMaxEntries = maxEntries;
+    this.homeCommunityIdNegativeTtl = negativeTtl;
+    this.homeCommunityIdNoRecordCodes = noRecordCodes;
+    return this;
+  }
+
+  /**
+   * Caches the home community ID of a KVNR for the given TTL, faults are not cached.
+   *
+   * @see #homeCommunityIdCache(Duration, int, Duration, Set)
+   */
+  public KonnektorServiceBuilder homeCommunityIdCache(Duration ttl, int maxEntries) {
+    return homeCommunityIdCache(ttl, maxEntries, Duration.ZERO, Set.of());
+  }
+
+  /**
+   * How long the cards of a Konnektor are cached, e.g. one minute, all card types are fetched in
+   * one call. A call failing for an unknown card handle drops them earlier, as do card events of
+   * {@link #konnektorEvents(KonnektorEvents)}. Not enabled by default, every call asks the
+   * Konnektor.
+   */
+  public KonnektorServiceBuilder cardRegistryTtl(Duration cardRegistryTtl) {
+    this.cardRegistryTtl = cardRegistryTtl;
+    return this;
+  }
+
+  /**
+   * The maximum number of card certificates cached per Konnektor, e.g. 1000. They are kept until
+   * they expire or the card is removed, see {@link #konnektorEvents(KonnektorEvents)}. Not enabled
+   * by default, every read asks the Konnektor.
+   */
+  public KonnektorServiceBuilder cardCertificateCacheSize(int cardCertificateCacheSize) {
+    this.cardCertificateCacheSize = cardCertificateCacheSize;
+    return this;
+  }
+
+  /**
+   * Drops the cached cards on every card event received, e.g. a card inserted or removed, and the
+   * certificates of removed cards. {@link KonnektorService#close() Closing} the service stops
+   * listening.
+   */
+  public KonnektorServiceBuilder konnektorEvents(KonnektorEvents konnektorEvents) {
+    this.konnektorEvents = konnektorEvents;
+    return this;
+  }
+
+  /**
+   * Limits the signatures running at once per card and queues further callers fairly, see {@link
+   * CardSigningScheduler}. Keep a reference to read its metrics. Not enabled by default. All pooled
+   * Konnektors share the scheduler, each with lanes of its own for its cards.
+   */
+  public KonnektorServiceBuilder signingScheduler(CardSigningScheduler signingScheduler) {
+    this.signingScheduler = signingScheduler;
+    return this;
+  }
+
   public KonnektorService build() {
+    if (bulkWriteConcurrency < 1) {
+      throw new IllegalArgumentException("bulkWriteConcurrency must be positive");
+    }
+    var bulkWriter = new BulkDocumentWriter(bulkWriteConcurrency);
+
+    if (bulkResolveConcurrency < 1) {
+      throw new IllegalArgumentException("bulkResolveConcurrency must be positive");
+    }
+    if (bulkResolveRate < 0 || Double.isNaN(bulkResolveRate)) {
+      throw new IllegalArgumentException("bulkResolveRate must not be negative");
+    }
+    var bulkResolver = new BulkRecordResolver(bulkResolveConcurrency, bulkResolveRate);
+
+    var svc = buildService();
+    if (authorizationStateCache != null) {
+      svc = new AuthorizationStateCachingKonnektorService(svc, authorizationStateCache);
+    }
+    if (deduplicationIndex != null) {
+      svc = new DeduplicatingKonnektorService(svc, deduplicationIndex);
+    }
+
+    // outermost, every single write and lookup goes through all decorators
+    return new BulkKonnektorService(svc, bulkWriter, bulkResolver);
+  }
+
+  private KonnektorService buildService() {
+
+    var ctx = validate();
+
+    var homeCommunityIds = homeCommunityIdCache();
+
+    if (cardRegistryTtl == null || cardRegistryTtl.isNegative()) {
+      throw new IllegalArgumentException("cardRegistryTtl must not be negative");
+    }
+    if (cardCertificateCacheSize < 0) {
+      throw new IllegalArgumentException("cardCertificateCacheSize must not be negative");
+    }
+
+    if (connections.size() == 1) {
+      var svc = newNode(connections.get(0), ctx, homeCommunityIds);
+      return new ExceptionMappedKonnektorService(svc);
+    }
+
+    if (ejectionTime == null || ejectionTime.isNegative()) {
+      throw new IllegalArgumentException("ejectionTime must not be negative");
+    }
+
+    List<KonnektorService> nodes =
+        connections.stream().<KonnektorService>map(c -> newNode(c, ctx, homeCommunityIds)).toList();
+    var pool = new PooledKonnektorService(nodes, ejectionTime, maxFailures, routeByKvnr);
+    return new ExceptionMappedKonnektorService(pool);
+  }
+
+  /** builds the non-blocking variant, pooling several Konnektors is not supported yet */
+  public AsyncKonnektorService buildAsync() {
+
+    var ctx = validate();
+    if (connections.size() != 1) {
+      throw new IllegalArgumentException("exactly one konnektor connection required");
+    }
+
+    if (executor == null) {
+      throw new IllegalArgumentException("executor required");
+    }
+
+    var svc =
+        new AsyncKonnektorServiceImpl(
+            userAgent, connections.get(0), ctx, executor, homeCommunityIdCache());
+    return new ExceptionMappedAsyncKonnektorService(svc);
+  }
+
+  private KonnektorServiceImpl newNode(
+      KonnektorConnection connection, KonnektorContext ctx, HomeCommunityIdCache homeCommunityIds) {
+
+    // card handles are only valid for the Konnektor that issued them
+    var options =
+        new KonnektorServiceImpl.Options(
+            homeCommunityIds,
+            new CardRegistry(cardRegistryTtl),
+            new CardCertificateCache(cardCertificateCacheSize),
+            signingScheduler != null ? signingScheduler : CardSigningScheduler.disabled(),
+            KonnektorServiceImpl.newCardReader(),
+            konnektorEvents);
+    return new KonnektorServiceImpl(userAgent, connection, ctx, options);
+  }
+
+  private HomeCommunityIdCache homeCommunityIdCache() {
+    if (homeCommunityIdMaxEntries < 0) {
+      throw new IllegalArgumentException("homeCommunityIdMaxEntries must not be negative");
+    }
+    if (homeCommunityIdMaxEntries == 0) {
+      return HomeCommunityIdCache.disabled();
+    }
+    if (homeCommunityIdTtl == null
+        || homeCommunityIdNegativeTtl == null
+        || homeCommunityIdTtl.isNegative()
+        || homeCommunityIdNegativeTtl.isNegative()) {
+      throw new IllegalArgumentException("home community ID TTLs must not be negative");
+    }
+    if (homeCommunityIdNoRecordCodes == null) {
+      throw new IllegalArgumentException("home community ID no record codes missing");
+    }
+    var noRecordCodes =
+        homeCommunityIdNoRecordCodes.stream()
+            .map(BigInteger::valueOf)
+            .collect(Collectors.toUnmodifiableSet());
+    return new HomeCommunityIdCache(
+        homeCommunityIdTtl, homeCommunityIdNegativeTtl, noRecordCodes, homeCommunityIdMaxEntries);
+  }
 
-    if (connection == null) {
+  private KonnektorContext validate() {
+    if (connections == null || connections.isEmpty()) {
       throw new IllegalArgumentException("konnektor connection required");
     }
 
@@ -69,8 +370,6 @@ public class KonnektorServiceBuilder {
       throw new IllegalArgumentException("clientSystemId required");
     }
 
-    var ctx = new KonnektorContext(mandantId, clientSystemId, workplaceId, userId);
-    var svc = new KonnektorServiceImpl(userAgent, connection, ctx);
-    return new ExceptionMappedKonnektorService(svc);
+    return new KonnektorContext(mandantId, clientSystemId, workplaceId, userId);
   }
 }
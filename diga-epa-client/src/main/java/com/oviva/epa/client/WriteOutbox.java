@@ -0,0 +1,40 @@
+package com.oviva.epa.client;
+
+import com.oviva.epa.client.model.WriteDocumentResponse;
+import com.oviva.epa.client.model.WriteRequest;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A persistent outbox in front of {@link KonnektorService#writeDocument} and {@link
+ * KonnektorService#replaceDocument}. Requests are recorded in a local log before they are written,
+ * requests not completed when the process dies are written once it starts again.
+ *
+ * <p>Writes are at least once: a request that was written but whose completion was not recorded yet
+ * is written again after a restart. Requests are not necessarily written in the order they were
+ * submitted.
+ *
+ * <p>See {@link WriteOutboxBuilder}.
+ */
+public interface WriteOutbox extends AutoCloseable {
+
+  /**
+   * Records the request in the outbox, it is written in the background.
+   *
+   * <p>Returns once the request is durably stored. The returned future completes once the document
+   * was written, or exceptionally if it was rejected or the outbox closed before. Requests failing
+   * due to transport errors are retried.
+   */
+  @NonNull
+  CompletableFuture<WriteDocumentResponse> submit(@NonNull WriteRequest request);
+
+  /** number of requests recorded but not yet completed */
+  int pending();
+
+  /**
+   * Stops writing, requests not completed yet remain in the outbox. Their futures complete
+   * exceptionally.
+   */
+  @Override
+  void close();
+}
@@ -0,0 +1,133 @@
+package com.oviva.epa.client;
+
+import com.oviva.epa.client.internal.BulkDocumentWriter;
+import com.oviva.epa.client.internal.outbox.WriteOutboxImpl;
+import com.oviva.epa.client.model.WriteResult;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.function.Consumer;
+
+public class WriteOutboxBuilder {
+
+  private KonnektorService service;
+  private Path directory;
+  private int concurrency = BulkDocumentWriter.DEFAULT_CONCURRENCY;
+  private long segmentSize = 64L * 1024 * 1024;
+  private Duration syncDelay = Duration.ofMillis(2);
+  private Duration initialBackoff = Duration.ofSeconds(1);
+  private Duration maxBackoff = Duration.ofMinutes(5);
+  private int maxAttempts = 100;
+  private Consumer<WriteResult> onResult = r -> {};
+
+  private WriteOutboxBuilder() {}
+
+  public static WriteOutboxBuilder newBuilder() {
+    return new WriteOutboxBuilder();
+  }
+
+  public WriteOutboxBuilder service(KonnektorService service) {
+    this.service = service;
+    return this;
+  }
+
+  /** directory of the log, should be on persistent storage of this instance only */
+  public WriteOutboxBuilder directory(Path directory) {
+    this.directory = directory;
+    return this;
+  }
+
+  /**
+   * number of documents written concurrently, should match what the Konnektor can take, defaults to
+   * 4
+   */
+  public WriteOutboxBuilder concurrency(int concurrency) {
+    this.concurrency = concurrency;
+    return this;
+  }
+
+  /** size after which a new log segment is started, defaults to 64MiB */
+  public WriteOutboxBuilder segmentSize(long segmentSize) {
+    this.segmentSize = segmentSize;
+    return this;
+  }
+
+  /**
+   * how long to wait for more submissions before syncing the log to disk, trades latency of {@link
+   * WriteOutbox#submit} for fewer syncs, defaults to 2ms
+   */
+  public WriteOutboxBuilder syncDelay(Duration syncDelay) {
+    this.syncDelay = syncDelay;
+    return this;
+  }
+
+  /**
+   * backoff for requests failing due to transport errors, doubles with every attempt up to the
+   * given max, defaults to 1s and 5min
+   */
+  public WriteOutboxBuilder backoff(Duration initialBackoff, Duration maxBackoff) {
+    this.initialBackoff = initialBackoff;
+    this.maxBackoff = maxBackoff;
+    return this;
+  }
+
+  /**
+   * attempts per request and run after which a request still failing due to transport errors is
+   * given up and completed with the last error, defaults to 100, about 8 hours with the default
+   * backoff
+   */
+  public WriteOutboxBuilder maxAttempts(int maxAttempts) {
+    this.maxAttempts = maxAttempts;
+    return this;
+  }
+
+  /**
+   * Called for every request completed or rejected, including the ones recorded by a previous run.
+   * Called from the threads writing the documents, must not block.
+   */
+  public WriteOutboxBuilder onResult(Consumer<WriteResult> onResult) {
+    this.onResult = onResult;
+    return this;
+  }
+
+  /** Opens the outbox and starts writing the requests left over from a previous run. */
+  public WriteOutbox build() {
+    if (service == null) {
+      throw new IllegalArgumentException("service missing");
+    }
+    if (directory == null) {
+      throw new IllegalArgumentException("directory missing");
+    }
+    if (concurrency < 1) {
+      throw new IllegalArgumentException("concurrency must be positive");
+    }
+    if (segmentSize < 1) {
+      throw new IllegalArgumentException("segmentSize must be positive");
+    }
+    if (syncDelay == null || syncDelay.isNegative()) {
+      throw new IllegalArgumentException("syncDelay must not be negative");
+    }
+    if (initialBackoff == null
+        || maxBackoff == null
+        || initialBackoff.isNegative()
+        || maxBackoff.compareTo(initialBackoff) < 0) {
+      throw new IllegalArgumentException("invalid backoff");
+    }
+    if (maxAttempts < 1) {
+      throw new IllegalArgumentException("maxAttempts must be positive");
+    }
+    if (onResult == null) {
+      throw new IllegalArgumentException("onResult missing");
+    }
+
+    return WriteOutboxImpl.open(
+        service,
+        directory,
+        concurrency,
+        segmentSize,
+        syncDelay,
+        initialBackoff,
+        maxBackoff,
+        maxAttempts,
+        onResult);
+  }
+}
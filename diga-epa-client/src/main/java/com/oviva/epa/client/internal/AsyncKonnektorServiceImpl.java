@@ -0,0 +1,223 @@
+package com.oviva.epa.client.internal;
+
+import com.oviva.epa.client.AsyncKonnektorService;
+import com.oviva.epa.client.internal.svc.*;
+import com.oviva.epa.client.internal.svc.model.KonnektorContext;
+import com.oviva.epa.client.internal.svc.phr.PhrServiceClient;
+import com.oviva.epa.client.internal.svc.utils.Digest;
+import com.oviva.epa.client.konn.KonnektorConnection;
+import com.oviva.epa.client.model.*;
+import de.gematik.epa.ihe.model.document.Document;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.security.cert.X509Certificate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import telematik.ws.conn.exception.FaultMessageException;
+
+/**
+ * Asynchronous counterpart of {@link KonnektorServiceImpl}, requests and responses are built and
+ * validated the same way.
+ */
+public class AsyncKonnektorServiceImpl implements AsyncKonnektorService {
+
+  private final Executor executor;
+  private final HomeCommunityIdCache homeCommunityIdCache;
+  private final CardServiceClient cardServiceClient;
+  private final PhrManagementServiceClient phrManagementServiceClient;
+  private final PhrServiceClient phrServiceClient;
+  private final CertificateServiceClient certificateServiceClient;
+  private final AuthSignatureServiceClient authSignatureServiceClient;
+
+  public AsyncKonnektorServiceImpl(
+      String userAgent,
+      KonnektorConnection connection,
+      KonnektorContext konnektorContext,
+      Executor executor) {
+    this(userAgent, connection, konnektorContext, executor, HomeCommunityIdCache.disabled());
+  }
+
+  public AsyncKonnektorServiceImpl(
+      String userAgent,
+      KonnektorConnection connection,
+      KonnektorContext konnektorContext,
+      Executor executor,
+      HomeCommunityIdCache homeCommunityIdCache) {
+    this.executor = executor;
+    this.homeCommunityIdCache = homeCommunityIdCache;
+
+    var eventServiceClient = new EventServiceClient(connection.eventService(), konnektorContext);
+
+    cardServiceClient =
+        new CardServiceClient(connection.cardService(), konnektorContext, eventServiceClient);
+
+    phrServiceClient = new PhrServiceClient(connection.phrService(), konnektorContext);
+
+    phrManagementServiceClient =
+        new PhrManagementServiceClient(
+            connection.phrManagementService(), konnektorContext, userAgent, homeCommunityIdCache);
+
+    certificateServiceClient =
+        new CertificateServiceClient(connection.certificateService(), konnektorContext);
+
+    authSignatureServiceClient =
+        new AuthSignatureServiceClient(connection.authSignatureService(), konnektorContext);
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<X509Certificate> readRsaAuthenticationCertificateForCard(
+      @NonNull String cardHandle) {
+    return submit(
+        () ->
+            certificateServiceClient.readRsaAuthenticationCertificateForCardAsync(
+                cardHandle, executor));
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<X509Certificate> readEccAuthenticationCertificateForCard(
+      @NonNull String cardHandle) {
+    return submit(
+        () ->
+            certificateServiceClient.readEccAuthenticationCertificateForCardAsync(
+                cardHandle, executor));
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<byte[]> authSignRsaPss(@NonNull String cardHandle, byte[] bytesToSign) {
+    return submit(
+        () -> {
+          var hash = Digest.sha256(bytesToSign);
+          return authSignatureServiceClient.signAuthHashRsaPssAsync(cardHandle, hash, executor);
+        });
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<byte[]> authSignEcdsa(@NonNull String cardHandle, byte[] bytesToSign) {
+    return submit(
+        () -> {
+          var hash = Digest.sha256(bytesToSign);
+          return authSignatureServiceClient.signAuthHashEcdsaAsync(cardHandle, hash, executor);
+        });
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<PinStatus> verifySmcPin(@NonNull String cardHandle) {
+    return submit(
+            () ->
+                cardServiceClient.getPinStatusResponseAsync(
+                    cardHandle, KonnektorServiceImpl.PIN_SMC, executor))
+        .thenApply(KonnektorServiceImpl::toPinStatus);
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<List<AuthorizedApplication>> getAuthorizationState(
+      @NonNull RecordIdentifier recordIdentifier) {
+    return submit(
+            () ->
+                phrManagementServiceClient.getAuthorizationStateAsync(
+                    recordIdentifier.kvnr(), recordIdentifier.homeCommunityId(), executor))
+        .thenApply(KonnektorServiceImpl::toAuthorizedApplications);
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<List<AuthorizationEntry>> getAuthorizationList() {
+    return submit(() -> phrManagementServiceClient.getAuthorizationListAsync(executor))
+        .thenApply(KonnektorServiceImpl::toAuthorizationEntries);
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<WriteDocumentResponse> writeDocument(
+      @NonNull RecordIdentifier recordIdentifier, @NonNull Document document) {
+    return writeDocumentSet(recordIdentifier, List.of(document));
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<WriteDocumentResponse> writeDocumentSet(
+      @NonNull RecordIdentifier recordIdentifier, @NonNull List<Document> documents) {
+    return submit(
+            () -> {
+              var phrRecordIdentifier =
+                  KonnektorServiceImpl.toPhrRecordIdentifier(recordIdentifier);
+              var req = KonnektorServiceImpl.toSubmissionRequest(phrRecordIdentifier, documents);
+              var documentIds = KonnektorServiceImpl.documentIds(req, documents);
+              return phrServiceClient
+                  .documentRepositoryProvideAndRegisterDocumentSetBAsync(
+                      phrRecordIdentifier, req, executor)
+                  .thenApply(res -> KonnektorServiceImpl.toWriteDocumentResponse(res, documentIds));
+            })
+        .whenComplete((r, e) -> invalidateHomeCommunityIdOnFailure(recordIdentifier, e));
+  }
+
+  /** the record might have moved to another provider, the next lookup asks the Konnektor again */
+  private void invalidateHomeCommunityIdOnFailure(RecordIdentifier recordIdentifier, Throwable e) {
+    if (e != null) {
+      homeCommunityIdCache.invalidate(recordIdentifier.kvnr());
+    }
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<WriteDocumentResponse> replaceDocument(
+      @NonNull RecordIdentifier recordIdentifier,
+      @NonNull Document document,
+      @NonNull UUID documentToReplaceId) {
+    return replaceDocumentSet(
+        recordIdentifier, List.of(new DocumentReplacement(document, documentToReplaceId)));
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<WriteDocumentResponse> replaceDocumentSet(
+      @NonNull RecordIdentifier recordIdentifier, @NonNull List<DocumentReplacement> replacements) {
+    return submit(
+            () -> {
+              var phrRecordIdentifier =
+                  KonnektorServiceImpl.toPhrRecordIdentifier(recordIdentifier);
+              var req = KonnektorServiceImpl.toReplaceRequest(phrRecordIdentifier, replacements);
+              var documentIds =
+                  KonnektorServiceImpl.documentIds(
+                      req, replacements.stream().map(DocumentReplacement::document).toList());
+              return phrServiceClient
+                  .documentRepositoryProvideAndRegisterDocumentSetBAsync(
+                      phrRecordIdentifier, req, executor)
+                  .thenApply(res -> KonnektorServiceImpl.toWriteDocumentResponse(res, documentIds));
+            })
+        .whenComplete((r, e) -> invalidateHomeCommunityIdOnFailure(recordIdentifier, e));
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<String> getHomeCommunityID(@NonNull String kvnr) {
+    return submit(() -> phrManagementServiceClient.getHomeCommunityIDAsync(kvnr, executor))
+        .exceptionallyCompose(
+            e -> {
+              var cause = e instanceof CompletionException ? e.getCause() : e;
+              if (cause instanceof FaultMessageException fme) {
+                return CompletableFuture.failedFuture(
+                    new KonnektorException(fme.getMessage(), fme));
+              }
+              return CompletableFuture.failedFuture(cause);
+            });
+  }
+
+  /** turns exceptions thrown while preparing a request into a failed future */
+  private static <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> request) {
+    try {
+      return request.get();
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+}
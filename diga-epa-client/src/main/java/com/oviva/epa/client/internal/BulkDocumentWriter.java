@@ -0,0 +1,153 @@
+package com.oviva.epa.client.internal;
+
+import com.oviva.epa.client.KonnektorService;
+import com.oviva.epa.client.model.KonnektorException;
+import com.oviva.epa.client.model.RecordIdentifier;
+import com.oviva.epa.client.model.WriteRequest;
+import com.oviva.epa.client.model.WriteResult;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Writes many documents with a bounded number of concurrent submissions, but never more than one at
+ * a time per health record. The Konnektor and the record system process submissions to the same
+ * record sequentially anyway, concurrent ones only risk conflicts.
+ *
+ * <p>Requests for the same record are written in the given order. Workers take turns between
+ * records, a record with many documents does not hold up the others. The workers of all calls run
+ * on one pool of the writer, idle threads end after a while.
+ */
+public class BulkDocumentWriter {
+
+  public static final int DEFAULT_CONCURRENCY = 4;
+
+  private static final Duration KEEP_ALIVE = Duration.ofMinutes(1);
+
+  private static final AtomicInteger threadCount = new AtomicInteger();
+
+  // for services not built by the KonnektorServiceBuilder
+  private static final BulkDocumentWriter DEFAULT = new BulkDocumentWriter(DEFAULT_CONCURRENCY);
+
+  private final int concurrency;
+  private final ExecutorService executor;
+
+  public BulkDocumentWriter(int concurrency) {
+    if (concurrency < 1) {
+      throw new IllegalArgumentException("concurrency must be positive");
+    }
+    this.concurrency = concurrency;
+    this.executor = newExecutor(concurrency);
+  }
+
+  /** a writer with {@link #DEFAULT_CONCURRENCY}, shared by all its users */
+  @NonNull
+  public static BulkDocumentWriter defaultWriter() {
+    return DEFAULT;
+  }
+
+  /**
+   * Starts writing right away. The returned stream yields a result per request in the order they
+   * complete, a failing request does not affect the others. Closing the stream early stops
+   * submitting further requests.
+   */
+  @NonNull
+  public Stream<WriteResult> write(
+      @NonNull KonnektorService service, @NonNull Collection<WriteRequest> requests) {
+
+    if (requests.isEmpty()) {
+      return Stream.empty();
+    }
+
+    var byRecord = new LinkedHashMap<RecordIdentifier, Queue<WriteRequest>>();
+    for (var r : requests) {
+      byRecord.computeIfAbsent(r.recordIdentifier(), k -> new ArrayDeque<>()).add(r);
+    }
+
+    // a record is in here only while no worker writes to it
+    var ready = new ConcurrentLinkedQueue<>(byRecord.values());
+    var results = new LinkedBlockingQueue<WriteResult>();
+
+    var closed = new AtomicBoolean();
+    var workers = Math.min(concurrency, byRecord.size());
+    for (int i = 0; i < workers; i++) {
+      executor.execute(() -> work(service, ready, results, closed));
+    }
+
+    return Stream.generate(() -> take(results))
+        .limit(requests.size())
+        .onClose(() -> closed.set(true));
+  }
+
+  private static void work(
+      KonnektorService service,
+      Queue<Queue<WriteRequest>> ready,
+      BlockingQueue<WriteResult> results,
+      AtomicBoolean closed) {
+
+    Queue<WriteRequest> record;
+    while (!closed.get() && (record = ready.poll()) != null) {
+      var request = record.poll();
+      results.add(write(service, request));
+
+      // back in line behind the other records
+      if (!record.isEmpty()) {
+        ready.add(record);
+      }
+    }
+  }
+
+  private static WriteResult write(KonnektorService service, WriteRequest request) {
+    try {
+      var response =
+          request.documentToReplaceId() == null
+              ? service.writeDocument(request.recordIdentifier(), request.document())
+              : service.replaceDocument(
+                  request.recordIdentifier(), request.document(), request.documentToReplaceId());
+      return new WriteResult(request, response, null);
+    } catch (RuntimeException e) {
+      return new WriteResult(request, null, e);
+    } catch (Throwable e) {
+      // still a result, the stream waits for one per request
+      return new WriteResult(request, null, new KonnektorException("failed to write document", e));
+    }
+  }
+
+  private static WriteResult take(BlockingQueue<WriteResult> results) {
+    try {
+      return results.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new KonnektorException("interrupted while waiting for write results", e);
+    }
+  }
+
+  private static ExecutorService newExecutor(int threads) {
+    var executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            KEEP_ALIVE.toMillis(),
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            r -> {
+              var t = new Thread(r, "bulk-document-writer-" + threadCount.incrementAndGet());
+              t.setDaemon(true);
+              return t;
+            });
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+}
@@ -0,0 +1,176 @@
+package com.oviva.epa.client.internal;
+
+import com.oviva.epa.client.KonnektorService;
+import com.oviva.epa.client.model.*;
+import de.gematik.epa.ihe.model.document.Document;
+import de.gematik.epa.ihe.model.document.DocumentMetadata;
+import de.gematik.epa.ihe.model.simple.AuthorInstitution;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.security.cert.X509Certificate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Outermost decorator running {@link #writeDocuments(Collection)} and {@link
+ * #resolveRecords(Collection)} with the configured concurrency and rate. Every single write and
+ * lookup goes through this decorator, and therefore through all decorators it wraps.
+ */
+public class BulkKonnektorService implements KonnektorService {
+
+  private final KonnektorService delegate;
+  private final BulkDocumentWriter bulkWriter;
+  private final BulkRecordResolver bulkResolver;
+
+  public BulkKonnektorService(
+      KonnektorService delegate, BulkDocumentWriter bulkWriter, BulkRecordResolver bulkResolver) {
+    this.delegate = delegate;
+    this.bulkWriter = bulkWriter;
+    this.bulkResolver = bulkResolver;
+  }
+
+  @NonNull
+  @Override
+  public List<AuthorInstitution> getAuthorInstitutions() {
+    return delegate.getAuthorInstitutions();
+  }
+
+  @NonNull
+  @Override
+  public List<Card> getCardsInfo() {
+    return delegate.getCardsInfo();
+  }
+
+  @NonNull
+  @Override
+  public X509Certificate readRsaAuthenticationCertificateForCard(@NonNull String cardHandle) {
+    return delegate.readRsaAuthenticationCertificateForCard(cardHandle);
+  }
+
+  @NonNull
+  @Override
+  public X509Certificate readEccAuthenticationCertificateForCard(@NonNull String cardHandle) {
+    return delegate.readEccAuthenticationCertificateForCard(cardHandle);
+  }
+
+  @NonNull
+  @Override
+  public List<CardCertificate> readCardCertificates(
+      @NonNull Collection<String> cardHandles,
+      @NonNull Set<CardCertificate.Ref> refs,
+      @NonNull Set<CardCertificate.Crypt> crypts) {
+    return delegate.readCardCertificates(cardHandles, refs, crypts);
+  }
+
+  @NonNull
+  @Override
+  public byte[] authSignRsaPss(@NonNull String cardHandle, byte[] bytesToSign) {
+    return delegate.authSignRsaPss(cardHandle, bytesToSign);
+  }
+
+  @NonNull
+  @Override
+  public byte[] authSignEcdsa(@NonNull String cardHandle, byte[] bytesToSign) {
+    return delegate.authSignEcdsa(cardHandle, bytesToSign);
+  }
+
+  @NonNull
+  @Override
+  public List<SignatureResult> signDocuments(
+      @NonNull String cardHandle,
+      @NonNull CardCertificate.Crypt crypt,
+      @NonNull List<SignatureRequest> requests) {
+    return delegate.signDocuments(cardHandle, crypt, requests);
+  }
+
+  @Override
+  public @NonNull PinStatus verifySmcPin(@NonNull String cardHandle) {
+    return delegate.verifySmcPin(cardHandle);
+  }
+
+  @NonNull
+  @Override
+  public List<AuthorizedApplication> getAuthorizationState(
+      @NonNull RecordIdentifier recordIdentifier) {
+    return delegate.getAuthorizationState(recordIdentifier);
+  }
+
+  @NonNull
+  @Override
+  public List<AuthorizationEntry> getAuthorizationList() {
+    return delegate.getAuthorizationList();
+  }
+
+  @Override
+  public void getAuthorizationList(@NonNull Consumer<AuthorizationEntry> consumer) {
+    delegate.getAuthorizationList(consumer);
+  }
+
+  @Override
+  public @NonNull WriteDocumentResponse writeDocument(
+      @NonNull RecordIdentifier recordIdentifier, @NonNull Document document) {
+    return delegate.writeDocument(recordIdentifier, document);
+  }
+
+  @Override
+  public @NonNull WriteDocumentResponse replaceDocument(
+      @NonNull RecordIdentifier recordIdentifier,
+      @NonNull Document document,
+      @NonNull UUID documentToReplaceId) {
+    return delegate.replaceDocument(recordIdentifier, document, documentToReplaceId);
+  }
+
+  @Override
+  public @NonNull WriteDocumentResponse writeDocument(
+      @NonNull RecordIdentifier recordIdentifier,
+      @NonNull DocumentMetadata metadata,
+      @NonNull DocumentSource content) {
+    return delegate.writeDocument(recordIdentifier, metadata, content);
+  }
+
+  @Override
+  public @NonNull WriteDocumentResponse replaceDocument(
+      @NonNull RecordIdentifier recordIdentifier,
+      @NonNull DocumentMetadata metadata,
+      @NonNull DocumentSource content,
+      @NonNull UUID documentToReplaceId) {
+    return delegate.replaceDocument(recordIdentifier, metadata, content, documentToReplaceId);
+  }
+
+  @Override
+  public @NonNull WriteDocumentResponse writeDocumentSet(
+      @NonNull RecordIdentifier recordIdentifier, @NonNull List<Document> documents) {
+    return delegate.writeDocumentSet(recordIdentifier, documents);
+  }
+
+  @Override
+  public @NonNull WriteDocumentResponse replaceDocumentSet(
+      @NonNull RecordIdentifier recordIdentifier, @NonNull List<DocumentReplacement> replacements) {
+    return delegate.replaceDocumentSet(recordIdentifier, replacements);
+  }
+
+  @NonNull
+  @Override
+  public Stream<WriteResult> writeDocuments(@NonNull Collection<WriteRequest> requests) {
+    return bulkWriter.write(this, requests);
+  }
+
+  @NonNull
+  @Override
+  public Stream<RecordResolution> resolveRecords(@NonNull Collection<String> kvnrs) {
+    return bulkResolver.resolve(this, kvnrs);
+  }
+
+  @Override
+  public @NonNull String getHomeCommunityID(@NonNull String kvnr) {
+    return delegate.getHomeCommunityID(kvnr);
+  }
+
+  @Override
+  public void close() {
+    delegate.close();
+  }
+}
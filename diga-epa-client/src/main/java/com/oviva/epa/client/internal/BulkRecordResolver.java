@@ -0,0 +1,164 @@
+package com.oviva.epa.client.internal;
+
+import com.oviva.epa.client.KonnektorService;
+import com.oviva.epa.client.model.KonnektorException;
+import com.oviva.epa.client.model.RecordIdentifier;
+import com.oviva.epa.client.model.RecordResolution;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Resolves the health record and its authorizations for many KVNRs, with a bounded number of KVNRs
+ * resolved concurrently. The calls to the Konnektor are optionally limited to a rate, shared by all
+ * workers of a single resolution. The workers of all calls run on one pool of the resolver, idle
+ * threads end after a while.
+ */
+public class BulkRecordResolver {
+
+  public static final int DEFAULT_CONCURRENCY = 8;
+
+  // the longest wait for the next result, a KVNR takes two calls to the Konnektor
+  public static final Duration DEFAULT_RESULT_TIMEOUT = Duration.ofMinutes(5);
+
+  private static final Duration KEEP_ALIVE = Duration.ofMinutes(1);
+
+  private static final AtomicInteger threadCount = new AtomicInteger();
+
+  // for services not built by the KonnektorServiceBuilder
+  private static final BulkRecordResolver DEFAULT = new BulkRecordResolver(DEFAULT_CONCURRENCY, 0);
+
+  private final int concurrency;
+  private final double callsPerSecond;
+  private final Duration resultTimeout;
+  private final ExecutorService executor;
+
+  /**
+   * @param callsPerSecond the maximum rate of calls to the Konnektor, 0 for no limit
+   */
+  public BulkRecordResolver(int concurrency, double callsPerSecond) {
+    this(concurrency, callsPerSecond, DEFAULT_RESULT_TIMEOUT);
+  }
+
+  BulkRecordResolver(int concurrency, double callsPerSecond, Duration resultTimeout) {
+    if (concurrency < 1) {
+      throw new IllegalArgumentException("concurrency must be positive");
+    }
+    if (callsPerSecond < 0 || Double.isNaN(callsPerSecond)) {
+      throw new IllegalArgumentException("callsPerSecond must not be negative");
+    }
+    this.concurrency = concurrency;
+    this.callsPerSecond = callsPerSecond;
+    this.resultTimeout = resultTimeout;
+    this.executor = newExecutor(concurrency);
+  }
+
+  /** a resolver with {@link #DEFAULT_CONCURRENCY} and no rate limit, shared by all its users */
+  @NonNull
+  public static BulkRecordResolver defaultResolver() {
+    return DEFAULT;
+  }
+
+  /**
+   * Starts resolving right away. The returned stream yields a result per distinct KVNR in the order
+   * they complete, a failing KVNR does not affect the others. Closing the stream early stops
+   * resolving further KVNRs. Consuming the stream fails if no result arrives in time.
+   */
+  @NonNull
+  public Stream<RecordResolution> resolve(
+      @NonNull KonnektorService service, @NonNull Collection<String> kvnrs) {
+
+    var distinct = new LinkedHashSet<>(kvnrs);
+    if (distinct.isEmpty()) {
+      return Stream.empty();
+    }
+
+    var pending = new ConcurrentLinkedQueue<>(distinct);
+    var results = new LinkedBlockingQueue<RecordResolution>();
+    var rateLimiter = new RateLimiter(callsPerSecond);
+
+    var closed = new AtomicBoolean();
+    var workers = Math.min(concurrency, distinct.size());
+    for (int i = 0; i < workers; i++) {
+      executor.execute(() -> work(service, rateLimiter, pending, results, closed));
+    }
+
+    return Stream.generate(() -> take(results))
+        .limit(distinct.size())
+        .onClose(() -> closed.set(true));
+  }
+
+  private static void work(
+      KonnektorService service,
+      RateLimiter rateLimiter,
+      Queue<String> pending,
+      BlockingQueue<RecordResolution> results,
+      AtomicBoolean closed) {
+
+    String kvnr;
+    while (!closed.get() && (kvnr = pending.poll()) != null) {
+      results.add(resolve(service, rateLimiter, kvnr));
+    }
+  }
+
+  private static RecordResolution resolve(
+      KonnektorService service, RateLimiter rateLimiter, String kvnr) {
+    try {
+      rateLimiter.acquire();
+      var homeCommunityId = service.getHomeCommunityID(kvnr);
+      var recordIdentifier = new RecordIdentifier(kvnr, homeCommunityId);
+
+      rateLimiter.acquire();
+      var authorizedApplications = service.getAuthorizationState(recordIdentifier);
+      return new RecordResolution(kvnr, recordIdentifier, authorizedApplications, null);
+    } catch (RuntimeException e) {
+      return new RecordResolution(kvnr, null, null, e);
+    } catch (Throwable e) {
+      // still an outcome, the stream waits for one per KVNR
+      return new RecordResolution(
+          kvnr, null, null, new KonnektorException("failed to resolve record", e));
+    }
+  }
+
+  private RecordResolution take(BlockingQueue<RecordResolution> results) {
+    try {
+      var resolution = results.poll(resultTimeout.toNanos(), TimeUnit.NANOSECONDS);
+      if (resolution == null) {
+        throw new KonnektorException(
+            "no resolved record within %s, giving up".formatted(resultTimeout));
+      }
+      return resolution;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new KonnektorException("interrupted while waiting for resolved records", e);
+    }
+  }
+
+  private static ExecutorService newExecutor(int threads) {
+    var executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            KEEP_ALIVE.toMillis(),
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            r -> {
+              var t = new Thread(r, "bulk-record-resolver-" + threadCount.incrementAndGet());
+              t.setDaemon(true);
+              return t;
+            });
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+}
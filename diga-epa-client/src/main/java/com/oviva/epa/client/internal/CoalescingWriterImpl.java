@@ -0,0 +1,186 @@
+package com.oviva.epa.client.internal;
+
+import com.oviva.epa.client.CoalescingWriter;
+import com.oviva.epa.client.KonnektorService;
+import com.oviva.epa.client.model.KonnektorException;
+import com.oviva.epa.client.model.RecordIdentifier;
+import com.oviva.epa.client.model.WriteDocumentResponse;
+import com.oviva.epa.client.model.WriteRequest;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps a slot per key holding the latest version not yet written. A slot is scheduled on the
+ * workers at most once, the worker takes whatever version is latest when it gets to it. This way a
+ * version waiting behind other keys is superseded just like one waiting for its own key.
+ */
+public class CoalescingWriterImpl implements CoalescingWriter {
+
+  private static final Logger log = LoggerFactory.getLogger(CoalescingWriterImpl.class);
+
+  private static final AtomicInteger threadCount = new AtomicInteger();
+
+  private final KonnektorService service;
+  private final ExecutorService workers;
+
+  private final Object lock = new Object();
+
+  // all guarded by the lock
+  private final Map<Key, Slot> slots = new HashMap<>();
+  private boolean closed;
+
+  private record Key(RecordIdentifier recordIdentifier, String logicalKey) {}
+
+  private record Pending(
+      WriteRequest request, List<CompletableFuture<WriteDocumentResponse>> futures) {}
+
+  private static final class Slot {
+    // latest version not taken by a worker yet, null if there is none
+    Pending pending;
+  }
+
+  public CoalescingWriterImpl(@NonNull KonnektorService service, int concurrency) {
+    this.service = service;
+    this.workers =
+        Executors.newFixedThreadPool(
+            concurrency,
+            r -> {
+              var t = new Thread(r, "coalescing-writer-" + threadCount.incrementAndGet());
+              t.setDaemon(true);
+              return t;
+            });
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<WriteDocumentResponse> submit(
+      @NonNull String logicalKey, @NonNull WriteRequest request) {
+
+    var key = new Key(request.recordIdentifier(), logicalKey);
+    var future = new CompletableFuture<WriteDocumentResponse>();
+
+    synchronized (lock) {
+      if (closed) {
+        throw new IllegalStateException("writer is closed");
+      }
+
+      var slot = slots.get(key);
+      if (slot == null) {
+        slot = new Slot();
+        slot.pending = new Pending(request, new ArrayList<>(List.of(future)));
+        slots.put(key, slot);
+        schedule(key);
+        return future;
+      }
+
+      if (slot.pending == null) {
+        // in flight, written once the slot frees up
+        slot.pending = new Pending(request, new ArrayList<>(List.of(future)));
+        return future;
+      }
+
+      // the superseded version never made it into the record, take its place
+      var superseded = slot.pending;
+      var merged =
+          new WriteRequest(
+              request.recordIdentifier(),
+              request.document(),
+              superseded.request().documentToReplaceId());
+      superseded.futures().add(future);
+      slot.pending = new Pending(merged, superseded.futures());
+    }
+
+    log.atDebug()
+        .addKeyValue("logicalKey", logicalKey)
+        .log("superseded pending version of document");
+    return future;
+  }
+
+  @Override
+  public int pending() {
+    synchronized (lock) {
+      return (int) slots.values().stream().filter(s -> s.pending != null).count();
+    }
+  }
+
+  // with the lock held
+  private void schedule(Key key) {
+    try {
+      workers.execute(() -> write(key));
+    } catch (RejectedExecutionException e) {
+      // closed concurrently, the slot is failed by close
+    }
+  }
+
+  private void write(Key key) {
+    Pending pending;
+    synchronized (lock) {
+      var slot = slots.get(key);
+      if (slot == null || slot.pending == null) {
+        return;
+      }
+      pending = slot.pending;
+      slot.pending = null;
+    }
+
+    var request = pending.request();
+    try {
+      var response =
+          request.documentToReplaceId() == null
+              ? service.writeDocument(request.recordIdentifier(), request.document())
+              : service.replaceDocument(
+                  request.recordIdentifier(), request.document(), request.documentToReplaceId());
+      pending.futures().forEach(f -> f.complete(response));
+    } catch (RuntimeException e) {
+      pending.futures().forEach(f -> f.completeExceptionally(e));
+    } catch (Error e) {
+      pending.futures().forEach(f -> f.completeExceptionally(e));
+      throw e;
+    } finally {
+      release(key);
+    }
+  }
+
+  /** frees the slot, or schedules the version submitted meanwhile */
+  private void release(Key key) {
+    synchronized (lock) {
+      var slot = slots.get(key);
+      if (slot == null) {
+        return;
+      }
+      if (slot.pending == null) {
+        slots.remove(key);
+      } else if (!closed) {
+        schedule(key);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    List<Pending> left;
+    synchronized (lock) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      left = slots.values().stream().filter(s -> s.pending != null).map(s -> s.pending).toList();
+      slots.clear();
+    }
+
+    workers.shutdownNow();
+
+    var e = new KonnektorException("writer closed, document not written");
+    left.forEach(p -> p.futures().forEach(f -> f.completeExceptionally(e)));
+  }
+}
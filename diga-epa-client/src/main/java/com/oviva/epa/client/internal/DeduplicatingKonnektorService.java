@@ -0,0 +1,193 @@
+package com.oviva.epa.client.internal;
+
+import com.oviva.epa.client.DeduplicationIndex;
+import com.oviva.epa.client.KonnektorService;
+import com.oviva.epa.client.internal.svc.utils.Digest;
+import com.oviva.epa.client.model.*;
+import de.gematik.epa.ihe.model.document.Document;
+import de.gematik.epa.ihe.model.document.DocumentMetadata;
+import de.gematik.epa.ihe.model.simple.AuthorInstitution;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.security.cert.X509Certificate;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Decorator skipping {@link #writeDocument(RecordIdentifier, Document)} and {@link
+ * #replaceDocument(RecordIdentifier, Document, UUID)} if the same content was written last for the
+ * record and document type. The skipped call returns the request id of the original write.
+ *
+ * <p>Only successful writes are recorded in the index. Submission sets and streamed documents are
+ * always written, as is a document without a type code.
+ */
+public class DeduplicatingKonnektorService implements KonnektorService {
+
+  private final KonnektorService delegate;
+  private final DeduplicationIndex index;
+
+  public DeduplicatingKonnektorService(KonnektorService delegate, DeduplicationIndex index) {
+    this.delegate = delegate;
+    this.index = index;
+  }
+
+  @NonNull
+  @Override
+  public List<AuthorInstitution> getAuthorInstitutions() {
+    return delegate.getAuthorInstitutions();
+  }
+
+  @NonNull
+  @Override
+  public List<Card> getCardsInfo() {
+    return delegate.getCardsInfo();
+  }
+
+  @NonNull
+  @Override
+  public X509Certificate readRsaAuthenticationCertificateForCard(@NonNull String cardHandle) {
+    return delegate.readRsaAuthenticationCertificateForCard(cardHandle);
+  }
+
+  @NonNull
+  @Override
+  public X509Certificate readEccAuthenticationCertificateForCard(@NonNull String cardHandle) {
+    return delegate.readEccAuthenticationCertificateForCard(cardHandle);
+  }
+
+  @NonNull
+  @Override
+  public List<CardCertificate> readCardCertificates(
+      @NonNull Collection<String> cardHandles,
+      @NonNull Set<CardCertificate.Ref> refs,
+      @NonNull Set<CardCertificate.Crypt> crypts) {
+    return delegate.readCardCertificates(cardHandles, refs, crypts);
+  }
+
+  @NonNull
+  @Override
+  public byte[] authSignRsaPss(@NonNull String cardHandle, byte[] bytesToSign) {
+    return delegate.authSignRsaPss(cardHandle, bytesToSign);
+  }
+
+  @NonNull
+  @Override
+  public byte[] authSignEcdsa(@NonNull String cardHandle, byte[] bytesToSign) {
+    return delegate.authSignEcdsa(cardHandle, bytesToSign);
+  }
+
+  @NonNull
+  @Override
+  public List<SignatureResult> signDocuments(
+      @NonNull String cardHandle,
+      @NonNull CardCertificate.Crypt crypt,
+      @NonNull List<SignatureRequest> requests) {
+    return delegate.signDocuments(cardHandle, crypt, requests);
+  }
+
+  @Override
+  public @NonNull PinStatus verifySmcPin(@NonNull String cardHandle) {
+    return delegate.verifySmcPin(cardHandle);
+  }
+
+  @NonNull
+  @Override
+  public List<AuthorizedApplication> getAuthorizationState(
+      @NonNull RecordIdentifier recordIdentifier) {
+    return delegate.getAuthorizationState(recordIdentifier);
+  }
+
+  @NonNull
+  @Override
+  public List<AuthorizationEntry> getAuthorizationList() {
+    return delegate.getAuthorizationList();
+  }
+
+  @Override
+  public void getAuthorizationList(@NonNull Consumer<AuthorizationEntry> consumer) {
+    delegate.getAuthorizationList(consumer);
+  }
+
+  @Override
+  public @NonNull WriteDocumentResponse writeDocument(
+      @NonNull RecordIdentifier recordIdentifier, @NonNull Document document) {
+    return deduplicate(
+        recordIdentifier, document, () -> delegate.writeDocument(recordIdentifier, document));
+  }
+
+  @Override
+  public @NonNull WriteDocumentResponse replaceDocument(
+      @NonNull RecordIdentifier recordIdentifier,
+      @NonNull Document document,
+      @NonNull UUID documentToReplaceId) {
+    return deduplicate(
+        recordIdentifier,
+        document,
+        () -> delegate.replaceDocument(recordIdentifier, document, documentToReplaceId));
+  }
+
+  @Override
+  public @NonNull WriteDocumentResponse writeDocument(
+      @NonNull RecordIdentifier recordIdentifier,
+      @NonNull DocumentMetadata metadata,
+      @NonNull DocumentSource content) {
+    return delegate.writeDocument(recordIdentifier, metadata, content);
+  }
+
+  @Override
+  public @NonNull WriteDocumentResponse replaceDocument(
+      @NonNull RecordIdentifier recordIdentifier,
+      @NonNull DocumentMetadata metadata,
+      @NonNull DocumentSource content,
+      @NonNull UUID documentToReplaceId) {
+    return delegate.replaceDocument(recordIdentifier, metadata, content, documentToReplaceId);
+  }
+
+  @Override
+  public @NonNull WriteDocumentResponse writeDocumentSet(
+      @NonNull RecordIdentifier recordIdentifier, @NonNull List<Document> documents) {
+    return delegate.writeDocumentSet(recordIdentifier, documents);
+  }
+
+  @Override
+  public @NonNull WriteDocumentResponse replaceDocumentSet(
+      @NonNull RecordIdentifier recordIdentifier, @NonNull List<DocumentReplacement> replacements) {
+    return delegate.replaceDocumentSet(recordIdentifier, replacements);
+  }
+
+  @Override
+  public @NonNull String getHomeCommunityID(@NonNull String kvnr) {
+    return delegate.getHomeCommunityID(kvnr);
+  }
+
+  @Override
+  public void close() {
+    delegate.close();
+  }
+
+  private WriteDocumentResponse deduplicate(
+      RecordIdentifier recordIdentifier, Document document, Supplier<WriteDocumentResponse> write) {
+
+    var kvnr = recordIdentifier.kvnr();
+    var typeCode = document.documentMetadata().typeCode();
+    if (kvnr == null || typeCode == null) {
+      return write.get();
+    }
+
+    var hash = HexFormat.of().formatHex(Digest.sha256(document.documentData().value()));
+    var last = index.get(kvnr, typeCode);
+    if (last != null && last.hash().equals(hash)) {
+      return new WriteDocumentResponse(last.requestId());
+    }
+
+    var response = write.get();
+    if (response.requestId() != null) {
+      index.put(kvnr, typeCode, new DeduplicationIndex.Entry(hash, response.requestId()));
+    }
+    return response;
+  }
+}
@@ -0,0 +1,117 @@
+package com.oviva.epa.client.internal;
+
+import com.oviva.epa.client.AsyncKonnektorService;
+import com.oviva.epa.client.model.*;
+import de.gematik.epa.ihe.model.document.Document;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import jakarta.xml.ws.WebServiceException;
+import java.security.cert.X509Certificate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Asynchronous counterpart of {@link ExceptionMappedKonnektorService}, futures failing with a
+ * {@link WebServiceException} fail with a {@link KonnektorException} instead.
+ */
+public class ExceptionMappedAsyncKonnektorService implements AsyncKonnektorService {
+
+  private final AsyncKonnektorService delegate;
+
+  public ExceptionMappedAsyncKonnektorService(AsyncKonnektorService delegate) {
+    this.delegate = delegate;
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<X509Certificate> readRsaAuthenticationCertificateForCard(
+      @NonNull String cardHandle) {
+    return wrap(delegate.readRsaAuthenticationCertificateForCard(cardHandle));
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<X509Certificate> readEccAuthenticationCertificateForCard(
+      @NonNull String cardHandle) {
+    return wrap(delegate.readEccAuthenticationCertificateForCard(cardHandle));
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<byte[]> authSignRsaPss(@NonNull String cardHandle, byte[] bytesToSign) {
+    return wrap(delegate.authSignRsaPss(cardHandle, bytesToSign));
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<byte[]> authSignEcdsa(@NonNull String cardHandle, byte[] bytesToSign) {
+    return wrap(delegate.authSignEcdsa(cardHandle, bytesToSign));
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<PinStatus> verifySmcPin(@NonNull String cardHandle) {
+    return wrap(delegate.verifySmcPin(cardHandle));
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<List<AuthorizedApplication>> getAuthorizationState(
+      @NonNull RecordIdentifier recordIdentifier) {
+    return wrap(delegate.getAuthorizationState(recordIdentifier));
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<List<AuthorizationEntry>> getAuthorizationList() {
+    return wrap(delegate.getAuthorizationList());
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<WriteDocumentResponse> writeDocument(
+      @NonNull RecordIdentifier recordIdentifier, @NonNull Document document) {
+    return wrap(delegate.writeDocument(recordIdentifier, document));
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<WriteDocumentResponse> replaceDocument(
+      @NonNull RecordIdentifier recordIdentifier,
+      @NonNull Document document,
+      @NonNull UUID documentToReplaceId) {
+    return wrap(delegate.replaceDocument(recordIdentifier, document, documentToReplaceId));
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<WriteDocumentResponse> writeDocumentSet(
+      @NonNull RecordIdentifier recordIdentifier, @NonNull List<Document> documents) {
+    return wrap(delegate.writeDocumentSet(recordIdentifier, documents));
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<WriteDocumentResponse> replaceDocumentSet(
+      @NonNull RecordIdentifier recordIdentifier, @NonNull List<DocumentReplacement> replacements) {
+    return wrap(delegate.replaceDocumentSet(recordIdentifier, replacements));
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<String> getHomeCommunityID(@NonNull String kvnr) {
+    return wrap(delegate.getHomeCommunityID(kvnr));
+  }
+
+  private static <T> CompletableFuture<T> wrap(CompletableFuture<T> future) {
+    return future.exceptionallyCompose(
+        e -> {
+          var cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+          if (cause instanceof WebServiceException wse) {
+            return CompletableFuture.failedFuture(ExceptionMappedKonnektorService.map(wse));
+          }
+          return CompletableFuture.failedFuture(cause);
+        });
+  }
+}
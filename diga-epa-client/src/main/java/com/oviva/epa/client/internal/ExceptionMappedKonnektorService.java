@@ -3,12 +3,16 @@ package com.oviva.epa.client.internal;
 import com.oviva.epa.client.KonnektorService;
 import com.oviva.epa.client.model.*;
 import de.gematik.epa.ihe.model.document.Document;
+import de.gematik.epa.ihe.model.document.DocumentMetadata;
 import de.gematik.epa.ihe.model.simple.AuthorInstitution;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import jakarta.xml.ws.WebServiceException;
 import java.security.cert.X509Certificate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import telematik.ws.conn.exception.FaultMessageException;
 
 /**
@@ -47,6 +51,15 @@ public class ExceptionMappedKonnektorService implements KonnektorService {
     return wrap(() -> delegate.readEccAuthenticationCertificateForCard(cardHandle));
   }
 
+  @NonNull
+  @Override
+  public List<CardCertificate> readCardCertificates(
+      @NonNull Collection<String> cardHandles,
+      @NonNull Set<CardCertificate.Ref> refs,
+      @NonNull Set<CardCertificate.Crypt> crypts) {
+    return wrap(() -> delegate.readCardCertificates(cardHandles, refs, crypts));
+  }
+
   @NonNull
   @Override
   public byte[] authSignRsaPss(@NonNull String cardHandle, byte[] bytesToSign) {
@@ -59,6 +72,15 @@ public class ExceptionMappedKonnektorService implements KonnektorService {
     return wrap(() -> delegate.authSignEcdsa(cardHandle, bytesToSign));
   }
 
+  @NonNull
+  @Override
+  public List<SignatureResult> signDocuments(
+      @NonNull String cardHandle,
+      @NonNull CardCertificate.Crypt crypt,
+      @NonNull List<SignatureRequest> requests) {
+    return wrap(() -> delegate.signDocuments(cardHandle, crypt, requests));
+  }
+
   @Override
   public @NonNull PinStatus verifySmcPin(@NonNull String cardHandle) {
     return wrap(() -> delegate.verifySmcPin(cardHandle));
@@ -77,6 +99,15 @@ public class ExceptionMappedKonnektorService implements KonnektorService {
     return wrap(delegate::getAuthorizationList);
   }
 
+  @Override
+  public void getAuthorizationList(@NonNull Consumer<AuthorizationEntry> consumer) {
+    wrap(
+        () -> {
+          delegate.getAuthorizationList(consumer);
+          return null;
+        });
+  }
+
   @Override
   public @NonNull WriteDocumentResponse writeDocument(
       @NonNull RecordIdentifier recordIdentifier, @NonNull Document document) {
@@ -91,19 +122,58 @@ public class ExceptionMappedKonnektorService implements KonnektorService {
     return wrap(() -> delegate.replaceDocument(recordIdentifier, document, documentToReplaceId));
   }
 
+  @Override
+  public @NonNull WriteDocumentResponse writeDocument(
+      @NonNull RecordIdentifier recordIdentifier,
+      @NonNull DocumentMetadata metadata,
+      @NonNull DocumentSource content) {
+    return wrap(() -> delegate.writeDocument(recordIdentifier, metadata, content));
+  }
+
+  @Override
+  public @NonNull WriteDocumentResponse replaceDocument(
+      @NonNull RecordIdentifier recordIdentifier,
+      @NonNull DocumentMetadata metadata,
+      @NonNull DocumentSource content,
+      @NonNull UUID documentToReplaceId) {
+    return wrap(
+        () -> delegate.replaceDocument(recordIdentifier, metadata, content, documentToReplaceId));
+  }
+
+  @Override
+  public @NonNull WriteDocumentResponse writeDocumentSet(
+      @NonNull RecordIdentifier recordIdentifier, @NonNull List<Document> documents) {
+    return wrap(() -> delegate.writeDocumentSet(recordIdentifier, documents));
+  }
+
+  @Override
+  public @NonNull WriteDocumentResponse replaceDocumentSet(
+      @NonNull RecordIdentifier recordIdentifier, @NonNull List<DocumentReplacement> replacements) {
+    return wrap(() -> delegate.replaceDocumentSet(recordIdentifier, replacements));
+  }
+
   @Override
   public @NonNull String getHomeCommunityID(@NonNull String kvnr) {
     return wrap(() -> delegate.getHomeCommunityID(kvnr));
   }
 
+  @Override
+  public void close() {
+    delegate.close();
+  }
+
   private static <T> T wrap(WebServiceExecutor<T> requestor) {
     try {
       return requestor.execute();
     } catch (WebServiceException e) {
-      throw new KonnektorException("request failed: " + e.getMessage(), e);
+      throw map(e);
     }
   }
 
+  static KonnektorException map(WebServiceException e) {
+    return new KonnektorException("request failed: " + e.getMessage(), e);
+  }
+
   interface WebServiceExecutor<T> {
     T execute() throws FaultMessageException;
   }
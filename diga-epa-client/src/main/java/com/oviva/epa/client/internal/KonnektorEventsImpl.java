@@ -0,0 +1,301 @@
+package com.oviva.epa.client.internal;
+
+import com.oviva.epa.client.KonnektorEvents;
+import com.oviva.epa.client.internal.svc.model.KonnektorContext;
+import com.oviva.epa.client.konn.internal.CetpReceiver;
+import com.oviva.epa.client.model.KonnektorEvent;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.net.InetSocketAddress;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.net.ssl.SSLContext;
+import javax.xml.datatype.XMLGregorianCalendar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import telematik.ws.conn.eventservice.wsdl.v6_1.EventServicePortType;
+import telematik.ws.conn.eventservice.xsd.v6_1.Event;
+import telematik.ws.conn.eventservice.xsd.v6_1.RenewSubscriptions;
+import telematik.ws.conn.eventservice.xsd.v6_1.Subscribe;
+import telematik.ws.conn.eventservice.xsd.v6_1.SubscriptionRenewal;
+import telematik.ws.conn.eventservice.xsd.v6_1.SubscriptionType;
+import telematik.ws.conn.eventservice.xsd.v6_1.Unsubscribe;
+
+/**
+ * Subscribes to topics of the EventService with a {@link CetpReceiver} as destination. All
+ * subscriptions are renewed together shortly before the first one terminates, subscriptions the
+ * Konnektor did not renew are subscribed again. A failed renewal or subscription is retried after a
+ * short delay. Subscriptions granted for less than twice the configured lead time are renewed after
+ * half their lifetime, but not sooner than {@link #MIN_RENEWAL_DELAY}.
+ */
+public class KonnektorEventsImpl implements KonnektorEvents {
+
+  private static final Logger log = LoggerFactory.getLogger(KonnektorEventsImpl.class);
+
+  // renewal interval if the Konnektor does not tell when a subscription terminates
+  private static final Duration DEFAULT_LIFETIME = Duration.ofHours(1);
+  private static final Duration RETRY_DELAY = Duration.ofSeconds(30);
+
+  // a Konnektor granting short lifetimes must not be asked for renewals in a loop
+  static final Duration MIN_RENEWAL_DELAY = Duration.ofSeconds(10);
+
+  private static final AtomicInteger threadCount = new AtomicInteger();
+
+  private final EventServicePortType eventService;
+  private final KonnektorContext context;
+  private final String eventToHost;
+  private final List<String> topics;
+  private final Duration renewBefore;
+  private final ScheduledExecutorService scheduler;
+  private final Clock clock;
+  private final CetpReceiver receiver;
+
+  private final List<Consumer<KonnektorEvent>> listeners = new CopyOnWriteArrayList<>();
+
+  // by topic
+  private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+  private volatile String eventTo;
+
+  record Subscription(String id, Instant terminatesAt) {}
+
+  /**
+   * @param eventToHost the host the Konnektor reaches the receiver at
+   * @param renewBefore how long before their termination subscriptions are renewed
+   */
+  public KonnektorEventsImpl(
+      @NonNull EventServicePortType eventService,
+      @NonNull KonnektorContext context,
+      @NonNull InetSocketAddress bindAddress,
+      @Nullable SSLContext sslContext,
+      @NonNull String eventToHost,
+      @NonNull List<String> topics,
+      @NonNull Duration renewBefore) {
+    this(
+        eventService,
+        context,
+        bindAddress,
+        sslContext,
+        eventToHost,
+        topics,
+        renewBefore,
+        newScheduler(),
+        Clock.systemUTC());
+  }
+
+  KonnektorEventsImpl(
+      @NonNull EventServicePortType eventService,
+      @NonNull KonnektorContext context,
+      @NonNull InetSocketAddress bindAddress,
+      @Nullable SSLContext sslContext,
+      @NonNull String eventToHost,
+      @NonNull List<String> topics,
+      @NonNull Duration renewBefore,
+      @NonNull ScheduledExecutorService scheduler,
+      @NonNull Clock clock) {
+    this.eventService = eventService;
+    this.context = context;
+    this.eventToHost = eventToHost;
+    this.topics = List.copyOf(topics);
+    this.renewBefore = renewBefore;
+    this.scheduler = scheduler;
+    this.clock = clock;
+    this.receiver = new CetpReceiver(bindAddress, sslContext, this::onEvent);
+  }
+
+  private static ScheduledExecutorService newScheduler() {
+    return Executors.newSingleThreadScheduledExecutor(
+        r -> {
+          var t = new Thread(r, "konnektor-events-" + threadCount.incrementAndGet());
+          t.setDaemon(true);
+          return t;
+        });
+  }
+
+  /**
+   * Starts the receiver and subscribes to all topics, a Konnektor refusing the subscriptions fails
+   * the start.
+   */
+  public void start() {
+    receiver.start();
+    eventTo = "cetp://%s:%d".formatted(eventToHost, receiver.port());
+
+    try {
+      for (var topic : topics) {
+        subscribe(topic);
+      }
+    } catch (RuntimeException e) {
+      close();
+      throw e;
+    }
+    scheduleRenewal();
+  }
+
+  /** the destination the Konnektor sends the events to */
+  @NonNull
+  public String eventTo() {
+    return eventTo;
+  }
+
+  @Override
+  public void addListener(@NonNull Consumer<KonnektorEvent> listener) {
+    listeners.add(listener);
+  }
+
+  @Override
+  public void removeListener(@NonNull Consumer<KonnektorEvent> listener) {
+    listeners.remove(listener);
+  }
+
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+    for (var s : subscriptions.values()) {
+      try {
+        eventService.unsubscribe(
+            new Unsubscribe().withContext(context.toContext()).withSubscriptionID(s.id()));
+      } catch (RuntimeException e) {
+        // it terminates on its own
+        log.atDebug().setCause(e).log("failed to unsubscribe");
+      }
+    }
+    subscriptions.clear();
+    receiver.close();
+  }
+
+  /** renews all subscriptions, subscribes again those not renewed */
+  void renew() {
+    try {
+      if (!subscriptions.isEmpty()) {
+        var byId = new LinkedHashMap<String, String>();
+        subscriptions.forEach((topic, s) -> byId.put(s.id(), topic));
+
+        var res =
+            eventService.renewSubscriptions(
+                new RenewSubscriptions()
+                    .withContext(context.toContext())
+                    .withSubscriptionID(byId.keySet()));
+
+        var renewals =
+            res.getSubscribeRenewals() == null
+                ? List.<SubscriptionRenewal>of()
+                : res.getSubscribeRenewals().getSubscriptionRenewal();
+        for (var renewal : renewals) {
+          var topic = byId.remove(renewal.getSubscriptionID());
+          if (topic != null) {
+            subscriptions.put(
+                topic,
+                new Subscription(
+                    renewal.getSubscriptionID(), terminatesAt(renewal.getTerminationTime())));
+          }
+        }
+
+        // lost by the Konnektor, e.g. after a restart
+        for (var topic : byId.values()) {
+          subscriptions.remove(topic);
+        }
+      }
+
+      for (var topic : topics) {
+        if (!subscriptions.containsKey(topic)) {
+          subscribe(topic);
+        }
+      }
+      scheduleRenewal();
+    } catch (RuntimeException e) {
+      log.atWarn().setCause(e).log("failed to renew event subscriptions, retrying");
+      schedule(RETRY_DELAY);
+    }
+  }
+
+  private void subscribe(String topic) {
+    var res =
+        eventService.subscribe(
+            new Subscribe()
+                .withContext(context.toContext())
+                .withSubscription(new SubscriptionType().withEventTo(eventTo).withTopic(topic)));
+    subscriptions.put(
+        topic, new Subscription(res.getSubscriptionID(), terminatesAt(res.getTerminationTime())));
+    log.atDebug().addKeyValue("topic", topic).log("subscribed to Konnektor events");
+  }
+
+  private void scheduleRenewal() {
+    var now = clock.instant();
+    var next =
+        subscriptions.values().stream().map(Subscription::terminatesAt).min(Instant::compareTo);
+    if (next.isEmpty()) {
+      schedule(MIN_RENEWAL_DELAY);
+      return;
+    }
+
+    var lifetime = Duration.between(now, next.get());
+    var delay = renewalDelay(lifetime, renewBefore);
+    if (delay.compareTo(lifetime.minus(renewBefore)) > 0) {
+      log.atWarn()
+          .addKeyValue("lifetime", lifetime)
+          .addKeyValue("renewBefore", renewBefore)
+          .addKeyValue("renewIn", delay)
+          .log("event subscriptions terminate too soon, renewing later than configured");
+    }
+    schedule(delay);
+  }
+
+  /**
+   * how long to wait before renewing, at least half the lifetime and {@link #MIN_RENEWAL_DELAY} if
+   * the lifetime is not longer than renewBefore
+   */
+  static Duration renewalDelay(Duration lifetime, Duration renewBefore) {
+    var delay = lifetime.minus(renewBefore);
+    var min = lifetime.dividedBy(2);
+    if (min.compareTo(MIN_RENEWAL_DELAY) < 0) {
+      min = MIN_RENEWAL_DELAY;
+    }
+    return delay.compareTo(min) < 0 ? min : delay;
+  }
+
+  private void schedule(Duration delay) {
+    if (!scheduler.isShutdown()) {
+      scheduler.schedule(this::renew, delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private Instant terminatesAt(@Nullable XMLGregorianCalendar terminationTime) {
+    if (terminationTime == null) {
+      return clock.instant().plus(DEFAULT_LIFETIME);
+    }
+    return terminationTime.toGregorianCalendar().toInstant();
+  }
+
+  private void onEvent(Event event) {
+    var parameters = new LinkedHashMap<String, String>();
+    if (event.getMessage() != null) {
+      for (var p : event.getMessage().getParameter()) {
+        parameters.put(p.getKey(), p.getValue());
+      }
+    }
+
+    var e =
+        new KonnektorEvent(
+            event.getTopic(), event.getSubscriptionID(), Collections.unmodifiableMap(parameters));
+    log.atDebug().addKeyValue("topic", e.topic()).log("Konnektor event received");
+
+    for (var l : listeners) {
+      try {
+        l.accept(e);
+      } catch (RuntimeException ex) {
+        log.atWarn().setCause(ex).addKeyValue("topic", e.topic()).log("event listener failed");
+      }
+    }
+  }
+}
@@ -8,9 +8,11 @@ import com.oviva.epa.client.internal.svc.phr.SmbInformationServiceClient;
 import com.oviva.epa.client.internal.svc.phr.model.RecordIdentifierAdapter;
 import com.oviva.epa.client.internal.svc.utils.Digest;
 import com.oviva.epa.client.konn.KonnektorConnection;
+import com.oviva.epa.client.konn.internal.interceptors.StreamingAttachmentOutInterceptor;
 import com.oviva.epa.client.model.*;
 import de.gematik.epa.LibIheXdsMain;
 import de.gematik.epa.ihe.model.document.Document;
+import de.gematik.epa.ihe.model.document.DocumentInterface;
 import de.gematik.epa.ihe.model.document.DocumentMetadata;
 import de.gematik.epa.ihe.model.document.ReplaceDocument;
 import de.gematik.epa.ihe.model.request.DocumentReplaceRequest;
@@ -19,16 +21,31 @@ import de.gematik.epa.ihe.model.simple.AuthorInstitution;
 import de.gematik.epa.ihe.model.simple.SubmissionSetMetadata;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
+import ihe.iti.xds_b._2007.ProvideAndRegisterDocumentSetRequestType;
 import java.security.cert.X509Certificate;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import javax.xml.datatype.XMLGregorianCalendar;
 import oasis.names.tc.ebxml_regrep.xsd.rs._3.RegistryErrorList;
 import oasis.names.tc.ebxml_regrep.xsd.rs._3.RegistryResponseType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import telematik.ws.conn.cardservice.xsd.v8_1.GetPinStatusResponse;
 import telematik.ws.conn.cardservicecommon.xsd.v2_0.CardTypeType;
+import telematik.ws.conn.certificateservice.xsd.v6_0.CryptType;
+import telematik.ws.conn.certificateservicecommon.xsd.v2_0.CertRefEnum;
 import telematik.ws.conn.connectorcommon.xsd.v5_0.ResultEnum;
 import telematik.ws.conn.connectorcommon.xsd.v5_0.Status;
 import telematik.ws.conn.exception.FaultMessageException;
@@ -38,7 +55,17 @@ import telematik.ws.conn.phrs.phrmanagementservice.xsd.v2_5.GetAuthorizationStat
 public class KonnektorServiceImpl implements KonnektorService {
 
   private static Logger log = LoggerFactory.getLogger(KonnektorServiceImpl.class);
+  static final String PIN_SMC = "PIN.SMC";
   private static final String CERT_ALG_BP = "SHA256withECDSA";
+
+  // cards read at once, a Konnektor serves rarely more SMC-Bs
+  static final int CARD_READ_CONCURRENCY = 4;
+
+  // idle card readers are let go, a service may go unused for long
+  private static final Duration CARD_READER_KEEP_ALIVE = Duration.ofMinutes(1);
+
+  private static final AtomicInteger threadCount = new AtomicInteger();
+  private static final AtomicInteger konnektorCount = new AtomicInteger();
   private static final String REGISTRY_STATUS_SUCCESS =
       "urn:oasis:names:tc:ebxml-regrep:ResponseStatusType:Success";
   private final String userAgent; // A_22470-05
@@ -48,14 +75,94 @@ public class KonnektorServiceImpl implements KonnektorService {
   private final PhrServiceClient phrServiceClient;
   private final CertificateServiceClient certificateServiceClient;
   private final AuthSignatureServiceClient authSignatureServiceClient;
+  private final SignatureServiceClient signatureServiceClient;
 
   private final SmbInformationServiceClient smbInformationServiceClient;
+  private final HomeCommunityIdCache homeCommunityIdCache;
+  private final CardRegistry cardRegistry;
+  private final CardSigningScheduler signingScheduler;
+
+  // tells the cards of this Konnektor apart from those of others in a shared scheduler
+  private final String konnektorId = "konnektor-" + konnektorCount.incrementAndGet();
+  private final Executor cardReader;
+  private final KonnektorEvents events;
+  private final Consumer<KonnektorEvent> cardEventListener;
+
+  /**
+   * The caches and the scheduler of a Konnektor service, see {@link Options#defaults()} for none.
+   *
+   * @param homeCommunityIdCache may be shared with other instances for the same mandant
+   * @param cardRegistry only for this Konnektor, card handles are not valid for others
+   * @param certificateCache only for this Konnektor, likewise
+   * @param signingScheduler limits the signatures per card, may be shared with other instances
+   * @param cardReader reads several cards at once, see {@link #newCardReader()}
+   * @param events drop the cached cards and certificates on card events, until closed
+   */
+  public record Options(
+      @NonNull HomeCommunityIdCache homeCommunityIdCache,
+      @NonNull CardRegistry cardRegistry,
+      @NonNull CardCertificateCache certificateCache,
+      @NonNull CardSigningScheduler signingScheduler,
+      @NonNull Executor cardReader,
+      @Nullable KonnektorEvents events) {
+
+    /** nothing cached, signatures are not scheduled */
+    @NonNull
+    public static Options defaults() {
+      return new Options(
+          HomeCommunityIdCache.disabled(),
+          CardRegistry.disabled(),
+          CardCertificateCache.disabled(),
+          CardSigningScheduler.disabled(),
+          newCardReader(),
+          null);
+    }
+  }
+
+  /**
+   * A bounded pool of daemon threads for reading cards, meant to live as long as the service. Idle
+   * threads end after a while, it does not need to be shut down.
+   */
+  @NonNull
+  public static ExecutorService newCardReader() {
+    var executor =
+        new ThreadPoolExecutor(
+            CARD_READ_CONCURRENCY,
+            CARD_READ_CONCURRENCY,
+            CARD_READER_KEEP_ALIVE.toMillis(),
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            r -> {
+              var t = new Thread(r, "card-reader-" + threadCount.incrementAndGet());
+              t.setDaemon(true);
+              return t;
+            });
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
 
   public KonnektorServiceImpl(
       String userAgent, KonnektorConnection connection, KonnektorContext konnektorContext) {
+    this(userAgent, connection, konnektorContext, Options.defaults());
+  }
+
+  public KonnektorServiceImpl(
+      String userAgent,
+      KonnektorConnection connection,
+      KonnektorContext konnektorContext,
+      Options options) {
+    var homeCommunityIdCache = options.homeCommunityIdCache();
+    var cardRegistry = options.cardRegistry();
+    var certificateCache = options.certificateCache();
     this.userAgent = userAgent;
+    this.homeCommunityIdCache = homeCommunityIdCache;
+    this.cardRegistry = cardRegistry;
+    this.signingScheduler = options.signingScheduler();
+    this.cardReader = options.cardReader();
+    this.events = options.events();
 
-    eventServiceClient = new EventServiceClient(connection.eventService(), konnektorContext);
+    eventServiceClient =
+        new EventServiceClient(connection.eventService(), konnektorContext, cardRegistry);
 
     cardServiceClient =
         new CardServiceClient(connection.cardService(), konnektorContext, eventServiceClient);
@@ -64,22 +171,53 @@ public class KonnektorServiceImpl implements KonnektorService {
 
     phrManagementServiceClient =
         new PhrManagementServiceClient(
-            connection.phrManagementService(), konnektorContext, userAgent);
+            connection.phrManagementService(), konnektorContext, userAgent, homeCommunityIdCache);
 
     certificateServiceClient =
-        new CertificateServiceClient(connection.certificateService(), konnektorContext);
+        new CertificateServiceClient(
+            connection.certificateService(), konnektorContext, certificateCache);
 
     smbInformationServiceClient =
-        new SmbInformationServiceClient(eventServiceClient, certificateServiceClient);
+        new SmbInformationServiceClient(
+            eventServiceClient,
+            certificateServiceClient,
+            cardRegistry,
+            cardReader,
+            SmbInformationServiceClient.DEFAULT_TIMEOUT);
 
     authSignatureServiceClient =
         new AuthSignatureServiceClient(connection.authSignatureService(), konnektorContext);
+
+    signatureServiceClient =
+        new SignatureServiceClient(connection.signatureService(), konnektorContext);
+
+    // events do not tell which of the pooled Konnektors they are from
+    cardEventListener =
+        e -> {
+          if (!e.isCardEvent()) {
+            return;
+          }
+          cardRegistry.invalidate();
+          if (KonnektorEvent.CARD_REMOVED.equals(e.topic()) && e.cardHandle() != null) {
+            certificateCache.invalidateCard(e.cardHandle());
+          }
+        };
+    if (events != null) {
+      events.addListener(cardEventListener);
+    }
+  }
+
+  @Override
+  public void close() {
+    if (events != null) {
+      events.removeListener(cardEventListener);
+    }
   }
 
   @NonNull
   @Override
   public List<AuthorInstitution> getAuthorInstitutions() {
-    return smbInformationServiceClient.getAuthorInstitutions();
+    return cardRegistry.invalidateOnUnknownCard(smbInformationServiceClient::getAuthorInstitutions);
   }
 
   @NonNull
@@ -98,22 +236,121 @@ public class KonnektorServiceImpl implements KonnektorService {
     };
   }
 
+  @NonNull
+  @Override
+  public List<SignatureResult> signDocuments(
+      @NonNull String cardHandle,
+      @NonNull CardCertificate.Crypt crypt,
+      @NonNull List<SignatureRequest> requests) {
+    if (requests.isEmpty()) {
+      return List.of();
+    }
+    return signingScheduler.signAll(
+        konnektorId,
+        cardHandle,
+        () ->
+            cardRegistry.invalidateOnUnknownCard(
+                () -> signatureServiceClient.signDocuments(cardHandle, crypt.name(), requests)));
+  }
+
   @Override
   public @NonNull PinStatus verifySmcPin(@NonNull String cardHandle) {
-    var response = cardServiceClient.getPinStatusResponse(cardHandle, "PIN.SMC");
+    var response =
+        cardRegistry.invalidateOnUnknownCard(
+            () -> cardServiceClient.getPinStatusResponse(cardHandle, PIN_SMC));
+    return toPinStatus(response);
+  }
+
+  static PinStatus toPinStatus(GetPinStatusResponse response) {
     return PinStatus.valueOf(response.getPinStatus().name());
   }
 
   @NonNull
   @Override
   public X509Certificate readRsaAuthenticationCertificateForCard(@NonNull String cardHandle) {
-    return certificateServiceClient.readRsaAuthenticationCertificateForCard(cardHandle);
+    return cardRegistry.invalidateOnUnknownCard(
+        () -> certificateServiceClient.readRsaAuthenticationCertificateForCard(cardHandle));
   }
 
   @NonNull
   @Override
   public X509Certificate readEccAuthenticationCertificateForCard(@NonNull String cardHandle) {
-    return certificateServiceClient.readEccAuthenticationCertificateForCard(cardHandle);
+    return cardRegistry.invalidateOnUnknownCard(
+        () -> certificateServiceClient.readEccAuthenticationCertificateForCard(cardHandle));
+  }
+
+  @NonNull
+  @Override
+  public List<CardCertificate> readCardCertificates(
+      @NonNull Collection<String> cardHandles,
+      @NonNull Set<CardCertificate.Ref> refs,
+      @NonNull Set<CardCertificate.Crypt> crypts) {
+
+    var distinct = new LinkedHashSet<>(cardHandles);
+    if (distinct.isEmpty() || refs.isEmpty() || crypts.isEmpty()) {
+      return List.of();
+    }
+    if (distinct.size() == 1) {
+      return readCardCertificates(distinct.iterator().next(), refs, crypts);
+    }
+
+    var reads =
+        distinct.stream()
+            .map(
+                h ->
+                    CompletableFuture.supplyAsync(
+                        () -> readCardCertificates(h, refs, crypts), cardReader))
+            .toList();
+
+    var certificates = new ArrayList<CardCertificate>();
+    for (var read : reads) {
+      try {
+        certificates.addAll(read.join());
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException cause) {
+          throw cause;
+        }
+        throw e;
+      }
+    }
+    return certificates;
+  }
+
+  private List<CardCertificate> readCardCertificates(
+      String cardHandle, Set<CardCertificate.Ref> refs, Set<CardCertificate.Crypt> crypts) {
+
+    var certRefs = refs.stream().map(KonnektorServiceImpl::toCertRef).toList();
+    var certificates = new ArrayList<CardCertificate>();
+    for (var crypt : crypts) {
+      var read =
+          cardRegistry.invalidateOnUnknownCard(
+              () ->
+                  certificateServiceClient.readCardCertificates(
+                      cardHandle, toCryptType(crypt), certRefs));
+      for (var ref : refs) {
+        var certificate = read.get(toCertRef(ref));
+        if (certificate != null) {
+          certificates.add(new CardCertificate(cardHandle, ref, crypt, certificate));
+        }
+      }
+    }
+    return certificates;
+  }
+
+  private static CertRefEnum toCertRef(CardCertificate.Ref ref) {
+    return switch (ref) {
+      case C_AUT -> CertRefEnum.C_AUT;
+      case C_ENC -> CertRefEnum.C_ENC;
+      case C_SIG -> CertRefEnum.C_SIG;
+      case C_QES -> CertRefEnum.C_QES;
+    };
+  }
+
+  private static CryptType toCryptType(CardCertificate.Crypt crypt) {
+    return switch (crypt) {
+      case RSA -> CryptType.RSA;
+      case ECC -> CryptType.ECC;
+    };
   }
 
   @NonNull
@@ -122,7 +359,14 @@ public class KonnektorServiceImpl implements KonnektorService {
     // https://gemspec.gematik.de/docs/gemSpec/gemSpec_Kon/gemSpec_Kon_V5.24.0/#4.1.13.1.1
 
     var hash = Digest.sha256(bytesToSign);
-    return authSignatureServiceClient.signAuthHashRsaPss(cardHandle, hash);
+    return signingScheduler.sign(
+        konnektorId,
+        cardHandle,
+        "RSASSA-PSS",
+        hash,
+        () ->
+            cardRegistry.invalidateOnUnknownCard(
+                () -> authSignatureServiceClient.signAuthHashRsaPss(cardHandle, hash)));
   }
 
   @NonNull
@@ -131,7 +375,14 @@ public class KonnektorServiceImpl implements KonnektorService {
     // https://gemspec.gematik.de/docs/gemSpec/gemSpec_Kon/gemSpec_Kon_V5.24.0/#4.1.13.1.1
 
     var hash = Digest.sha256(bytesToSign);
-    return authSignatureServiceClient.signAuthHashEcdsa(cardHandle, hash);
+    return signingScheduler.sign(
+        konnektorId,
+        cardHandle,
+        "ECDSA",
+        hash,
+        () ->
+            cardRegistry.invalidateOnUnknownCard(
+                () -> authSignatureServiceClient.signAuthHashEcdsa(cardHandle, hash)));
   }
 
   @Override
@@ -142,6 +393,10 @@ public class KonnektorServiceImpl implements KonnektorService {
     var res =
         phrManagementServiceClient.getAuthorizationState(
             recordIdentifier.kvnr(), recordIdentifier.homeCommunityId());
+    return toAuthorizedApplications(res);
+  }
+
+  static List<AuthorizedApplication> toAuthorizedApplications(GetAuthorizationStateResponse res) {
     validateAuthorizationStateResponse(res);
 
     return res.getAuthorizationStatusList().getAuthorizedApplication().stream()
@@ -149,7 +404,7 @@ public class KonnektorServiceImpl implements KonnektorService {
         .toList();
   }
 
-  private void validateAuthorizationStateResponse(GetAuthorizationStateResponse res) {
+  private static void validateAuthorizationStateResponse(GetAuthorizationStateResponse res) {
     var result = parseResult(res.getStatus());
     if (ResultEnum.OK.equals(result)) {
       return;
@@ -168,25 +423,39 @@ public class KonnektorServiceImpl implements KonnektorService {
   @NonNull
   public List<AuthorizationEntry> getAuthorizationList() {
     var res = phrManagementServiceClient.getAuthorizationList();
+    return toAuthorizationEntries(res);
+  }
+
+  @Override
+  public void getAuthorizationList(@NonNull Consumer<AuthorizationEntry> consumer) {
+    var res =
+        phrManagementServiceClient.getAuthorizationList(
+            e -> consumer.accept(toAuthorizationEntry(e)));
+    validateAuthorizationListResponse(res);
+  }
 
+  static List<AuthorizationEntry> toAuthorizationEntries(GetAuthorizationListResponse res) {
     validateAuthorizationListResponse(res);
 
     return res.getAuthorizationList().getAuthorizationEntry().stream()
-        .map(
-            e ->
-                new AuthorizationEntry(
-                    new RecordIdentifier(
-                        e.getRecordIdentifier().getInsurantId().getExtension(),
-                        e.getRecordIdentifier().getHomeCommunityId()),
-                    parseDate(e.getValidTo())))
+        .map(KonnektorServiceImpl::toAuthorizationEntry)
         .toList();
   }
 
-  private LocalDate parseDate(XMLGregorianCalendar encoded) {
+  private static AuthorizationEntry toAuthorizationEntry(
+      GetAuthorizationListResponse.AuthorizationList.AuthorizationEntry e) {
+    return new AuthorizationEntry(
+        new RecordIdentifier(
+            e.getRecordIdentifier().getInsurantId().getExtension(),
+            e.getRecordIdentifier().getHomeCommunityId()),
+        parseDate(e.getValidTo()));
+  }
+
+  private static LocalDate parseDate(XMLGregorianCalendar encoded) {
     return LocalDate.of(encoded.getYear(), encoded.getMonth(), encoded.getDay());
   }
 
-  private void validateAuthorizationListResponse(GetAuthorizationListResponse res) {
+  private static void validateAuthorizationListResponse(GetAuthorizationListResponse res) {
     var result = parseResult(res.getStatus());
     if (ResultEnum.OK.equals(result)) {
       return;
@@ -195,7 +464,7 @@ public class KonnektorServiceImpl implements KonnektorService {
     throw new KonnektorException("bad GetAuthorizationListResponse: " + res.getStatus().toString());
   }
 
-  private ResultEnum parseResult(Status status) {
+  private static ResultEnum parseResult(Status status) {
     var str = status.getResult().toUpperCase(Locale.ROOT);
     try {
       // upper case before parsing, the Result allows 'Warning' while the enum does not
@@ -209,61 +478,176 @@ public class KonnektorServiceImpl implements KonnektorService {
   @Override
   public @NonNull WriteDocumentResponse writeDocument(
       @NonNull RecordIdentifier recordIdentifier, @NonNull Document document) {
+    return writeDocumentSet(recordIdentifier, List.of(document));
+  }
 
-    var phrRecordIdentifier =
-        new com.oviva.epa.client.internal.svc.phr.model.RecordIdentifier(
-            recordIdentifier.kvnr(), recordIdentifier.homeCommunityId());
+  @Override
+  public @NonNull WriteDocumentResponse writeDocument(
+      @NonNull RecordIdentifier recordIdentifier,
+      @NonNull DocumentMetadata metadata,
+      @NonNull DocumentSource content) {
+    try (var placeholder = StreamingAttachmentOutInterceptor.register(content.dataHandler())) {
+      var res = writeDocument(recordIdentifier, streamedDocument(metadata, placeholder));
+      placeholder.requireAttached();
+      return res;
+    }
+  }
 
-    var metadata = getSubmissionSetMetadata(document.documentMetadata());
-    var docSubmissionRequest =
-        new DocumentSubmissionRequest(
-            new RecordIdentifierAdapter(phrRecordIdentifier), List.of(document), metadata);
+  @Override
+  public @NonNull WriteDocumentResponse replaceDocument(
+      @NonNull RecordIdentifier recordIdentifier,
+      @NonNull DocumentMetadata metadata,
+      @NonNull DocumentSource content,
+      @NonNull UUID documentToReplaceId) {
+    try (var placeholder = StreamingAttachmentOutInterceptor.register(content.dataHandler())) {
+      var res =
+          replaceDocument(
+              recordIdentifier, streamedDocument(metadata, placeholder), documentToReplaceId);
+      placeholder.requireAttached();
+      return res;
+    }
+  }
 
-    var req = LibIheXdsMain.convertDocumentSubmissionRequest(docSubmissionRequest);
+  /**
+   * The document carries a placeholder only, the actual content is attached while sending the
+   * request by the {@link StreamingAttachmentOutInterceptor}.
+   */
+  private static Document streamedDocument(
+      DocumentMetadata metadata, StreamingAttachmentOutInterceptor.Placeholder p) {
+    return new Document(p.bytes(), metadata, null);
+  }
 
-    var res =
-        phrServiceClient.documentRepositoryProvideAndRegisterDocumentSetB(phrRecordIdentifier, req);
+  @Override
+  public @NonNull WriteDocumentResponse writeDocumentSet(
+      @NonNull RecordIdentifier recordIdentifier, @NonNull List<Document> documents) {
+
+    var phrRecordIdentifier = toPhrRecordIdentifier(recordIdentifier);
+    var req = toSubmissionRequest(phrRecordIdentifier, documents);
+
+    return invalidateHomeCommunityIdOnFailure(
+        recordIdentifier,
+        () -> {
+          var res =
+              phrServiceClient.documentRepositoryProvideAndRegisterDocumentSetB(
+                  phrRecordIdentifier, req);
+          return toWriteDocumentResponse(res, documentIds(req, documents));
+        });
+  }
+
+  /** the record might have moved to another provider, the next lookup asks the Konnektor again */
+  private WriteDocumentResponse invalidateHomeCommunityIdOnFailure(
+      RecordIdentifier recordIdentifier, Supplier<WriteDocumentResponse> write) {
+    try {
+      return write.get();
+    } catch (RuntimeException e) {
+      homeCommunityIdCache.invalidate(recordIdentifier.kvnr());
+      throw e;
+    }
+  }
+
+  static com.oviva.epa.client.internal.svc.phr.model.RecordIdentifier toPhrRecordIdentifier(
+      RecordIdentifier recordIdentifier) {
+    return new com.oviva.epa.client.internal.svc.phr.model.RecordIdentifier(
+        recordIdentifier.kvnr(), recordIdentifier.homeCommunityId());
+  }
+
+  static ProvideAndRegisterDocumentSetRequestType toSubmissionRequest(
+      com.oviva.epa.client.internal.svc.phr.model.RecordIdentifier phrRecordIdentifier,
+      List<Document> documents) {
 
-    validateResponse(res);
+    var metadata = getSubmissionSetMetadata(documents);
+    var docSubmissionRequest =
+        new DocumentSubmissionRequest(
+            new RecordIdentifierAdapter(phrRecordIdentifier), documents, metadata);
+
+    return LibIheXdsMain.convertDocumentSubmissionRequest(docSubmissionRequest);
+  }
 
+  static WriteDocumentResponse toWriteDocumentResponse(
+      RegistryResponseType res, List<Set<String>> documentIds) {
+    validateResponse(res, documentIds);
     return new WriteDocumentResponse(res.getRequestId());
   }
 
+  /**
+   * The identifiers the registry may refer to a document by in its errors, the entryUUID assigned
+   * in the submission and the uniqueId of the document. Indexed like the given documents.
+   */
+  static List<Set<String>> documentIds(
+      ProvideAndRegisterDocumentSetRequestType req, List<? extends DocumentInterface> documents) {
+
+    var ids = new ArrayList<Set<String>>(documents.size());
+    for (int i = 0; i < documents.size(); i++) {
+      var documentIds = new HashSet<String>();
+      if (i < req.getDocument().size()) {
+        documentIds.add(req.getDocument().get(i).getId());
+      }
+      Optional.ofNullable(documents.get(i).documentMetadata())
+          .map(DocumentMetadata::uniqueId)
+          .ifPresent(documentIds::add);
+      documentIds.remove(null);
+      documentIds.remove("");
+      ids.add(documentIds);
+    }
+    return ids;
+  }
+
   @Override
   public @NonNull WriteDocumentResponse replaceDocument(
       @NonNull RecordIdentifier recordIdentifier,
       @NonNull Document document,
       @NonNull UUID documentToReplaceId) {
+    return replaceDocumentSet(
+        recordIdentifier, List.of(new DocumentReplacement(document, documentToReplaceId)));
+  }
 
-    var phrRecordIdentifier =
-        new com.oviva.epa.client.internal.svc.phr.model.RecordIdentifier(
-            recordIdentifier.kvnr(), recordIdentifier.homeCommunityId());
+  @Override
+  public @NonNull WriteDocumentResponse replaceDocumentSet(
+      @NonNull RecordIdentifier recordIdentifier, @NonNull List<DocumentReplacement> replacements) {
+
+    var phrRecordIdentifier = toPhrRecordIdentifier(recordIdentifier);
+    var provideAndRegisterRequest = toReplaceRequest(phrRecordIdentifier, replacements);
+
+    return invalidateHomeCommunityIdOnFailure(
+        recordIdentifier,
+        () -> {
+          var res =
+              phrServiceClient.documentRepositoryProvideAndRegisterDocumentSetB(
+                  phrRecordIdentifier, provideAndRegisterRequest);
+          return toWriteDocumentResponse(
+              res,
+              documentIds(
+                  provideAndRegisterRequest,
+                  replacements.stream().map(DocumentReplacement::document).toList()));
+        });
+  }
+
+  static ProvideAndRegisterDocumentSetRequestType toReplaceRequest(
+      com.oviva.epa.client.internal.svc.phr.model.RecordIdentifier phrRecordIdentifier,
+      List<DocumentReplacement> replacements) {
 
-    var metadata = getSubmissionSetMetadata(document.documentMetadata());
+    var metadata =
+        getSubmissionSetMetadata(replacements.stream().map(DocumentReplacement::document).toList());
 
-    var replaceDocument =
-        new ReplaceDocument(
-            document.documentData(),
-            document.documentMetadata(),
-            // this ID must be a valid object ID in IHE
-            uuidToUrn(documentToReplaceId).orElse(null));
+    var replaceDocuments =
+        replacements.stream()
+            .map(
+                r ->
+                    new ReplaceDocument(
+                        r.document().documentData(),
+                        r.document().documentMetadata(),
+                        // this ID must be a valid object ID in IHE
+                        uuidToUrn(r.documentToReplaceId()).orElse(null)))
+            .toList();
 
     var req =
         new DocumentReplaceRequest(
-            new RecordIdentifierAdapter(phrRecordIdentifier), List.of(replaceDocument), metadata);
+            new RecordIdentifierAdapter(phrRecordIdentifier), replaceDocuments, metadata);
 
-    var provideAndRegisterRequest = LibIheXdsMain.convertDocumentReplaceRequest(req);
-
-    var res =
-        phrServiceClient.documentRepositoryProvideAndRegisterDocumentSetB(
-            phrRecordIdentifier, provideAndRegisterRequest);
-
-    validateResponse(res);
-
-    return new WriteDocumentResponse(res.getRequestId());
+    return LibIheXdsMain.convertDocumentReplaceRequest(req);
   }
 
-  private void validateResponse(RegistryResponseType res) {
+  private static void validateResponse(RegistryResponseType res, List<Set<String>> documentIds) {
 
     if (REGISTRY_STATUS_SUCCESS.equals(res.getStatus())) {
       return;
@@ -283,7 +667,61 @@ public class KonnektorServiceImpl implements KonnektorService {
                         e.getLocation()))
             .toList();
     throw new WriteDocumentException(
-        "writing document failed, status='%s'".formatted(res.getStatus()), errors);
+        "writing document failed, status='%s'".formatted(res.getStatus()),
+        errors,
+        errorsByDocument(errors, documentIds));
+  }
+
+  /**
+   * Attributes registry errors to documents of the submission set. The registry has no structured
+   * reference, it names the entryUUID or uniqueId of the offending document in the location or the
+   * message of an error.
+   */
+  static Map<Integer, List<WriteDocumentException.Error>> errorsByDocument(
+      List<WriteDocumentException.Error> errors, List<Set<String>> documentIds) {
+
+    var byDocument = new TreeMap<Integer, List<WriteDocumentException.Error>>();
+    for (var error : errors) {
+      for (int i = 0; i < documentIds.size(); i++) {
+        if (documentIds.get(i).stream()
+            .anyMatch(id -> containsId(error.location(), id) || containsId(error.value(), id))) {
+          byDocument.computeIfAbsent(i, k -> new ArrayList<>()).add(error);
+        }
+      }
+    }
+    return Collections.unmodifiableMap(byDocument);
+  }
+
+  /**
+   * Whether the text names the id as a whole, an id that is the prefix of another one, e.g.
+   * '1.2.3.1' of '1.2.3.12', must not match it.
+   */
+  static boolean containsId(@Nullable String s, String id) {
+    if (s == null || id.isEmpty()) {
+      return false;
+    }
+    for (int i = s.indexOf(id); i >= 0; i = s.indexOf(id, i + 1)) {
+      var end = i + id.length();
+      if ((i == 0 || !isIdChar(s.charAt(i - 1))) && !continuesId(s, end)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean continuesId(String s, int i) {
+    if (i == s.length()) {
+      return false;
+    }
+    // a dot ending a sentence does not continue an OID
+    if (s.charAt(i) == '.') {
+      return i + 1 < s.length() && Character.isLetterOrDigit(s.charAt(i + 1));
+    }
+    return isIdChar(s.charAt(i));
+  }
+
+  private static boolean isIdChar(char c) {
+    return Character.isLetterOrDigit(c) || c == '.' || c == '-' || c == '_' || c == '^';
   }
 
   @Override
@@ -295,10 +733,15 @@ public class KonnektorServiceImpl implements KonnektorService {
     }
   }
 
-  private SubmissionSetMetadata getSubmissionSetMetadata(DocumentMetadata metadata) {
+  private static SubmissionSetMetadata getSubmissionSetMetadata(List<Document> documents) {
+
+    if (documents.isEmpty()) {
+      throw new IllegalArgumentException("no documents");
+    }
 
+    // the submission set is authored by the author of the first document
     var author =
-        metadata.author().stream()
+        documents.get(0).documentMetadata().author().stream()
             .findFirst()
             .orElseThrow(() -> new IllegalArgumentException("no author"));
 
@@ -310,7 +753,7 @@ public class KonnektorServiceImpl implements KonnektorService {
    * href="https://wiki.ihe.net/index.php/Creating_Unique_IDs_-_OID_and_UUID">Creating Unique IDs -
    * OID and UUID</a>
    */
-  private Optional<String> uuidToUrn(@Nullable UUID id) {
+  private static Optional<String> uuidToUrn(@Nullable UUID id) {
     return Optional.ofNullable(id).map("urn:uuid:%s"::formatted);
   }
 }
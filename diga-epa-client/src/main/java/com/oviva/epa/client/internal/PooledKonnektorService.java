@@ -0,0 +1,475 @@
+package com.oviva.epa.client.internal;
+
+import com.oviva.epa.client.KonnektorService;
+import com.oviva.epa.client.konn.internal.util.KonnektorUtils;
+import com.oviva.epa.client.model.*;
+import de.gematik.epa.ihe.model.document.Document;
+import de.gematik.epa.ihe.model.document.DocumentMetadata;
+import de.gematik.epa.ihe.model.simple.AuthorInstitution;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import jakarta.xml.ws.WebServiceException;
+import java.nio.charset.StandardCharsets;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32C;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Spreads calls over several Konnektors.
+ *
+ * <p>Nodes are picked by 'power of two choices': of two random available nodes the one with the
+ * lower load, i.e. the exponentially weighted moving average of its latency times its in-flight
+ * calls, is used. A node failing with a transport error {@code maxFailures} times in a row is
+ * ejected for {@code ejectionTime}, afterwards it is re-admitted and ejected again on its next
+ * failure until it answered successfully. If all nodes are ejected, all are used again.
+ *
+ * <p>Idempotent calls are retried once on another node after a transport error, writes and the
+ * authorization list are never retried as the Konnektor might have processed them. Card handles are
+ * only valid on the Konnektor that issued them, calls for a handle seen in {@link #getCardsInfo()}
+ * always go to that node. Calls for a handle reported by several nodes fail, it is unknown which of
+ * the cards is meant. Optionally calls for a KVNR are routed to the same node via rendezvous
+ * hashing, so they profit from caches of that Konnektor.
+ */
+public class PooledKonnektorService implements KonnektorService {
+
+  private static final Logger log = LoggerFactory.getLogger(PooledKonnektorService.class);
+
+  // weight of the newest latency sample in the moving average
+  private static final double EWMA_ALPHA = 0.3;
+
+  private final List<Node> nodes;
+  private final Duration ejectionTime;
+  private final int maxFailures;
+  private final boolean routeByKvnr;
+  private final LongSupplier nanoTime;
+
+  public PooledKonnektorService(
+      @NonNull List<KonnektorService> delegates,
+      @NonNull Duration ejectionTime,
+      int maxFailures,
+      boolean routeByKvnr) {
+    this(delegates, ejectionTime, maxFailures, routeByKvnr, System::nanoTime);
+  }
+
+  PooledKonnektorService(
+      @NonNull List<KonnektorService> delegates,
+      @NonNull Duration ejectionTime,
+      int maxFailures,
+      boolean routeByKvnr,
+      @NonNull LongSupplier nanoTime) {
+    if (delegates.isEmpty()) {
+      throw new IllegalArgumentException("at least one Konnektor required");
+    }
+    if (maxFailures < 1) {
+      throw new IllegalArgumentException("maxFailures must be positive");
+    }
+
+    var list = new ArrayList<Node>(delegates.size());
+    for (int i = 0; i < delegates.size(); i++) {
+      list.add(new Node(i, delegates.get(i)));
+    }
+    this.nodes = List.copyOf(list);
+    this.ejectionTime = ejectionTime;
+    this.maxFailures = maxFailures;
+    this.routeByKvnr = routeByKvnr;
+    this.nanoTime = nanoTime;
+  }
+
+  @NonNull
+  @Override
+  public List<AuthorInstitution> getAuthorInstitutions() {
+    return new ArrayList<>(
+        new LinkedHashSet<>(
+            fromAll(KonnektorService::getAuthorInstitutions, "author institutions")));
+  }
+
+  @NonNull
+  @Override
+  public List<Card> getCardsInfo() {
+    var cards = new ArrayList<Card>();
+    for (var node : availableNodes()) {
+      try {
+        var nodeCards = call(node, KonnektorService::getCardsInfo);
+        rememberCardHandles(node, nodeCards);
+        cards.addAll(nodeCards);
+      } catch (WebServiceException e) {
+        logSkipped(node, "cards", e);
+      }
+    }
+    if (cards.isEmpty()) {
+      // nothing from any available node, let a single node fail loudly or answer
+      return idempotent(null, KonnektorService::getCardsInfo);
+    }
+    return cards;
+  }
+
+  @NonNull
+  @Override
+  public X509Certificate readRsaAuthenticationCertificateForCard(@NonNull String cardHandle) {
+    return forCard(cardHandle, s -> s.readRsaAuthenticationCertificateForCard(cardHandle));
+  }
+
+  @NonNull
+  @Override
+  public X509Certificate readEccAuthenticationCertificateForCard(@NonNull String cardHandle) {
+    return forCard(cardHandle, s -> s.readEccAuthenticationCertificateForCard(cardHandle));
+  }
+
+  @NonNull
+  @Override
+  public List<CardCertificate> readCardCertificates(
+      @NonNull Collection<String> cardHandles,
+      @NonNull Set<CardCertificate.Ref> refs,
+      @NonNull Set<CardCertificate.Crypt> crypts) {
+
+    // each Konnektor only knows its own handles, ask each for its share
+    var handlesByOwner = new LinkedHashMap<Node, List<String>>();
+    var unowned = new ArrayList<String>();
+    for (var handle : new LinkedHashSet<>(cardHandles)) {
+      var owner = owner(handle);
+      if (owner != null) {
+        handlesByOwner.computeIfAbsent(owner, n -> new ArrayList<>()).add(handle);
+      } else {
+        unowned.add(handle);
+      }
+    }
+    if (!unowned.isEmpty()) {
+      handlesByOwner.computeIfAbsent(pick(null), n -> new ArrayList<>()).addAll(unowned);
+    }
+
+    var certificates = new ArrayList<CardCertificate>();
+    handlesByOwner.forEach(
+        (node, handles) ->
+            certificates.addAll(call(node, s -> s.readCardCertificates(handles, refs, crypts))));
+
+    // back into the order of the handles given
+    var order = new HashMap<String, Integer>();
+    for (var handle : cardHandles) {
+      order.putIfAbsent(handle, order.size());
+    }
+    certificates.sort(Comparator.comparing(c -> order.get(c.cardHandle())));
+    return certificates;
+  }
+
+  @NonNull
+  @Override
+  public byte[] authSignRsaPss(@NonNull String cardHandle, byte[] bytesToSign) {
+    return forCard(cardHandle, s -> s.authSignRsaPss(cardHandle, bytesToSign));
+  }
+
+  @NonNull
+  @Override
+  public byte[] authSignEcdsa(@NonNull String cardHandle, byte[] bytesToSign) {
+    return forCard(cardHandle, s -> s.authSignEcdsa(cardHandle, bytesToSign));
+  }
+
+  @NonNull
+  @Override
+  public List<SignatureResult> signDocuments(
+      @NonNull String cardHandle,
+      @NonNull CardCertificate.Crypt crypt,
+      @NonNull List<SignatureRequest> requests) {
+    return forCard(cardHandle, s -> s.signDocuments(cardHandle, crypt, requests));
+  }
+
+  @NonNull
+  @Override
+  public PinStatus verifySmcPin(@NonNull String cardHandle) {
+    return forCard(cardHandle, s -> s.verifySmcPin(cardHandle));
+  }
+
+  @NonNull
+  @Override
+  public List<AuthorizedApplication> getAuthorizationState(
+      @NonNull RecordIdentifier recordIdentifier) {
+    return idempotent(recordIdentifier.kvnr(), s -> s.getAuthorizationState(recordIdentifier));
+  }
+
+  @NonNull
+  @Override
+  public List<AuthorizationEntry> getAuthorizationList() {
+    // not retried, the list may be fetched once a day only (A_19008-01) and the first Konnektor
+    // might have fetched it already
+    return call(pick(null), KonnektorService::getAuthorizationList);
+  }
+
+  @Override
+  public void getAuthorizationList(@NonNull Consumer<AuthorizationEntry> consumer) {
+    // not retried, the consumer might have seen entries already
+    call(
+        pick(null),
+        s -> {
+          s.getAuthorizationList(consumer);
+          return null;
+        });
+  }
+
+  @NonNull
+  @Override
+  public WriteDocumentResponse writeDocument(
+      @NonNull RecordIdentifier recordIdentifier, @NonNull Document document) {
+    return call(pick(recordIdentifier.kvnr()), s -> s.writeDocument(recordIdentifier, document));
+  }
+
+  @NonNull
+  @Override
+  public WriteDocumentResponse replaceDocument(
+      @NonNull RecordIdentifier recordIdentifier,
+      @NonNull Document document,
+      @NonNull UUID documentToReplaceId) {
+    return call(
+        pick(recordIdentifier.kvnr()),
+        s -> s.replaceDocument(recordIdentifier, document, documentToReplaceId));
+  }
+
+  @NonNull
+  @Override
+  public WriteDocumentResponse writeDocument(
+      @NonNull RecordIdentifier recordIdentifier,
+      @NonNull DocumentMetadata metadata,
+      @NonNull DocumentSource content) {
+    return call(
+        pick(recordIdentifier.kvnr()), s -> s.writeDocument(recordIdentifier, metadata, content));
+  }
+
+  @NonNull
+  @Override
+  public WriteDocumentResponse replaceDocument(
+      @NonNull RecordIdentifier recordIdentifier,
+      @NonNull DocumentMetadata metadata,
+      @NonNull DocumentSource content,
+      @NonNull UUID documentToReplaceId) {
+    return call(
+        pick(recordIdentifier.kvnr()),
+        s -> s.replaceDocument(recordIdentifier, metadata, content, documentToReplaceId));
+  }
+
+  @NonNull
+  @Override
+  public WriteDocumentResponse writeDocumentSet(
+      @NonNull RecordIdentifier recordIdentifier, @NonNull List<Document> documents) {
+    return call(
+        pick(recordIdentifier.kvnr()), s -> s.writeDocumentSet(recordIdentifier, documents));
+  }
+
+  @NonNull
+  @Override
+  public WriteDocumentResponse replaceDocumentSet(
+      @NonNull RecordIdentifier recordIdentifier, @NonNull List<DocumentReplacement> replacements) {
+    return call(
+        pick(recordIdentifier.kvnr()), s -> s.replaceDocumentSet(recordIdentifier, replacements));
+  }
+
+  @NonNull
+  @Override
+  public String getHomeCommunityID(@NonNull String kvnr) {
+    return idempotent(kvnr, s -> s.getHomeCommunityID(kvnr));
+  }
+
+  @Override
+  public void close() {
+    for (var node : nodes) {
+      node.delegate.close();
+    }
+  }
+
+  /** number of nodes currently not ejected */
+  public int availableNodeCount() {
+    var now = nanoTime.getAsLong();
+    return (int) nodes.stream().filter(n -> n.isAvailable(now)).count();
+  }
+
+  private <T> List<T> fromAll(Function<KonnektorService, List<T>> fn, String what) {
+    var results = new ArrayList<T>();
+    var answered = false;
+    for (var node : availableNodes()) {
+      try {
+        results.addAll(call(node, fn));
+        answered = true;
+      } catch (WebServiceException e) {
+        logSkipped(node, what, e);
+      }
+    }
+    if (!answered) {
+      return idempotent(null, fn);
+    }
+    return results;
+  }
+
+  private <T> T forCard(String cardHandle, Function<KonnektorService, T> fn) {
+    var owner = owner(cardHandle);
+    if (owner != null) {
+      // the handle is meaningless on any other Konnektor, no failover
+      return call(owner, fn);
+    }
+    return call(pick(null), fn);
+  }
+
+  private <T> T idempotent(@Nullable String kvnr, Function<KonnektorService, T> fn) {
+    var first = pick(kvnr);
+    try {
+      return call(first, fn);
+    } catch (WebServiceException e) {
+      var second = KonnektorUtils.isTransportError(e) ? pickOther(first) : null;
+      if (second == null) {
+        throw e;
+      }
+      log.atDebug()
+          .addKeyValue("node", first.index)
+          .addKeyValue("retryNode", second.index)
+          .log("retrying on another Konnektor");
+      return call(second, fn);
+    }
+  }
+
+  private <T> T call(Node node, Function<KonnektorService, T> fn) {
+    node.inFlight.incrementAndGet();
+    var start = nanoTime.getAsLong();
+    try {
+      var res = fn.apply(node.delegate);
+      node.recordSuccess(nanoTime.getAsLong() - start);
+      return res;
+    } catch (WebServiceException e) {
+      if (KonnektorUtils.isTransportError(e)) {
+        recordFailure(node, e);
+      } else {
+        // the Konnektor answered, it is healthy
+        node.recordSuccess(nanoTime.getAsLong() - start);
+      }
+      throw e;
+    } finally {
+      node.inFlight.decrementAndGet();
+    }
+  }
+
+  private void recordFailure(Node node, WebServiceException e) {
+    var failures = node.consecutiveFailures.incrementAndGet();
+    if (failures < maxFailures) {
+      return;
+    }
+    node.ejectedUntil = nanoTime.getAsLong() + ejectionTime.toNanos();
+    log.atWarn()
+        .setCause(e)
+        .addKeyValue("node", node.index)
+        .addKeyValue("failures", failures)
+        .addKeyValue("ejectionTime", ejectionTime)
+        .log("ejecting Konnektor from pool");
+  }
+
+  private static void rememberCardHandles(Node node, List<Card> cards) {
+    // replaces what the node reported before, removed cards are gone from it
+    node.cardHandles = cards.stream().map(Card::handle).collect(Collectors.toUnmodifiableSet());
+  }
+
+  /**
+   * @return the node that reported the handle, null if none did
+   * @throws KonnektorException if several nodes reported the handle
+   */
+  @Nullable
+  private Node owner(String cardHandle) {
+    var owners = nodes.stream().filter(n -> n.cardHandles.contains(cardHandle)).toList();
+    if (owners.size() > 1) {
+      throw new KonnektorException(
+          "card handle '%s' reported by %d Konnektors, unknown which card is meant"
+              .formatted(cardHandle, owners.size()));
+    }
+    return owners.isEmpty() ? null : owners.get(0);
+  }
+
+  private List<Node> availableNodes() {
+    var now = nanoTime.getAsLong();
+    var available = nodes.stream().filter(n -> n.isAvailable(now)).toList();
+
+    // all ejected, rather try than fail
+    return available.isEmpty() ? nodes : available;
+  }
+
+  private Node pick(@Nullable String kvnr) {
+    var available = availableNodes();
+    if (available.size() == 1) {
+      return available.get(0);
+    }
+    if (routeByKvnr && kvnr != null) {
+      return available.stream()
+          .max(Comparator.comparingLong(n -> rendezvousWeight(kvnr, n)))
+          .orElseThrow();
+    }
+
+    var rnd = ThreadLocalRandom.current();
+    var a = available.get(rnd.nextInt(available.size()));
+    Node b;
+    do {
+      b = available.get(rnd.nextInt(available.size()));
+    } while (b == a);
+    return a.load() <= b.load() ? a : b;
+  }
+
+  @Nullable
+  private Node pickOther(Node exclude) {
+    var now = nanoTime.getAsLong();
+    return nodes.stream()
+        .filter(n -> n != exclude && n.isAvailable(now))
+        .min(Comparator.comparingDouble(Node::load))
+        .orElse(null);
+  }
+
+  private static long rendezvousWeight(String kvnr, Node node) {
+    var crc = new CRC32C();
+    crc.update(kvnr.getBytes(StandardCharsets.UTF_8));
+    crc.update(node.index);
+    return crc.getValue();
+  }
+
+  private static void logSkipped(Node node, String what, WebServiceException e) {
+    log.atWarn().setCause(e).addKeyValue("node", node.index).log("skipping Konnektor for {}", what);
+  }
+
+  private static class Node {
+
+    private final int index;
+    private final KonnektorService delegate;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long ejectedUntil;
+    private volatile Set<String> cardHandles = Set.of();
+    private double latencyEwmaNanos;
+
+    Node(int index, KonnektorService delegate) {
+      this.index = index;
+      this.delegate = delegate;
+    }
+
+    boolean isAvailable(long now) {
+      var until = ejectedUntil;
+      return until == 0 || until - now <= 0;
+    }
+
+    synchronized void recordSuccess(long latencyNanos) {
+      consecutiveFailures.set(0);
+      ejectedUntil = 0;
+      latencyEwmaNanos += EWMA_ALPHA * (latencyNanos - latencyEwmaNanos);
+    }
+
+    synchronized double load() {
+      return latencyEwmaNanos * (inFlight.get() + 1);
+    }
+  }
+}
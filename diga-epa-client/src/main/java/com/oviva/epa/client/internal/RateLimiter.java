@@ -0,0 +1,65 @@
+package com.oviva.epa.client.internal;
+
+import com.oviva.epa.client.model.KonnektorException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Spaces out calls evenly to at most a given number per second. Callers reserve the next free slot
+ * and sleep until it is due, there is no bursting.
+ */
+public class RateLimiter {
+
+  private final long intervalNanos;
+  private final LongSupplier nanoTime;
+
+  // guarded by this
+  private long next;
+
+  /**
+   * @param permitsPerSecond calls allowed per second, 0 for no limit
+   */
+  public RateLimiter(double permitsPerSecond) {
+    this(permitsPerSecond, System::nanoTime);
+  }
+
+  RateLimiter(double permitsPerSecond, LongSupplier nanoTime) {
+    if (permitsPerSecond < 0 || Double.isNaN(permitsPerSecond)) {
+      throw new IllegalArgumentException("permitsPerSecond must not be negative");
+    }
+    this.intervalNanos =
+        permitsPerSecond == 0 ? 0 : (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+    this.nanoTime = nanoTime;
+    this.next = nanoTime.getAsLong();
+  }
+
+  /** blocks until the caller may go ahead */
+  public void acquire() {
+    var wait = reserve();
+    if (wait <= 0) {
+      return;
+    }
+    try {
+      TimeUnit.NANOSECONDS.sleep(wait);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new KonnektorException("interrupted while waiting for rate limit", e);
+    }
+  }
+
+  /**
+   * @return nanos to wait until the reserved slot is due
+   */
+  long reserve() {
+    if (intervalNanos == 0) {
+      return 0;
+    }
+    var now = nanoTime.getAsLong();
+    synchronized (this) {
+      // idle time does not accumulate into a burst
+      var slot = next - now > 0 ? next : now;
+      next = slot + intervalNanos;
+      return slot - now;
+    }
+  }
+}
@@ -0,0 +1,383 @@
+package com.oviva.epa.client.internal.outbox;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.CRC32C;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A local append-only log of entries, split into segments of bounded size.
+ *
+ * <p>An entry is {@link #append(byte[]) appended} once and {@link #release(long, byte[]) released}
+ * once it is done with. Whatever was appended but not yet released is handed out again by {@link
+ * #replayed()} after a restart. Segments are deleted from the oldest one on as soon as all entries
+ * in them were released, this way a release record never outlives the entry it refers to.
+ *
+ * <p>Appends are made durable in batches: a single flusher syncs the file once for all appends that
+ * arrived in the meantime, waiting up to the sync delay for more to join.
+ *
+ * <p>Each record is framed as {@code [length][crc32c][type][id][payload]}, a torn record at the end
+ * of a segment is detected by its length or checksum and ignored.
+ */
+class SegmentedLog implements Closeable {
+
+  private static final Logger log = LoggerFactory.getLogger(SegmentedLog.class);
+
+  private static final byte TYPE_APPEND = 1;
+  private static final byte TYPE_RELEASE = 2;
+
+  // type + id
+  private static final int RECORD_HEADER_SIZE = 1 + Long.BYTES;
+  // length + crc
+  private static final int FRAME_HEADER_SIZE = 2 * Integer.BYTES;
+
+  private static final String SEGMENT_SUFFIX = ".log";
+
+  private final Path directory;
+  private final long maxSegmentSize;
+  private final Duration syncDelay;
+
+  private final Object lock = new Object();
+
+  // all guarded by the lock
+  private final TreeMap<Long, Segment> segments = new TreeMap<>();
+  private final Map<Long, Segment> segmentByEntry = new HashMap<>();
+  private final Map<Long, byte[]> replayed = new LinkedHashMap<>();
+  private List<CompletableFuture<Void>> unsynced = new ArrayList<>();
+  private Segment active;
+  private long nextId;
+  private boolean closed;
+
+  private final Thread flusher;
+
+  record Entry(long id, byte[] payload) {}
+
+  private static final class Segment {
+    final Path path;
+    FileChannel channel;
+    long size;
+    int open;
+
+    Segment(Path path) {
+      this.path = path;
+    }
+  }
+
+  private SegmentedLog(Path directory, long maxSegmentSize, Duration syncDelay) {
+    this.directory = directory;
+    this.maxSegmentSize = maxSegmentSize;
+    this.syncDelay = syncDelay;
+    this.flusher = new Thread(this::flushLoop, "outbox-log-flusher");
+    this.flusher.setDaemon(true);
+  }
+
+  /** Opens the log in the given directory, replaying what is there already. */
+  @NonNull
+  static SegmentedLog open(@NonNull Path directory, long maxSegmentSize, Duration syncDelay) {
+    var segmentedLog = new SegmentedLog(directory, maxSegmentSize, syncDelay);
+    try {
+      Files.createDirectories(directory);
+      segmentedLog.replay();
+      segmentedLog.roll();
+    } catch (IOException e) {
+      segmentedLog.close();
+      throw new UncheckedIOException("failed to open outbox log in %s".formatted(directory), e);
+    }
+    segmentedLog.flusher.start();
+    return segmentedLog;
+  }
+
+  /** entries a previous run appended but did not release, in the order they were appended */
+  @NonNull
+  List<Entry> replayed() {
+    synchronized (lock) {
+      return replayed.entrySet().stream().map(e -> new Entry(e.getKey(), e.getValue())).toList();
+    }
+  }
+
+  /**
+   * Appends a new entry.
+   *
+   * @return the entry, durable once {@link Appended#durable()} completes
+   */
+  @NonNull
+  Appended append(@NonNull byte[] payload) {
+    synchronized (lock) {
+      var id = nextId++;
+      var durable = write(TYPE_APPEND, id, payload);
+      active.open++;
+      segmentByEntry.put(id, active);
+      return new Appended(id, durable);
+    }
+  }
+
+  record Appended(long id, CompletableFuture<Void> durable) {}
+
+  /**
+   * Releases an entry, it won't be replayed anymore. The release is synced with the next batch, the
+   * entry might still be replayed if the process dies before.
+   */
+  void release(long id, @NonNull byte[] payload) {
+    synchronized (lock) {
+      var segment = segmentByEntry.remove(id);
+      if (segment == null) {
+        return;
+      }
+      write(TYPE_RELEASE, id, payload);
+      replayed.remove(id);
+      segment.open--;
+      deleteReleasedSegments();
+    }
+  }
+
+  /** number of segments currently on disk, including the active one */
+  int segmentCount() {
+    synchronized (lock) {
+      return segments.size();
+    }
+  }
+
+  private CompletableFuture<Void> write(byte type, long id, byte[] payload) {
+    if (closed) {
+      throw new IllegalStateException("log is closed");
+    }
+    try {
+      if (active.size >= maxSegmentSize) {
+        roll();
+      }
+
+      var buf = frame(type, id, payload);
+      var size = buf.remaining();
+      while (buf.hasRemaining()) {
+        active.channel.write(buf);
+      }
+      active.size += size;
+    } catch (IOException e) {
+      throw new UncheckedIOException("failed to append to outbox log", e);
+    }
+
+    var durable = new CompletableFuture<Void>();
+    unsynced.add(durable);
+    lock.notifyAll();
+    return durable;
+  }
+
+  private static ByteBuffer frame(byte type, long id, byte[] payload) {
+    var length = RECORD_HEADER_SIZE + payload.length;
+    var buf = ByteBuffer.allocate(FRAME_HEADER_SIZE + length);
+    buf.putInt(length);
+    buf.putInt(0); // crc placeholder
+    buf.put(type);
+    buf.putLong(id);
+    buf.put(payload);
+
+    var crc = new CRC32C();
+    crc.update(buf.array(), FRAME_HEADER_SIZE, length);
+    buf.putInt(Integer.BYTES, (int) crc.getValue());
+    return buf.flip();
+  }
+
+  /** starts a new segment, the current one is synced and closed */
+  private void roll() throws IOException {
+    if (active != null) {
+      active.channel.force(false);
+      active.channel.close();
+      active.channel = null;
+      unsynced.forEach(f -> f.complete(null));
+      unsynced = new ArrayList<>();
+    }
+
+    var number = segments.isEmpty() ? 0 : segments.lastKey() + 1;
+    var segment = new Segment(directory.resolve(segmentName(number)));
+    segment.channel =
+        FileChannel.open(
+            segment.path,
+            StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND);
+    segments.put(number, segment);
+    active = segment;
+
+    deleteReleasedSegments();
+  }
+
+  private void deleteReleasedSegments() {
+    while (!segments.isEmpty()) {
+      var oldest = segments.firstEntry().getValue();
+      if (oldest == active || oldest.open > 0) {
+        return;
+      }
+      try {
+        Files.deleteIfExists(oldest.path);
+      } catch (IOException e) {
+        log.atWarn()
+            .setCause(e)
+            .addKeyValue("segment", oldest.path)
+            .log("failed to delete segment");
+        return;
+      }
+      segments.pollFirstEntry();
+    }
+  }
+
+  private void replay() throws IOException {
+    try (var files = Files.list(directory)) {
+      var numbers =
+          files
+              .map(p -> p.getFileName().toString())
+              .filter(n -> n.endsWith(SEGMENT_SUFFIX))
+              .map(n -> n.substring(0, n.length() - SEGMENT_SUFFIX.length()))
+              .filter(n -> n.chars().allMatch(Character::isDigit))
+              .map(Long::parseLong)
+              .sorted()
+              .toList();
+
+      for (var number : numbers) {
+        var segment = new Segment(directory.resolve(segmentName(number)));
+        segments.put(number, segment);
+        replay(segment);
+      }
+    }
+
+    log.atInfo()
+        .addKeyValue("segments", segments.size())
+        .addKeyValue("open", replayed.size())
+        .log("replayed outbox log");
+  }
+
+  private void replay(Segment segment) throws IOException {
+    var bytes = Files.readAllBytes(segment.path);
+    var buf = ByteBuffer.wrap(bytes);
+
+    while (buf.remaining() >= FRAME_HEADER_SIZE) {
+      var length = buf.getInt();
+      var crc = buf.getInt();
+      if (length < RECORD_HEADER_SIZE || length > buf.remaining()) {
+        break;
+      }
+
+      var checksum = new CRC32C();
+      checksum.update(bytes, buf.position(), length);
+      if ((int) checksum.getValue() != crc) {
+        break;
+      }
+
+      var type = buf.get();
+      var id = buf.getLong();
+      var payload = new byte[length - RECORD_HEADER_SIZE];
+      buf.get(payload);
+
+      nextId = Math.max(nextId, id + 1);
+      if (type == TYPE_APPEND) {
+        segment.open++;
+        segmentByEntry.put(id, segment);
+        replayed.put(id, payload);
+      } else if (type == TYPE_RELEASE) {
+        var origin = segmentByEntry.remove(id);
+        if (origin != null) {
+          origin.open--;
+          replayed.remove(id);
+        }
+      }
+    }
+
+    if (buf.hasRemaining()) {
+      // expected for the last segment written before a crash only
+      log.atWarn()
+          .addKeyValue("segment", segment.path)
+          .addKeyValue("ignoredBytes", buf.remaining())
+          .log("torn record in outbox log");
+    }
+    segment.size = bytes.length;
+  }
+
+  private static String segmentName(long number) {
+    return "%020d%s".formatted(number, SEGMENT_SUFFIX);
+  }
+
+  private void flushLoop() {
+    while (true) {
+      List<CompletableFuture<Void>> batch;
+      FileChannel channel;
+      try {
+        synchronized (lock) {
+          while (!closed && unsynced.isEmpty()) {
+            lock.wait();
+          }
+          if (closed) {
+            return;
+          }
+        }
+
+        // give concurrent appends the chance to join this batch
+        if (!syncDelay.isZero()) {
+          Thread.sleep(syncDelay.toMillis());
+        }
+
+        synchronized (lock) {
+          if (closed) {
+            return;
+          }
+          batch = unsynced;
+          unsynced = new ArrayList<>();
+          channel = active.channel;
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+
+      try {
+        channel.force(false);
+        batch.forEach(f -> f.complete(null));
+      } catch (ClosedChannelException e) {
+        // rolled or closed in the meantime, both sync the segment before closing it
+        batch.forEach(f -> f.complete(null));
+      } catch (IOException e) {
+        log.atError().setCause(e).log("failed to sync outbox log");
+        batch.forEach(f -> f.completeExceptionally(e));
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    synchronized (lock) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      lock.notifyAll();
+
+      if (active != null && active.channel != null) {
+        try {
+          active.channel.force(false);
+          unsynced.forEach(f -> f.complete(null));
+          active.channel.close();
+        } catch (IOException e) {
+          unsynced.forEach(f -> f.completeExceptionally(e));
+          log.atWarn().setCause(e).log("failed to close outbox log");
+        }
+        unsynced = new ArrayList<>();
+      }
+    }
+    flusher.interrupt();
+  }
+}
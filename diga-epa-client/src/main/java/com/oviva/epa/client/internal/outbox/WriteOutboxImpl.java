@@ -0,0 +1,318 @@
+package com.oviva.epa.client.internal.outbox;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.oviva.epa.client.KonnektorService;
+import com.oviva.epa.client.WriteOutbox;
+import com.oviva.epa.client.konn.internal.util.KonnektorUtils;
+import com.oviva.epa.client.model.KonnektorException;
+import com.oviva.epa.client.model.WriteDocumentResponse;
+import com.oviva.epa.client.model.WriteRequest;
+import com.oviva.epa.client.model.WriteResult;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import jakarta.xml.ws.WebServiceException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records requests in a {@link SegmentedLog} and drains them with a fixed number of workers. The
+ * workers only ever wait for the Konnektor, submitting never waits for them.
+ *
+ * <p>Only requests failing to reach the Konnektor are retried, up to a maximum number of attempts
+ * per run. Any answer of the Konnektor, faults included, completes a request.
+ */
+public class WriteOutboxImpl implements WriteOutbox {
+
+  private static final Logger log = LoggerFactory.getLogger(WriteOutboxImpl.class);
+
+  private static final ObjectMapper mapper =
+      JsonMapper.builder()
+          .addModule(new JavaTimeModule())
+          .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+          .build();
+
+  private static final AtomicInteger threadCount = new AtomicInteger();
+
+  private final KonnektorService service;
+  private final SegmentedLog entries;
+  private final Duration initialBackoff;
+  private final Duration maxBackoff;
+  private final int maxAttempts;
+  private final Consumer<WriteResult> onResult;
+
+  private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+  private final Map<Long, CompletableFuture<WriteDocumentResponse>> futures =
+      new ConcurrentHashMap<>();
+  private final ExecutorService workers;
+  private final ScheduledExecutorService retries;
+
+  private volatile boolean closed;
+
+  private record Pending(long id, WriteRequest request, int attempt) {}
+
+  /** what became of a request, recorded when releasing it from the log */
+  record Outcome(@Nullable String requestId, @Nullable String error) {}
+
+  private WriteOutboxImpl(
+      KonnektorService service,
+      SegmentedLog entries,
+      int concurrency,
+      Duration initialBackoff,
+      Duration maxBackoff,
+      int maxAttempts,
+      Consumer<WriteResult> onResult) {
+    this.service = service;
+    this.entries = entries;
+    this.initialBackoff = initialBackoff;
+    this.maxBackoff = maxBackoff;
+    this.maxAttempts = maxAttempts;
+    this.onResult = onResult;
+
+    this.workers = Executors.newFixedThreadPool(concurrency, r -> newThread(r, "outbox-drain-"));
+    this.retries = Executors.newSingleThreadScheduledExecutor(r -> newThread(r, "outbox-retry-"));
+    for (int i = 0; i < concurrency; i++) {
+      workers.execute(this::drain);
+    }
+  }
+
+  @NonNull
+  public static WriteOutboxImpl open(
+      @NonNull KonnektorService service,
+      @NonNull Path directory,
+      int concurrency,
+      long segmentSize,
+      @NonNull Duration syncDelay,
+      @NonNull Duration initialBackoff,
+      @NonNull Duration maxBackoff,
+      int maxAttempts,
+      @NonNull Consumer<WriteResult> onResult) {
+
+    var entries = SegmentedLog.open(directory, segmentSize, syncDelay);
+
+    var outbox =
+        new WriteOutboxImpl(
+            service, entries, concurrency, initialBackoff, maxBackoff, maxAttempts, onResult);
+    for (var entry : entries.replayed()) {
+      WriteRequest request;
+      try {
+        request = decode(entry.payload());
+      } catch (UncheckedIOException e) {
+        // nothing we can ever do with it, keeping it would only keep the segment around
+        log.atError().setCause(e).addKeyValue("outboxId", entry.id()).log("dropping outbox entry");
+        entries.release(entry.id(), encode(new Outcome(null, e.getMessage())));
+        continue;
+      }
+      outbox.futures.put(entry.id(), new CompletableFuture<>());
+      outbox.queue.add(new Pending(entry.id(), request, 0));
+    }
+    return outbox;
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<WriteDocumentResponse> submit(@NonNull WriteRequest request) {
+    if (closed) {
+      throw new IllegalStateException("outbox is closed");
+    }
+
+    var appended = entries.append(encode(request));
+    var future = new CompletableFuture<WriteDocumentResponse>();
+    futures.put(appended.id(), future);
+
+    try {
+      appended.durable().join();
+    } catch (CompletionException e) {
+      // it might still be on disk, it is written after a restart then
+      futures.remove(appended.id());
+      throw new KonnektorException("failed to record request in outbox", e.getCause());
+    }
+
+    queue.add(new Pending(appended.id(), request, 0));
+    return future;
+  }
+
+  @Override
+  public int pending() {
+    return futures.size();
+  }
+
+  private void drain() {
+    while (!closed) {
+      Pending pending;
+      try {
+        pending = queue.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      try {
+        write(pending);
+      } catch (Throwable e) {
+        // keep draining, the request is failed rather than left pending forever
+        log.atError()
+            .setCause(e)
+            .addKeyValue("outboxId", pending.id())
+            .log("writing request from outbox failed unexpectedly");
+        complete(
+            pending,
+            new WriteResult(
+                pending.request(),
+                null,
+                new KonnektorException("failed to write request from outbox", e)),
+            null);
+      }
+    }
+  }
+
+  private void write(Pending pending) {
+    var request = pending.request();
+    try {
+      var response =
+          request.documentToReplaceId() == null
+              ? service.writeDocument(request.recordIdentifier(), request.document())
+              : service.replaceDocument(
+                  request.recordIdentifier(), request.document(), request.documentToReplaceId());
+
+      complete(pending, new WriteResult(request, response, null), response.requestId());
+    } catch (RuntimeException e) {
+      if (isTransportError(e) && pending.attempt() + 1 < maxAttempts) {
+        retry(pending, e);
+        return;
+      }
+      // rejected or given up, trying again won't help
+      log.atWarn()
+          .setCause(e)
+          .addKeyValue("outboxId", pending.id())
+          .addKeyValue("attempts", pending.attempt() + 1)
+          .log("request in outbox failed");
+      complete(pending, new WriteResult(request, null, e), null);
+    }
+  }
+
+  /**
+   * Whether the Konnektor could not be reached. Services map their transport errors to a {@link
+   * KonnektorException}, the transport error is its cause then.
+   */
+  static boolean isTransportError(Throwable e) {
+    for (var c = e; c != null; c = c.getCause()) {
+      if (c instanceof WebServiceException wse) {
+        return KonnektorUtils.isTransportError(wse);
+      }
+    }
+    return false;
+  }
+
+  private void complete(Pending pending, WriteResult result, @Nullable String requestId) {
+    var error = result.error() == null ? null : result.error().getMessage();
+    try {
+      entries.release(pending.id(), encode(new Outcome(requestId, error)));
+    } catch (RuntimeException e) {
+      // still completed, it is written again on the next run though
+      log.atWarn()
+          .setCause(e)
+          .addKeyValue("outboxId", pending.id())
+          .log("failed to record completion in outbox");
+    }
+
+    var future = futures.remove(pending.id());
+    if (future != null) {
+      if (result.isSuccess()) {
+        future.complete(result.response());
+      } else {
+        future.completeExceptionally(result.error());
+      }
+    }
+
+    try {
+      onResult.accept(result);
+    } catch (RuntimeException e) {
+      log.atWarn().setCause(e).log("outbox result listener failed");
+    }
+  }
+
+  private void retry(Pending pending, RuntimeException cause) {
+    var delay = backoff(pending.attempt());
+    log.atWarn()
+        .setCause(cause)
+        .addKeyValue("outboxId", pending.id())
+        .addKeyValue("attempt", pending.attempt() + 1)
+        .addKeyValue("retryInMs", delay.toMillis())
+        .log("writing request from outbox failed, retrying");
+
+    if (closed) {
+      return;
+    }
+    var next = new Pending(pending.id(), pending.request(), pending.attempt() + 1);
+    retries.schedule(() -> queue.add(next), delay.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  private Duration backoff(int attempt) {
+    // cap the shift, the max applies long before
+    var delay = initialBackoff.multipliedBy(1L << Math.min(attempt, 20));
+    return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+  }
+
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+
+    workers.shutdownNow();
+    retries.shutdownNow();
+    try {
+      if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+        log.atWarn().log("outbox workers did not stop in time");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    entries.close();
+
+    var e = new KonnektorException("outbox closed, request is written on the next start");
+    futures.values().forEach(f -> f.completeExceptionally(e));
+    futures.clear();
+  }
+
+  static byte[] encode(Object value) {
+    try {
+      return mapper.writeValueAsBytes(value);
+    } catch (IOException e) {
+      throw new UncheckedIOException("failed to encode outbox entry", e);
+    }
+  }
+
+  static WriteRequest decode(byte[] payload) {
+    try {
+      return mapper.readValue(payload, WriteRequest.class);
+    } catch (IOException e) {
+      throw new UncheckedIOException("failed to decode outbox entry", e);
+    }
+  }
+
+  private static Thread newThread(Runnable r, String prefix) {
+    var t = new Thread(r, prefix + threadCount.incrementAndGet());
+    t.setDaemon(true);
+    return t;
+  }
+}
@@ -1,18 +1,22 @@
 package com.oviva.epa.client.internal.svc;
 
 import com.oviva.epa.client.internal.svc.model.KonnektorContext;
+import com.oviva.epa.client.konn.internal.AsyncInvocation;
 import com.oviva.epa.client.model.KonnektorException;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import oasis.names.tc.dss._1_0.core.schema.Base64Data;
 import org.bouncycastle.crypto.signers.StandardDSAEncoding;
 import org.bouncycastle.jce.ECNamedCurveTable;
 import org.bouncycastle.jce.spec.ECNamedCurveParameterSpec;
 import telematik.ws.conn.authsignatureservice.wsdl.v7_4.AuthSignatureServicePortType;
 import telematik.ws.conn.signatureservice.xsd.v7_4.ExternalAuthenticate;
+import telematik.ws.conn.signatureservice.xsd.v7_4.ExternalAuthenticateResponse;
 import telematik.ws.conn.signatureservice.xsd.v7_4.ObjectFactory;
 
 public class AuthSignatureServiceClient {
@@ -44,7 +48,22 @@ public class AuthSignatureServiceClient {
         buildExternalAuthenticate(
             cardHandle, hashBytesToSign, SIGNATURE_TYPE_RSA, SIGNATURE_SCHEME_RSA_PSS);
     var res = authSignatureService.externalAuthenticate(req);
+    return toRsaPssSignature(res);
+  }
+
+  public CompletableFuture<byte[]> signAuthHashRsaPssAsync(
+      String cardHandle, byte[] hashBytesToSign, @NonNull Executor executor) {
+
+    verifyAuthHash(hashBytesToSign);
+
+    var req =
+        buildExternalAuthenticate(
+            cardHandle, hashBytesToSign, SIGNATURE_TYPE_RSA, SIGNATURE_SCHEME_RSA_PSS);
+    return externalAuthenticateAsync(req, executor)
+        .thenApply(AuthSignatureServiceClient::toRsaPssSignature);
+  }
 
+  private static byte[] toRsaPssSignature(ExternalAuthenticateResponse res) {
     var base64signature = res.getSignatureObject().getBase64Signature();
     var signatureType = base64signature.getType();
     if (!SIGNATURE_TYPE_RSA.equals(signatureType)) {
@@ -68,7 +87,29 @@ public class AuthSignatureServiceClient {
 
     var req = buildExternalAuthenticate(cardHandle, hashBytesToSign, SIGNATURE_TYPE_ECDSA, null);
     var res = authSignatureService.externalAuthenticate(req);
+    return toEcdsaSignature(res);
+  }
+
+  public CompletableFuture<byte[]> signAuthHashEcdsaAsync(
+      String cardHandle, byte[] hashBytesToSign, @NonNull Executor executor) {
+
+    verifyAuthHash(hashBytesToSign);
+
+    var req = buildExternalAuthenticate(cardHandle, hashBytesToSign, SIGNATURE_TYPE_ECDSA, null);
+    return externalAuthenticateAsync(req, executor)
+        .thenApply(AuthSignatureServiceClient::toEcdsaSignature);
+  }
+
+  private CompletableFuture<ExternalAuthenticateResponse> externalAuthenticateAsync(
+      ExternalAuthenticate req, Executor executor) {
+    return AsyncInvocation.call(
+        authSignatureService,
+        AuthSignatureServicePortType.class,
+        p -> p.externalAuthenticate(req),
+        executor);
+  }
 
+  private static byte[] toEcdsaSignature(ExternalAuthenticateResponse res) {
     var base64signature = res.getSignatureObject().getBase64Signature();
     var signatureType = base64signature.getType();
     if (!SIGNATURE_TYPE_ECDSA.equals(signatureType)) {
@@ -0,0 +1,170 @@
+package com.oviva.epa.client.internal.svc;
+
+import com.oviva.epa.client.internal.svc.utils.CertificateUtils;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.security.cert.X509Certificate;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import telematik.ws.conn.certificateservice.xsd.v6_0.CryptType;
+import telematik.ws.conn.certificateservicecommon.xsd.v2_0.CertRefEnum;
+
+/**
+ * Caches the parsed certificates of the cards in a Konnektor, together with the Telematik-ID of the
+ * holder once it was needed. Card certificates are valid for years, yet every request building
+ * author metadata or signing needs them.
+ *
+ * <p>Certificates are kept until their {@code notAfter} or until the card is {@link
+ * #invalidateCard(String) removed}. They are keyed by card handle, a card inserted again gets a new
+ * handle and is read once more. At most {@code maxEntries} are kept, the least recently used are
+ * evicted first. Handles are only valid for the Konnektor that issued them, a cache must not be
+ * shared between Konnektors.
+ */
+public class CardCertificateCache {
+
+  private final int maxEntries;
+  private final Clock clock;
+
+  // access ordered, guarded by itself
+  private final LinkedHashMap<Key, Entry> entries;
+
+  private record Key(String cardHandle, CertRefEnum certRef, CryptType cryptType) {}
+
+  private static final class Entry {
+    private final X509Certificate certificate;
+
+    // extracted on first use, not every certificate has one
+    private volatile boolean telematikIdExtracted;
+    private volatile String telematikId;
+
+    Entry(X509Certificate certificate) {
+      this.certificate = certificate;
+    }
+
+    String telematikId() {
+      if (!telematikIdExtracted) {
+        telematikId = CertificateUtils.getTelematikIdFromCertificate(certificate);
+        telematikIdExtracted = true;
+      }
+      return telematikId;
+    }
+  }
+
+  public CardCertificateCache(int maxEntries) {
+    this(maxEntries, Clock.systemUTC());
+  }
+
+  CardCertificateCache(int maxEntries, @NonNull Clock clock) {
+    this.maxEntries = maxEntries;
+    this.clock = clock;
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > CardCertificateCache.this.maxEntries;
+          }
+        };
+  }
+
+  /** a cache not keeping anything, every certificate is read */
+  @NonNull
+  public static CardCertificateCache disabled() {
+    return new CardCertificateCache(0);
+  }
+
+  /** the cached certificate or the one loaded in the calling thread */
+  @NonNull
+  public X509Certificate get(
+      @NonNull String cardHandle,
+      @NonNull CertRefEnum certRef,
+      @NonNull CryptType cryptType,
+      @NonNull Supplier<X509Certificate> loader) {
+    return entry(new Key(cardHandle, certRef, cryptType), loader).certificate;
+  }
+
+  /** the Telematik-ID of the cached certificate or of the one loaded in the calling thread */
+  @Nullable
+  public String telematikId(
+      @NonNull String cardHandle,
+      @NonNull CertRefEnum certRef,
+      @NonNull CryptType cryptType,
+      @NonNull Supplier<X509Certificate> loader) {
+    return entry(new Key(cardHandle, certRef, cryptType), loader).telematikId();
+  }
+
+  /** the cached certificate, null if it must be read */
+  @Nullable
+  public X509Certificate cached(
+      @NonNull String cardHandle, @NonNull CertRefEnum certRef, @NonNull CryptType cryptType) {
+    var entry = cachedEntry(new Key(cardHandle, certRef, cryptType));
+    return entry == null ? null : entry.certificate;
+  }
+
+  public void put(
+      @NonNull String cardHandle,
+      @NonNull CertRefEnum certRef,
+      @NonNull CryptType cryptType,
+      @NonNull X509Certificate certificate) {
+    put(new Key(cardHandle, certRef, cryptType), new Entry(certificate));
+  }
+
+  /** Drops the certificates of a card, e.g. because it was removed. */
+  public void invalidateCard(@NonNull String cardHandle) {
+    synchronized (entries) {
+      entries.keySet().removeIf(k -> k.cardHandle().equals(cardHandle));
+    }
+  }
+
+  public void invalidateAll() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  private Entry entry(Key key, Supplier<X509Certificate> loader) {
+    var cached = cachedEntry(key);
+    if (cached != null) {
+      return cached;
+    }
+    var entry = new Entry(loader.get());
+    put(key, entry);
+    return entry;
+  }
+
+  @Nullable
+  private Entry cachedEntry(Key key) {
+    synchronized (entries) {
+      var entry = entries.get(key);
+      if (entry == null) {
+        return null;
+      }
+      if (!clock.instant().isBefore(entry.certificate.getNotAfter().toInstant())) {
+        entries.remove(key);
+        return null;
+      }
+      return entry;
+    }
+  }
+
+  private void put(Key key, Entry entry) {
+    if (maxEntries == 0) {
+      return;
+    }
+    Instant notAfter = entry.certificate.getNotAfter().toInstant();
+    if (!clock.instant().isBefore(notAfter)) {
+      return;
+    }
+    synchronized (entries) {
+      entries.put(key, entry);
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package com.oviva.epa.client.internal.svc;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.math.BigInteger;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.function.Supplier;
+import telematik.ws.conn.eventservice.xsd.v6_1.GetCardsResponse;
+import telematik.ws.conn.exception.FaultMessageException;
+
+/**
+ * Caches the cards of a Konnektor visible to the mandant. Building a request needs the handle of
+ * the SMC-B and its holder, which hardly ever change.
+ *
+ * <p>The cards are kept for the TTL. A call failing because its card handle is not known (anymore)
+ * to the Konnektor invalidates them right away, e.g. after the card was pulled and inserted again.
+ * Card events may {@link #invalidate()} them as well. Handles are only valid for the Konnektor that
+ * issued them, a registry must not be shared between Konnektors.
+ */
+public class CardRegistry {
+
+  // gemSpec_Kon: 4101 card handle invalid, 4008 card not inserted
+  private static final Set<BigInteger> UNKNOWN_CARD_CODES =
+      Set.of(BigInteger.valueOf(4101), BigInteger.valueOf(4008));
+
+  private final Duration ttl;
+  private final Clock clock;
+
+  // guarded by this
+  private GetCardsResponse cards;
+  private Instant expiresAt = Instant.MIN;
+  private long generation;
+
+  public CardRegistry(@NonNull Duration ttl) {
+    this(ttl, Clock.systemUTC());
+  }
+
+  CardRegistry(@NonNull Duration ttl, @NonNull Clock clock) {
+    this.ttl = ttl;
+    this.clock = clock;
+  }
+
+  /** a registry not keeping anything, every lookup is done */
+  @NonNull
+  public static CardRegistry disabled() {
+    return new CardRegistry(Duration.ZERO);
+  }
+
+  /** the cached cards or the ones loaded in the calling thread */
+  @NonNull
+  public GetCardsResponse get(@NonNull Supplier<GetCardsResponse> loader) {
+    long loading;
+    synchronized (this) {
+      if (cards != null && clock.instant().isBefore(expiresAt)) {
+        return cards;
+      }
+      loading = generation;
+    }
+
+    var loaded = loader.get();
+    if (ttl.isZero()) {
+      return loaded;
+    }
+
+    synchronized (this) {
+      // an invalidation while loading might have been for a card we just saw
+      if (loading == generation) {
+        cards = loaded;
+        expiresAt = clock.instant().plus(ttl);
+      }
+    }
+    return loaded;
+  }
+
+  public synchronized void invalidate() {
+    generation++;
+    cards = null;
+  }
+
+  /** makes a call with a card handle, an unknown handle invalidates the cards */
+  public <T> T invalidateOnUnknownCard(@NonNull Supplier<T> call) {
+    try {
+      return call.get();
+    } catch (FaultMessageException e) {
+      if (isUnknownCard(e)) {
+        invalidate();
+      }
+      throw e;
+    }
+  }
+
+  public static boolean isUnknownCard(FaultMessageException e) {
+    var info = e.getFaultInfo();
+    return info != null
+        && info.getTrace().stream().anyMatch(t -> UNKNOWN_CARD_CODES.contains(t.getCode()));
+  }
+}
@@ -17,9 +17,12 @@
 package com.oviva.epa.client.internal.svc;
 
 import com.oviva.epa.client.internal.svc.model.KonnektorContext;
+import com.oviva.epa.client.konn.internal.AsyncInvocation;
 import com.oviva.epa.client.konn.internal.util.KonnektorUtils;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import java.math.BigInteger;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import telematik.ws.conn.cardservice.wsdl.v8_1.CardServicePortType;
@@ -55,12 +58,24 @@ public class CardServiceClient {
   public GetPinStatusResponse getPinStatusResponse(String cardHandle, String pinType) {
     GetPinStatus request = buildGetPinStatus(cardHandle, pinType);
     GetPinStatusResponse response = getPinStatus(request);
+    return logPinStatusWarning(response);
+  }
+
+  public CompletableFuture<GetPinStatusResponse> getPinStatusResponseAsync(
+      String cardHandle, String pinType, @NonNull Executor executor) {
+    GetPinStatus request = buildGetPinStatus(cardHandle, pinType);
+    return AsyncInvocation.call(
+            cardService, CardServicePortType.class, p -> p.getPinStatus(request), executor)
+        .thenApply(this::logPinStatusWarning);
+  }
+
+  // region private
+  private GetPinStatusResponse logPinStatusWarning(GetPinStatusResponse response) {
     KonnektorUtils.logWarningIfPresent(
         log, response.getStatus(), KonnektorUtils.warnMsgWithOperationName("getPinStatus"));
     return response;
   }
 
-  // region private
   private GetPinStatusResponse getPinStatus(@NonNull GetPinStatus request) {
     return cardService.getPinStatus(request);
   }
@@ -18,12 +18,19 @@ package com.oviva.epa.client.internal.svc;
 
 import com.oviva.epa.client.internal.svc.model.KonnektorContext;
 import com.oviva.epa.client.internal.svc.utils.CertificateUtils;
+import com.oviva.epa.client.konn.internal.AsyncInvocation;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import java.security.cert.X509Certificate;
 import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import telematik.ws.conn.certificateservice.wsdl.v6_0.CertificateServicePortType;
 import telematik.ws.conn.certificateservice.xsd.v6_0.CryptType;
 import telematik.ws.conn.certificateservice.xsd.v6_0.ObjectFactory;
@@ -33,6 +40,7 @@ import telematik.ws.conn.certificateservicecommon.xsd.v2_0.CertRefEnum;
 import telematik.ws.conn.certificateservicecommon.xsd.v2_0.X509DataInfoListType;
 import telematik.ws.conn.certificateservicecommon.xsd.v2_0.X509DataInfoListType.X509DataInfo;
 import telematik.ws.conn.certificateservicecommon.xsd.v2_0.X509DataInfoListType.X509DataInfo.X509Data;
+import telematik.ws.conn.exception.FaultMessageException;
 
 public class CertificateServiceClient {
 
@@ -40,23 +48,100 @@ public class CertificateServiceClient {
 
   private final KonnektorContext context;
 
+  private final CardCertificateCache certificateCache;
+
   public CertificateServiceClient(
       CertificateServicePortType certificateService, KonnektorContext context) {
+    this(certificateService, context, CardCertificateCache.disabled());
+  }
+
+  /**
+   * @param certificateCache only for this Konnektor, card handles are not valid for others
+   */
+  public CertificateServiceClient(
+      CertificateServicePortType certificateService,
+      KonnektorContext context,
+      CardCertificateCache certificateCache) {
     this.certificateService = certificateService;
     this.context = context;
+    this.certificateCache = certificateCache;
   }
 
   public String getTelematikIdForCard(@NonNull String cardHandle) {
-    var cert = readCertificateForRef(cardHandle, CertRefEnum.C_AUT, CryptType.ECC);
-    return CertificateUtils.getTelematikIdFromCertificate(cert);
+    return certificateCache.telematikId(
+        cardHandle,
+        CertRefEnum.C_AUT,
+        CryptType.ECC,
+        () -> readCertificateForRef(cardHandle, CertRefEnum.C_AUT, CryptType.ECC));
   }
 
   public X509Certificate readRsaAuthenticationCertificateForCard(@NonNull String cardHandle) {
-    return readCertificateForRef(cardHandle, CertRefEnum.C_AUT, CryptType.RSA);
+    return readCachedCertificateForRef(cardHandle, CertRefEnum.C_AUT, CryptType.RSA);
   }
 
   public X509Certificate readEccAuthenticationCertificateForCard(@NonNull String cardHandle) {
-    return readCertificateForRef(cardHandle, CertRefEnum.C_AUT, CryptType.ECC);
+    return readCachedCertificateForRef(cardHandle, CertRefEnum.C_AUT, CryptType.ECC);
+  }
+
+  public CompletableFuture<X509Certificate> readRsaAuthenticationCertificateForCardAsync(
+      @NonNull String cardHandle, @NonNull Executor executor) {
+    return readCertificateForRefAsync(cardHandle, CertRefEnum.C_AUT, CryptType.RSA, executor);
+  }
+
+  public CompletableFuture<X509Certificate> readEccAuthenticationCertificateForCardAsync(
+      @NonNull String cardHandle, @NonNull Executor executor) {
+    return readCertificateForRefAsync(cardHandle, CertRefEnum.C_AUT, CryptType.ECC, executor);
+  }
+
+  /**
+   * Reads several certificates of a card with a single call, certificates already cached are not
+   * read again.
+   *
+   * @return the certificates by reference, references the card has no certificate for are missing
+   */
+  public Map<CertRefEnum, X509Certificate> readCardCertificates(
+      @NonNull String cardHandle,
+      @NonNull CryptType cryptType,
+      @NonNull Collection<CertRefEnum> certRefs) {
+
+    var certificates = new EnumMap<CertRefEnum, X509Certificate>(CertRefEnum.class);
+    var missing = EnumSet.noneOf(CertRefEnum.class);
+    for (var certRef : certRefs) {
+      var cached = certificateCache.cached(cardHandle, certRef, cryptType);
+      if (cached != null) {
+        certificates.put(certRef, cached);
+      } else {
+        missing.add(certRef);
+      }
+    }
+    if (missing.isEmpty()) {
+      return certificates;
+    }
+
+    final var cardCertRequest = buildReadCardCertificateRequest(cardHandle, missing, cryptType);
+    ReadCardCertificateResponse cardCertResponse;
+    try {
+      cardCertResponse = readCardCertificate(cardCertRequest);
+    } catch (FaultMessageException e) {
+      if (CardRegistry.isUnknownCard(e)) {
+        certificateCache.invalidateCard(cardHandle);
+      }
+      throw e;
+    }
+
+    for (var info : x509DataInfos(cardCertResponse)) {
+      var certRef = info.getCertRef();
+      if (certRef == null || !missing.contains(certRef) || info.getX509Data() == null) {
+        continue;
+      }
+      var certificate =
+          Objects.requireNonNull(
+              CertificateUtils.toX509Certificate(info.getX509Data().getX509Certificate()),
+              "%s certificate data could not be decoded as X509 certificate".formatted(certRef));
+      certificateCache.put(cardHandle, certRef, cryptType, certificate);
+      certificates.put(certRef, certificate);
+    }
+    return certificates;
   }
 
   /**
@@ -74,14 +159,57 @@ public class CertificateServiceClient {
       @NonNull String cardHandle, @NonNull CertRefEnum certRef, CryptType cryptType) {
 
     final var cardCertRequest = buildReadCardCertificateRequest(cardHandle, certRef, cryptType);
-    var cardCertResponse = readCardCertificate(cardCertRequest);
+    ReadCardCertificateResponse cardCertResponse;
+    try {
+      cardCertResponse = readCardCertificate(cardCertRequest);
+    } catch (FaultMessageException e) {
+      if (CardRegistry.isUnknownCard(e)) {
+        certificateCache.invalidateCard(cardHandle);
+      }
+      throw e;
+    }
+    return toCertificate(cardCertResponse, cardHandle, certRef);
+  }
+
+  private X509Certificate readCachedCertificateForRef(
+      @NonNull String cardHandle, @NonNull CertRefEnum certRef, CryptType cryptType) {
+    return certificateCache.get(
+        cardHandle,
+        certRef,
+        cryptType,
+        () -> readCertificateForRef(cardHandle, certRef, cryptType));
+  }
+
+  private CompletableFuture<X509Certificate> readCertificateForRefAsync(
+      @NonNull String cardHandle,
+      @NonNull CertRefEnum certRef,
+      CryptType cryptType,
+      Executor executor) {
+
+    var cached = certificateCache.cached(cardHandle, certRef, cryptType);
+    if (cached != null) {
+      return CompletableFuture.completedFuture(cached);
+    }
+
+    final var cardCertRequest = buildReadCardCertificateRequest(cardHandle, certRef, cryptType);
+    return AsyncInvocation.call(
+            certificateService,
+            CertificateServicePortType.class,
+            p -> p.readCardCertificate(cardCertRequest),
+            executor)
+        .thenApply(res -> toCertificate(res, cardHandle, certRef))
+        .thenApply(
+            cert -> {
+              certificateCache.put(cardHandle, certRef, cryptType, cert);
+              return cert;
+            });
+  }
+
+  private X509Certificate toCertificate(
+      ReadCardCertificateResponse cardCertResponse, String cardHandle, CertRefEnum certRef) {
 
     var certificate =
-        Optional.ofNullable(cardCertResponse)
-            .map(ReadCardCertificateResponse::getX509DataInfoList)
-            .map(X509DataInfoListType::getX509DataInfo)
-            .stream()
-            .flatMap(Collection::stream)
+        x509DataInfos(cardCertResponse).stream()
             .map(X509DataInfo::getX509Data)
             .map(X509Data::getX509Certificate)
             .findFirst()
@@ -96,14 +224,26 @@ public class CertificateServiceClient {
         "%s certificate data could not be decoded as X509 certificate".formatted(certRef));
   }
 
+  private static List<X509DataInfo> x509DataInfos(ReadCardCertificateResponse cardCertResponse) {
+    return Optional.ofNullable(cardCertResponse)
+        .map(ReadCardCertificateResponse::getX509DataInfoList)
+        .map(X509DataInfoListType::getX509DataInfo)
+        .orElse(List.of());
+  }
+
   private ReadCardCertificateResponse readCardCertificate(@NonNull ReadCardCertificate request) {
     return certificateService.readCardCertificate(request);
   }
 
   private ReadCardCertificate buildReadCardCertificateRequest(
       String cardHandle, CertRefEnum certRef, CryptType cryptType) {
+    return buildReadCardCertificateRequest(cardHandle, List.of(certRef), cryptType);
+  }
+
+  private ReadCardCertificate buildReadCardCertificateRequest(
+      String cardHandle, Collection<CertRefEnum> certRefs, CryptType cryptType) {
     final var certRefList = new ObjectFactory().createReadCardCertificateCertRefList();
-    certRefList.getCertRef().add(certRef);
+    certRefList.getCertRef().addAll(certRefs);
     final var readCardCertificateRequest = new ObjectFactory().createReadCardCertificate();
     readCardCertificateRequest.setCardHandle(cardHandle);
     readCardCertificateRequest.setCertRefList(certRefList);
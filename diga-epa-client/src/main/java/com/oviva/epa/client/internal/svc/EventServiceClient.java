@@ -18,7 +18,10 @@ package com.oviva.epa.client.internal.svc;
 
 import com.oviva.epa.client.internal.svc.model.KonnektorContext;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.List;
 import java.util.NoSuchElementException;
+import telematik.ws.conn.cardservice.xsd.v8_1.CardInfoType;
+import telematik.ws.conn.cardservice.xsd.v8_1.Cards;
 import telematik.ws.conn.cardservicecommon.xsd.v2_0.CardTypeType;
 import telematik.ws.conn.eventservice.wsdl.v6_1.EventServicePortType;
 import telematik.ws.conn.eventservice.xsd.v6_1.GetCards;
@@ -31,19 +34,31 @@ public class EventServiceClient {
 
   private final KonnektorContext context;
 
+  private final CardRegistry cardRegistry;
+
   public EventServiceClient(EventServicePortType eventService, KonnektorContext context) {
+    this(eventService, context, CardRegistry.disabled());
+  }
+
+  /**
+   * @param cardRegistry caches the cards of the mandant, all card types are fetched at once
+   */
+  public EventServiceClient(
+      EventServicePortType eventService, KonnektorContext context, CardRegistry cardRegistry) {
     this.eventService = eventService;
     this.context = context;
+    this.cardRegistry = cardRegistry;
   }
 
   public GetCardsResponse getSmbInfo() {
-    var request = buildGetCards(true, CardTypeType.SM_B);
-    return getCards(request);
+    var all = getAllCards();
+    return new GetCardsResponse()
+        .withStatus(all.getStatus())
+        .withCards(new Cards().withCard(filter(all, CardTypeType.SM_B)));
   }
 
   public String getCardHandle(CardTypeType cardType) {
-    var getCardsRequest = buildGetCards(true, cardType);
-    return getCards(getCardsRequest).getCards().getCard().stream()
+    return filter(getAllCards(), cardType).stream()
         .findFirst()
         .orElseThrow(
             () ->
@@ -56,6 +71,18 @@ public class EventServiceClient {
     return eventService.getCards(request);
   }
 
+  /** all cards visible to the mandant, from the registry */
+  public GetCardsResponse getAllCards() {
+    return cardRegistry.get(() -> getCards(buildGetCards(true, null)));
+  }
+
+  private static List<CardInfoType> filter(GetCardsResponse res, CardTypeType cardType) {
+    if (res.getCards() == null) {
+      return List.of();
+    }
+    return res.getCards().getCard().stream().filter(c -> c.getCardType() == cardType).toList();
+  }
+
   private GetCards buildGetCards(final boolean mandantWide, final CardTypeType cardType) {
     final var getCardsRequest = new ObjectFactory().createGetCards();
     getCardsRequest.setCardType(cardType);
@@ -0,0 +1,222 @@
+package com.oviva.epa.client.internal.svc;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.math.BigInteger;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import telematik.ws.conn.exception.FaultMessageException;
+
+/**
+ * Caches the home community ID of a KVNR. It is looked up for every write, though it hardly ever
+ * changes.
+ *
+ * <p>Found IDs are kept for the TTL. A KVNR the Konnektor answered a fault with one of the given
+ * "no record" codes for is kept for the negative TTL and the fault is thrown again. Other faults
+ * and transport errors are not cached. At most {@code maxEntries} are kept, the least recently used
+ * are evicted first. Concurrent lookups of the same KVNR share a single call.
+ */
+public class HomeCommunityIdCache {
+
+  private final Duration ttl;
+  private final Duration negativeTtl;
+  private final Set<BigInteger> noRecordCodes;
+  private final int maxEntries;
+  private final Clock clock;
+
+  // access ordered, guarded by itself
+  private final LinkedHashMap<String, Entry> entries;
+  private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+  private record Entry(
+      @Nullable String homeCommunityId, @Nullable FaultMessageException fault, Instant expiresAt) {}
+
+  /**
+   * @param noRecordCodes the trace codes of faults meaning the KVNR has no record
+   */
+  public HomeCommunityIdCache(
+      @NonNull Duration ttl,
+      @NonNull Duration negativeTtl,
+      @NonNull Set<BigInteger> noRecordCodes,
+      int maxEntries) {
+    this(ttl, negativeTtl, noRecordCodes, maxEntries, Clock.systemUTC());
+  }
+
+  HomeCommunityIdCache(
+      @NonNull Duration ttl,
+      @NonNull Duration negativeTtl,
+      @NonNull Set<BigInteger> noRecordCodes,
+      int maxEntries,
+      @NonNull Clock clock) {
+    this.ttl = ttl;
+    this.negativeTtl = negativeTtl;
+    this.noRecordCodes = Set.copyOf(noRecordCodes);
+    this.maxEntries = maxEntries;
+    this.clock = clock;
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > HomeCommunityIdCache.this.maxEntries;
+          }
+        };
+  }
+
+  /** a cache not keeping anything, every lookup is done */
+  @NonNull
+  public static HomeCommunityIdCache disabled() {
+    return new HomeCommunityIdCache(Duration.ZERO, Duration.ZERO, Set.of(), 0);
+  }
+
+  /** the cached ID or the one loaded in the calling thread, unless another thread is at it */
+  @NonNull
+  public String get(@NonNull String kvnr, @NonNull Supplier<String> loader) {
+    var cached = cached(kvnr);
+    if (cached != null) {
+      return cached;
+    }
+
+    var mine = new CompletableFuture<String>();
+    var existing = inFlight.putIfAbsent(kvnr, mine);
+    if (existing != null) {
+      return join(existing);
+    }
+
+    try {
+      var homeCommunityId = loader.get();
+      mine.complete(homeCommunityId);
+      put(kvnr, homeCommunityId);
+      return homeCommunityId;
+    } catch (RuntimeException e) {
+      mine.completeExceptionally(e);
+      putFault(kvnr, e);
+      throw e;
+    } finally {
+      inFlight.remove(kvnr, mine);
+    }
+  }
+
+  /** the cached ID or the one loaded, unless another lookup is at it */
+  @NonNull
+  public CompletableFuture<String> getAsync(
+      @NonNull String kvnr, @NonNull Function<String, CompletableFuture<String>> loader) {
+    try {
+      var cached = cached(kvnr);
+      if (cached != null) {
+        return CompletableFuture.completedFuture(cached);
+      }
+    } catch (FaultMessageException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+
+    var mine = new CompletableFuture<String>();
+    var existing = inFlight.putIfAbsent(kvnr, mine);
+    if (existing != null) {
+      return existing;
+    }
+
+    CompletableFuture<String> loaded;
+    try {
+      loaded = loader.apply(kvnr);
+    } catch (RuntimeException e) {
+      loaded = CompletableFuture.failedFuture(e);
+    }
+
+    loaded.whenComplete(
+        (homeCommunityId, e) -> {
+          if (e == null) {
+            put(kvnr, homeCommunityId);
+          } else {
+            putFault(kvnr, unwrap(e));
+          }
+          inFlight.remove(kvnr, mine);
+          if (e == null) {
+            mine.complete(homeCommunityId);
+          } else {
+            mine.completeExceptionally(unwrap(e));
+          }
+        });
+    return mine;
+  }
+
+  /** Records a known ID, e.g. from the authorization list. */
+  public void put(@NonNull String kvnr, @Nullable String homeCommunityId) {
+    if (homeCommunityId == null || ttl.isZero()) {
+      return;
+    }
+    synchronized (entries) {
+      entries.put(kvnr, new Entry(homeCommunityId, null, clock.instant().plus(ttl)));
+    }
+  }
+
+  public void invalidate(@NonNull String kvnr) {
+    synchronized (entries) {
+      entries.remove(kvnr);
+    }
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  @Nullable
+  private String cached(String kvnr) {
+    Entry entry;
+    synchronized (entries) {
+      entry = entries.get(kvnr);
+      if (entry == null) {
+        return null;
+      }
+      if (!clock.instant().isBefore(entry.expiresAt())) {
+        entries.remove(kvnr);
+        return null;
+      }
+    }
+
+    if (entry.fault() != null) {
+      throw entry.fault();
+    }
+    return entry.homeCommunityId();
+  }
+
+  private void putFault(String kvnr, Throwable e) {
+    if (!(e instanceof FaultMessageException fault) || negativeTtl.isZero() || !isNoRecord(fault)) {
+      return;
+    }
+    synchronized (entries) {
+      entries.put(kvnr, new Entry(null, fault, clock.instant().plus(negativeTtl)));
+    }
+  }
+
+  private boolean isNoRecord(FaultMessageException fault) {
+    var info = fault.getFaultInfo();
+    return info != null
+        && info.getTrace().stream().anyMatch(t -> noRecordCodes.contains(t.getCode()));
+  }
+
+  private static String join(CompletableFuture<String> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException re) {
+        throw re;
+      }
+      throw e;
+    }
+  }
+
+  private static Throwable unwrap(Throwable e) {
+    return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+  }
+}
@@ -2,6 +2,12 @@ package com.oviva.epa.client.internal.svc;
 
 import com.oviva.epa.client.internal.svc.model.KonnektorContext;
 import com.oviva.epa.client.internal.svc.utils.Models;
+import com.oviva.epa.client.konn.internal.AsyncInvocation;
+import com.oviva.epa.client.konn.internal.interceptors.AuthorizationListStreaming;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import telematik.ws.conn.connectorcontext.xsd.v2_0.ContextType;
 import telematik.ws.conn.phrs.phrmanagementservice.wsdl.v2_5.PHRManagementServicePortType;
 import telematik.ws.conn.phrs.phrmanagementservice.xsd.v2_5.*;
@@ -15,58 +21,151 @@ public class PhrManagementServiceClient {
 
   private final String userAgent;
 
+  private final HomeCommunityIdCache homeCommunityIdCache;
+
+  public PhrManagementServiceClient(
+      PHRManagementServicePortType phrManagementService,
+      KonnektorContext konnektorContext,
+      String userAgent) {
+    this(phrManagementService, konnektorContext, userAgent, HomeCommunityIdCache.disabled());
+  }
+
   /**
    * @param phrManagementService
    * @param konnektorContext
    * @param userAgent <a
    *     href="https://gemspec.gematik.de/docs/gemSpec/gemSpec_Aktensystem_ePAfueralle/latest/#2.7">A_22470-04
    *     - Definition Useragent</a>
+   * @param homeCommunityIdCache caches {@link #getHomeCommunityID(String)}, seeded by {@link
+   *     #getAuthorizationList()}
    */
   public PhrManagementServiceClient(
       PHRManagementServicePortType phrManagementService,
       KonnektorContext konnektorContext,
-      String userAgent) {
+      String userAgent,
+      HomeCommunityIdCache homeCommunityIdCache) {
     this.phrManagementService = phrManagementService;
     this.konnektorContext = konnektorContext;
     this.userAgent = userAgent;
+    this.homeCommunityIdCache = homeCommunityIdCache;
   }
 
   public GetAuthorizationStateResponse getAuthorizationState(String knvr, String homeCommunityId) {
-    var context = getContext();
-
-    var req =
-        new GetAuthorizationState()
-            .withContext(context)
-            .withUserAgent("PS_123/V1.1.0/gematik") // TODO where does that come from?
-            .withRecordIdentifier(
-                new RecordIdentifierType()
-                    .withInsurantId(Models.fromKvnr(knvr))
-                    .withHomeCommunityId(homeCommunityId));
-
+    var req = buildGetAuthorizationState(knvr, homeCommunityId);
     return phrManagementService.getAuthorizationState(req);
   }
 
+  public CompletableFuture<GetAuthorizationStateResponse> getAuthorizationStateAsync(
+      String knvr, String homeCommunityId, @NonNull Executor executor) {
+    var req = buildGetAuthorizationState(knvr, homeCommunityId);
+    return AsyncInvocation.call(
+        phrManagementService,
+        PHRManagementServicePortType.class,
+        p -> p.getAuthorizationState(req),
+        executor);
+  }
+
   public GetAuthorizationListResponse getAuthorizationList() {
+    var req = buildGetAuthorizationList();
+    var res = phrManagementService.getAuthorizationList(req);
+    seedHomeCommunityIds(res);
+    return res;
+  }
+
+  /**
+   * Streams the entries of the authorization list to the consumer as they are received, the
+   * returned response holds an empty list.
+   */
+  public GetAuthorizationListResponse getAuthorizationList(
+      @NonNull
+          Consumer<GetAuthorizationListResponse.AuthorizationList.AuthorizationEntry> consumer) {
+    var req = buildGetAuthorizationList();
+    return AuthorizationListStreaming.stream(
+        e -> {
+          seedHomeCommunityId(e);
+          consumer.accept(e);
+        },
+        () -> phrManagementService.getAuthorizationList(req));
+  }
 
-    var context = getContext();
-    var req = new GetAuthorizationList().withContext(context);
-    return phrManagementService.getAuthorizationList(req);
+  public CompletableFuture<GetAuthorizationListResponse> getAuthorizationListAsync(
+      @NonNull Executor executor) {
+    var req = buildGetAuthorizationList();
+    return AsyncInvocation.call(
+            phrManagementService,
+            PHRManagementServicePortType.class,
+            p -> p.getAuthorizationList(req),
+            executor)
+        .thenApply(
+            res -> {
+              seedHomeCommunityIds(res);
+              return res;
+            });
   }
 
   public String getHomeCommunityID(String kvnr) {
+    return homeCommunityIdCache.get(
+        kvnr,
+        () -> {
+          var req = buildGetHomeCommunityID(kvnr);
+          return phrManagementService.getHomeCommunityID(req).getHomeCommunityID();
+        });
+  }
+
+  public CompletableFuture<String> getHomeCommunityIDAsync(
+      String kvnr, @NonNull Executor executor) {
+    return homeCommunityIdCache.getAsync(
+        kvnr,
+        k -> {
+          var req = buildGetHomeCommunityID(k);
+          CompletableFuture<GetHomeCommunityIDResponse> res =
+              AsyncInvocation.call(
+                  phrManagementService,
+                  PHRManagementServicePortType.class,
+                  p -> p.getHomeCommunityID(req),
+                  executor);
+          return res.thenApply(GetHomeCommunityIDResponse::getHomeCommunityID);
+        });
+  }
+
+  /** every record in the list tells us the home community ID of its KVNR */
+  private void seedHomeCommunityIds(GetAuthorizationListResponse res) {
+    if (res == null || res.getAuthorizationList() == null) {
+      return;
+    }
+    res.getAuthorizationList().getAuthorizationEntry().forEach(this::seedHomeCommunityId);
+  }
+
+  private void seedHomeCommunityId(
+      GetAuthorizationListResponse.AuthorizationList.AuthorizationEntry entry) {
+    var ri = entry.getRecordIdentifier();
+    if (ri != null && ri.getInsurantId() != null) {
+      homeCommunityIdCache.put(ri.getInsurantId().getExtension(), ri.getHomeCommunityId());
+    }
+  }
 
-    var context = getContext();
+  private GetAuthorizationState buildGetAuthorizationState(String knvr, String homeCommunityId) {
+    return new GetAuthorizationState()
+        .withContext(getContext())
+        .withUserAgent("PS_123/V1.1.0/gematik") // TODO where does that come from?
+        .withRecordIdentifier(
+            new RecordIdentifierType()
+                .withInsurantId(Models.fromKvnr(knvr))
+                .withHomeCommunityId(homeCommunityId));
+  }
 
+  private GetAuthorizationList buildGetAuthorizationList() {
+    return new GetAuthorizationList().withContext(getContext());
+  }
+
+  private GetHomeCommunityID buildGetHomeCommunityID(String kvnr) {
     var insurantId =
         new InsurantIdType().withExtension(kvnr).withRoot(new InsurantIdType().getRoot());
 
-    var getHomeCommunityIDRequest =
-        new ObjectFactory()
-            .createGetHomeCommunityID()
-            .withInsurantID(insurantId)
-            .withContext(context);
-
-    return phrManagementService.getHomeCommunityID(getHomeCommunityIDRequest).getHomeCommunityID();
+    return new ObjectFactory()
+        .createGetHomeCommunityID()
+        .withInsurantID(insurantId)
+        .withContext(getContext());
   }
 
   private ContextType getContext() {
@@ -0,0 +1,149 @@
+package com.oviva.epa.client.internal.svc;
+
+import com.oviva.epa.client.internal.svc.model.KonnektorContext;
+import com.oviva.epa.client.model.KonnektorException;
+import com.oviva.epa.client.model.SignatureRequest;
+import com.oviva.epa.client.model.SignatureResult;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import oasis.names.tc.dss._1_0.core.schema.AnyType;
+import oasis.names.tc.dss._1_0.core.schema.Base64Data;
+import oasis.names.tc.dss._1_0.core.schema.Properties;
+import oasis.names.tc.dss._1_0.core.schema.PropertiesType;
+import oasis.names.tc.dss._1_0.core.schema.Property;
+import telematik.ws.conn.plus.CMSAttribute;
+import telematik.ws.conn.signatureservice.wsdl.v7_5.SignatureServicePortType;
+import telematik.ws.conn.signatureservice.xsd.v7_5.DocumentType;
+import telematik.ws.conn.signatureservice.xsd.v7_5.SignDocument;
+import telematik.ws.conn.signatureservice.xsd.v7_5.SignRequest;
+import telematik.ws.conn.signatureservice.xsd.v7_5.SignResponse;
+
+/**
+ * Signs content as CMS signatures with the SignatureService, many signatures with a single call to
+ * the Konnektor.
+ */
+public class SignatureServiceClient {
+
+  // https://gemspec.gematik.de/docs/gemSpec/gemSpec_Kon/gemSpec_Kon_V5.24.0/#4.1.8.5.1
+  private static final String SIGNATURE_TYPE_CMS = "urn:ietf:rfc:5652";
+
+  // signatures of an SMC-B are not shown to anyone for confirmation
+  private static final String TV_MODE_NONE = "NONE";
+
+  private static final String REQUEST_ID_PREFIX = "sig-";
+
+  private final SignatureServicePortType signatureService;
+  private final KonnektorContext konnektorContext;
+
+  public SignatureServiceClient(
+      SignatureServicePortType signatureService, KonnektorContext konnektorContext) {
+    this.signatureService = signatureService;
+    this.konnektorContext = konnektorContext;
+  }
+
+  /**
+   * Signs all requests with one SignDocument call, the card is unlocked once for all of them.
+   *
+   * @param crypt the key to sign with, 'RSA' or 'ECC'
+   * @return a result per request in the order of the requests
+   */
+  public List<SignatureResult> signDocuments(
+      @NonNull String cardHandle, @NonNull String crypt, @NonNull List<SignatureRequest> requests) {
+    if (requests.isEmpty()) {
+      return List.of();
+    }
+
+    var signDocument =
+        new SignDocument()
+            .withCardHandle(cardHandle)
+            .withCrypt(crypt)
+            .withContext(konnektorContext.toContext())
+            .withTvMode(TV_MODE_NONE);
+    for (int i = 0; i < requests.size(); i++) {
+      signDocument.getSignRequest().add(toSignRequest(REQUEST_ID_PREFIX + i, requests.get(i)));
+    }
+
+    var res = signatureService.signDocument(signDocument);
+
+    var responses = new HashMap<String, SignResponse>();
+    for (var r : res.getSignResponse()) {
+      responses.put(r.getRequestID(), r);
+    }
+
+    var results = new ArrayList<SignatureResult>(requests.size());
+    for (int i = 0; i < requests.size(); i++) {
+      results.add(toResult(requests.get(i), responses.get(REQUEST_ID_PREFIX + i)));
+    }
+    return results;
+  }
+
+  private static SignRequest toSignRequest(String requestId, SignatureRequest request) {
+    var document =
+        new DocumentType()
+            .withBase64Data(
+                new Base64Data()
+                    .withValue(request.content())
+                    .withMimeType("application/octet-stream"));
+
+    var optionalInputs =
+        new SignRequest.OptionalInputs()
+            .withSignatureType(SIGNATURE_TYPE_CMS)
+            .withIncludeEContent(request.includeContent());
+
+    var signed = new PropertiesType();
+    var unsigned = new PropertiesType();
+    for (var attribute : request.cmsAttributes()) {
+      var property = toProperty(attribute);
+      (attribute.signed() ? signed : unsigned).getProperty().add(property);
+    }
+    if (!signed.getProperty().isEmpty() || !unsigned.getProperty().isEmpty()) {
+      optionalInputs.setProperties(
+          new Properties()
+              .withSignedProperties(signed.getProperty().isEmpty() ? null : signed)
+              .withUnsignedProperties(unsigned.getProperty().isEmpty() ? null : unsigned));
+    }
+
+    return new SignRequest()
+        .withRequestID(requestId)
+        .withDocument(document)
+        .withOptionalInputs(optionalInputs)
+        .withIncludeRevocationInfo(false);
+  }
+
+  private static Property toProperty(SignatureRequest.CmsAttribute attribute) {
+    var of = new telematik.ws.conn.plus.ObjectFactory();
+    var cmsAttribute = new CMSAttribute();
+    cmsAttribute.setValue(attribute.value());
+
+    return new Property()
+        .withIdentifier(attribute.oid())
+        .withValue(new AnyType().withAny(of.createCMSAttributeElement(cmsAttribute)));
+  }
+
+  private static SignatureResult toResult(SignatureRequest request, SignResponse response) {
+    if (response == null) {
+      return new SignatureResult(
+          request, null, new KonnektorException("no SignResponse for request"));
+    }
+
+    var status = response.getStatus();
+    if (status == null || !isSigned(status.getResult())) {
+      return new SignatureResult(
+          request, null, new KonnektorException("signing failed: " + status));
+    }
+
+    var signatureObject = response.getSignatureObject();
+    if (signatureObject == null || signatureObject.getBase64Signature() == null) {
+      return new SignatureResult(
+          request, null, new KonnektorException("no signature in SignResponse"));
+    }
+    return new SignatureResult(request, signatureObject.getBase64Signature().getValue(), null);
+  }
+
+  private static boolean isSigned(String result) {
+    // a warning still comes with a signature
+    return "OK".equalsIgnoreCase(result) || "Warning".equalsIgnoreCase(result);
+  }
+}
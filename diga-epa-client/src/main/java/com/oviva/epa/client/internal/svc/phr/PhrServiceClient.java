@@ -18,10 +18,14 @@ package com.oviva.epa.client.internal.svc.phr;
 
 import com.oviva.epa.client.internal.svc.model.KonnektorContext;
 import com.oviva.epa.client.internal.svc.phr.model.RecordIdentifier;
+import com.oviva.epa.client.konn.internal.AsyncInvocation;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import ihe.iti.xds_b._2007.ProvideAndRegisterDocumentSetRequestType;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import oasis.names.tc.ebxml_regrep.xsd.rs._3.RegistryResponseType;
 import telematik.ws.conn.phrs.phrservice.wsdl.v2_0.PHRServicePortType;
+import telematik.ws.conn.phrs.phrservice.xsd.v2_0.ContextHeader;
 
 public class PhrServiceClient {
 
@@ -37,11 +41,27 @@ public class PhrServiceClient {
   public RegistryResponseType documentRepositoryProvideAndRegisterDocumentSetB(
       RecordIdentifier recordIdentifier, @NonNull ProvideAndRegisterDocumentSetRequestType body) {
 
-    var contextHeader =
-        ContextHeaderBuilder.fromKonnektorContext(konnektorContext)
-            .recordIdentifier(recordIdentifier)
-            .build();
-
+    var contextHeader = contextHeader(recordIdentifier);
     return phrService.documentRepositoryProvideAndRegisterDocumentSetB(contextHeader, body);
   }
+
+  public CompletableFuture<RegistryResponseType>
+      documentRepositoryProvideAndRegisterDocumentSetBAsync(
+          RecordIdentifier recordIdentifier,
+          @NonNull ProvideAndRegisterDocumentSetRequestType body,
+          @NonNull Executor executor) {
+
+    var contextHeader = contextHeader(recordIdentifier);
+    return AsyncInvocation.call(
+        phrService,
+        PHRServicePortType.class,
+        p -> p.documentRepositoryProvideAndRegisterDocumentSetB(contextHeader, body),
+        executor);
+  }
+
+  private ContextHeader contextHeader(RecordIdentifier recordIdentifier) {
+    return ContextHeaderBuilder.fromKonnektorContext(konnektorContext)
+        .recordIdentifier(recordIdentifier)
+        .build();
+  }
 }
@@ -16,41 +16,164 @@
 
 package com.oviva.epa.client.internal.svc.phr;
 
+import com.oviva.epa.client.internal.svc.CardRegistry;
 import com.oviva.epa.client.internal.svc.CertificateServiceClient;
 import com.oviva.epa.client.internal.svc.EventServiceClient;
 import com.oviva.epa.client.internal.svc.phr.model.SmbInformation;
+import com.oviva.epa.client.internal.svc.phr.model.SmbInformationResult;
 import de.gematik.epa.ihe.model.simple.AuthorInstitution;
+import jakarta.xml.ws.WebServiceException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import telematik.ws.conn.cardservice.xsd.v8_1.CardInfoType;
+import telematik.ws.conn.exception.FaultMessageException;
 
+/**
+ * Reads the Telematik-ID of the inserted SMC-Bs. Cards are read concurrently on the given executor,
+ * all within a deadline per call. A card failing or not answering in time does not affect the reads
+ * of the others, reads still running at the deadline are interrupted.
+ */
 public class SmbInformationServiceClient {
 
+  public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
   private final EventServiceClient eventServiceClient;
 
   private final CertificateServiceClient certificateServiceClient;
 
+  private final CardRegistry cardRegistry;
+  private final Executor executor;
+  private final Duration timeout;
+
   public SmbInformationServiceClient(
       EventServiceClient eventServiceClient, CertificateServiceClient certificateServiceClient) {
+    this(
+        eventServiceClient,
+        certificateServiceClient,
+        CardRegistry.disabled(),
+        Runnable::run,
+        DEFAULT_TIMEOUT);
+  }
+
+  /**
+   * @param cardRegistry invalidated if a card is not known to the Konnektor anymore
+   * @param executor reads the cards, bounds how many are read at once, not shut down by this client
+   * @param timeout the deadline for reading all cards, cards not read by then fail
+   */
+  public SmbInformationServiceClient(
+      EventServiceClient eventServiceClient,
+      CertificateServiceClient certificateServiceClient,
+      CardRegistry cardRegistry,
+      Executor executor,
+      Duration timeout) {
+    if (timeout.isNegative() || timeout.isZero()) {
+      throw new IllegalArgumentException("timeout must be positive");
+    }
     this.eventServiceClient = eventServiceClient;
     this.certificateServiceClient = certificateServiceClient;
+    this.cardRegistry = cardRegistry;
+    this.executor = executor;
+    this.timeout = timeout;
   }
 
   private static AuthorInstitution smbInformationToAuthorInstitution(SmbInformation smbInfo) {
     return new AuthorInstitution(smbInfo.cardHolderName(), smbInfo.telematikId());
   }
 
+  /**
+   * The information of all inserted SMC-Bs, all or nothing: a single card failing fails the call.
+   * See {@link #retrieveSmbInformations()} for the cards that could be read if some failed.
+   *
+   * @throws RuntimeException the error of the first card that could not be read
+   */
   public List<SmbInformation> getSmbInformations() {
-    var insertedSmbs = eventServiceClient.getSmbInfo().getCards().getCard();
+    var results = retrieveSmbInformations();
 
-    return insertedSmbs.stream().map(this::retrieveSmbInformation).toList();
+    var informations = new ArrayList<SmbInformation>(results.size());
+    for (var r : results) {
+      if (!r.isSuccess()) {
+        throw r.error();
+      }
+      informations.add(r.smbInformation());
+    }
+    return informations;
   }
 
+  /**
+   * @throws RuntimeException the error of the first card that could not be read, see {@link
+   *     #getSmbInformations()}
+   */
   public List<AuthorInstitution> getAuthorInstitutions() {
     return getSmbInformations().stream()
         .map(SmbInformationServiceClient::smbInformationToAuthorInstitution)
         .toList();
   }
 
+  /**
+   * Reads the information of all inserted SMC-Bs.
+   *
+   * @return a result per card in the order the Konnektor lists them
+   */
+  public List<SmbInformationResult> retrieveSmbInformations() {
+    var insertedSmbs = eventServiceClient.getSmbInfo().getCards().getCard();
+    if (insertedSmbs.isEmpty()) {
+      return List.of();
+    }
+
+    var deadline = System.nanoTime() + timeout.toNanos();
+    var reads = new ArrayList<FutureTask<SmbInformation>>(insertedSmbs.size());
+    for (var card : insertedSmbs) {
+      var read = new FutureTask<>(() -> retrieveSmbInformation(card));
+      reads.add(read);
+      executor.execute(read);
+    }
+
+    var results = new ArrayList<SmbInformationResult>(insertedSmbs.size());
+    for (int i = 0; i < insertedSmbs.size(); i++) {
+      results.add(await(insertedSmbs.get(i).getCardHandle(), reads.get(i), deadline));
+    }
+    return results;
+  }
+
+  private SmbInformationResult await(
+      String cardHandle, FutureTask<SmbInformation> read, long deadline) {
+    try {
+      var smbInformation = read.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+      return new SmbInformationResult(cardHandle, smbInformation, null);
+    } catch (TimeoutException e) {
+      // frees the thread of the executor, which is shared with other reads of cards
+      read.cancel(true);
+      return new SmbInformationResult(
+          cardHandle,
+          null,
+          new WebServiceException("reading SMC-B information timed out after " + timeout, e));
+    } catch (ExecutionException e) {
+      return new SmbInformationResult(cardHandle, null, toRuntimeException(e.getCause()));
+    } catch (InterruptedException e) {
+      read.cancel(true);
+      Thread.currentThread().interrupt();
+      return new SmbInformationResult(
+          cardHandle, null, new WebServiceException("interrupted reading SMC-B information", e));
+    }
+  }
+
+  private RuntimeException toRuntimeException(Throwable cause) {
+    if (cause instanceof FaultMessageException f && CardRegistry.isUnknownCard(f)) {
+      // the cards listed are outdated, list them anew next time
+      cardRegistry.invalidate();
+    }
+    if (cause instanceof RuntimeException r) {
+      return r;
+    }
+    return new WebServiceException("failed to read SMC-B information", cause);
+  }
+
   private SmbInformation retrieveSmbInformation(CardInfoType cardInfo) {
     var telematikId = certificateServiceClient.getTelematikIdForCard(cardInfo.getCardHandle());
 
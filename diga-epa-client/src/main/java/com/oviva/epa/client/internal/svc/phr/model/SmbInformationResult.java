@@ -0,0 +1,19 @@
+package com.oviva.epa.client.internal.svc.phr.model;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+/**
+ * The information read for a single SMC-B, either the information or why it could not be read.
+ *
+ * @param cardHandle the card the information was read for
+ */
+public record SmbInformationResult(
+    @NonNull String cardHandle,
+    @Nullable SmbInformation smbInformation,
+    @Nullable RuntimeException error) {
+
+  public boolean isSuccess() {
+    return error == null;
+  }
+}
@@ -0,0 +1,21 @@
+package com.oviva.epa.client.konn;
+
+import jakarta.xml.ws.WebServiceException;
+
+/**
+ * Thrown instead of calling a Konnektor service while its circuit breaker is open, i.e. the service
+ * or the whole Konnektor is known to be unavailable.
+ */
+public class CircuitOpenException extends WebServiceException {
+
+  private final KonnektorConnection.Service service;
+
+  public CircuitOpenException(KonnektorConnection.Service service, String message) {
+    super(message);
+    this.service = service;
+  }
+
+  public KonnektorConnection.Service service() {
+    return service;
+  }
+}
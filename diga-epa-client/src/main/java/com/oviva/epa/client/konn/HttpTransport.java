@@ -0,0 +1,17 @@
+package com.oviva.epa.client.konn;
+
+/** The HTTP client used to talk to the Konnektor. */
+public enum HttpTransport {
+
+  /** lets Apache CXF choose, depending on the TLS settings */
+  DEFAULT,
+
+  /** {@link java.net.HttpURLConnection}, blocks and pins virtual threads */
+  URL_CONNECTION,
+
+  /**
+   * {@link java.net.http.HttpClient}, non-blocking and safe to use from virtual threads. One client
+   * and connection pool is shared by all services of a Konnektor.
+   */
+  HTTP_CLIENT
+}
@@ -1,5 +1,9 @@
 package com.oviva.epa.client.konn;
 
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.time.Instant;
+import java.util.Set;
 import telematik.ws.conn.authsignatureservice.wsdl.v7_4.AuthSignatureServicePortType;
 import telematik.ws.conn.cardservice.wsdl.v8_1.CardServicePortType;
 import telematik.ws.conn.certificateservice.wsdl.v6_0.CertificateServicePortType;
@@ -26,4 +30,68 @@ public interface KonnektorConnection {
   VSDServicePortType vsdService();
 
   AuthSignatureServicePortType authSignatureService();
+
+  /**
+   * Creates the client proxies of the given services up-front, in parallel where possible.
+   * Connections that create all proxies on connect are always warm and ignore this.
+   */
+  default void warmUp(@NonNull Set<Service> services) {}
+
+  /**
+   * The result of the last health check of the Konnektor, never blocks. Connections without a
+   * scheduled health check always report {@link Health#UNKNOWN}.
+   */
+  @NonNull
+  default Health health() {
+    return Health.UNKNOWN;
+  }
+
+  /**
+   * The usage of the bounded connection pool of the {@link HttpTransport#HTTP_CLIENT} transport,
+   * never blocks. Null for connections without a bounded pool.
+   */
+  @Nullable
+  default ConnectionPool connectionPool() {
+    return null;
+  }
+
+  /** The Konnektor web services available through a connection. */
+  enum Service {
+    PHR,
+    PHR_MANAGEMENT,
+    EVENT,
+    CARD,
+    CERTIFICATE,
+    SIGNATURE,
+    VSD,
+    AUTH_SIGNATURE
+  }
+
+  /**
+   * @param state the state of the Konnektor as seen by the last check
+   * @param checkedAt when the last check finished, null if never checked
+   * @param error why the last check failed, null if it succeeded
+   */
+  record Health(@NonNull State state, @Nullable Instant checkedAt, @Nullable String error) {
+
+    public static final Health UNKNOWN = new Health(State.UNKNOWN, null, null);
+
+    public boolean isUp() {
+      return state == State.UP;
+    }
+
+    public enum State {
+      UNKNOWN,
+      UP,
+      DOWN
+    }
+  }
+
+  /**
+   * @param maxConnections the maximum number of concurrent exchanges with the Konnektor
+   * @param inUse exchanges currently in flight
+   * @param waiting callers waiting for a connection
+   * @param acquired total number of exchanges started so far
+   */
+  record ConnectionPool(int maxConnections, int inUse, int waiting, long acquired) {}
 }
@@ -1,5 +1,12 @@
 package com.oviva.epa.client.konn;
 
-public interface KonnektorConnectionFactory {
+public interface KonnektorConnectionFactory extends AutoCloseable {
   KonnektorConnection connect();
+
+  /**
+   * Stops background work of the factory, e.g. the health checks. Connections created before keep
+   * working.
+   */
+  @Override
+  default void close() {}
 }
@@ -2,7 +2,11 @@ package com.oviva.epa.client.konn;
 
 import com.oviva.epa.client.konn.internal.KonnektorConnectionConfiguration;
 import com.oviva.epa.client.konn.internal.KonnektorConnectionConfiguration.BasicAuthenticationConfig;
+import com.oviva.epa.client.konn.internal.KonnektorConnectionConfiguration.CircuitBreakerConfig;
+import com.oviva.epa.client.konn.internal.KonnektorConnectionConfiguration.HealthCheckConfig;
+import com.oviva.epa.client.konn.internal.KonnektorConnectionConfiguration.HttpTransportConfig;
 import com.oviva.epa.client.konn.internal.KonnektorConnectionConfiguration.ProxyAddressConfig;
+import com.oviva.epa.client.konn.internal.KonnektorConnectionConfiguration.SdsCacheConfig;
 import com.oviva.epa.client.konn.internal.KonnektorConnectionConfiguration.TlsConfig;
 import com.oviva.epa.client.konn.internal.KonnektorConnectionFactoryImpl;
 import com.oviva.epa.client.konn.internal.util.NaiveTrustManager;
@@ -13,6 +17,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.GeneralSecurityException;
 import java.security.KeyStore;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -35,6 +40,14 @@ public class KonnektorConnectionFactoryBuilder {
   private TlsConfig tlsConfig = null;
   private ProxyAddressConfig proxyAddress = null;
   private BasicAuthenticationConfig basicAuthentication = null;
+  private Duration sdsCacheTtl = Duration.ZERO;
+  private Path sdsSnapshotFile = null;
+  private boolean lazyServices = false;
+  private Duration healthCheckInterval = Duration.ZERO;
+  private int circuitBreakerFailureThreshold = 0;
+  private Duration circuitBreakerOpenDuration = Duration.ofSeconds(30);
+  private HttpTransport httpTransport = HttpTransport.DEFAULT;
+  private int maxConnections = 20;
 
   private List<String> ciphersuites = DEFAULT_TLS_CIPHERSUITES;
   private List<KeyManager> keyManagers = null;
@@ -112,6 +125,88 @@ public class KonnektorConnectionFactoryBuilder {
     return this;
   }
 
+  /**
+   * Reuse the service directory (connector.sds) of the Konnektor for the given time instead of
+   * fetching it on every {@link KonnektorConnectionFactory#connect()}.
+   */
+  @NonNull
+  public KonnektorConnectionFactoryBuilder sdsCacheTtl(@NonNull Duration ttl) {
+    this.sdsCacheTtl = ttl;
+    return this;
+  }
+
+  /**
+   * Persist the last known service directory (connector.sds) to the given file. On a restart, a
+   * snapshot younger than the {@link #sdsCacheTtl(Duration)} is used right away and refreshed in
+   * the background.
+   */
+  @NonNull
+  public KonnektorConnectionFactoryBuilder sdsSnapshotFile(@NonNull Path snapshotFile) {
+    this.sdsSnapshotFile = snapshotFile;
+    return this;
+  }
+
+  /**
+   * Create the client proxies of the Konnektor services on first access instead of on {@link
+   * KonnektorConnectionFactory#connect()}. Use {@link KonnektorConnection#warmUp(java.util.Set)} to
+   * create the needed ones up-front.
+   */
+  @NonNull
+  public KonnektorConnectionFactoryBuilder lazyServices() {
+    this.lazyServices = true;
+    return this;
+  }
+
+  /**
+   * Check the health of the Konnektor periodically by fetching its service directory
+   * (connector.sds), see {@link KonnektorConnection#health()}. Disabled by default.
+   *
+   * <p>The check covers the service directory only, a failed check therefore does not block any
+   * calls. A successful check lets the calls of services with an open {@link #circuitBreaker(int,
+   * Duration) circuit breaker} through right away. The checks run until the factory is {@link
+   * KonnektorConnectionFactory#close() closed}.
+   */
+  @NonNull
+  public KonnektorConnectionFactoryBuilder healthCheckInterval(@NonNull Duration interval) {
+    this.healthCheckInterval = interval;
+    return this;
+  }
+
+  /**
+   * Guard every Konnektor service with a circuit breaker. After {@code failureThreshold}
+   * consecutive transport errors calls of the service fail fast with a {@link CircuitOpenException}
+   * for {@code openDuration}, then a single trial call is let through.
+   */
+  @NonNull
+  public KonnektorConnectionFactoryBuilder circuitBreaker(
+      int failureThreshold, @NonNull Duration openDuration) {
+    this.circuitBreakerFailureThreshold = failureThreshold;
+    this.circuitBreakerOpenDuration = openDuration;
+    return this;
+  }
+
+  /**
+   * The HTTP client used to talk to the Konnektor. Use {@link HttpTransport#HTTP_CLIENT} when
+   * calling the Konnektor from virtual threads. TLS, basic authentication and proxy settings apply
+   * to all transports alike.
+   */
+  @NonNull
+  public KonnektorConnectionFactoryBuilder httpTransport(@NonNull HttpTransport httpTransport) {
+    this.httpTransport = httpTransport;
+    return this;
+  }
+
+  /**
+   * The maximum number of concurrent exchanges with the Konnektor when using {@link
+   * HttpTransport#HTTP_CLIENT}, further calls wait for a free connection. Defaults to 20, 0 removes
+   * the limit. See {@link KonnektorConnection#connectionPool()} for the current usage.
+   */
+  @NonNull
+  public KonnektorConnectionFactoryBuilder maxConnections(int maxConnections) {
+    this.maxConnections = maxConnections;
+    return this;
+  }
+
   public KonnektorConnectionFactory build() {
 
     if (uri == null) {
@@ -125,8 +220,41 @@ public class KonnektorConnectionFactoryBuilder {
       tlsConfig = new TlsConfig(kms, tms, ciphersuites);
     }
 
+    if (sdsCacheTtl == null || sdsCacheTtl.isNegative()) {
+      throw new IllegalArgumentException("sdsCacheTtl must not be negative");
+    }
+
+    if (healthCheckInterval == null || healthCheckInterval.isNegative()) {
+      throw new IllegalArgumentException("healthCheckInterval must not be negative");
+    }
+
+    if (circuitBreakerFailureThreshold < 0) {
+      throw new IllegalArgumentException("circuit breaker failureThreshold must not be negative");
+    }
+
+    if (circuitBreakerOpenDuration == null || circuitBreakerOpenDuration.isNegative()) {
+      throw new IllegalArgumentException("circuit breaker openDuration must not be negative");
+    }
+
+    if (httpTransport == null) {
+      throw new IllegalArgumentException("httpTransport required");
+    }
+
+    if (maxConnections < 0) {
+      throw new IllegalArgumentException("maxConnections must not be negative");
+    }
+
     var cfg =
-        new KonnektorConnectionConfiguration(uri, tlsConfig, proxyAddress, basicAuthentication);
+        new KonnektorConnectionConfiguration(
+            uri,
+            tlsConfig,
+            proxyAddress,
+            basicAuthentication,
+            new SdsCacheConfig(sdsCacheTtl, sdsSnapshotFile),
+            lazyServices,
+            new HealthCheckConfig(healthCheckInterval),
+            new CircuitBreakerConfig(circuitBreakerFailureThreshold, circuitBreakerOpenDuration),
+            new HttpTransportConfig(httpTransport, maxConnections));
     return new KonnektorConnectionFactoryImpl(cfg);
   }
 }
@@ -0,0 +1,173 @@
+package com.oviva.epa.client.konn.internal;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import jakarta.xml.soap.SOAPException;
+import jakarta.xml.ws.BindingProvider;
+import jakarta.xml.ws.WebServiceException;
+import jakarta.xml.ws.soap.SOAPBinding;
+import jakarta.xml.ws.soap.SOAPFaultException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import org.apache.cxf.binding.soap.SoapFault;
+import org.apache.cxf.endpoint.Client;
+import org.apache.cxf.endpoint.ClientCallback;
+import org.apache.cxf.jaxws.JaxWsClientProxy;
+import org.apache.cxf.service.invoker.MethodDispatcher;
+
+/**
+ * Invokes operations of the Konnektor service proxies without blocking the calling thread.
+ *
+ * <p>CXF proxies are called through CXF's asynchronous client API, no thread waits for the
+ * response. Other implementations, e.g. test doubles, are called on the given executor. Results are
+ * always completed on the given executor, continuations never run on CXF's transport threads.
+ */
+public class AsyncInvocation {
+
+  private AsyncInvocation() {}
+
+  /**
+   * Calls an operation of a service proxy asynchronously. The operation is selected by calling it
+   * on a recording stand-in of the port type, e.g.
+   *
+   * <pre>
+   * AsyncInvocation.call(port, PHRServicePortType.class, p -> p.getHomeCommunityID(req), executor)
+   * </pre>
+   */
+  @NonNull
+  public static <P, T> CompletableFuture<T> call(
+      @NonNull P port,
+      @NonNull Class<P> portType,
+      @NonNull Function<P, T> operation,
+      @NonNull Executor executor) {
+
+    var recorded = record(portType, operation);
+
+    @SuppressWarnings("unchecked")
+    var future = (CompletableFuture<T>) invoke(port, recorded.method(), recorded.args(), executor);
+    return future;
+  }
+
+  /** Implemented by invocation handlers of decorating proxies, e.g. circuit breakers. */
+  public interface AsyncInvocable {
+    CompletableFuture<Object> invokeAsync(Method method, Object[] args, Executor executor);
+  }
+
+  static CompletableFuture<Object> invoke(
+      Object port, Method method, Object[] args, Executor executor) {
+
+    if (Proxy.isProxyClass(port.getClass())) {
+      var handler = Proxy.getInvocationHandler(port);
+      if (handler instanceof AsyncInvocable invocable) {
+        return invocable.invokeAsync(method, args, executor);
+      }
+      if (handler instanceof JaxWsClientProxy cxfProxy) {
+        return invokeCxf(port, cxfProxy, method, args, executor);
+      }
+    }
+
+    return CompletableFuture.supplyAsync(() -> invokeBlocking(port, method, args), executor);
+  }
+
+  private static CompletableFuture<Object> invokeCxf(
+      Object port, JaxWsClientProxy cxfProxy, Method method, Object[] args, Executor executor) {
+
+    var future = new CompletableFuture<Object>();
+    try {
+      var client = cxfProxy.getClient();
+      var endpoint = client.getEndpoint();
+      var dispatcher =
+          (MethodDispatcher) endpoint.getService().get(MethodDispatcher.class.getName());
+      var operation = dispatcher.getBindingOperation(method, endpoint);
+
+      // mirrors what the synchronous proxy puts into the request context
+      Map<String, Object> requestContext = new HashMap<>(cxfProxy.getRequestContext());
+      requestContext.put(Method.class.getName(), method);
+
+      Map<String, Object> context = new HashMap<>();
+      context.put(Client.REQUEST_CONTEXT, requestContext);
+      context.put(Client.RESPONSE_CONTEXT, new HashMap<String, Object>());
+
+      var callback =
+          new ClientCallback() {
+            @Override
+            public void handleResponse(Map<String, Object> ctx, Object[] res) {
+              super.handleResponse(ctx, res);
+              var result = res == null || res.length == 0 ? null : res[0];
+              executor.execute(() -> future.complete(result));
+            }
+
+            @Override
+            public void handleException(Map<String, Object> ctx, Throwable ex) {
+              super.handleException(ctx, ex);
+              var mapped = mapException(port, ex);
+              executor.execute(() -> future.completeExceptionally(mapped));
+            }
+          };
+
+      client.invoke(callback, operation, args, context);
+    } catch (Exception e) {
+      future.completeExceptionally(mapException(port, e));
+    }
+    return future;
+  }
+
+  private static Object invokeBlocking(Object port, Method method, Object[] args) {
+    try {
+      return method.invoke(port, args);
+    } catch (InvocationTargetException e) {
+      if (e.getCause() instanceof RuntimeException re) {
+        throw re;
+      }
+      throw new CompletionException(e.getCause());
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** maps CXF exceptions the same way the synchronous JAX-WS proxies do */
+  private static Throwable mapException(Object port, Throwable ex) {
+    if (ex instanceof WebServiceException) {
+      return ex;
+    }
+    if (ex instanceof SoapFault sf
+        && port instanceof BindingProvider bp
+        && bp.getBinding() instanceof SOAPBinding binding) {
+      try {
+        var fault = binding.getSOAPFactory().createFault(sf.getReason(), sf.getFaultCode());
+        return new SOAPFaultException(fault);
+      } catch (SOAPException | RuntimeException e) {
+        ex.addSuppressed(e);
+      }
+    }
+    return new WebServiceException(ex.getMessage(), ex);
+  }
+
+  private static <P> Recorded record(Class<P> portType, Function<P, ?> operation) {
+    var recorded = new Recorded[1];
+    var recorder =
+        portType.cast(
+            Proxy.newProxyInstance(
+                portType.getClassLoader(),
+                new Class<?>[] {portType},
+                (proxy, method, args) -> {
+                  recorded[0] = new Recorded(method, args);
+                  return null;
+                }));
+
+    operation.apply(recorder);
+    if (recorded[0] == null) {
+      throw new IllegalArgumentException(
+          "no operation of %s called".formatted(portType.getSimpleName()));
+    }
+    return recorded[0];
+  }
+
+  private record Recorded(Method method, Object[] args) {}
+}
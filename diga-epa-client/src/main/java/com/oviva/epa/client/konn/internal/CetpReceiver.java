@@ -0,0 +1,221 @@
+package com.oviva.epa.client.konn.internal;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocket;
+import javax.xml.transform.stream.StreamSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import telematik.ws.conn.eventservice.xsd.v6_1.Event;
+
+/**
+ * Receives the events the Konnektor pushes for subscriptions of the EventService, see the Connector
+ * Event Transport Protocol (CETP) in gemSpec_Kon.
+ *
+ * <p>The Konnektor connects to the receiver and sends each event as a frame: the ASCII bytes
+ * 'CETP', the length of the message as 4 byte big-endian integer and the UTF-8 encoded {@code
+ * Event} element. A connection may carry any number of frames. Each connection is read on its own
+ * daemon thread, malformed frames or a connection silent for {@link #READ_TIMEOUT} close it.
+ *
+ * <p>With an {@link SSLContext} the Konnektor must authenticate with a client certificate trusted
+ * by it. Without, anyone reaching the port can inject events, only use that on a trusted network.
+ */
+public class CetpReceiver implements AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(CetpReceiver.class);
+
+  static final byte[] MAGIC = "CETP".getBytes(StandardCharsets.US_ASCII);
+
+  // an event is a handful of parameters, anything larger is not from a Konnektor
+  private static final int MAX_MESSAGE_SIZE = 1024 * 1024;
+
+  // a peer neither sending nor closing must not hold a thread forever
+  static final Duration READ_TIMEOUT = Duration.ofMinutes(2);
+
+  private static final AtomicInteger threadCount = new AtomicInteger();
+
+  private static final JAXBContext context = newContext();
+
+  private final InetSocketAddress bindAddress;
+  private final SSLContext sslContext;
+  private final Consumer<Event> consumer;
+
+  private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+  private volatile ServerSocket server;
+
+  /**
+   * @param sslContext accepts TLS connections with client authentication if set, the Konnektor
+   *     requires TLS in production
+   * @param consumer called with every event received, on the thread reading its connection
+   */
+  public CetpReceiver(
+      @NonNull InetSocketAddress bindAddress,
+      @Nullable SSLContext sslContext,
+      @NonNull Consumer<Event> consumer) {
+    this.bindAddress = bindAddress;
+    this.sslContext = sslContext;
+    this.consumer = consumer;
+  }
+
+  /** Binds the socket and starts accepting connections. */
+  public synchronized void start() {
+    if (server != null) {
+      return;
+    }
+    try {
+      ServerSocket socket;
+      if (sslContext != null) {
+        var tls = (SSLServerSocket) sslContext.getServerSocketFactory().createServerSocket();
+        tls.setNeedClientAuth(true);
+        socket = tls;
+      } else {
+        log.atWarn()
+            .addKeyValue("bindAddress", bindAddress)
+            .log("CETP receiver without TLS, events are not authenticated");
+        socket = new ServerSocket();
+      }
+      socket.bind(bindAddress);
+      server = socket;
+    } catch (IOException e) {
+      throw new UncheckedIOException("failed to bind CETP receiver to " + bindAddress, e);
+    }
+
+    newThread(this::accept, "cetp-receiver-" + threadCount.incrementAndGet()).start();
+  }
+
+  /** the port the receiver is bound to */
+  public int port() {
+    var s = server;
+    if (s == null) {
+      throw new IllegalStateException("CETP receiver not started");
+    }
+    return s.getLocalPort();
+  }
+
+  @Override
+  public void close() {
+    var s = server;
+    if (s == null) {
+      return;
+    }
+    try {
+      s.close();
+    } catch (IOException e) {
+      log.atDebug().setCause(e).log("failed to close CETP receiver");
+    }
+    for (var c : connections) {
+      closeQuietly(c);
+    }
+  }
+
+  private void accept() {
+    var s = server;
+    while (!s.isClosed()) {
+      try {
+        var connection = s.accept();
+        connections.add(connection);
+        newThread(() -> read(connection), "cetp-connection-" + threadCount.incrementAndGet())
+            .start();
+      } catch (SocketException e) {
+        // closed
+        return;
+      } catch (IOException e) {
+        log.atWarn().setCause(e).log("failed to accept CETP connection");
+      }
+    }
+  }
+
+  private void read(Socket connection) {
+    try (var in = new DataInputStream(connection.getInputStream())) {
+      connection.setSoTimeout((int) READ_TIMEOUT.toMillis());
+      var unmarshaller = context.createUnmarshaller();
+      var magic = new byte[MAGIC.length];
+      while (true) {
+        try {
+          in.readFully(magic);
+        } catch (EOFException e) {
+          // the Konnektor is done with this connection
+          return;
+        }
+        if (!Arrays.equals(MAGIC, magic)) {
+          log.atWarn().log("not a CETP frame, closing connection");
+          return;
+        }
+
+        var length = in.readInt();
+        if (length < 0 || length > MAX_MESSAGE_SIZE) {
+          log.atWarn()
+              .addKeyValue("length", length)
+              .log("bad CETP frame length, closing connection");
+          return;
+        }
+        var message = new byte[length];
+        in.readFully(message);
+
+        var event =
+            unmarshaller
+                .unmarshal(new StreamSource(new ByteArrayInputStream(message)), Event.class)
+                .getValue();
+        deliver(event);
+      }
+    } catch (IOException e) {
+      if (!connection.isClosed()) {
+        log.atDebug().setCause(e).log("CETP connection failed");
+      }
+    } catch (JAXBException e) {
+      log.atWarn().setCause(e).log("malformed CETP event, closing connection");
+    } finally {
+      connections.remove(connection);
+      closeQuietly(connection);
+    }
+  }
+
+  private void deliver(Event event) {
+    try {
+      consumer.accept(event);
+    } catch (RuntimeException e) {
+      log.atWarn().setCause(e).addKeyValue("topic", event.getTopic()).log("event handling failed");
+    }
+  }
+
+  private static Thread newThread(Runnable r, String name) {
+    var t = new Thread(r, name);
+    t.setDaemon(true);
+    return t;
+  }
+
+  private static void closeQuietly(Socket socket) {
+    try {
+      socket.close();
+    } catch (IOException e) {
+      // nothing left to do
+    }
+  }
+
+  private static JAXBContext newContext() {
+    try {
+      return JAXBContext.newInstance(Event.class);
+    } catch (JAXBException e) {
+      throw new IllegalStateException("failed to create JAXB context", e);
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package com.oviva.epa.client.konn.internal;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * A minimal circuit breaker. It opens after {@code failureThreshold} consecutive failures and
+ * rejects calls for {@code openDuration}. Afterwards a single trial call is let through, its
+ * outcome closes or re-opens the breaker.
+ */
+public class CircuitBreaker {
+
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final int failureThreshold;
+  private final long openNanos;
+  private final LongSupplier nanoTime;
+
+  private State state = State.CLOSED;
+  private int failures;
+  private long openedAt;
+
+  public CircuitBreaker(int failureThreshold, @NonNull Duration openDuration) {
+    this(failureThreshold, openDuration, System::nanoTime);
+  }
+
+  CircuitBreaker(int failureThreshold, @NonNull Duration openDuration, LongSupplier nanoTime) {
+    if (failureThreshold < 1) {
+      throw new IllegalArgumentException("failureThreshold must be positive");
+    }
+    this.failureThreshold = failureThreshold;
+    this.openNanos = openDuration.toNanos();
+    this.nanoTime = nanoTime;
+  }
+
+  /**
+   * whether a call may go ahead, must be followed by {@link #onSuccess()} or {@link #onFailure()}
+   */
+  public synchronized boolean tryAcquire() {
+    return switch (state) {
+      case CLOSED -> true;
+      case HALF_OPEN -> false;
+      case OPEN -> {
+        if (nanoTime.getAsLong() - openedAt < openNanos) {
+          yield false;
+        }
+        state = State.HALF_OPEN;
+        yield true;
+      }
+    };
+  }
+
+  public synchronized void onSuccess() {
+    failures = 0;
+    state = State.CLOSED;
+  }
+
+  public synchronized void onFailure() {
+    failures++;
+    if (state == State.HALF_OPEN || failures >= failureThreshold) {
+      open();
+    }
+  }
+
+  /** lets the next call through as trial, e.g. when the Konnektor is known to be up again */
+  public synchronized void allowTrial() {
+    if (state == State.OPEN) {
+      openedAt = nanoTime.getAsLong() - openNanos;
+    }
+  }
+
+  @NonNull
+  public synchronized State state() {
+    return state;
+  }
+
+  private void open() {
+    state = State.OPEN;
+    openedAt = nanoTime.getAsLong();
+  }
+}
@@ -0,0 +1,93 @@
+package com.oviva.epa.client.konn.internal;
+
+import com.oviva.epa.client.konn.KonnektorConnection.ConnectionPool;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import jakarta.xml.ws.WebServiceException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Bounds the number of concurrent exchanges with a Konnektor, and therefore the number of HTTP
+ * connections open to it. Callers beyond the limit wait in FIFO order.
+ *
+ * <p>Waiting never pins a carrier thread, blocked virtual threads are parked and asynchronous
+ * callers get a future instead.
+ */
+public class ConnectionLimiter {
+
+  private final int maxConnections;
+  private final Queue<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+  private int inUse;
+  private long acquired;
+
+  public ConnectionLimiter(int maxConnections) {
+    if (maxConnections < 1) {
+      throw new IllegalArgumentException("maxConnections must be positive");
+    }
+    this.maxConnections = maxConnections;
+  }
+
+  /**
+   * @return a future completing once a connection is available, must be followed by {@link
+   *     #release()}
+   */
+  @NonNull
+  public CompletableFuture<Void> acquireAsync() {
+    synchronized (this) {
+      if (inUse < maxConnections) {
+        inUse++;
+        acquired++;
+        return CompletableFuture.completedFuture(null);
+      }
+      var waiter = new CompletableFuture<Void>();
+      waiters.add(waiter);
+      return waiter;
+    }
+  }
+
+  /** blocks until a connection is available, must be followed by {@link #release()} */
+  public void acquire() {
+    var waiter = acquireAsync();
+    try {
+      waiter.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      if (!waiter.cancel(false)) {
+        // handed over in the meantime
+        release();
+      }
+      throw new WebServiceException("interrupted while waiting for a Konnektor connection", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public void release() {
+    while (true) {
+      CompletableFuture<Void> next;
+      synchronized (this) {
+        next = waiters.poll();
+        if (next == null) {
+          inUse--;
+          return;
+        }
+        acquired++;
+      }
+      // hands the connection over, outside the lock as it runs the waiter's continuations
+      if (next.complete(null)) {
+        return;
+      }
+      synchronized (this) {
+        acquired--;
+      }
+    }
+  }
+
+  @NonNull
+  public synchronized ConnectionPool stats() {
+    var waiting = (int) waiters.stream().filter(w -> !w.isDone()).count();
+    return new ConnectionPool(maxConnections, inUse, waiting, acquired);
+  }
+}
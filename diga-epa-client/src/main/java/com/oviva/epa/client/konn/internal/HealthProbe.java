@@ -0,0 +1,118 @@
+package com.oviva.epa.client.konn.internal;
+
+import com.oviva.epa.client.konn.KonnektorConnection.Health;
+import com.oviva.epa.client.konn.KonnektorConnection.Health.State;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Periodically runs a cheap check against the Konnektor and keeps the last result. Checks run with
+ * a fixed delay on a single thread, a hanging Konnektor therefore never piles up checks. The checks
+ * run until the probe is closed.
+ */
+public class HealthProbe implements AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(HealthProbe.class);
+
+  private final Runnable check;
+  private final Duration interval;
+  private final ScheduledExecutorService scheduler;
+  private final Clock clock;
+
+  private final AtomicBoolean started = new AtomicBoolean();
+  private volatile boolean closed;
+  private final List<Consumer<Health>> listeners = new CopyOnWriteArrayList<>();
+  private volatile Health last = Health.UNKNOWN;
+
+  /**
+   * @param check throws if the Konnektor is not healthy
+   * @param interval the delay between two checks
+   */
+  public HealthProbe(@NonNull Runnable check, @NonNull Duration interval) {
+    this(check, interval, newScheduler(), Clock.systemUTC());
+  }
+
+  HealthProbe(
+      @NonNull Runnable check,
+      @NonNull Duration interval,
+      @NonNull ScheduledExecutorService scheduler,
+      @NonNull Clock clock) {
+    if (interval.isNegative() || interval.isZero()) {
+      throw new IllegalArgumentException("health check interval must be positive");
+    }
+    this.check = check;
+    this.interval = interval;
+    this.scheduler = scheduler;
+    this.clock = clock;
+  }
+
+  private static ScheduledExecutorService newScheduler() {
+    return Executors.newSingleThreadScheduledExecutor(
+        r -> {
+          var t = new Thread(r, "konnektor-health-probe");
+          t.setDaemon(true);
+          return t;
+        });
+  }
+
+  /**
+   * Schedules the checks, the first one runs right away. Further calls, and calls after {@link
+   * #close()}, have no effect.
+   */
+  public void start() {
+    if (closed || !started.compareAndSet(false, true)) {
+      return;
+    }
+    scheduler.scheduleWithFixedDelay(this::probe, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /** the result of the last check, {@link Health#UNKNOWN} before the first one finished */
+  @NonNull
+  public Health last() {
+    return last;
+  }
+
+  /** called with the result of every check on the probe thread */
+  public void addListener(@NonNull Consumer<Health> listener) {
+    listeners.add(listener);
+  }
+
+  /** Stops the checks, a check in progress is interrupted. */
+  @Override
+  public void close() {
+    closed = true;
+    scheduler.shutdownNow();
+  }
+
+  void probe() {
+    Health result;
+    try {
+      check.run();
+      result = new Health(State.UP, clock.instant(), null);
+    } catch (RuntimeException e) {
+      result = new Health(State.DOWN, clock.instant(), e.getMessage());
+      if (last.state() != State.DOWN) {
+        log.atWarn().setCause(e).log("Konnektor health check failed");
+      }
+    }
+
+    if (last.state() == State.DOWN && result.isUp()) {
+      log.atInfo().log("Konnektor healthy again");
+    }
+    last = result;
+
+    for (var l : listeners) {
+      l.accept(result);
+    }
+  }
+}
@@ -16,7 +16,10 @@
 
 package com.oviva.epa.client.konn.internal;
 
+import com.oviva.epa.client.konn.HttpTransport;
 import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
 import javax.net.ssl.KeyManager;
 import javax.net.ssl.TrustManager;
@@ -27,7 +30,14 @@ public record KonnektorConnectionConfiguration(
     URI uri,
     TlsConfig tlsConfig,
     ProxyAddressConfig proxyAddress,
-    BasicAuthenticationConfig basicAuthentication) {
+    BasicAuthenticationConfig basicAuthentication,
+    SdsCacheConfig sdsCache,
+
+    /** whether the service proxies are created on first access rather than on connect */
+    boolean lazyServices,
+    HealthCheckConfig healthCheck,
+    CircuitBreakerConfig circuitBreaker,
+    HttpTransportConfig httpTransport) {
 
   public record TlsConfig(
       List<KeyManager> keyManagers,
@@ -43,4 +53,29 @@ public record KonnektorConnectionConfiguration(
   public record ProxyAddressConfig(String address, Integer port, boolean enabled) {}
 
   public record BasicAuthenticationConfig(String username, String password, boolean enabled) {}
+
+  /**
+   * @param ttl how long a fetched connector.sds is reused, {@link Duration#ZERO} disables caching
+   * @param snapshotFile optional file to persist the last known connector.sds across restarts
+   */
+  public record SdsCacheConfig(Duration ttl, Path snapshotFile) {}
+
+  /**
+   * @param interval the delay between two health checks, {@link Duration#ZERO} disables them
+   */
+  public record HealthCheckConfig(Duration interval) {}
+
+  /**
+   * @param failureThreshold consecutive transport errors of a service after which it is not called
+   *     anymore, 0 disables the circuit breakers
+   * @param openDuration how long calls fail fast before a trial call is let through
+   */
+  public record CircuitBreakerConfig(int failureThreshold, Duration openDuration) {}
+
+  /**
+   * @param transport the HTTP client used for all calls to the Konnektor
+   * @param maxConnections the maximum number of concurrent exchanges with the Konnektor when using
+   *     {@link HttpTransport#HTTP_CLIENT}, 0 for no limit
+   */
+  public record HttpTransportConfig(HttpTransport transport, int maxConnections) {}
 }
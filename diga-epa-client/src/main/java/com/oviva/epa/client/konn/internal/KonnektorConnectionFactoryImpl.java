@@ -20,20 +20,34 @@ import static jakarta.xml.ws.soap.SOAPBinding.SOAP11HTTP_BINDING;
 import static jakarta.xml.ws.soap.SOAPBinding.SOAP12HTTP_BINDING;
 import static jakarta.xml.ws.soap.SOAPBinding.SOAP12HTTP_MTOM_BINDING;
 
+import com.oviva.epa.client.konn.HttpTransport;
 import com.oviva.epa.client.konn.KonnektorConnection;
+import com.oviva.epa.client.konn.KonnektorConnection.Service;
 import com.oviva.epa.client.konn.KonnektorConnectionFactory;
+import com.oviva.epa.client.konn.internal.interceptors.AuthorizationListStreaming;
 import com.oviva.epa.client.konn.internal.interceptors.HomeCommunityBlockOutInterceptor;
 import com.oviva.epa.client.konn.internal.interceptors.MtomConfigOutInterceptor;
+import com.oviva.epa.client.konn.internal.interceptors.StreamingAttachmentOutInterceptor;
+import com.oviva.epa.client.konn.internal.util.HostnameIgnoringTrustManager;
 import com.oviva.epa.client.konn.internal.util.XmlUtils;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import java.net.URI;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 import javax.net.ssl.KeyManager;
 import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
 import org.apache.cxf.configuration.jsse.TLSClientParameters;
 import org.apache.cxf.configuration.security.AuthorizationPolicy;
 import org.apache.cxf.ext.logging.LoggingFeature;
@@ -72,19 +86,64 @@ import telematik.ws.conn.vsds.vsdservice.wsdl.v5_2.VSDServicePortType;
 public class KonnektorConnectionFactoryImpl implements KonnektorConnectionFactory {
 
   public static final String HTTPS_PROTOCOL = "https";
+  private static final String FORCE_URLCONNECTION_HTTP_CONDUIT = "force.urlconnection.http.conduit";
+  private static final String SHARE_HTTPCLIENT_CONDUIT = "share.httpclient.http.conduit";
   private final LoggingFeature loggingFeature = newLoggingFeature();
   private final KonnektorConnectionConfiguration configuration;
+  private final SdsCache sdsCache;
+  private final HealthProbe healthProbe;
+  private final Map<Service, CircuitBreaker> circuitBreakers;
+  private final HttpTransport httpTransport;
+  private final ConnectionLimiter connectionLimiter;
   boolean isTlsPreferred = true;
 
   public KonnektorConnectionFactoryImpl(KonnektorConnectionConfiguration config) {
     this.configuration = config;
     this.isTlsPreferred = determineIfTlsPreferred();
+    this.sdsCache = newSdsCache();
+    this.healthProbe = newHealthProbe();
+    this.circuitBreakers = newCircuitBreakers();
+    this.httpTransport =
+        Optional.ofNullable(config)
+            .map(KonnektorConnectionConfiguration::httpTransport)
+            .map(KonnektorConnectionConfiguration.HttpTransportConfig::transport)
+            .orElse(HttpTransport.DEFAULT);
+    this.connectionLimiter = newConnectionLimiter();
   }
 
   @Override
   public KonnektorConnection connect() {
 
-    var connectorServices = sdsApi().getConnectorSds();
+    if (healthProbe != null) {
+      healthProbe.start();
+    }
+
+    var connection = connectUnguarded();
+
+    if (connectionLimiter != null) {
+      connection = new LimitedKonnektorConnection(connection, connectionLimiter);
+    }
+
+    if (healthProbe == null && circuitBreakers.isEmpty()) {
+      return connection;
+    }
+    return new ResilientKonnektorConnection(connection, circuitBreakers, healthProbe);
+  }
+
+  @Override
+  public void close() {
+    if (healthProbe != null) {
+      healthProbe.close();
+    }
+  }
+
+  private KonnektorConnection connectUnguarded() {
+
+    var connectorServices = sdsCache.get();
+
+    if (configuration.lazyServices()) {
+      return connectLazy(connectorServices);
+    }
 
     var phrService = createPhrService(connectorServices);
     var phrManagementService = createPHRManagementService(connectorServices);
@@ -106,6 +165,87 @@ public class KonnektorConnectionFactoryImpl implements KonnektorConnectionFactor
         authSignatureService);
   }
 
+  private KonnektorConnection connectLazy(ConnectorServices connectorServices) {
+    var factories = new EnumMap<Service, Supplier<?>>(Service.class);
+    factories.put(Service.PHR, () -> createPhrService(connectorServices));
+    factories.put(Service.PHR_MANAGEMENT, () -> createPHRManagementService(connectorServices));
+    factories.put(Service.EVENT, () -> createEventService(connectorServices));
+    factories.put(Service.CARD, () -> createCardService(connectorServices));
+    factories.put(Service.CERTIFICATE, () -> createCertificateService(connectorServices));
+    factories.put(Service.SIGNATURE, () -> createSignatureService(connectorServices));
+    factories.put(Service.VSD, () -> createVSDService(connectorServices));
+    factories.put(Service.AUTH_SIGNATURE, () -> createAuthSignatureService(connectorServices));
+
+    return new LazyKonnektorConnection(factories, ForkJoinPool.commonPool());
+  }
+
+  private SdsCache newSdsCache() {
+    var cfg =
+        Optional.ofNullable(configuration)
+            .map(KonnektorConnectionConfiguration::sdsCache)
+            .orElse(new KonnektorConnectionConfiguration.SdsCacheConfig(Duration.ZERO, null));
+    return new SdsCache(() -> sdsApi().getConnectorSds(), cfg.ttl(), cfg.snapshotFile());
+  }
+
+  private HealthProbe newHealthProbe() {
+    var interval =
+        Optional.ofNullable(configuration)
+            .map(KonnektorConnectionConfiguration::healthCheck)
+            .map(KonnektorConnectionConfiguration.HealthCheckConfig::interval)
+            .filter(i -> !i.isZero())
+            .orElse(null);
+    if (interval == null) {
+      return null;
+    }
+
+    // fetching the connector.sds is cheap, the cached one and its snapshot are left alone
+    return new HealthProbe(sdsCache::check, interval);
+  }
+
+  private ConnectionLimiter newConnectionLimiter() {
+    var maxConnections =
+        Optional.ofNullable(configuration)
+            .map(KonnektorConnectionConfiguration::httpTransport)
+            .filter(t -> t.transport() == HttpTransport.HTTP_CLIENT)
+            .map(KonnektorConnectionConfiguration.HttpTransportConfig::maxConnections)
+            .filter(m -> m > 0)
+            .orElse(null);
+    if (maxConnections == null) {
+      return null;
+    }
+
+    // shared by all connections of this factory, they talk to the same Konnektor
+    return new ConnectionLimiter(maxConnections);
+  }
+
+  private Map<Service, CircuitBreaker> newCircuitBreakers() {
+    var cfg =
+        Optional.ofNullable(configuration)
+            .map(KonnektorConnectionConfiguration::circuitBreaker)
+            .filter(c -> c.failureThreshold() > 0)
+            .orElse(null);
+    if (cfg == null) {
+      return Map.of();
+    }
+
+    var breakers = new EnumMap<Service, CircuitBreaker>(Service.class);
+    for (var service : Service.values()) {
+      breakers.put(service, new CircuitBreaker(cfg.failureThreshold(), cfg.openDuration()));
+    }
+
+    // the probe only fetches the connector.sds, a failed check says little about the other
+    // services, a successful one however means the Konnektor is reachable again
+    if (healthProbe != null) {
+      healthProbe.addListener(
+          health -> {
+            if (health.isUp()) {
+              breakers.values().forEach(CircuitBreaker::allowTrial);
+            }
+          });
+    }
+    return breakers;
+  }
+
   /**
    * Get the client implementation of the {@link SdsApi}, for the retrieval of the connection
    * information of the Konnektor web services.
@@ -130,6 +270,8 @@ public class KonnektorConnectionFactoryImpl implements KonnektorConnectionFactor
 
     configureProxyIfEnabled(sdsHttpConduit);
 
+    configureTransport(sdsHttpConduit, WebClient.getConfig(sdsApi).getRequestContext());
+
     return sdsApi;
   }
 
@@ -164,7 +306,7 @@ public class KonnektorConnectionFactoryImpl implements KonnektorConnectionFactor
       addConf.accept(jaxWsProxyFactory);
     }
 
-    final T proxy = jaxWsProxyFactory.create(portType);
+    final T proxy = ServiceModelCache.shared().create(jaxWsProxyFactory, portType);
 
     var httpConduit = (HTTPConduit) ClientProxy.getClient(proxy).getConduit();
 
@@ -176,6 +318,8 @@ public class KonnektorConnectionFactoryImpl implements KonnektorConnectionFactor
 
     configureProxyIfEnabled(httpConduit);
 
+    configureTransport(httpConduit, ClientProxy.getClient(proxy).getRequestContext());
+
     return proxy;
   }
 
@@ -183,8 +327,12 @@ public class KonnektorConnectionFactoryImpl implements KonnektorConnectionFactor
     final TLSClientParameters tlsParams = new TLSClientParameters();
     tlsParams.setDisableCNCheck(true);
 
-    tlsParams.setTrustManagers(
-        configuration.tlsConfig().trustManagers().toArray(new TrustManager[0]));
+    var trustManagers = configuration.tlsConfig().trustManagers();
+    if (httpTransport == HttpTransport.HTTP_CLIENT) {
+      // the HttpClient ignores disableCNCheck
+      trustManagers = hostnameIgnoringTrustManagers(trustManagers);
+    }
+    tlsParams.setTrustManagers(trustManagers.toArray(new TrustManager[0]));
 
     return tlsParams;
   }
@@ -218,6 +366,7 @@ public class KonnektorConnectionFactoryImpl implements KonnektorConnectionFactor
           jaxWsProxyFactory.getFeatures().add(new WSAddressingFeature());
           jaxWsProxyFactory.getOutInterceptors().add(new HomeCommunityBlockOutInterceptor());
           jaxWsProxyFactory.getOutInterceptors().add(new MtomConfigOutInterceptor());
+          jaxWsProxyFactory.getOutInterceptors().add(new StreamingAttachmentOutInterceptor());
         });
   }
 
@@ -240,7 +389,13 @@ public class KonnektorConnectionFactoryImpl implements KonnektorConnectionFactor
             "2.5.2",
             "2.5.3",
             "2.5"),
-        jaxWsProxyFactory -> jaxWsProxyFactory.getFeatures().add(new WSAddressingFeature()));
+        jaxWsProxyFactory -> {
+          jaxWsProxyFactory.getFeatures().add(new WSAddressingFeature());
+          jaxWsProxyFactory
+              .getOutInterceptors()
+              .add(new AuthorizationListStreaming.OutInterceptor());
+          jaxWsProxyFactory.getInInterceptors().add(new AuthorizationListStreaming.InInterceptor());
+        });
   }
 
   /**
@@ -372,6 +527,47 @@ public class KonnektorConnectionFactoryImpl implements KonnektorConnectionFactor
     httpConduit.setTlsClientParameters(tlsParams);
   }
 
+  private static List<TrustManager> hostnameIgnoringTrustManagers(
+      List<TrustManager> trustManagers) {
+    if (trustManagers.isEmpty()) {
+      trustManagers = defaultTrustManagers();
+    }
+    return trustManagers.stream()
+        .map(
+            tm -> tm instanceof X509TrustManager x509 ? new HostnameIgnoringTrustManager(x509) : tm)
+        .toList();
+  }
+
+  private static List<TrustManager> defaultTrustManagers() {
+    try {
+      var factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+      factory.init((KeyStore) null);
+      return List.of(factory.getTrustManagers());
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("failed to load default trust managers", e);
+    }
+  }
+
+  /**
+   * CXF picks the HTTP client per message, the request context of a client applies to all its
+   * messages.
+   */
+  private void configureTransport(HTTPConduit httpConduit, Map<String, Object> requestContext) {
+    switch (httpTransport) {
+      case URL_CONNECTION -> requestContext.put(FORCE_URLCONNECTION_HTTP_CONDUIT, Boolean.TRUE);
+      case HTTP_CLIENT -> {
+        requestContext.put(FORCE_URLCONNECTION_HTTP_CONDUIT, Boolean.FALSE);
+        // Konnektors speak HTTP/1.1, no h2c upgrade attempts and one exchange per connection
+        httpConduit.getClient().setVersion("1.1");
+        // one HttpClient and connection pool for all services with the same TLS settings
+        requestContext.put(SHARE_HTTPCLIENT_CONDUIT, Boolean.TRUE);
+      }
+      case DEFAULT -> {
+        // as configured by CXF
+      }
+    }
+  }
+
   private void configureBasicAuthenticationIfEnabled(HTTPConduit httpConduit) {
     Optional.ofNullable(configuration.basicAuthentication())
         .filter(KonnektorConnectionConfiguration.BasicAuthenticationConfig::enabled)
@@ -0,0 +1,140 @@
+package com.oviva.epa.client.konn.internal;
+
+import com.oviva.epa.client.konn.KonnektorConnection;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import telematik.ws.conn.authsignatureservice.wsdl.v7_4.AuthSignatureServicePortType;
+import telematik.ws.conn.cardservice.wsdl.v8_1.CardServicePortType;
+import telematik.ws.conn.certificateservice.wsdl.v6_0.CertificateServicePortType;
+import telematik.ws.conn.eventservice.wsdl.v6_1.EventServicePortType;
+import telematik.ws.conn.phrs.phrmanagementservice.wsdl.v2_5.PHRManagementServicePortType;
+import telematik.ws.conn.phrs.phrservice.wsdl.v2_0.PHRServicePortType;
+import telematik.ws.conn.signatureservice.wsdl.v7_5.SignatureServicePortType;
+import telematik.ws.conn.vsds.vsdservice.wsdl.v5_2.VSDServicePortType;
+
+/**
+ * A {@link KonnektorConnection} creating the client proxies on first access. Creating a proxy
+ * builds the CXF service model and JAXB context, clients only using some services do not pay for
+ * the others.
+ */
+public class LazyKonnektorConnection implements KonnektorConnection {
+
+  private final Map<Service, LazyProxy<?>> proxies = new EnumMap<>(Service.class);
+  private final Executor executor;
+
+  /**
+   * @param factories creates the client proxy for a service, every service must be present
+   * @param executor used to create proxies in parallel on {@link #warmUp(Set)}
+   */
+  public LazyKonnektorConnection(
+      @NonNull Map<Service, Supplier<?>> factories, @NonNull Executor executor) {
+    for (var service : Service.values()) {
+      var factory = factories.get(service);
+      if (factory == null) {
+        throw new IllegalArgumentException("no factory for service %s".formatted(service));
+      }
+      proxies.put(service, new LazyProxy<>(factory));
+    }
+    this.executor = executor;
+  }
+
+  @Override
+  public PHRServicePortType phrService() {
+    return get(Service.PHR, PHRServicePortType.class);
+  }
+
+  @Override
+  public PHRManagementServicePortType phrManagementService() {
+    return get(Service.PHR_MANAGEMENT, PHRManagementServicePortType.class);
+  }
+
+  @Override
+  public EventServicePortType eventService() {
+    return get(Service.EVENT, EventServicePortType.class);
+  }
+
+  @Override
+  public CardServicePortType cardService() {
+    return get(Service.CARD, CardServicePortType.class);
+  }
+
+  @Override
+  public CertificateServicePortType certificateService() {
+    return get(Service.CERTIFICATE, CertificateServicePortType.class);
+  }
+
+  @Override
+  public SignatureServicePortType signatureService() {
+    return get(Service.SIGNATURE, SignatureServicePortType.class);
+  }
+
+  @Override
+  public VSDServicePortType vsdService() {
+    return get(Service.VSD, VSDServicePortType.class);
+  }
+
+  @Override
+  public AuthSignatureServicePortType authSignatureService() {
+    return get(Service.AUTH_SIGNATURE, AuthSignatureServicePortType.class);
+  }
+
+  @Override
+  public void warmUp(@NonNull Set<Service> services) {
+    var futures =
+        services.stream()
+            .map(proxies::get)
+            .filter(p -> !p.isCreated())
+            .map(p -> CompletableFuture.runAsync(p::get, executor))
+            .toArray(CompletableFuture[]::new);
+
+    try {
+      CompletableFuture.allOf(futures).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException re) {
+        throw re;
+      }
+      throw e;
+    }
+  }
+
+  boolean isCreated(Service service) {
+    return proxies.get(service).isCreated();
+  }
+
+  private <T> T get(Service service, Class<T> portType) {
+    return portType.cast(proxies.get(service).get());
+  }
+
+  private static class LazyProxy<T> {
+
+    private final Supplier<T> factory;
+    private volatile T instance;
+
+    LazyProxy(Supplier<T> factory) {
+      this.factory = factory;
+    }
+
+    T get() {
+      var local = instance;
+      if (local != null) {
+        return local;
+      }
+      synchronized (this) {
+        if (instance == null) {
+          instance = factory.get();
+        }
+        return instance;
+      }
+    }
+
+    boolean isCreated() {
+      return instance != null;
+    }
+  }
+}
@@ -0,0 +1,163 @@
+package com.oviva.epa.client.konn.internal;
+
+import com.oviva.epa.client.konn.KonnektorConnection;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import jakarta.xml.ws.BindingProvider;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import telematik.ws.conn.authsignatureservice.wsdl.v7_4.AuthSignatureServicePortType;
+import telematik.ws.conn.cardservice.wsdl.v8_1.CardServicePortType;
+import telematik.ws.conn.certificateservice.wsdl.v6_0.CertificateServicePortType;
+import telematik.ws.conn.eventservice.wsdl.v6_1.EventServicePortType;
+import telematik.ws.conn.phrs.phrmanagementservice.wsdl.v2_5.PHRManagementServicePortType;
+import telematik.ws.conn.phrs.phrservice.wsdl.v2_0.PHRServicePortType;
+import telematik.ws.conn.signatureservice.wsdl.v7_5.SignatureServicePortType;
+import telematik.ws.conn.vsds.vsdservice.wsdl.v5_2.VSDServicePortType;
+
+/**
+ * Lets every call of a {@link KonnektorConnection} take a connection from a shared {@link
+ * ConnectionLimiter} first, bounding the connections open to the Konnektor across all services.
+ */
+public class LimitedKonnektorConnection implements KonnektorConnection {
+
+  private final KonnektorConnection delegate;
+  private final ConnectionLimiter limiter;
+
+  private final Map<Service, Object> limited = new ConcurrentHashMap<>();
+
+  public LimitedKonnektorConnection(
+      @NonNull KonnektorConnection delegate, @NonNull ConnectionLimiter limiter) {
+    this.delegate = delegate;
+    this.limiter = limiter;
+  }
+
+  @Override
+  public PHRServicePortType phrService() {
+    return limit(Service.PHR, PHRServicePortType.class, delegate::phrService);
+  }
+
+  @Override
+  public PHRManagementServicePortType phrManagementService() {
+    return limit(
+        Service.PHR_MANAGEMENT, PHRManagementServicePortType.class, delegate::phrManagementService);
+  }
+
+  @Override
+  public EventServicePortType eventService() {
+    return limit(Service.EVENT, EventServicePortType.class, delegate::eventService);
+  }
+
+  @Override
+  public CardServicePortType cardService() {
+    return limit(Service.CARD, CardServicePortType.class, delegate::cardService);
+  }
+
+  @Override
+  public CertificateServicePortType certificateService() {
+    return limit(
+        Service.CERTIFICATE, CertificateServicePortType.class, delegate::certificateService);
+  }
+
+  @Override
+  public SignatureServicePortType signatureService() {
+    return limit(Service.SIGNATURE, SignatureServicePortType.class, delegate::signatureService);
+  }
+
+  @Override
+  public VSDServicePortType vsdService() {
+    return limit(Service.VSD, VSDServicePortType.class, delegate::vsdService);
+  }
+
+  @Override
+  public AuthSignatureServicePortType authSignatureService() {
+    return limit(
+        Service.AUTH_SIGNATURE, AuthSignatureServicePortType.class, delegate::authSignatureService);
+  }
+
+  @Override
+  public void warmUp(@NonNull Set<Service> services) {
+    delegate.warmUp(services);
+  }
+
+  @NonNull
+  @Override
+  public Health health() {
+    return delegate.health();
+  }
+
+  @NonNull
+  @Override
+  public ConnectionPool connectionPool() {
+    return limiter.stats();
+  }
+
+  private <T> T limit(Service service, Class<T> portType, Supplier<T> target) {
+    var proxy =
+        limited.computeIfAbsent(
+            service,
+            s -> {
+              var t = target.get();
+              var interfaces =
+                  t instanceof BindingProvider
+                      ? new Class<?>[] {portType, BindingProvider.class}
+                      : new Class<?>[] {portType};
+              return Proxy.newProxyInstance(portType.getClassLoader(), interfaces, new Limiting(t));
+            });
+    return portType.cast(proxy);
+  }
+
+  private class Limiting implements InvocationHandler, AsyncInvocation.AsyncInvocable {
+
+    private final Object target;
+
+    Limiting(Object target) {
+      this.target = target;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      if (method.getDeclaringClass() == Object.class
+          || method.getDeclaringClass() == BindingProvider.class) {
+        return invokeTarget(method, args);
+      }
+
+      limiter.acquire();
+      try {
+        return invokeTarget(method, args);
+      } finally {
+        limiter.release();
+      }
+    }
+
+    @Override
+    public CompletableFuture<Object> invokeAsync(Method method, Object[] args, Executor executor) {
+      return limiter
+          .acquireAsync()
+          .thenCompose(
+              ignored -> {
+                try {
+                  return AsyncInvocation.invoke(target, method, args, executor);
+                } catch (RuntimeException e) {
+                  return CompletableFuture.failedFuture(e);
+                }
+              })
+          .whenComplete((r, e) -> limiter.release());
+    }
+
+    private Object invokeTarget(Method method, Object[] args) throws Throwable {
+      try {
+        return method.invoke(target, args);
+      } catch (InvocationTargetException e) {
+        throw e.getCause();
+      }
+    }
+  }
+}
@@ -0,0 +1,214 @@
+package com.oviva.epa.client.konn.internal;
+
+import com.oviva.epa.client.konn.CircuitOpenException;
+import com.oviva.epa.client.konn.KonnektorConnection;
+import com.oviva.epa.client.konn.internal.util.KonnektorUtils;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import jakarta.xml.ws.BindingProvider;
+import jakarta.xml.ws.WebServiceException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import telematik.ws.conn.authsignatureservice.wsdl.v7_4.AuthSignatureServicePortType;
+import telematik.ws.conn.cardservice.wsdl.v8_1.CardServicePortType;
+import telematik.ws.conn.certificateservice.wsdl.v6_0.CertificateServicePortType;
+import telematik.ws.conn.eventservice.wsdl.v6_1.EventServicePortType;
+import telematik.ws.conn.phrs.phrmanagementservice.wsdl.v2_5.PHRManagementServicePortType;
+import telematik.ws.conn.phrs.phrservice.wsdl.v2_0.PHRServicePortType;
+import telematik.ws.conn.signatureservice.wsdl.v7_5.SignatureServicePortType;
+import telematik.ws.conn.vsds.vsdservice.wsdl.v5_2.VSDServicePortType;
+
+/**
+ * Guards every service of a {@link KonnektorConnection} with its own {@link CircuitBreaker}. While
+ * a breaker is open calls fail fast with a {@link CircuitOpenException} instead of waiting for a
+ * TCP timeout. The health probe only reports the state of the Konnektor, it does not block calls.
+ *
+ * <p>Only transport errors count as failures, SOAP faults and Konnektor fault messages are answers
+ * of a reachable Konnektor.
+ */
+public class ResilientKonnektorConnection implements KonnektorConnection {
+
+  private final KonnektorConnection delegate;
+  private final Map<Service, CircuitBreaker> breakers;
+  @Nullable private final HealthProbe probe;
+
+  private final Map<Service, Object> guarded = new ConcurrentHashMap<>();
+
+  /**
+   * @param breakers the breakers per service, services without a breaker are not guarded
+   * @param probe the health probe of the Konnektor, may be null
+   */
+  public ResilientKonnektorConnection(
+      @NonNull KonnektorConnection delegate,
+      @NonNull Map<Service, CircuitBreaker> breakers,
+      @Nullable HealthProbe probe) {
+    this.delegate = delegate;
+    this.breakers = breakers;
+    this.probe = probe;
+  }
+
+  @Override
+  public PHRServicePortType phrService() {
+    return guard(Service.PHR, PHRServicePortType.class, delegate::phrService);
+  }
+
+  @Override
+  public PHRManagementServicePortType phrManagementService() {
+    return guard(
+        Service.PHR_MANAGEMENT, PHRManagementServicePortType.class, delegate::phrManagementService);
+  }
+
+  @Override
+  public EventServicePortType eventService() {
+    return guard(Service.EVENT, EventServicePortType.class, delegate::eventService);
+  }
+
+  @Override
+  public CardServicePortType cardService() {
+    return guard(Service.CARD, CardServicePortType.class, delegate::cardService);
+  }
+
+  @Override
+  public CertificateServicePortType certificateService() {
+    return guard(
+        Service.CERTIFICATE, CertificateServicePortType.class, delegate::certificateService);
+  }
+
+  @Override
+  public SignatureServicePortType signatureService() {
+    return guard(Service.SIGNATURE, SignatureServicePortType.class, delegate::signatureService);
+  }
+
+  @Override
+  public VSDServicePortType vsdService() {
+    return guard(Service.VSD, VSDServicePortType.class, delegate::vsdService);
+  }
+
+  @Override
+  public AuthSignatureServicePortType authSignatureService() {
+    return guard(
+        Service.AUTH_SIGNATURE, AuthSignatureServicePortType.class, delegate::authSignatureService);
+  }
+
+  @Override
+  public void warmUp(@NonNull Set<Service> services) {
+    delegate.warmUp(services);
+  }
+
+  @NonNull
+  @Override
+  public Health health() {
+    return probe != null ? probe.last() : delegate.health();
+  }
+
+  @Nullable
+  @Override
+  public ConnectionPool connectionPool() {
+    return delegate.connectionPool();
+  }
+
+  private <T> T guard(Service service, Class<T> portType, Supplier<T> target) {
+    var breaker = breakers.get(service);
+    if (breaker == null) {
+      return target.get();
+    }
+
+    // created on first access, the delegate might create its proxies lazily too
+    var proxy =
+        guarded.computeIfAbsent(
+            service,
+            s -> {
+              var t = target.get();
+              var interfaces =
+                  t instanceof BindingProvider
+                      ? new Class<?>[] {portType, BindingProvider.class}
+                      : new Class<?>[] {portType};
+              return Proxy.newProxyInstance(
+                  portType.getClassLoader(), interfaces, new Guard(s, t, breaker));
+            });
+    return portType.cast(proxy);
+  }
+
+  private class Guard implements InvocationHandler, AsyncInvocation.AsyncInvocable {
+
+    private final Service service;
+    private final Object target;
+    private final CircuitBreaker breaker;
+
+    Guard(Service service, Object target, CircuitBreaker breaker) {
+      this.service = service;
+      this.target = target;
+      this.breaker = breaker;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      if (method.getDeclaringClass() == Object.class
+          || method.getDeclaringClass() == BindingProvider.class) {
+        return invokeTarget(method, args);
+      }
+
+      acquire();
+      try {
+        var result = invokeTarget(method, args);
+        breaker.onSuccess();
+        return result;
+      } catch (Throwable e) {
+        recordFailure(e);
+        throw e;
+      }
+    }
+
+    @Override
+    public CompletableFuture<Object> invokeAsync(Method method, Object[] args, Executor executor) {
+      try {
+        acquire();
+      } catch (CircuitOpenException e) {
+        return CompletableFuture.failedFuture(e);
+      }
+
+      return AsyncInvocation.invoke(target, method, args, executor)
+          .whenComplete(
+              (r, e) -> {
+                if (e == null) {
+                  breaker.onSuccess();
+                } else {
+                  recordFailure(e instanceof CompletionException ce ? ce.getCause() : e);
+                }
+              });
+    }
+
+    private void acquire() {
+      if (!breaker.tryAcquire()) {
+        throw new CircuitOpenException(
+            service, "circuit breaker of service %s is open".formatted(service));
+      }
+    }
+
+    private void recordFailure(Throwable e) {
+      if (e instanceof WebServiceException wse && KonnektorUtils.isTransportError(wse)) {
+        breaker.onFailure();
+      } else {
+        // e.g. a fault, the Konnektor did answer
+        breaker.onSuccess();
+      }
+    }
+
+    private Object invokeTarget(Method method, Object[] args) throws Throwable {
+      try {
+        return method.invoke(target, args);
+      } catch (InvocationTargetException e) {
+        throw e.getCause();
+      }
+    }
+  }
+}
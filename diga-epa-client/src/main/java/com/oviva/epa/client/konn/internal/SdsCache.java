@@ -0,0 +1,227 @@
+package com.oviva.epa.client.konn.internal;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import telematik.ws.conn.servicedirectory.xsd.v3_1.ConnectorServices;
+
+/**
+ * Caches the service directory (connector.sds) of a Konnektor. It rarely changes, though fetching
+ * it costs a full TLS round trip on every connect.
+ *
+ * <p>Entries younger than the TTL are served as is. If a snapshot file is configured, each fetched
+ * directory is persisted there, an unchanged one only renews the modification time of the file.
+ * After a restart a fresh snapshot is served immediately and revalidated in the background, a live
+ * fetch is only done if the snapshot is missing or stale.
+ */
+public class SdsCache {
+
+  private static final Logger log = LoggerFactory.getLogger(SdsCache.class);
+
+  private final Supplier<ConnectorServices> loader;
+  private final Duration ttl;
+  private final Path snapshotFile;
+  private final Clock clock;
+  private final Executor executor;
+
+  private final AtomicBoolean revalidating = new AtomicBoolean();
+  private volatile Entry entry;
+
+  // the content of the snapshot file as last read or written, guarded by this
+  private byte[] snapshotContent;
+
+  public SdsCache(
+      @NonNull Supplier<ConnectorServices> loader,
+      @NonNull Duration ttl,
+      @Nullable Path snapshotFile) {
+    this(loader, ttl, snapshotFile, Clock.systemUTC(), newRevalidationExecutor());
+  }
+
+  SdsCache(
+      @NonNull Supplier<ConnectorServices> loader,
+      @NonNull Duration ttl,
+      @Nullable Path snapshotFile,
+      @NonNull Clock clock,
+      @NonNull Executor executor) {
+    this.loader = loader;
+    this.ttl = ttl;
+    this.snapshotFile = snapshotFile;
+    this.clock = clock;
+    this.executor = executor;
+  }
+
+  private static Executor newRevalidationExecutor() {
+    return Executors.newCachedThreadPool(
+        r -> {
+          var t = new Thread(r, "sds-revalidation");
+          t.setDaemon(true);
+          return t;
+        });
+  }
+
+  @NonNull
+  public ConnectorServices get() {
+    var current = entry;
+    if (isFresh(current)) {
+      return current.services();
+    }
+
+    if (current == null) {
+      var snapshot = readSnapshot();
+      if (isFresh(snapshot)) {
+        entry = snapshot;
+        revalidateAsync();
+        return snapshot.services();
+      }
+    }
+
+    return refresh();
+  }
+
+  /** Drops the cached service directory, the next {@link #get()} will fetch it again. */
+  public void invalidate() {
+    entry = null;
+  }
+
+  /**
+   * Fetches the service directory right away as a cheap liveness check of the Konnektor. Neither
+   * the cached directory nor the snapshot is touched.
+   */
+  public void check() {
+    loader.get();
+  }
+
+  private synchronized ConnectorServices refresh() {
+    var current = entry;
+    if (isFresh(current)) {
+      return current.services();
+    }
+    return fetch();
+  }
+
+  private ConnectorServices fetch() {
+    var services = loader.get();
+    var fetched = new Entry(services, clock.instant());
+    entry = fetched;
+    writeSnapshot(fetched);
+    return services;
+  }
+
+  private void revalidateAsync() {
+    if (!revalidating.compareAndSet(false, true)) {
+      return;
+    }
+
+    executor.execute(
+        () -> {
+          try {
+            fetch();
+          } catch (RuntimeException e) {
+            log.atWarn().setCause(e).log("failed to revalidate connector.sds");
+          } finally {
+            revalidating.set(false);
+          }
+        });
+  }
+
+  private boolean isFresh(Entry e) {
+    if (e == null) {
+      return false;
+    }
+    return e.fetchedAt().plus(ttl).isAfter(clock.instant());
+  }
+
+  private Entry readSnapshot() {
+    if (snapshotFile == null || !Files.isRegularFile(snapshotFile)) {
+      return null;
+    }
+
+    try {
+      var fetchedAt = Files.getLastModifiedTime(snapshotFile).toInstant();
+      var content = Files.readAllBytes(snapshotFile);
+      var services =
+          (ConnectorServices)
+              JaxbHolder.CONTEXT.createUnmarshaller().unmarshal(new ByteArrayInputStream(content));
+      synchronized (this) {
+        snapshotContent = content;
+      }
+      return new Entry(services, fetchedAt);
+    } catch (IOException | JAXBException | ClassCastException e) {
+      log.atWarn()
+          .setCause(e)
+          .addKeyValue("snapshot", snapshotFile)
+          .log("ignoring unreadable connector.sds snapshot");
+      return null;
+    }
+  }
+
+  private synchronized void writeSnapshot(Entry e) {
+    if (snapshotFile == null) {
+      return;
+    }
+
+    try {
+      var os = new ByteArrayOutputStream();
+      JaxbHolder.CONTEXT.createMarshaller().marshal(e.services(), os);
+      var content = os.toByteArray();
+
+      if (Arrays.equals(content, snapshotContent) && Files.isRegularFile(snapshotFile)) {
+        // the age of the snapshot is its modification time
+        Files.setLastModifiedTime(snapshotFile, FileTime.from(e.fetchedAt()));
+        return;
+      }
+
+      var dir = snapshotFile.toAbsolutePath().getParent();
+      Files.createDirectories(dir);
+
+      // write to a temporary file first, a concurrent reader must never see a partial snapshot
+      var tmp = Files.createTempFile(dir, snapshotFile.getFileName().toString(), ".tmp");
+      try {
+        Files.write(tmp, content);
+        Files.move(
+            tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(tmp);
+      }
+      snapshotContent = content;
+    } catch (IOException | JAXBException ex) {
+      log.atWarn()
+          .setCause(ex)
+          .addKeyValue("snapshot", snapshotFile)
+          .log("failed to write connector.sds snapshot");
+    }
+  }
+
+  private record Entry(ConnectorServices services, Instant fetchedAt) {}
+
+  private static class JaxbHolder {
+    private static final JAXBContext CONTEXT = newContext();
+
+    private static JAXBContext newContext() {
+      try {
+        return JAXBContext.newInstance(ConnectorServices.class);
+      } catch (JAXBException e) {
+        throw new IllegalStateException(
+            "cannot bind JAXB type %s".formatted(ConnectorServices.class), e);
+      }
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package com.oviva.epa.client.konn.internal;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.cxf.frontend.ClientProxy;
+import org.apache.cxf.jaxws.JaxWsProxyFactoryBean;
+import org.apache.cxf.jaxws.support.JaxWsServiceFactoryBean;
+
+/**
+ * Shares the CXF service models, including their JAXB data bindings, of the Konnektor web service
+ * clients across connections. Building a service model creates the JAXBContext and schemas of the
+ * large generated API types, which dominates the time and heap of creating a client proxy.
+ *
+ * <p>Models are keyed by port type and SOAP binding only, connections to any Konnektor share them.
+ * CXF keeps the endpoint address in the shared endpoint model though, each client overwrites it on
+ * creation. This is harmless: the proxy factory puts the address into the request context of each
+ * client as well, which takes precedence when selecting the conduit and sending a message.
+ */
+public class ServiceModelCache {
+
+  private static final ServiceModelCache INSTANCE = new ServiceModelCache();
+
+  private final Map<Key, SharedModel> models = new ConcurrentHashMap<>();
+
+  ServiceModelCache() {}
+
+  /** the process-wide cache */
+  public static ServiceModelCache shared() {
+    return INSTANCE;
+  }
+
+  /**
+   * Creates a client proxy from a fully configured factory, re-using a previously built service
+   * model for the same port type and SOAP binding.
+   */
+  @NonNull
+  public <T> T create(@NonNull JaxWsProxyFactoryBean factory, @NonNull Class<T> portType) {
+    var key = new Key(portType, factory.getBindingId());
+    var model = models.computeIfAbsent(key, k -> new SharedModel());
+
+    // creating a client mutates the service factory (features, properties), serialise per model
+    synchronized (model) {
+      if (model.serviceFactory == null) {
+        model.serviceFactory = new RetainingServiceFactoryBean();
+        factory.getClientFactoryBean().setServiceFactory(model.serviceFactory);
+        factory.setServiceClass(portType);
+      } else {
+        factory.getClientFactoryBean().setServiceFactory(model.serviceFactory);
+      }
+
+      // the endpoint is part of the shared model, interceptors of this client must not end up there
+      var inInterceptors = List.copyOf(factory.getInInterceptors());
+      var outInterceptors = List.copyOf(factory.getOutInterceptors());
+      var inFaultInterceptors = List.copyOf(factory.getInFaultInterceptors());
+      var outFaultInterceptors = List.copyOf(factory.getOutFaultInterceptors());
+      factory.getInInterceptors().clear();
+      factory.getOutInterceptors().clear();
+      factory.getInFaultInterceptors().clear();
+      factory.getOutFaultInterceptors().clear();
+
+      var proxy = factory.create(portType);
+
+      var client = ClientProxy.getClient(proxy);
+      client.getInInterceptors().addAll(inInterceptors);
+      client.getOutInterceptors().addAll(outInterceptors);
+      client.getInFaultInterceptors().addAll(inFaultInterceptors);
+      client.getOutFaultInterceptors().addAll(outFaultInterceptors);
+      return proxy;
+    }
+  }
+
+  /** number of cached service models */
+  public int size() {
+    return models.size();
+  }
+
+  /** drops all cached service models, mainly useful for benchmarks and tests */
+  public void clear() {
+    models.clear();
+  }
+
+  private record Key(Class<?> portType, String bindingId) {}
+
+  private static class SharedModel {
+    private RetainingServiceFactoryBean serviceFactory;
+  }
+
+  /**
+   * CXF resets the service factory on every client creation, which would rebuild the service model.
+   * This factory keeps the model once it is built.
+   */
+  private static class RetainingServiceFactoryBean extends JaxWsServiceFactoryBean {
+    @Override
+    public void reset() {
+      if (getService() == null) {
+        super.reset();
+      }
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package com.oviva.epa.client.konn.internal.interceptors;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Unmarshaller;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.wsdl.interceptors.DocLiteralInInterceptor;
+import telematik.ws.conn.phrs.phrmanagementservice.xsd.v2_5.GetAuthorizationListResponse.AuthorizationList.AuthorizationEntry;
+
+/**
+ * Streams the entries of a GetAuthorizationListResponse to a consumer instead of collecting them.
+ *
+ * <p>A large DiGA has an entry per insurant, the whole JAXB tree of the response would have to fit
+ * into memory. While a call is made through {@link #stream(Consumer, Supplier)}, the {@link
+ * InInterceptor} hands every entry to the consumer as soon as it is read from the wire and hides it
+ * from the regular unmarshalling, the response returned by the port has an empty list.
+ *
+ * <p>The consumer is taken from the calling thread by the {@link OutInterceptor} and kept in the
+ * exchange, so the response may be read on any thread.
+ */
+public final class AuthorizationListStreaming {
+
+  private static final String CONSUMER_KEY = AuthorizationListStreaming.class.getName();
+
+  private static final QName ENTRY =
+      new QName("http://ws.gematik.de/conn/phrs/PHRManagementService/v2.5", "AuthorizationEntry");
+
+  private static final ThreadLocal<Consumer<AuthorizationEntry>> current = new ThreadLocal<>();
+
+  private static final JAXBContext context = newContext();
+
+  private AuthorizationListStreaming() {}
+
+  /**
+   * Makes the call with the entries of the response streamed to the consumer, the call must go
+   * through a port with both interceptors on the calling thread.
+   */
+  public static <T> T stream(
+      @NonNull Consumer<AuthorizationEntry> consumer, @NonNull Supplier<T> call) {
+    current.set(consumer);
+    try {
+      return call.get();
+    } finally {
+      current.remove();
+    }
+  }
+
+  /** remembers the consumer of the calling thread for the response */
+  public static class OutInterceptor extends AbstractPhaseInterceptor<Message> {
+
+    public OutInterceptor() {
+      super(Phase.SETUP);
+    }
+
+    @Override
+    public void handleMessage(Message message) throws Fault {
+      var consumer = current.get();
+      if (consumer != null) {
+        message.getExchange().put(CONSUMER_KEY, consumer);
+      }
+    }
+  }
+
+  /** hands the entries of the response to the consumer remembered for the exchange */
+  public static class InInterceptor extends AbstractPhaseInterceptor<Message> {
+
+    public InInterceptor() {
+      super(Phase.UNMARSHAL);
+      addBefore(DocLiteralInInterceptor.class.getName());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void handleMessage(Message message) throws Fault {
+      var consumer = (Consumer<AuthorizationEntry>) message.getExchange().get(CONSUMER_KEY);
+      var reader = message.getContent(XMLStreamReader.class);
+      if (consumer == null || reader == null) {
+        return;
+      }
+
+      Unmarshaller unmarshaller;
+      try {
+        unmarshaller = context.createUnmarshaller();
+      } catch (JAXBException e) {
+        throw new Fault(e);
+      }
+      message.setContent(XMLStreamReader.class, new EntryFilter(reader, unmarshaller, consumer));
+    }
+  }
+
+  /** skips the entries, handing each to the consumer instead */
+  static final class EntryFilter extends StreamReaderDelegate {
+
+    private final Unmarshaller unmarshaller;
+    private final Consumer<AuthorizationEntry> consumer;
+
+    EntryFilter(
+        XMLStreamReader reader, Unmarshaller unmarshaller, Consumer<AuthorizationEntry> consumer) {
+      super(reader);
+      this.unmarshaller = unmarshaller;
+      this.consumer = consumer;
+    }
+
+    @Override
+    public int next() throws XMLStreamException {
+      var event = getParent().next();
+      while (event == XMLStreamConstants.START_ELEMENT && ENTRY.equals(getParent().getName())) {
+        try {
+          // leaves the reader right after the end of the entry
+          consumer.accept(unmarshaller.unmarshal(getParent(), AuthorizationEntry.class).getValue());
+        } catch (JAXBException e) {
+          throw new XMLStreamException("failed to read authorization entry", e);
+        }
+        event = getParent().getEventType();
+      }
+      return event;
+    }
+
+    @Override
+    public int nextTag() throws XMLStreamException {
+      // the parent would skip to the next tag without us seeing it
+      var event = next();
+      while ((event == XMLStreamConstants.CHARACTERS && isWhiteSpace())
+          || event == XMLStreamConstants.SPACE
+          || event == XMLStreamConstants.COMMENT
+          || event == XMLStreamConstants.PROCESSING_INSTRUCTION) {
+        event = next();
+      }
+      if (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT) {
+        throw new XMLStreamException("expected start or end tag", getLocation());
+      }
+      return event;
+    }
+  }
+
+  private static JAXBContext newContext() {
+    try {
+      return JAXBContext.newInstance(AuthorizationEntry.class);
+    } catch (JAXBException e) {
+      throw new IllegalStateException("failed to create JAXB context", e);
+    }
+  }
+}
@@ -56,6 +56,10 @@ public class HomeCommunityBlockOutInterceptor extends AbstractSoapInterceptor {
   protected static final QName CONTEXT_HEADER_NAME =
       new QName("http://ws.gematik.de/conn/phrs/PHRService/v2.0", "ContextHeader");
 
+  // the JAXBContext is expensive to build, it is shared by all messages
+  private static final JAXBDataBinding HOME_COMMUNITY_BLOCK_DATA_BINDING =
+      mustCreateDataBinding(HomeCommunityBlock.class);
+
   public HomeCommunityBlockOutInterceptor() {
     super(Phase.WRITE);
   }
@@ -132,10 +136,7 @@ public class HomeCommunityBlockOutInterceptor extends AbstractSoapInterceptor {
           new JAXBElement<>(HOME_COMMUNITY_BLOCK, HomeCommunityBlock.class, homeCommunityBlock);
 
       var soapHeader =
-          new Header(
-              jaxbElement.getName(),
-              jaxbElement,
-              mustCreateDataBinding(jaxbElement.getDeclaredType()));
+          new Header(jaxbElement.getName(), jaxbElement, HOME_COMMUNITY_BLOCK_DATA_BINDING);
 
       message.getHeaders().add(soapHeader);
     }
@@ -0,0 +1,159 @@
+package com.oviva.epa.client.konn.internal.interceptors;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import jakarta.activation.DataHandler;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import org.apache.cxf.attachment.AttachmentImpl;
+import org.apache.cxf.attachment.ByteDataSource;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.message.Attachment;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+
+/**
+ * Streams document content from a {@link DataHandler} instead of a byte array.
+ *
+ * <p>The generated XDS types only take the content of a document as byte array. Instead of the
+ * actual content, a small placeholder obtained from {@link #register(DataHandler)} goes into the
+ * request. Once the body is marshalled, the MTOM attachment holding the placeholder is pointed to
+ * the registered data handler, which is only read when the attachments are written to the wire.
+ *
+ * <p>Content is registered for the calling thread only, a synchronous request is marshalled and
+ * sent on the thread invoking the client. A request is failed before sending if it leaves a
+ * placeholder of that thread unreplaced, e.g. because the content was not sent as MTOM attachment.
+ */
+public class StreamingAttachmentOutInterceptor extends AbstractPhaseInterceptor<Message> {
+
+  private static final String PLACEHOLDER_PREFIX = "urn:oviva:epa:streaming-attachment:";
+  private static final int PLACEHOLDER_LENGTH = placeholderBytes(new UUID(0, 0).toString()).length;
+
+  // the placeholders registered by the thread sending the request, by id
+  private static final ThreadLocal<Map<String, Placeholder>> registered = new ThreadLocal<>();
+
+  public StreamingAttachmentOutInterceptor() {
+    super(Phase.POST_MARSHAL);
+  }
+
+  /**
+   * Registers the content for the duration of a request, the placeholder must be closed once the
+   * request completed.
+   */
+  @NonNull
+  public static Placeholder register(@NonNull DataHandler content) {
+    var placeholders = registered.get();
+    if (placeholders == null) {
+      placeholders = new HashMap<>();
+      registered.set(placeholders);
+    }
+    var placeholder = new Placeholder(UUID.randomUUID().toString(), content);
+    placeholders.put(placeholder.id, placeholder);
+    return placeholder;
+  }
+
+  @Override
+  public void handleMessage(Message message) throws Fault {
+    var placeholders = registered.get();
+    if (placeholders == null) {
+      placeholders = Map.of();
+    }
+
+    var attachments = message.getAttachments();
+    if (attachments != null) {
+      for (var attachment : attachments) {
+        var id = placeholderId(attachment);
+        if (id == null) {
+          continue;
+        }
+
+        var placeholder = placeholders.get(id);
+        if (placeholder == null) {
+          // registered by another thread or closed already
+          throw new Fault(new IllegalStateException("no content registered for attachment"));
+        }
+        if (!(attachment instanceof AttachmentImpl impl)) {
+          throw new Fault(
+              new IllegalStateException(
+                  "unexpected attachment type: " + attachment.getClass().getName()));
+        }
+        impl.setDataHandler(placeholder.content);
+        placeholder.attached = true;
+      }
+    }
+
+    for (var placeholder : placeholders.values()) {
+      if (!placeholder.attached) {
+        // the placeholder would be stored as the content of the document
+        throw new Fault(
+            new IllegalStateException("document content not sent as attachment, not sending"));
+      }
+    }
+  }
+
+  private static String placeholderId(Attachment attachment) {
+    var dh = attachment.getDataHandler();
+    if (dh == null || !(dh.getDataSource() instanceof ByteDataSource bds)) {
+      return null;
+    }
+
+    try (var in = bds.getInputStream()) {
+      var head = in.readNBytes(PLACEHOLDER_LENGTH + 1);
+      if (head.length != PLACEHOLDER_LENGTH) {
+        return null;
+      }
+      var s = new String(head, StandardCharsets.US_ASCII);
+      return s.startsWith(PLACEHOLDER_PREFIX) ? s.substring(PLACEHOLDER_PREFIX.length()) : null;
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private static byte[] placeholderBytes(String id) {
+    return (PLACEHOLDER_PREFIX + id).getBytes(StandardCharsets.US_ASCII);
+  }
+
+  public static final class Placeholder implements AutoCloseable {
+
+    private final String id;
+    private final DataHandler content;
+    private volatile boolean attached;
+
+    private Placeholder(String id, DataHandler content) {
+      this.id = id;
+      this.content = content;
+    }
+
+    /** the placeholder to use as document content */
+    @NonNull
+    public byte[] bytes() {
+      return placeholderBytes(id);
+    }
+
+    /**
+     * @throws IllegalStateException if the content was not put in place of the placeholder, e.g.
+     *     the client sending the request has no {@link StreamingAttachmentOutInterceptor}
+     */
+    public void requireAttached() {
+      if (!attached) {
+        throw new IllegalStateException("document content was not attached to the request");
+      }
+    }
+
+    /** must be closed on the thread that registered it */
+    @Override
+    public void close() {
+      var placeholders = registered.get();
+      if (placeholders == null) {
+        return;
+      }
+      placeholders.remove(id);
+      if (placeholders.isEmpty()) {
+        registered.remove();
+      }
+    }
+  }
+}
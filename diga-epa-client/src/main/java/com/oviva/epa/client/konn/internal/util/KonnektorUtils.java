@@ -17,10 +17,14 @@
 package com.oviva.epa.client.konn.internal.util;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
+import jakarta.xml.ws.WebServiceException;
+import jakarta.xml.ws.soap.SOAPFaultException;
 import java.util.Optional;
 import java.util.function.UnaryOperator;
+import org.apache.cxf.binding.soap.SoapFault;
 import org.slf4j.Logger;
 import telematik.ws.conn.connectorcommon.xsd.v5_0.Status;
+import telematik.ws.conn.exception.FaultMessageException;
 
 public class KonnektorUtils {
 
@@ -47,6 +51,17 @@ public class KonnektorUtils {
     logWarning(logger, konnektorStatus, null);
   }
 
+  /**
+   * Whether the exception means the Konnektor could not be reached or did not answer in time. SOAP
+   * faults and fault messages are answers of a reachable Konnektor.
+   */
+  public static boolean isTransportError(@NonNull WebServiceException e) {
+    // without a SAAJ implementation CXF can only wrap the SoapFault
+    return !(e instanceof SOAPFaultException)
+        && !(e instanceof FaultMessageException)
+        && !(e.getCause() instanceof SoapFault);
+  }
+
   public static void logWarningIfPresent(
       @NonNull Logger logger, @NonNull Status konnektorStatus, String message) {
     if (STATUS_WARNING.equals(konnektorStatus.getResult())) {
@@ -0,0 +1,30 @@
+package com.oviva.epa.client.model;
+
+import java.security.cert.X509Certificate;
+
+/**
+ * A certificate stored on a card.
+ *
+ * @param cardHandle the card the certificate was read from
+ * @param ref which of the certificates of the card, e.g. the authentication certificate
+ * @param crypt the key type of the certificate
+ */
+public record CardCertificate(
+    String cardHandle, Ref ref, Crypt crypt, X509Certificate certificate) {
+
+  public enum Ref {
+    /** authentication certificate, HBA and SMC-B */
+    C_AUT,
+    /** encryption certificate, HBA and SMC-B */
+    C_ENC,
+    /** non-qualified signature certificate, SMC-B */
+    C_SIG,
+    /** qualified signature certificate, HBA */
+    C_QES,
+  }
+
+  public enum Crypt {
+    RSA,
+    ECC,
+  }
+}
@@ -0,0 +1,11 @@
+package com.oviva.epa.client.model;
+
+import de.gematik.epa.ihe.model.document.Document;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.UUID;
+
+/**
+ * A document replacing an existing one, see {@link
+ * com.oviva.epa.client.KonnektorService#replaceDocuments(RecordIdentifier, java.util.List)}.
+ */
+public record DocumentReplacement(@NonNull Document document, @NonNull UUID documentToReplaceId) {}
@@ -0,0 +1,99 @@
+package com.oviva.epa.client.model;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import jakarta.activation.DataHandler;
+import jakarta.activation.FileDataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The content of a document to write, backed by a file rather than a byte array. It is uploaded as
+ * MTOM attachment straight from the file, the heap needed does not depend on the document size.
+ *
+ * <p>Content from a stream is spooled to a temporary file when the source is created, {@link
+ * #close()} deletes it again.
+ */
+public final class DocumentSource implements Closeable {
+
+  private final Path file;
+  private final boolean temporary;
+  private final long size;
+
+  private DocumentSource(Path file, boolean temporary, long size) {
+    this.file = file;
+    this.temporary = temporary;
+    this.size = size;
+  }
+
+  /** The file must not change until the document is written. */
+  @NonNull
+  public static DocumentSource of(@NonNull Path file) {
+    try {
+      return new DocumentSource(file, false, Files.size(file));
+    } catch (IOException e) {
+      throw new UncheckedIOException("failed to read document from %s".formatted(file), e);
+    }
+  }
+
+  /** Reads the stream to its end, closing it is up to the caller. */
+  @NonNull
+  public static DocumentSource of(@NonNull InputStream in) {
+    Path spool = null;
+    try {
+      spool = Files.createTempFile("epa-document", ".bin");
+      long size;
+      try (var os = Files.newOutputStream(spool)) {
+        size = in.transferTo(os);
+      }
+      return new DocumentSource(spool, true, size);
+    } catch (IOException e) {
+      deleteQuietly(spool);
+      throw new UncheckedIOException("failed to spool document", e);
+    }
+  }
+
+  @NonNull
+  public static DocumentSource of(@NonNull DataHandler dataHandler) {
+    if (dataHandler.getDataSource() instanceof FileDataSource fds) {
+      return of(fds.getFile().toPath());
+    }
+    try (var in = dataHandler.getInputStream()) {
+      return of(in);
+    } catch (IOException e) {
+      throw new UncheckedIOException("failed to read document", e);
+    }
+  }
+
+  /** size of the content in bytes */
+  public long size() {
+    return size;
+  }
+
+  /** a data handler streaming the content from the backing file, can be read repeatedly */
+  @NonNull
+  public DataHandler dataHandler() {
+    return new DataHandler(new FileDataSource(file.toFile()));
+  }
+
+  @Override
+  public void close() {
+    if (temporary) {
+      deleteQuietly(file);
+    }
+  }
+
+  private static void deleteQuietly(Path file) {
+    if (file == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      // best effort, it is a temporary file anyway
+    }
+  }
+}
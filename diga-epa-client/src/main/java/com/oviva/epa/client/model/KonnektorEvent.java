@@ -0,0 +1,39 @@
+package com.oviva.epa.client.model;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.Map;
+
+/**
+ * An event pushed by the Konnektor, e.g. when a card was inserted.
+ *
+ * @param topic the topic of the event, e.g. {@link #CARD_INSERTED}
+ * @param subscriptionId the subscription the event was sent for
+ * @param parameters the parameters of the event message, e.g. 'CardHandle' or 'ICCSN'
+ */
+public record KonnektorEvent(
+    @NonNull String topic,
+    @Nullable String subscriptionId,
+    @NonNull Map<String, String> parameters) {
+
+  public static final String CARD_INSERTED = "CARD/INSERTED";
+  public static final String CARD_REMOVED = "CARD/REMOVED";
+
+  /** the PIN of a card was verified, changed, blocked or unblocked */
+  public static final String CARD_PIN = "CARD/PIN";
+
+  /** true for any event about a card */
+  public boolean isCardEvent() {
+    return topic.equals("CARD") || topic.startsWith("CARD/");
+  }
+
+  @Nullable
+  public String cardHandle() {
+    return parameters.get("CardHandle");
+  }
+
+  @Nullable
+  public String iccsn() {
+    return parameters.get("ICCSN");
+  }
+}
@@ -0,0 +1,25 @@
+package com.oviva.epa.client.model;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.List;
+
+/**
+ * The outcome of resolving a single KVNR, see {@link
+ * com.oviva.epa.client.KonnektorService#resolveRecords(java.util.Collection)}.
+ *
+ * @param recordIdentifier the health record of the KVNR, null if resolving failed
+ * @param authorizedApplications the applications authorized for the record, null if resolving
+ *     failed
+ * @param error why resolving failed, null if it succeeded
+ */
+public record RecordResolution(
+    @NonNull String kvnr,
+    @Nullable RecordIdentifier recordIdentifier,
+    @Nullable List<AuthorizedApplication> authorizedApplications,
+    @Nullable RuntimeException error) {
+
+  public boolean isSuccess() {
+    return error == null;
+  }
+}
@@ -0,0 +1,37 @@
+package com.oviva.epa.client.model;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.List;
+
+/**
+ * Content to sign as CMS signature, see {@link
+ * com.oviva.epa.client.KonnektorService#signDocuments(String, CardCertificate.Crypt, List)}.
+ *
+ * @param content the bytes to sign, e.g. a document or a hash of it
+ * @param includeContent embeds the content in the signature, otherwise it is detached
+ * @param cmsAttributes additional attributes of the signature
+ */
+public record SignatureRequest(
+    @NonNull byte[] content, boolean includeContent, @NonNull List<CmsAttribute> cmsAttributes) {
+
+  public static SignatureRequest detached(@NonNull byte[] content) {
+    return new SignatureRequest(content, false, List.of());
+  }
+
+  public static SignatureRequest attached(@NonNull byte[] content) {
+    return new SignatureRequest(content, true, List.of());
+  }
+
+  public SignatureRequest withCmsAttributes(@NonNull List<CmsAttribute> cmsAttributes) {
+    return new SignatureRequest(content, includeContent, cmsAttributes);
+  }
+
+  /**
+   * A CMS attribute added to the signature.
+   *
+   * @param oid the attribute type
+   * @param value the DER encoded attribute
+   * @param signed whether the attribute is signed as well, otherwise it is unsigned
+   */
+  public record CmsAttribute(@NonNull String oid, @NonNull byte[] value, boolean signed) {}
+}
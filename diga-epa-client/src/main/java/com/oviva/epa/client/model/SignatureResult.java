@@ -0,0 +1,20 @@
+package com.oviva.epa.client.model;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+/**
+ * The outcome of a single {@link SignatureRequest}.
+ *
+ * @param signature the CMS signature, null if signing failed
+ * @param error why signing failed, null if it succeeded
+ */
+public record SignatureResult(
+    @NonNull SignatureRequest request,
+    @Nullable byte[] signature,
+    @Nullable RuntimeException error) {
+
+  public boolean isSuccess() {
+    return error == null;
+  }
+}
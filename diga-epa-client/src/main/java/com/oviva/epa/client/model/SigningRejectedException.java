@@ -0,0 +1,16 @@
+package com.oviva.epa.client.model;
+
+/**
+ * The signature was not attempted, the card is busy with others. Either too many signatures were
+ * queued for the card already or the wait for it took too long. Retrying later may succeed.
+ */
+public class SigningRejectedException extends KonnektorException {
+
+  public SigningRejectedException(String message) {
+    super(message);
+  }
+
+  public SigningRejectedException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
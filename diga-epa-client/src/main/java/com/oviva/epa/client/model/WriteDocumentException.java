@@ -1,15 +1,23 @@
 package com.oviva.epa.client.model;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 public class WriteDocumentException extends KonnektorException {
 
   private final List<Error> errors;
+  private final Map<Integer, List<Error>> errorsByDocument;
 
   public WriteDocumentException(String status, List<Error> errors) {
+    this(status, errors, Map.of());
+  }
+
+  public WriteDocumentException(
+      String status, List<Error> errors, Map<Integer, List<Error>> errorsByDocument) {
     super(assembleMessage(status, errors));
     this.errors = errors;
+    this.errorsByDocument = errorsByDocument;
   }
 
   private static String assembleMessage(String status, List<Error> errors) {
@@ -17,10 +25,19 @@ public class WriteDocumentException extends KonnektorException {
     return "failed to write document status='%s', errors='%s'".formatted(status, errorMessages);
   }
 
+  /** all errors the registry reported for the submission */
   public List<Error> errors() {
     return errors;
   }
 
+  /**
+   * The errors that refer to a specific document, keyed by the index of the document in the
+   * submission. Errors that can not be attributed to a document are only in {@link #errors()}.
+   */
+  public Map<Integer, List<Error>> errorsByDocument() {
+    return errorsByDocument;
+  }
+
   public record Error(
       String value, String codeContext, String errorCode, String severity, String location) {}
 }
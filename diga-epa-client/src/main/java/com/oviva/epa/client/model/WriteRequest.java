@@ -0,0 +1,30 @@
+package com.oviva.epa.client.model;
+
+import de.gematik.epa.ihe.model.document.Document;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.UUID;
+
+/**
+ * A document to write into a health record, see {@link
+ * com.oviva.epa.client.KonnektorService#writeDocuments(java.util.Collection)}.
+ *
+ * @param documentToReplaceId the document replaced by this one, null to add a new document
+ */
+public record WriteRequest(
+    @NonNull RecordIdentifier recordIdentifier,
+    @NonNull Document document,
+    @Nullable UUID documentToReplaceId) {
+
+  public static WriteRequest write(
+      @NonNull RecordIdentifier recordIdentifier, @NonNull Document document) {
+    return new WriteRequest(recordIdentifier, document, null);
+  }
+
+  public static WriteRequest replace(
+      @NonNull RecordIdentifier recordIdentifier,
+      @NonNull Document document,
+      @NonNull UUID documentToReplaceId) {
+    return new WriteRequest(recordIdentifier, document, documentToReplaceId);
+  }
+}
@@ -0,0 +1,20 @@
+package com.oviva.epa.client.model;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+/**
+ * The outcome of a single {@link WriteRequest}.
+ *
+ * @param response the response of the Konnektor, null if writing failed
+ * @param error why writing failed, e.g. a {@link WriteDocumentException}, null if it succeeded
+ */
+public record WriteResult(
+    @NonNull WriteRequest request,
+    @Nullable WriteDocumentResponse response,
+    @Nullable RuntimeException error) {
+
+  public boolean isSuccess() {
+    return error == null;
+  }
+}
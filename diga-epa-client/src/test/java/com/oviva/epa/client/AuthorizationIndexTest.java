@@ -0,0 +1,96 @@
+package com.oviva.epa.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.oviva.epa.client.model.AuthorizationEntry;
+import com.oviva.epa.client.model.RecordIdentifier;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AuthorizationIndexTest {
+
+  private static final LocalDate DAY = LocalDate.of(2024, 5, 1);
+
+  @TempDir Path dir;
+
+  @Test
+  void store_open_lookup() {
+    var file = dir.resolve("authorizations.idx");
+    AuthorizationIndex.store(
+        file,
+        DAY,
+        List.of(
+            entry("Z999999999", "hcid-b", DAY.plusDays(10)),
+            entry("A000000001", "hcid-a", DAY.minusDays(1)),
+            entry("odd-kvnr", "hcid-a", null)));
+
+    var index = AuthorizationIndex.open(file);
+
+    assertEquals(DAY, index.snapshotDate());
+    assertEquals(3, index.size());
+    assertEquals(entry("Z999999999", "hcid-b", DAY.plusDays(10)), index.lookup("Z999999999"));
+    assertEquals(entry("odd-kvnr", "hcid-a", null), index.lookup("odd-kvnr"));
+    assertNull(index.lookup("A000000002"));
+
+    assertTrue(index.isAuthorized("Z999999999", DAY));
+    assertFalse(index.isAuthorized("A000000001", DAY));
+    assertTrue(index.isAuthorized("odd-kvnr", DAY));
+
+    assertEquals("A000000001", index.entries().get(0).recordIdentifier().kvnr());
+  }
+
+  @Test
+  void open_missing_isEmpty() {
+    var index = AuthorizationIndex.open(dir.resolve("missing"));
+    assertEquals(0, index.size());
+    assertNull(index.snapshotDate());
+    assertNull(index.lookup("A000000001"));
+  }
+
+  @Test
+  void diff_againstPreviousDay() {
+    var file = dir.resolve("authorizations.idx");
+    var previous =
+        AuthorizationIndex.store(
+            file,
+            DAY,
+            List.of(
+                entry("A000000001", "hcid", DAY),
+                entry("B000000002", "hcid", DAY),
+                entry("odd", "hcid", DAY)));
+
+    var current =
+        AuthorizationIndex.store(
+            file,
+            DAY.plusDays(1),
+            List.of(
+                entry("B000000002", "hcid", DAY.plusYears(1)),
+                entry("C000000003", "hcid", DAY),
+                entry("odd", "hcid", DAY)));
+
+    var diff = current.diff(previous);
+
+    assertEquals(List.of(entry("C000000003", "hcid", DAY)), diff.added());
+    assertEquals(List.of(entry("A000000001", "hcid", DAY)), diff.removed());
+    assertEquals(List.of(entry("B000000002", "hcid", DAY.plusYears(1))), diff.changed());
+  }
+
+  @Test
+  void pack_keepsOrder() {
+    assertEquals("A000000000", AuthorizationIndex.unpack(AuthorizationIndex.pack("A000000000")));
+    assertEquals("Z123456789", AuthorizationIndex.unpack(AuthorizationIndex.pack("Z123456789")));
+    assertTrue(AuthorizationIndex.pack("A999999999") < AuthorizationIndex.pack("B000000000"));
+    assertEquals(-1, AuthorizationIndex.pack("a123456789"));
+    assertEquals(-1, AuthorizationIndex.pack("A12345678"));
+  }
+
+  private static AuthorizationEntry entry(String kvnr, String hcid, LocalDate validTo) {
+    return new AuthorizationEntry(new RecordIdentifier(kvnr, hcid), validTo);
+  }
+}
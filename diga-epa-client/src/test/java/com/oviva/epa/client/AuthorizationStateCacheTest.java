@@ -0,0 +1,122 @@
+package com.oviva.epa.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.oviva.epa.client.model.AuthorizedApplication;
+import com.oviva.epa.client.model.RecordIdentifier;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class AuthorizationStateCacheTest {
+
+  private static final RecordIdentifier RECORD = new RecordIdentifier("X110000000", "hcid");
+
+  // 2024-05-01 12:00 in Berlin
+  private final MutableClock clock = new MutableClock(Instant.parse("2024-05-01T10:00:00Z"));
+
+  private final AuthorizationStateCache cache =
+      new AuthorizationStateCache(Duration.ofDays(7), 100, clock);
+
+  @Test
+  void get_cachedUntilEndOfEarliestValidTo() {
+    var calls = new AtomicInteger();
+    var apps =
+        List.of(
+            new AuthorizedApplication("ePA", LocalDate.of(2024, 5, 2)),
+            new AuthorizedApplication("DiGA", LocalDate.of(2025, 1, 1)));
+
+    assertEquals(apps, cache.get(RECORD, () -> load(calls, apps)));
+    clock.advance(Duration.ofHours(11)); // 23:00 on the 1st
+    assertEquals(apps, cache.get(RECORD, () -> load(calls, apps)));
+    assertEquals(1, calls.get());
+
+    // midnight after the 2nd in Berlin
+    clock.advance(Duration.ofHours(25));
+    assertEquals(apps, cache.get(RECORD, () -> load(calls, apps)));
+    assertEquals(2, calls.get());
+
+    assertEquals(1, cache.hits());
+    assertEquals(2, cache.misses());
+  }
+
+  @Test
+  void get_cachedForMaxAge() {
+    var calls = new AtomicInteger();
+
+    cache.get(RECORD, () -> load(calls, List.of()));
+    clock.advance(Duration.ofDays(7).minusSeconds(1));
+    cache.get(RECORD, () -> load(calls, List.of()));
+    assertEquals(1, calls.get());
+
+    clock.advance(Duration.ofSeconds(1));
+    cache.get(RECORD, () -> load(calls, List.of()));
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  void put_expired_notCached() {
+    cache.put(RECORD, List.of(new AuthorizedApplication("ePA", LocalDate.of(2024, 4, 30))));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void invalidate() {
+    var calls = new AtomicInteger();
+
+    cache.get(RECORD, () -> load(calls, List.of()));
+    cache.invalidate(RECORD);
+    cache.get(RECORD, () -> load(calls, List.of()));
+
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  void create_invalid() {
+    assertThrows(
+        IllegalArgumentException.class, () -> AuthorizationStateCache.create(Duration.ZERO, 1));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> AuthorizationStateCache.create(Duration.ofHours(1), 0));
+  }
+
+  private static List<AuthorizedApplication> load(
+      AtomicInteger calls, List<AuthorizedApplication> apps) {
+    calls.incrementAndGet();
+    return apps;
+  }
+
+  private static class MutableClock extends Clock {
+    private Instant now;
+
+    MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    void advance(Duration d) {
+      now = now.plus(d);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
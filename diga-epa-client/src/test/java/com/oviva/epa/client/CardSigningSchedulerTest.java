@@ -0,0 +1,204 @@
+package com.oviva.epa.client;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.oviva.epa.client.model.SigningRejectedException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class CardSigningSchedulerTest {
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  // holds back the signatures started by blockingSigner
+  private final CountDownLatch release = new CountDownLatch(1);
+  private final AtomicInteger signerCalls = new AtomicInteger();
+
+  @AfterEach
+  void tearDown() {
+    release.countDown();
+    executor.shutdownNow();
+  }
+
+  @Test
+  void sign_limitsInFlightPerCard() throws Exception {
+    var scheduler = CardSigningScheduler.create(1, 10, Duration.ofSeconds(5));
+
+    var first = signAsync(scheduler, "k1", "h1", new byte[] {1});
+    awaitTrue(() -> scheduler.inFlight("h1") == 1);
+    var second = signAsync(scheduler, "k1", "h1", new byte[] {2});
+    awaitTrue(() -> scheduler.queueDepth("h1") == 1);
+
+    // another card is not held up
+    assertArrayEquals(
+        new byte[] {3}, scheduler.sign("k1", "h2", "ECDSA", new byte[] {3}, () -> new byte[] {3}));
+
+    release.countDown();
+    assertArrayEquals(new byte[] {1}, first.get(5, TimeUnit.SECONDS));
+    assertArrayEquals(new byte[] {2}, second.get(5, TimeUnit.SECONDS));
+    assertEquals(3, scheduler.signatures());
+    assertEquals(0, scheduler.queueDepth());
+    assertEquals(0, scheduler.inFlight());
+  }
+
+  @Test
+  void sign_sameHandleOnOtherKonnektor_notHeldUp() throws Exception {
+    var scheduler = CardSigningScheduler.create(1, 0, Duration.ofSeconds(5));
+
+    var first = signAsync(scheduler, "k1", "h1", new byte[] {1});
+    awaitTrue(() -> scheduler.inFlight("h1") == 1);
+
+    assertArrayEquals(
+        new byte[] {1}, scheduler.sign("k2", "h1", "ECDSA", new byte[] {1}, () -> new byte[] {1}));
+    assertEquals(0, scheduler.coalesced());
+
+    release.countDown();
+    assertArrayEquals(new byte[] {1}, first.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void sign_queueFull_rejected() {
+    var scheduler = CardSigningScheduler.create(1, 0, Duration.ofSeconds(5));
+
+    signAsync(scheduler, "k1", "h1", new byte[] {1});
+    awaitTrue(() -> scheduler.inFlight("h1") == 1);
+
+    assertThrows(
+        SigningRejectedException.class,
+        () -> scheduler.sign("k1", "h1", "ECDSA", new byte[] {2}, () -> new byte[] {2}));
+    assertEquals(1, scheduler.rejected());
+  }
+
+  @Test
+  void sign_waitedTooLong_rejected() {
+    var scheduler = CardSigningScheduler.create(1, 10, Duration.ofMillis(50));
+
+    signAsync(scheduler, "k1", "h1", new byte[] {1});
+    awaitTrue(() -> scheduler.inFlight("h1") == 1);
+
+    assertThrows(
+        SigningRejectedException.class,
+        () -> scheduler.sign("k1", "h1", "ECDSA", new byte[] {2}, () -> new byte[] {2}));
+  }
+
+  @Test
+  void sign_sameHash_coalesced() throws Exception {
+    var scheduler = CardSigningScheduler.create(1, 10, Duration.ofSeconds(5));
+
+    var first = signAsync(scheduler, "k1", "h1", new byte[] {1});
+    awaitTrue(() -> scheduler.inFlight("h1") == 1);
+    var second = signAsync(scheduler, "k1", "h1", new byte[] {1});
+    awaitTrue(() -> scheduler.coalesced() == 1);
+
+    release.countDown();
+    assertArrayEquals(new byte[] {1}, first.get(5, TimeUnit.SECONDS));
+    assertArrayEquals(new byte[] {1}, second.get(5, TimeUnit.SECONDS));
+    assertEquals(1, signerCalls.get());
+  }
+
+  @Test
+  void signAll_takesOneSlot() throws Exception {
+    var scheduler = CardSigningScheduler.create(1, 0, Duration.ofSeconds(5));
+
+    var batch =
+        CompletableFuture.supplyAsync(
+            () -> scheduler.signAll("k1", "h1", () -> blockingSigner(new byte[] {1, 2})), executor);
+    awaitTrue(() -> scheduler.inFlight("h1") == 1);
+
+    assertThrows(
+        SigningRejectedException.class,
+        () -> scheduler.sign("k1", "h1", "ECDSA", new byte[] {3}, () -> new byte[] {3}));
+
+    release.countDown();
+    assertArrayEquals(new byte[] {1, 2}, batch.get(5, TimeUnit.SECONDS));
+    assertEquals(1, scheduler.signatures());
+  }
+
+  @Test
+  void sign_failure_releasesPermit() {
+    var scheduler = CardSigningScheduler.create(1, 10, Duration.ofSeconds(5));
+
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            scheduler.sign(
+                "k1",
+                "h1",
+                "ECDSA",
+                new byte[] {1},
+                () -> {
+                  throw new IllegalStateException("card broken");
+                }));
+
+    assertArrayEquals(
+        new byte[] {2}, scheduler.sign("k1", "h1", "ECDSA", new byte[] {2}, () -> new byte[] {2}));
+  }
+
+  @Test
+  void idleLanes_removed() throws Exception {
+    var scheduler = CardSigningScheduler.create(1, 10, Duration.ofSeconds(5));
+
+    var first = signAsync(scheduler, "k1", "h1", new byte[] {1});
+    awaitTrue(() -> scheduler.inFlight("h1") == 1);
+    var coalesced = signAsync(scheduler, "k1", "h1", new byte[] {1});
+    var queued = signAsync(scheduler, "k1", "h1", new byte[] {2});
+    var other = signAsync(scheduler, "k2", "h1", new byte[] {3});
+    awaitTrue(
+        () ->
+            scheduler.inFlight("h1") == 2
+                && scheduler.queueDepth("h1") == 1
+                && scheduler.coalesced() == 1);
+    assertEquals(2, scheduler.laneCount());
+
+    release.countDown();
+    CompletableFuture.allOf(first, coalesced, queued, other).get(5, TimeUnit.SECONDS);
+    assertEquals(0, scheduler.laneCount());
+
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            scheduler.signAll(
+                "k1",
+                "h2",
+                () -> {
+                  throw new IllegalStateException("card broken");
+                }));
+    assertEquals(0, scheduler.laneCount());
+  }
+
+  private CompletableFuture<byte[]> signAsync(
+      CardSigningScheduler scheduler, String konnektor, String cardHandle, byte[] hash) {
+    return CompletableFuture.supplyAsync(
+        () -> scheduler.sign(konnektor, cardHandle, "ECDSA", hash, () -> blockingSigner(hash)),
+        executor);
+  }
+
+  private byte[] blockingSigner(byte[] hash) {
+    signerCalls.incrementAndGet();
+    try {
+      release.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return hash.clone();
+  }
+
+  private static void awaitTrue(BooleanSupplier condition) {
+    var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.nanoTime() < deadline, "condition not met in time");
+      Thread.onSpinWait();
+    }
+  }
+}
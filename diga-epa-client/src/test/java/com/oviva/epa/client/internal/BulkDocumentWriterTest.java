@@ -0,0 +1,131 @@
+package com.oviva.epa.client.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.oviva.epa.client.KonnektorService;
+import com.oviva.epa.client.model.RecordIdentifier;
+import com.oviva.epa.client.model.WriteDocumentException;
+import com.oviva.epa.client.model.WriteDocumentResponse;
+import com.oviva.epa.client.model.WriteRequest;
+import com.oviva.epa.client.model.WriteResult;
+import de.gematik.epa.ihe.model.document.Document;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class BulkDocumentWriterTest {
+
+  @Test
+  void write_boundsConcurrency_oneSubmissionPerRecord() {
+    var inFlight = new AtomicInteger();
+    var maxInFlight = new AtomicInteger();
+    var inFlightPerRecord = new ConcurrentHashMap<RecordIdentifier, AtomicInteger>();
+    var maxPerRecord = new AtomicInteger();
+    var order = Collections.synchronizedList(new ArrayList<Document>());
+
+    var service = mock(KonnektorService.class);
+    when(service.writeDocument(any(), any()))
+        .thenAnswer(
+            inv -> {
+              RecordIdentifier record = inv.getArgument(0);
+              var perRecord = inFlightPerRecord.computeIfAbsent(record, r -> new AtomicInteger());
+              maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+              maxPerRecord.accumulateAndGet(perRecord.incrementAndGet(), Math::max);
+              order.add(inv.getArgument(1));
+              Thread.sleep(10);
+              perRecord.decrementAndGet();
+              inFlight.decrementAndGet();
+              return new WriteDocumentResponse("ok");
+            });
+
+    var requests = new ArrayList<WriteRequest>();
+    var perRecord = new ConcurrentHashMap<RecordIdentifier, List<Document>>();
+    for (int i = 0; i < 40; i++) {
+      var record = new RecordIdentifier("X11000000" + (i % 5), "hcid");
+      var document = mock(Document.class);
+      perRecord.computeIfAbsent(record, r -> new ArrayList<>()).add(document);
+      requests.add(WriteRequest.write(record, document));
+    }
+
+    try (var results = new BulkDocumentWriter(3).write(service, requests)) {
+      assertEquals(40, results.filter(WriteResult::isSuccess).count());
+    }
+
+    assertTrue(maxInFlight.get() <= 3, "max in flight: " + maxInFlight.get());
+    assertEquals(1, maxPerRecord.get());
+
+    // documents of a record are written in the given order
+    perRecord.forEach(
+        (record, documents) ->
+            assertEquals(documents, order.stream().filter(documents::contains).toList()));
+  }
+
+  @Test
+  void write_failureDoesNotStopOthers() {
+    var record = new RecordIdentifier("X110000000", "hcid");
+    var failing = mock(Document.class);
+    var replacing = mock(Document.class);
+    var toReplace = UUID.randomUUID();
+    var error = new WriteDocumentException("failure", List.of());
+
+    var service = mock(KonnektorService.class);
+    when(service.writeDocument(any(), any()))
+        .thenAnswer(
+            inv -> {
+              if (inv.getArgument(1) == failing) {
+                throw error;
+              }
+              return new WriteDocumentResponse("written");
+            });
+    when(service.replaceDocument(any(), any(), any()))
+        .thenReturn(new WriteDocumentResponse("replaced"));
+
+    var requests =
+        List.of(
+            WriteRequest.write(record, failing),
+            WriteRequest.replace(record, replacing, toReplace),
+            WriteRequest.write(record, mock(Document.class)));
+
+    List<WriteResult> results;
+    try (var stream = new BulkDocumentWriter(2).write(service, requests)) {
+      results = stream.toList();
+    }
+
+    assertEquals(3, results.size());
+    assertSame(error, results.get(0).error());
+    assertEquals("replaced", results.get(1).response().requestId());
+    assertEquals("written", results.get(2).response().requestId());
+  }
+
+  @Test
+  void write_errorStillYieldsResult() {
+    var record = new RecordIdentifier("X110000000", "hcid");
+    var error = new AssertionError("broken");
+
+    var service = mock(KonnektorService.class);
+    when(service.writeDocument(any(), any())).thenThrow(error);
+
+    var requests =
+        List.of(
+            WriteRequest.write(record, mock(Document.class)),
+            WriteRequest.write(record, mock(Document.class)));
+
+    List<WriteResult> results;
+    try (var stream = new BulkDocumentWriter(1).write(service, requests)) {
+      results = stream.toList();
+    }
+
+    assertEquals(2, results.size());
+    assertSame(error, results.get(0).error().getCause());
+    assertSame(error, results.get(1).error().getCause());
+  }
+}
@@ -0,0 +1,127 @@
+package com.oviva.epa.client.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.oviva.epa.client.KonnektorService;
+import com.oviva.epa.client.model.AuthorizedApplication;
+import com.oviva.epa.client.model.KonnektorException;
+import com.oviva.epa.client.model.RecordIdentifier;
+import com.oviva.epa.client.model.RecordResolution;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class BulkRecordResolverTest {
+
+  @Test
+  void resolve_boundsConcurrency_isolatesFailures() {
+    var inFlight = new AtomicInteger();
+    var maxInFlight = new AtomicInteger();
+    var failure = new KonnektorException("no record");
+    var apps = List.of(new AuthorizedApplication("ePA", LocalDate.of(2030, 1, 1)));
+
+    var service = mock(KonnektorService.class);
+    when(service.getHomeCommunityID(anyString()))
+        .thenAnswer(
+            inv -> {
+              String kvnr = inv.getArgument(0);
+              if (kvnr.equals("X0")) {
+                throw failure;
+              }
+              maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+              Thread.sleep(5);
+              inFlight.decrementAndGet();
+              return "hcid-" + kvnr;
+            });
+    when(service.getAuthorizationState(any())).thenReturn(apps);
+
+    var kvnrs = new ArrayList<String>();
+    for (int i = 0; i < 30; i++) {
+      kvnrs.add("X" + i);
+    }
+    // duplicates are resolved once
+    kvnrs.add("X1");
+
+    List<RecordResolution> results;
+    try (var stream = new BulkRecordResolver(4, 0).resolve(service, kvnrs)) {
+      results = stream.toList();
+    }
+
+    assertEquals(30, results.size());
+    assertTrue(maxInFlight.get() <= 4, "max in flight: " + maxInFlight.get());
+
+    var byKvnr =
+        results.stream().collect(Collectors.toMap(RecordResolution::kvnr, Function.identity()));
+    assertSame(failure, byKvnr.get("X0").error());
+    assertNull(byKvnr.get("X0").recordIdentifier());
+    assertEquals(new RecordIdentifier("X5", "hcid-X5"), byKvnr.get("X5").recordIdentifier());
+    assertEquals(apps, byKvnr.get("X5").authorizedApplications());
+  }
+
+  @Test
+  void resolve_errorStillYieldsResult() {
+    var error = new AssertionError("broken");
+    var service = mock(KonnektorService.class);
+    when(service.getHomeCommunityID(anyString())).thenThrow(error);
+
+    List<RecordResolution> results;
+    try (var stream = new BulkRecordResolver(1, 0).resolve(service, List.of("X1", "X2"))) {
+      results = stream.toList();
+    }
+
+    assertEquals(2, results.size());
+    assertSame(error, results.get(0).error().getCause());
+    assertSame(error, results.get(1).error().getCause());
+  }
+
+  @Test
+  void resolve_noResultInTime_fails() {
+    var release = new CountDownLatch(1);
+    var service = mock(KonnektorService.class);
+    when(service.getHomeCommunityID(anyString()))
+        .thenAnswer(
+            inv -> {
+              release.await();
+              return "hcid";
+            });
+
+    try (var stream =
+        new BulkRecordResolver(1, 0, Duration.ofMillis(50)).resolve(service, List.of("X1"))) {
+      assertThrows(KonnektorException.class, stream::toList);
+    } finally {
+      release.countDown();
+    }
+  }
+
+  @Test
+  void rateLimiter_spacesOutCalls() {
+    var now = new AtomicLong(1_000_000_000L);
+    var limiter = new RateLimiter(10, now::get);
+
+    assertEquals(0, limiter.reserve());
+    assertEquals(100_000_000L, limiter.reserve());
+    assertEquals(200_000_000L, limiter.reserve());
+
+    // idle time is not saved up
+    now.addAndGet(5_000_000_000L);
+    assertEquals(0, limiter.reserve());
+    assertEquals(100_000_000L, limiter.reserve());
+
+    assertEquals(0, new RateLimiter(0, now::get).reserve());
+  }
+}
@@ -0,0 +1,111 @@
+package com.oviva.epa.client.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import com.oviva.epa.client.KonnektorService;
+import com.oviva.epa.client.model.RecordIdentifier;
+import com.oviva.epa.client.model.WriteDocumentResponse;
+import com.oviva.epa.client.model.WriteRequest;
+import de.gematik.epa.ihe.model.document.Document;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class CoalescingWriterImplTest {
+
+  private static final RecordIdentifier RECORD = new RecordIdentifier("X110000000", "hcid");
+
+  @Test
+  void submit_whileInFlight_onlyLatestWritten() throws Exception {
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+
+    var v1 = mock(Document.class);
+    var v2 = mock(Document.class);
+    var v3 = mock(Document.class);
+    var v1Id = UUID.randomUUID();
+    var v2Id = UUID.randomUUID();
+
+    var service = mock(KonnektorService.class);
+    when(service.writeDocument(any(), any()))
+        .thenAnswer(
+            inv -> {
+              started.countDown();
+              release.await();
+              return new WriteDocumentResponse("first");
+            });
+    when(service.replaceDocument(any(), any(), any()))
+        .thenReturn(new WriteDocumentResponse("latest"));
+
+    try (var sut = new CoalescingWriterImpl(service, 2)) {
+      var first = sut.submit("report", WriteRequest.write(RECORD, v1));
+      assertEquals(true, started.await(5, TimeUnit.SECONDS));
+
+      var second = sut.submit("report", WriteRequest.replace(RECORD, v2, v1Id));
+      var third = sut.submit("report", WriteRequest.replace(RECORD, v3, v2Id));
+      assertEquals(1, sut.pending());
+
+      release.countDown();
+
+      assertEquals("first", first.get(5, TimeUnit.SECONDS).requestId());
+      assertEquals("latest", second.get(5, TimeUnit.SECONDS).requestId());
+      assertEquals("latest", third.get(5, TimeUnit.SECONDS).requestId());
+    }
+
+    // v2 never reached the record, v3 replaces what v2 would have
+    verify(service).writeDocument(RECORD, v1);
+    verify(service).replaceDocument(RECORD, v3, v1Id);
+    verifyNoMoreInteractions(service);
+  }
+
+  @Test
+  void write_error_completesFutures_freesSlot() throws Exception {
+    var error = new AssertionError("broken");
+    var v2 = mock(Document.class);
+
+    var service = mock(KonnektorService.class);
+    when(service.writeDocument(any(), any())).thenThrow(error);
+    when(service.replaceDocument(any(), any(), any()))
+        .thenReturn(new WriteDocumentResponse("latest"));
+
+    try (var sut = new CoalescingWriterImpl(service, 1)) {
+      var first = sut.submit("report", WriteRequest.write(RECORD, mock(Document.class)));
+      var failure = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+      assertSame(error, failure.getCause());
+
+      var second = sut.submit("report", WriteRequest.replace(RECORD, v2, UUID.randomUUID()));
+      assertEquals("latest", second.get(5, TimeUnit.SECONDS).requestId());
+    }
+  }
+
+  @Test
+  void close_failsPendingVersions() throws Exception {
+    var started = new CountDownLatch(1);
+    var service = mock(KonnektorService.class);
+    when(service.writeDocument(any(), any()))
+        .thenAnswer(
+            inv -> {
+              started.countDown();
+              Thread.sleep(10_000);
+              return new WriteDocumentResponse("never");
+            });
+
+    var sut = new CoalescingWriterImpl(service, 1);
+    sut.submit("report", WriteRequest.write(RECORD, mock(Document.class)));
+    assertEquals(true, started.await(5, TimeUnit.SECONDS));
+    var pending = sut.submit("report", WriteRequest.write(RECORD, mock(Document.class)));
+
+    sut.close();
+
+    assertThrows(ExecutionException.class, () -> pending.get(5, TimeUnit.SECONDS));
+  }
+}
@@ -0,0 +1,82 @@
+package com.oviva.epa.client.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.oviva.epa.client.DeduplicationIndex;
+import com.oviva.epa.client.KonnektorService;
+import com.oviva.epa.client.model.RecordIdentifier;
+import com.oviva.epa.client.model.WriteDocumentResponse;
+import de.gematik.epa.ihe.model.document.Document;
+import de.gematik.epa.ihe.model.document.DocumentMetadata;
+import de.gematik.epa.ihe.model.simple.ByteArray;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DeduplicatingKonnektorServiceTest {
+
+  private static final RecordIdentifier RECORD = new RecordIdentifier("X110000000", "hcid");
+
+  @Test
+  void writeDocument_unchangedContent_skipped() {
+    var count = new AtomicInteger();
+    var delegate = mock(KonnektorService.class);
+    when(delegate.writeDocument(any(), any()))
+        .thenAnswer(inv -> new WriteDocumentResponse("req-" + count.incrementAndGet()));
+
+    var sut = new DeduplicatingKonnektorService(delegate, DeduplicationIndex.create(10));
+
+    assertEquals("req-1", sut.writeDocument(RECORD, document("report", "a")).requestId());
+    assertEquals("req-1", sut.writeDocument(RECORD, document("report", "a")).requestId());
+
+    // changed content and other document types are written
+    assertEquals("req-2", sut.writeDocument(RECORD, document("report", "b")).requestId());
+    assertEquals("req-3", sut.writeDocument(RECORD, document("other", "b")).requestId());
+    assertEquals("req-2", sut.writeDocument(RECORD, document("report", "b")).requestId());
+
+    verify(delegate, times(3)).writeDocument(any(), any());
+  }
+
+  @Test
+  void index_evictsLeastRecentlyUsed_survivesSaveAndLoad(@TempDir Path dir) {
+    var index = DeduplicationIndex.create(2);
+    index.put("A", "t", new DeduplicationIndex.Entry("h1", "r1"));
+    index.put("B", "t", new DeduplicationIndex.Entry("h2", "r2"));
+    index.get("A", "t");
+    index.put("C", "t", new DeduplicationIndex.Entry("h3", "r3"));
+
+    assertNull(index.get("B", "t"));
+
+    var file = dir.resolve("dedup.idx");
+    index.save(file);
+    var loaded = DeduplicationIndex.load(file, 2);
+
+    assertEquals(2, loaded.size());
+    assertEquals(new DeduplicationIndex.Entry("h1", "r1"), loaded.get("A", "t"));
+    assertNotNull(loaded.get("C", "t"));
+
+    loaded.invalidate("A");
+    assertNull(loaded.get("A", "t"));
+
+    assertEquals(0, DeduplicationIndex.load(dir.resolve("missing"), 2).size());
+  }
+
+  private static Document document(String typeCode, String content) {
+    var metadata = mock(DocumentMetadata.class);
+    when(metadata.typeCode()).thenReturn(typeCode);
+    var document = mock(Document.class);
+    when(document.documentMetadata()).thenReturn(metadata);
+    when(document.documentData())
+        .thenReturn(ByteArray.of(content.getBytes(StandardCharsets.UTF_8)));
+    return document;
+  }
+}
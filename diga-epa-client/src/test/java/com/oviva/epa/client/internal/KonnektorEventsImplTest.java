@@ -0,0 +1,196 @@
+package com.oviva.epa.client.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.oviva.epa.client.internal.svc.model.KonnektorContext;
+import com.oviva.epa.client.model.KonnektorEvent;
+import jakarta.xml.bind.JAXBContext;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.xml.datatype.DatatypeFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import telematik.ws.conn.eventservice.wsdl.v6_1.EventServicePortType;
+import telematik.ws.conn.eventservice.xsd.v6_1.Event;
+import telematik.ws.conn.eventservice.xsd.v6_1.EventSeverityType;
+import telematik.ws.conn.eventservice.xsd.v6_1.EventType;
+import telematik.ws.conn.eventservice.xsd.v6_1.RenewSubscriptions;
+import telematik.ws.conn.eventservice.xsd.v6_1.RenewSubscriptionsResponse;
+import telematik.ws.conn.eventservice.xsd.v6_1.Subscribe;
+import telematik.ws.conn.eventservice.xsd.v6_1.SubscribeResponse;
+import telematik.ws.conn.eventservice.xsd.v6_1.SubscriptionRenewal;
+import telematik.ws.conn.eventservice.xsd.v6_1.Unsubscribe;
+
+class KonnektorEventsImplTest {
+
+  private final EventServicePortType konnektor = mock(EventServicePortType.class);
+
+  // subscription id by topic, as handed out by the stand-in Konnektor
+  private final ConcurrentHashMap<String, String> subscribed = new ConcurrentHashMap<>();
+  private final AtomicInteger ids = new AtomicInteger();
+
+  private KonnektorEventsImpl events;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    var termination =
+        DatatypeFactory.newInstance()
+            .newXMLGregorianCalendar(
+                Clock.systemUTC().instant().plus(Duration.ofDays(1)).toString());
+
+    when(konnektor.subscribe(any()))
+        .thenAnswer(
+            inv -> {
+              Subscribe req = inv.getArgument(0);
+              var id = "sub-" + ids.incrementAndGet();
+              subscribed.put(req.getSubscription().getTopic(), id);
+              return new SubscribeResponse()
+                  .withSubscriptionID(id)
+                  .withTerminationTime(termination);
+            });
+
+    events =
+        new KonnektorEventsImpl(
+            konnektor,
+            new KonnektorContext("m", "c", "a", "admin"),
+            new InetSocketAddress("127.0.0.1", 0),
+            null,
+            "127.0.0.1",
+            List.of(KonnektorEvent.CARD_INSERTED, KonnektorEvent.CARD_REMOVED),
+            Duration.ofMinutes(5),
+            Executors.newSingleThreadScheduledExecutor(),
+            Clock.systemUTC());
+    events.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    events.close();
+  }
+
+  @Test
+  void start_subscribesAllTopics() {
+    assertEquals(2, subscribed.size());
+
+    var captor = ArgumentCaptor.forClass(Subscribe.class);
+    verify(konnektor, atLeastOnce()).subscribe(captor.capture());
+    assertTrue(captor.getValue().getSubscription().getEventTo().startsWith("cetp://127.0.0.1:"));
+  }
+
+  @Test
+  void events_deliveredToListeners() throws Exception {
+    BlockingQueue<KonnektorEvent> received = new LinkedBlockingQueue<>();
+    events.addListener(received::add);
+
+    var eventTo = URI.create(events.eventTo());
+    try (var socket = new Socket(eventTo.getHost(), eventTo.getPort());
+        var out = new DataOutputStream(socket.getOutputStream())) {
+      writeFrame(out, cardEvent(KonnektorEvent.CARD_REMOVED, "handle-1"));
+      writeFrame(out, cardEvent(KonnektorEvent.CARD_INSERTED, "handle-2"));
+      out.flush();
+
+      var first = received.poll(5, TimeUnit.SECONDS);
+      assertNotNull(first);
+      assertEquals(KonnektorEvent.CARD_REMOVED, first.topic());
+      assertEquals("handle-1", first.cardHandle());
+      assertTrue(first.isCardEvent());
+
+      var second = received.poll(5, TimeUnit.SECONDS);
+      assertNotNull(second);
+      assertEquals("handle-2", second.cardHandle());
+    }
+  }
+
+  @Test
+  void renew_resubscribesLostSubscriptions() {
+    var kept = subscribed.get(KonnektorEvent.CARD_INSERTED);
+    var lost = subscribed.get(KonnektorEvent.CARD_REMOVED);
+
+    // the Konnektor only knows one of them anymore
+    when(konnektor.renewSubscriptions(any()))
+        .thenReturn(
+            new RenewSubscriptionsResponse()
+                .withSubscribeRenewals(
+                    new RenewSubscriptionsResponse.SubscribeRenewals()
+                        .withSubscriptionRenewal(
+                            new SubscriptionRenewal().withSubscriptionID(kept))));
+
+    events.renew();
+
+    var renewCaptor = ArgumentCaptor.forClass(RenewSubscriptions.class);
+    verify(konnektor).renewSubscriptions(renewCaptor.capture());
+    assertTrue(renewCaptor.getValue().getSubscriptionID().containsAll(List.of(kept, lost)));
+
+    assertEquals(kept, subscribed.get(KonnektorEvent.CARD_INSERTED));
+    assertEquals("sub-3", subscribed.get(KonnektorEvent.CARD_REMOVED));
+  }
+
+  @Test
+  void renewalDelay_shortLifetime_noHotLoop() {
+    var renewBefore = Duration.ofMinutes(5);
+
+    assertEquals(
+        Duration.ofMinutes(55), KonnektorEventsImpl.renewalDelay(Duration.ofHours(1), renewBefore));
+    assertEquals(
+        Duration.ofSeconds(90),
+        KonnektorEventsImpl.renewalDelay(Duration.ofMinutes(3), renewBefore));
+    assertEquals(
+        KonnektorEventsImpl.MIN_RENEWAL_DELAY,
+        KonnektorEventsImpl.renewalDelay(Duration.ofSeconds(-1), renewBefore));
+  }
+
+  @Test
+  void close_unsubscribes() {
+    events.close();
+
+    var captor = ArgumentCaptor.forClass(Unsubscribe.class);
+    verify(konnektor, atLeastOnce()).unsubscribe(captor.capture());
+    assertEquals(
+        subscribed.values().stream().sorted().toList(),
+        captor.getAllValues().stream().map(Unsubscribe::getSubscriptionID).sorted().toList());
+  }
+
+  private static Event cardEvent(String topic, String cardHandle) {
+    return new Event()
+        .withTopic(topic)
+        .withType(EventType.OPERATION)
+        .withSeverity(EventSeverityType.INFO)
+        .withSubscriptionID("sub-1")
+        .withMessage(
+            new Event.Message()
+                .withParameter(
+                    new Event.Message.Parameter().withKey("CardHandle").withValue(cardHandle),
+                    new Event.Message.Parameter().withKey("CardType").withValue("SM-B")));
+  }
+
+  private static void writeFrame(DataOutputStream out, Event event) throws Exception {
+    var xml = new ByteArrayOutputStream();
+    JAXBContext.newInstance(Event.class).createMarshaller().marshal(event, xml);
+
+    out.write("CETP".getBytes(StandardCharsets.US_ASCII));
+    out.writeInt(xml.size());
+    xml.writeTo(out);
+  }
+}
@@ -0,0 +1,69 @@
+package com.oviva.epa.client.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.oviva.epa.client.model.WriteDocumentException.Error;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class KonnektorServiceImplTest {
+
+  @Test
+  void errorsByDocument_matchesLocationAndValue() {
+    var documentIds =
+        List.of(
+            Set.of("urn:uuid:a7b1d3c2-0000-4000-8000-000000000001", "1.2.3.1"),
+            Set.of("urn:uuid:a7b1d3c2-0000-4000-8000-000000000002", "1.2.3.2"));
+
+    var byLocation =
+        new Error(
+            "invalid format code",
+            null,
+            "XDSRegistryMetadataError",
+            "Error",
+            "urn:uuid:a7b1d3c2-0000-4000-8000-000000000002");
+    var byValue =
+        new Error(
+            "duplicate uniqueId 1.2.3.1", null, "XDSDuplicateUniqueIdInRegistry", "Error", null);
+    var unrelated = new Error("submission set invalid", null, "XDSRegistryError", "Error", "");
+
+    var errors =
+        KonnektorServiceImpl.errorsByDocument(List.of(byLocation, byValue, unrelated), documentIds);
+
+    assertEquals(Map.of(0, List.of(byValue), 1, List.of(byLocation)), errors);
+  }
+
+  @Test
+  void errorsByDocument_prefixOfOtherIdDoesNotMatch() {
+    var documentIds = List.of(Set.of("1.2.276.0.76.4.188.1.1"), Set.of("1.2.276.0.76.4.188.1.12"));
+
+    var second =
+        new Error(
+            "duplicate uniqueId 1.2.276.0.76.4.188.1.12.",
+            null,
+            "XDSDuplicateUniqueIdInRegistry",
+            "Error",
+            null);
+    var first =
+        new Error("invalid", null, "XDSRegistryMetadataError", "Error", "1.2.276.0.76.4.188.1.1");
+
+    var errors = KonnektorServiceImpl.errorsByDocument(List.of(second, first), documentIds);
+
+    assertEquals(Map.of(0, List.of(first), 1, List.of(second)), errors);
+  }
+
+  @Test
+  void containsId_boundaries() {
+    assertTrue(KonnektorServiceImpl.containsId("uniqueId 1.2.3.1", "1.2.3.1"));
+    assertTrue(KonnektorServiceImpl.containsId("(1.2.3.1) is invalid.", "1.2.3.1"));
+    assertTrue(KonnektorServiceImpl.containsId("duplicate 1.2.3.1.", "1.2.3.1"));
+    assertFalse(KonnektorServiceImpl.containsId("uniqueId 1.2.3.12", "1.2.3.1"));
+    assertFalse(KonnektorServiceImpl.containsId("uniqueId 1.2.3.1.5", "1.2.3.1"));
+    assertFalse(KonnektorServiceImpl.containsId("uniqueId 11.2.3.1", "1.2.3.1"));
+    assertFalse(KonnektorServiceImpl.containsId(null, "1.2.3.1"));
+  }
+}
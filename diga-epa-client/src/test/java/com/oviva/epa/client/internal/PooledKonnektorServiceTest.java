@@ -0,0 +1,206 @@
+package com.oviva.epa.client.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.oviva.epa.client.KonnektorService;
+import com.oviva.epa.client.model.Card;
+import com.oviva.epa.client.model.KonnektorException;
+import com.oviva.epa.client.model.PinStatus;
+import com.oviva.epa.client.model.RecordIdentifier;
+import de.gematik.epa.ihe.model.document.Document;
+import jakarta.xml.ws.WebServiceException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import telematik.ws.conn.exception.FaultMessageException;
+import telematik.ws.conn.phrs.phrmanagementservice.wsdl.v2_5.FaultMessage;
+
+class PooledKonnektorServiceTest {
+
+  private static final Duration EJECTION_TIME = Duration.ofSeconds(30);
+
+  private final AtomicLong now = new AtomicLong(1);
+
+  @Test
+  void ejectsAfterFailures_readmitsAfterEjectionTime() {
+    var broken = mock(KonnektorService.class);
+    var healthy = mock(KonnektorService.class);
+    when(broken.getHomeCommunityID(anyString())).thenThrow(new WebServiceException("down"));
+    when(healthy.getHomeCommunityID(anyString())).thenReturn("hcid");
+
+    var pool = pool(List.of(broken, healthy), false);
+
+    for (int i = 0; i < 20; i++) {
+      assertEquals("hcid", pool.getHomeCommunityID("X110000000"));
+    }
+    assertEquals(1, pool.availableNodeCount());
+    verify(broken, times(1)).getHomeCommunityID(anyString());
+
+    now.addAndGet(EJECTION_TIME.toNanos());
+    assertEquals(2, pool.availableNodeCount());
+
+    // a single failure after re-admission ejects it again
+    for (int i = 0; i < 20; i++) {
+      assertEquals("hcid", pool.getHomeCommunityID("X110000000"));
+    }
+    assertEquals(1, pool.availableNodeCount());
+    verify(broken, times(2)).getHomeCommunityID(anyString());
+  }
+
+  @Test
+  void writesAreNotRetried() {
+    var broken = mock(KonnektorService.class);
+    var healthy = mock(KonnektorService.class);
+    when(broken.writeDocument(any(), any())).thenThrow(new WebServiceException("timeout"));
+    when(healthy.writeDocument(any(), any())).thenThrow(new WebServiceException("timeout"));
+
+    var pool = pool(List.of(broken, healthy), false);
+    var recordIdentifier = new RecordIdentifier("X110000000", "1.2.3");
+    var document = mock(Document.class);
+
+    assertThrows(WebServiceException.class, () -> pool.writeDocument(recordIdentifier, document));
+
+    // exactly one of the nodes was asked to write
+    var writes =
+        mockingDetails(broken).getInvocations().size()
+            + mockingDetails(healthy).getInvocations().size();
+    assertEquals(1, writes);
+  }
+
+  @Test
+  void faultMessages_neitherEjectNorRetry() {
+    var a = mock(KonnektorService.class);
+    var b = mock(KonnektorService.class);
+    var fault = new FaultMessage("no record");
+    when(a.getHomeCommunityID(anyString())).thenThrow(fault);
+    when(b.getHomeCommunityID(anyString())).thenThrow(fault);
+
+    var pool = pool(List.of(a, b), false);
+
+    assertThrows(FaultMessageException.class, () -> pool.getHomeCommunityID("X110000000"));
+    assertEquals(2, pool.availableNodeCount());
+
+    // the Konnektor answered, asking another one gives the same answer
+    var calls =
+        mockingDetails(a).getInvocations().size() + mockingDetails(b).getInvocations().size();
+    assertEquals(1, calls);
+  }
+
+  @Test
+  void cardHandleRoutedToIssuingKonnektor() {
+    var a = mock(KonnektorService.class);
+    var b = mock(KonnektorService.class);
+    when(a.getCardsInfo()).thenReturn(List.of(new Card("card-a", "A", Card.CardType.SMC_B)));
+    when(b.getCardsInfo()).thenReturn(List.of(new Card("card-b", "B", Card.CardType.SMC_B)));
+    when(b.verifySmcPin("card-b")).thenReturn(PinStatus.VERIFIED);
+
+    var pool = pool(List.of(a, b), false);
+
+    assertEquals(2, pool.getCardsInfo().size());
+    for (int i = 0; i < 10; i++) {
+      assertEquals(PinStatus.VERIFIED, pool.verifySmcPin("card-b"));
+    }
+    verify(a, never()).verifySmcPin(anyString());
+  }
+
+  @Test
+  void cardHandleOnSeveralKonnektors_fails() {
+    var a = mock(KonnektorService.class);
+    var b = mock(KonnektorService.class);
+    when(a.getCardsInfo()).thenReturn(List.of(new Card("card-1", "A", Card.CardType.SMC_B)));
+    when(b.getCardsInfo()).thenReturn(List.of(new Card("card-1", "B", Card.CardType.SMC_B)));
+
+    var pool = pool(List.of(a, b), false);
+
+    assertEquals(2, pool.getCardsInfo().size());
+    assertThrows(KonnektorException.class, () -> pool.verifySmcPin("card-1"));
+    assertThrows(
+        KonnektorException.class,
+        () -> pool.readCardCertificates(List.of("card-1"), Set.of(), Set.of()));
+    verify(a, never()).verifySmcPin(anyString());
+    verify(b, never()).verifySmcPin(anyString());
+
+    // once the card is gone from one of them, the handle is unambiguous again
+    when(a.getCardsInfo()).thenReturn(List.of());
+    when(b.verifySmcPin("card-1")).thenReturn(PinStatus.VERIFIED);
+    pool.getCardsInfo();
+    assertEquals(PinStatus.VERIFIED, pool.verifySmcPin("card-1"));
+  }
+
+  @Test
+  void routeByKvnr_sticksToOneKonnektor() {
+    var a = mock(KonnektorService.class);
+    var b = mock(KonnektorService.class);
+    var c = mock(KonnektorService.class);
+    when(a.getHomeCommunityID(anyString())).thenReturn("a");
+    when(b.getHomeCommunityID(anyString())).thenReturn("b");
+    when(c.getHomeCommunityID(anyString())).thenReturn("c");
+
+    var pool = pool(List.of(a, b, c), true);
+
+    var first = pool.getHomeCommunityID("X110000001");
+    for (int i = 0; i < 20; i++) {
+      assertEquals(first, pool.getHomeCommunityID("X110000001"));
+    }
+  }
+
+  @Test
+  void allEjected_stillTried() {
+    var a = mock(KonnektorService.class);
+    var b = mock(KonnektorService.class);
+    when(a.getHomeCommunityID(anyString())).thenThrow(new WebServiceException("down"));
+    when(b.getHomeCommunityID(anyString())).thenThrow(new WebServiceException("down"));
+
+    var pool = pool(List.of(a, b), false);
+
+    assertThrows(WebServiceException.class, () -> pool.getHomeCommunityID("X110000000"));
+    assertEquals(0, pool.availableNodeCount());
+
+    doReturn("hcid").when(a).getHomeCommunityID(anyString());
+    doReturn("hcid").when(b).getHomeCommunityID(anyString());
+    assertEquals("hcid", pool.getHomeCommunityID("X110000000"));
+  }
+
+  @Test
+  void authorizationListIsNotRetried() {
+    var a = mock(KonnektorService.class);
+    var b = mock(KonnektorService.class);
+    when(a.getAuthorizationList()).thenThrow(new WebServiceException("timeout"));
+    when(b.getAuthorizationList()).thenThrow(new WebServiceException("timeout"));
+
+    var pool = pool(List.of(a, b), false);
+
+    assertThrows(WebServiceException.class, pool::getAuthorizationList);
+
+    var calls =
+        mockingDetails(a).getInvocations().size() + mockingDetails(b).getInvocations().size();
+    assertEquals(1, calls);
+  }
+
+  @Test
+  void close_closesAllNodes() {
+    var a = mock(KonnektorService.class);
+    var b = mock(KonnektorService.class);
+
+    pool(List.of(a, b), false).close();
+
+    verify(a).close();
+    verify(b).close();
+  }
+
+  private PooledKonnektorService pool(List<KonnektorService> nodes, boolean routeByKvnr) {
+    return new PooledKonnektorService(nodes, EJECTION_TIME, 1, routeByKvnr, now::get);
+  }
+}
@@ -0,0 +1,87 @@
+package com.oviva.epa.client.internal.outbox;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SegmentedLogTest {
+
+  @TempDir Path dir;
+
+  @Test
+  void replaysUnreleasedEntries() {
+    try (var log = SegmentedLog.open(dir, 1024, Duration.ZERO)) {
+      var a = log.append(bytes("a"));
+      var b = log.append(bytes("b"));
+      var c = log.append(bytes("c"));
+      a.durable().join();
+      b.durable().join();
+      c.durable().join();
+      log.release(b.id(), bytes("done"));
+    }
+
+    try (var log = SegmentedLog.open(dir, 1024, Duration.ZERO)) {
+      var replayed = log.replayed();
+      assertEquals(List.of("a", "c"), replayed.stream().map(e -> string(e.payload())).toList());
+
+      // ids keep increasing across runs
+      assertEquals(3, log.append(bytes("d")).id());
+    }
+  }
+
+  @Test
+  void deletesReleasedSegments() {
+    try (var log = SegmentedLog.open(dir, 64, Duration.ZERO)) {
+      var first = log.append(new byte[64]);
+      var second = log.append(new byte[64]);
+      log.append(new byte[64]).durable().join();
+      assertEquals(3, log.segmentCount());
+
+      // the oldest segment must go first, otherwise its release records could get lost
+      log.release(second.id(), bytes("done"));
+      assertEquals(4, log.segmentCount());
+
+      log.release(first.id(), bytes("done"));
+      assertEquals(2, log.segmentCount());
+    }
+
+    try (var log = SegmentedLog.open(dir, 64, Duration.ZERO)) {
+      assertEquals(1, log.replayed().size());
+    }
+  }
+
+  @Test
+  void ignoresTornRecord() throws IOException {
+    try (var log = SegmentedLog.open(dir, 1024, Duration.ZERO)) {
+      log.append(bytes("a")).durable().join();
+    }
+
+    try (var files = Files.list(dir)) {
+      var segment = files.sorted().findFirst().orElseThrow();
+      // half a record, as if the process died while writing
+      Files.write(segment, new byte[] {0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+    }
+
+    try (var log = SegmentedLog.open(dir, 1024, Duration.ZERO)) {
+      assertEquals(1, log.replayed().size());
+      assertArrayEquals(bytes("a"), log.replayed().get(0).payload());
+    }
+  }
+
+  private static byte[] bytes(String s) {
+    return s.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static String string(byte[] b) {
+    return new String(b, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,218 @@
+package com.oviva.epa.client.internal.outbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.oviva.epa.client.KonnektorService;
+import com.oviva.epa.client.WriteOutbox;
+import com.oviva.epa.client.WriteOutboxBuilder;
+import com.oviva.epa.client.internal.ExceptionMappedKonnektorService;
+import com.oviva.epa.client.model.KonnektorException;
+import com.oviva.epa.client.model.RecordIdentifier;
+import com.oviva.epa.client.model.WriteDocumentException;
+import com.oviva.epa.client.model.WriteDocumentResponse;
+import com.oviva.epa.client.model.WriteRequest;
+import com.oviva.epa.client.model.WriteResult;
+import de.gematik.epa.ihe.model.document.Document;
+import de.gematik.epa.ihe.model.document.DocumentMetadata;
+import jakarta.xml.ws.WebServiceException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import telematik.ws.conn.phrs.phrmanagementservice.wsdl.v2_5.FaultMessage;
+
+class WriteOutboxImplTest {
+
+  @TempDir Path dir;
+
+  private static final RecordIdentifier RECORD = new RecordIdentifier("X110000000", "hcid");
+
+  @Test
+  void writesRequestsLeftByPreviousRun() throws Exception {
+    var down = mock(KonnektorService.class);
+    when(down.writeDocument(any(), any())).thenThrow(new WebServiceException("unavailable"));
+    when(down.replaceDocument(any(), any(), any()))
+        .thenThrow(new WebServiceException("unavailable"));
+
+    var request = WriteRequest.write(RECORD, document("report"));
+    var replace = WriteRequest.replace(RECORD, document("update"), UUID.randomUUID());
+    try (var outbox = newOutbox(new ExceptionMappedKonnektorService(down), r -> {})) {
+      outbox.submit(request);
+      outbox.submit(replace);
+      assertEquals(2, outbox.pending());
+    }
+
+    var results = new CopyOnWriteArrayList<WriteResult>();
+    var up = mock(KonnektorService.class);
+    when(up.writeDocument(any(), any())).thenReturn(new WriteDocumentResponse("1"));
+    when(up.replaceDocument(any(), any(), any())).thenReturn(new WriteDocumentResponse("2"));
+
+    try (var outbox = newOutbox(up, results::add)) {
+      awaitEmpty(outbox);
+    }
+
+    assertEquals(2, results.size());
+    verify(up).writeDocument(RECORD, request.document());
+    verify(up).replaceDocument(RECORD, replace.document(), replace.documentToReplaceId());
+
+    // completed ones are gone for good
+    try (var outbox = newOutbox(up, r -> {})) {
+      assertEquals(0, outbox.pending());
+    }
+  }
+
+  @Test
+  void retriesTransportErrors_butNotRejections() throws Exception {
+    var rejection = new WriteDocumentException("failure", List.of());
+    var rejected = document("rejected");
+
+    var service = mock(KonnektorService.class);
+    when(service.writeDocument(any(), any()))
+        .thenAnswer(
+            inv -> {
+              if (inv.getArgument(1).equals(rejected)) {
+                throw rejection;
+              }
+              return new WriteDocumentResponse("1");
+            });
+    when(service.writeDocument(RECORD, document("flaky")))
+        .thenThrow(new WebServiceException("timeout"))
+        .thenReturn(new WriteDocumentResponse("2"));
+
+    try (var outbox = newOutbox(new ExceptionMappedKonnektorService(service), r -> {})) {
+      var flaky = outbox.submit(WriteRequest.write(RECORD, document("flaky")));
+      var failing = outbox.submit(WriteRequest.write(RECORD, rejected));
+
+      assertEquals("2", flaky.get(5, TimeUnit.SECONDS).requestId());
+      var e = assertThrows(CompletionException.class, failing::join);
+      assertSame(rejection, e.getCause());
+      awaitEmpty(outbox);
+    }
+
+    verify(service, times(1)).writeDocument(RECORD, rejected);
+    verify(service, times(2)).writeDocument(RECORD, document("flaky"));
+  }
+
+  @Test
+  void faultsAreNotRetried() throws Exception {
+    var service = mock(KonnektorService.class);
+    when(service.writeDocument(any(), any())).thenThrow(new FaultMessage("no record"));
+
+    try (var outbox = newOutbox(new ExceptionMappedKonnektorService(service), r -> {})) {
+      var future = outbox.submit(WriteRequest.write(RECORD, document("report")));
+
+      var e = assertThrows(CompletionException.class, future::join);
+      assertInstanceOf(KonnektorException.class, e.getCause());
+      awaitEmpty(outbox);
+    }
+
+    verify(service, times(1)).writeDocument(any(), any());
+  }
+
+  @Test
+  void errorFailsRequest_workerKeepsDraining() throws Exception {
+    var error = new AssertionError("broken");
+    var service = mock(KonnektorService.class);
+    when(service.writeDocument(any(), any()))
+        .thenThrow(error)
+        .thenReturn(new WriteDocumentResponse("4711"));
+
+    try (var outbox =
+        WriteOutboxBuilder.newBuilder().service(service).directory(dir).concurrency(1).build()) {
+      var failed = outbox.submit(WriteRequest.write(RECORD, document("report")));
+      var e = assertThrows(CompletionException.class, failed::join);
+      assertSame(error, e.getCause().getCause());
+
+      var written = outbox.submit(WriteRequest.write(RECORD, document("report")));
+      assertEquals("4711", written.get(5, TimeUnit.SECONDS).requestId());
+      awaitEmpty(outbox);
+    }
+  }
+
+  @Test
+  void givesUpAfterMaxAttempts() throws Exception {
+    var service = mock(KonnektorService.class);
+    when(service.writeDocument(any(), any())).thenThrow(new WebServiceException("timeout"));
+
+    try (var outbox =
+        WriteOutboxBuilder.newBuilder()
+            .service(new ExceptionMappedKonnektorService(service))
+            .directory(dir)
+            .backoff(Duration.ofMillis(1), Duration.ofMillis(5))
+            .maxAttempts(3)
+            .build()) {
+      var future = outbox.submit(WriteRequest.write(RECORD, document("report")));
+
+      var e = assertThrows(CompletionException.class, future::join);
+      assertInstanceOf(KonnektorException.class, e.getCause());
+      awaitEmpty(outbox);
+    }
+
+    verify(service, times(3)).writeDocument(any(), any());
+  }
+
+  private WriteOutbox newOutbox(
+      KonnektorService service, java.util.function.Consumer<WriteResult> onResult) {
+    return WriteOutboxBuilder.newBuilder()
+        .service(service)
+        .directory(dir)
+        .concurrency(2)
+        .backoff(Duration.ofMillis(10), Duration.ofMillis(50))
+        .onResult(onResult)
+        .build();
+  }
+
+  private static void awaitEmpty(WriteOutbox outbox) throws InterruptedException {
+    for (int i = 0; i < 500 && outbox.pending() > 0; i++) {
+      Thread.sleep(10);
+    }
+    assertEquals(0, outbox.pending());
+  }
+
+  private static Document document(String content) {
+    var metadata =
+        new DocumentMetadata(
+            List.of(),
+            "AVAILABLE",
+            List.of("N"),
+            null,
+            null,
+            LocalDateTime.of(2024, 1, 2, 3, 4),
+            "urn:uuid:" + UUID.nameUUIDFromBytes(content.getBytes(StandardCharsets.UTF_8)),
+            List.of(),
+            null,
+            null,
+            null,
+            "de-DE",
+            null,
+            "application/pdf",
+            null,
+            List.of(),
+            null,
+            null,
+            content.length(),
+            content,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null);
+    return new Document(content.getBytes(StandardCharsets.UTF_8), metadata, null);
+  }
+}
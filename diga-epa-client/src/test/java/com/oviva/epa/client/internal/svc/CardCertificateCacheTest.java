@@ -0,0 +1,89 @@
+package com.oviva.epa.client.internal.svc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.security.cert.X509Certificate;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import telematik.ws.conn.certificateservice.xsd.v6_0.CryptType;
+import telematik.ws.conn.certificateservicecommon.xsd.v2_0.CertRefEnum;
+
+class CardCertificateCacheTest {
+
+  private static final Instant NOW = Instant.parse("2024-05-01T10:00:00Z");
+
+  private final CardCertificateCache cache =
+      new CardCertificateCache(100, Clock.fixed(NOW, ZoneOffset.UTC));
+
+  @Test
+  void get_cachedPerCardRefAndCrypt() {
+    var calls = new AtomicInteger();
+    var ecc = certificate(NOW.plus(Duration.ofDays(365)));
+    var rsa = certificate(NOW.plus(Duration.ofDays(365)));
+
+    assertSame(ecc, cache.get("h1", CertRefEnum.C_AUT, CryptType.ECC, () -> load(calls, ecc)));
+    assertSame(ecc, cache.get("h1", CertRefEnum.C_AUT, CryptType.ECC, () -> load(calls, ecc)));
+    assertSame(rsa, cache.get("h1", CertRefEnum.C_AUT, CryptType.RSA, () -> load(calls, rsa)));
+    assertSame(rsa, cache.get("h2", CertRefEnum.C_AUT, CryptType.RSA, () -> load(calls, rsa)));
+
+    assertEquals(3, calls.get());
+  }
+
+  @Test
+  void get_expiredCertificate_notCached() {
+    var calls = new AtomicInteger();
+    var expired = certificate(NOW);
+
+    cache.get("h1", CertRefEnum.C_AUT, CryptType.ECC, () -> load(calls, expired));
+    cache.get("h1", CertRefEnum.C_AUT, CryptType.ECC, () -> load(calls, expired));
+
+    assertEquals(2, calls.get());
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void invalidateCard() {
+    var cert = certificate(NOW.plus(Duration.ofDays(1)));
+    cache.put("h1", CertRefEnum.C_AUT, CryptType.ECC, cert);
+    cache.put("h1", CertRefEnum.C_SIG, CryptType.ECC, cert);
+    cache.put("h2", CertRefEnum.C_AUT, CryptType.ECC, cert);
+
+    cache.invalidateCard("h1");
+
+    assertNull(cache.cached("h1", CertRefEnum.C_AUT, CryptType.ECC));
+    assertNull(cache.cached("h1", CertRefEnum.C_SIG, CryptType.ECC));
+    assertSame(cert, cache.cached("h2", CertRefEnum.C_AUT, CryptType.ECC));
+  }
+
+  @Test
+  void disabled() {
+    var calls = new AtomicInteger();
+    var cert = certificate(NOW.plus(Duration.ofDays(1)));
+    var disabled = CardCertificateCache.disabled();
+
+    disabled.get("h1", CertRefEnum.C_AUT, CryptType.ECC, () -> load(calls, cert));
+    disabled.get("h1", CertRefEnum.C_AUT, CryptType.ECC, () -> load(calls, cert));
+
+    assertEquals(2, calls.get());
+  }
+
+  private static X509Certificate load(AtomicInteger calls, X509Certificate cert) {
+    calls.incrementAndGet();
+    return cert;
+  }
+
+  private static X509Certificate certificate(Instant notAfter) {
+    var cert = mock(X509Certificate.class);
+    when(cert.getNotAfter()).thenReturn(Date.from(notAfter));
+    return cert;
+  }
+}
@@ -0,0 +1,126 @@
+package com.oviva.epa.client.internal.svc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigInteger;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import telematik.ws.conn.eventservice.wsdl.v6_1.FaultMessage;
+import telematik.ws.conn.eventservice.xsd.v6_1.GetCardsResponse;
+import telematik.ws.tel.error.telematikerror.xsd.v2_0.Error;
+
+class CardRegistryTest {
+
+  private final MutableClock clock = new MutableClock(Instant.parse("2024-05-01T10:00:00Z"));
+
+  private final CardRegistry registry = new CardRegistry(Duration.ofMinutes(1), clock);
+
+  @Test
+  void get_cachesUntilTtl() {
+    var calls = new AtomicInteger();
+
+    var first = registry.get(() -> load(calls));
+    assertSame(first, registry.get(() -> load(calls)));
+    assertEquals(1, calls.get());
+
+    clock.advance(Duration.ofMinutes(1));
+    registry.get(() -> load(calls));
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  void invalidateOnUnknownCard() {
+    var calls = new AtomicInteger();
+    registry.get(() -> load(calls));
+
+    // other faults keep the cards
+    assertThrows(
+        FaultMessage.class,
+        () ->
+            registry.invalidateOnUnknownCard(
+                () -> {
+                  throw fault(4000);
+                }));
+    registry.get(() -> load(calls));
+    assertEquals(1, calls.get());
+
+    assertThrows(
+        FaultMessage.class,
+        () ->
+            registry.invalidateOnUnknownCard(
+                () -> {
+                  throw fault(4101);
+                }));
+    registry.get(() -> load(calls));
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  void invalidate_whileLoading_notCached() {
+    var calls = new AtomicInteger();
+
+    registry.get(
+        () -> {
+          registry.invalidate();
+          return load(calls);
+        });
+    registry.get(() -> load(calls));
+
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  void disabled() {
+    var calls = new AtomicInteger();
+    var disabled = CardRegistry.disabled();
+
+    disabled.get(() -> load(calls));
+    disabled.get(() -> load(calls));
+
+    assertEquals(2, calls.get());
+  }
+
+  private static GetCardsResponse load(AtomicInteger calls) {
+    calls.incrementAndGet();
+    return new GetCardsResponse();
+  }
+
+  private static FaultMessage fault(int code) {
+    return new FaultMessage(
+        "failed", new Error().withTrace(new Error.Trace().withCode(BigInteger.valueOf(code))));
+  }
+
+  private static class MutableClock extends Clock {
+    private Instant now;
+
+    MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    void advance(Duration d) {
+      now = now.plus(d);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
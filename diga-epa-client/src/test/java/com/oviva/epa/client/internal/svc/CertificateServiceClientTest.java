@@ -0,0 +1,89 @@
+package com.oviva.epa.client.internal.svc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.oviva.epa.client.internal.svc.model.KonnektorContext;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import telematik.ws.conn.certificateservice.wsdl.v6_0.CertificateServicePortType;
+import telematik.ws.conn.certificateservice.xsd.v6_0.CryptType;
+import telematik.ws.conn.certificateservice.xsd.v6_0.ReadCardCertificate;
+import telematik.ws.conn.certificateservice.xsd.v6_0.ReadCardCertificateResponse;
+import telematik.ws.conn.certificateservicecommon.xsd.v2_0.CertRefEnum;
+import telematik.ws.conn.certificateservicecommon.xsd.v2_0.X509DataInfoListType;
+import telematik.ws.conn.certificateservicecommon.xsd.v2_0.X509DataInfoListType.X509DataInfo;
+
+class CertificateServiceClientTest {
+
+  // self-signed, valid for a century
+  private static final byte[] CERTIFICATE =
+      Base64.getDecoder()
+          .decode(
+              "MIIBdjCCARugAwIBAgIUcEAZjYKGCXnPYFzOFYRlHBlFITUwCgYIKoZIzj0EAwIwDzENMAsGA1UEAwwEdGVzdDAgFw0yNjEwMTcyMjA3MjlaGA8yMTI2MDkyMzIyMDcyOVowDzENMAsGA1UEAwwEdGVzdDBZMBMGByqGSM49AgEGCCqGSM49AwEHA0IABNHzyNQk7aQeL6uU6t8B6QPn6XQ8AzZOiLSYicG0vVf/tSMjcHDA45cRHRqN0jUtWT/bJ0jKxiLMH8N1WyYkX6qjUzBRMB0GA1UdDgQWBBSnMjNYcGJH8eLw02HZP5YGkt2O2DAfBgNVHSMEGDAWgBSnMjNYcGJH8eLw02HZP5YGkt2O2DAPBgNVHRMBAf8EBTADAQH/MAoGCCqGSM49BAMCA0kAMEYCIQC5AJUj1YS3sXHjYLTv4V6RDHeFIKYi+ZBoRvqL9t6/GAIhAIFnXeJx7bnTBvG9m7MEnwm0eMNnK5M3vFaOlza7CDxX");
+
+  private final CertificateServicePortType port = mock(CertificateServicePortType.class);
+
+  private final CertificateServiceClient client =
+      new CertificateServiceClient(
+          port, new KonnektorContext("m", "c", "w", "u"), new CardCertificateCache(100));
+
+  @Test
+  void readCardCertificates_oneCallMappedByRef() {
+    when(port.readCardCertificate(any()))
+        .thenReturn(response(info(CertRefEnum.C_ENC), info(CertRefEnum.C_AUT)));
+
+    var certificates =
+        client.readCardCertificates(
+            "h1", CryptType.ECC, List.of(CertRefEnum.C_AUT, CertRefEnum.C_ENC, CertRefEnum.C_SIG));
+
+    assertEquals(Set.of(CertRefEnum.C_AUT, CertRefEnum.C_ENC), certificates.keySet());
+    assertNotNull(certificates.get(CertRefEnum.C_AUT));
+
+    var captor = ArgumentCaptor.forClass(ReadCardCertificate.class);
+    verify(port).readCardCertificate(captor.capture());
+    var request = captor.getValue();
+    assertEquals("h1", request.getCardHandle());
+    assertEquals(CryptType.ECC, request.getCrypt());
+    assertEquals(
+        List.of(CertRefEnum.C_AUT, CertRefEnum.C_ENC, CertRefEnum.C_SIG),
+        request.getCertRefList().getCertRef());
+  }
+
+  @Test
+  void readCardCertificates_onlyMissingRefsRead() {
+    when(port.readCardCertificate(any()))
+        .thenReturn(response(info(CertRefEnum.C_AUT)))
+        .thenReturn(response(info(CertRefEnum.C_ENC)));
+
+    client.readCardCertificates("h1", CryptType.ECC, List.of(CertRefEnum.C_AUT));
+    var certificates =
+        client.readCardCertificates(
+            "h1", CryptType.ECC, List.of(CertRefEnum.C_AUT, CertRefEnum.C_ENC));
+
+    assertEquals(Set.of(CertRefEnum.C_AUT, CertRefEnum.C_ENC), certificates.keySet());
+
+    var captor = ArgumentCaptor.forClass(ReadCardCertificate.class);
+    verify(port, times(2)).readCardCertificate(captor.capture());
+    assertEquals(List.of(CertRefEnum.C_ENC), captor.getValue().getCertRefList().getCertRef());
+  }
+
+  private static ReadCardCertificateResponse response(X509DataInfo... infos) {
+    return new ReadCardCertificateResponse()
+        .withX509DataInfoList(new X509DataInfoListType().withX509DataInfo(infos));
+  }
+
+  private static X509DataInfo info(CertRefEnum certRef) {
+    return new X509DataInfo()
+        .withCertRef(certRef)
+        .withX509Data(new X509DataInfo.X509Data().withX509Certificate(CERTIFICATE));
+  }
+}
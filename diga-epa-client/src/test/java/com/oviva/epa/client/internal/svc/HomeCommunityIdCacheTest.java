@@ -0,0 +1,168 @@
+package com.oviva.epa.client.internal.svc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import jakarta.xml.ws.WebServiceException;
+import java.math.BigInteger;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import telematik.ws.conn.phrs.phrmanagementservice.wsdl.v2_5.FaultMessage;
+import telematik.ws.tel.error.telematikerror.xsd.v2_0.Error;
+
+class HomeCommunityIdCacheTest {
+
+  private static final String KVNR = "X110000000";
+  private static final int NO_RECORD = 7001;
+
+  private final MutableClock clock = new MutableClock(Instant.parse("2024-05-01T10:00:00Z"));
+
+  private final HomeCommunityIdCache cache =
+      new HomeCommunityIdCache(
+          Duration.ofHours(1),
+          Duration.ofMinutes(5),
+          Set.of(BigInteger.valueOf(NO_RECORD)),
+          100,
+          clock);
+
+  @Test
+  void get_cachesUntilTtl() {
+    var calls = new AtomicInteger();
+
+    assertEquals("hcid-1", cache.get(KVNR, () -> "hcid-" + calls.incrementAndGet()));
+    assertEquals("hcid-1", cache.get(KVNR, () -> "hcid-" + calls.incrementAndGet()));
+
+    clock.advance(Duration.ofHours(1));
+    assertEquals("hcid-2", cache.get(KVNR, () -> "hcid-" + calls.incrementAndGet()));
+  }
+
+  @Test
+  void get_fault_cachedForNegativeTtl_transportErrorNot() {
+    var fault = fault(NO_RECORD);
+    var calls = new AtomicInteger();
+
+    assertThrows(
+        WebServiceException.class,
+        () ->
+            cache.get(
+                "X1",
+                () -> {
+                  calls.incrementAndGet();
+                  throw new WebServiceException("timeout");
+                }));
+    assertEquals("hcid", cache.get("X1", () -> "hcid"));
+
+    var thrown =
+        assertThrows(
+            FaultMessage.class,
+            () ->
+                cache.get(
+                    KVNR,
+                    () -> {
+                      calls.incrementAndGet();
+                      throw fault;
+                    }));
+    assertSame(fault, thrown);
+    assertThrows(FaultMessage.class, () -> cache.get(KVNR, () -> "unexpected"));
+    assertEquals(2, calls.get());
+
+    clock.advance(Duration.ofMinutes(5));
+    assertEquals("hcid", cache.get(KVNR, () -> "hcid"));
+  }
+
+  @Test
+  void get_otherFaults_notCached() {
+    var calls = new AtomicInteger();
+
+    for (int i = 0; i < 2; i++) {
+      assertThrows(
+          FaultMessage.class,
+          () ->
+              cache.get(
+                  KVNR,
+                  () -> {
+                    calls.incrementAndGet();
+                    throw fault(4000);
+                  }));
+    }
+    assertEquals(2, calls.get());
+  }
+
+  private static FaultMessage fault(int code) {
+    return new FaultMessage(
+        "failed", new Error().withTrace(new Error.Trace().withCode(BigInteger.valueOf(code))));
+  }
+
+  @Test
+  void getAsync_concurrentLookups_shareOneCall() throws Exception {
+    var calls = new AtomicInteger();
+    var pending = new CompletableFuture<String>();
+
+    var first =
+        cache.getAsync(
+            KVNR,
+            k -> {
+              calls.incrementAndGet();
+              return pending;
+            });
+    var second =
+        cache.getAsync(
+            KVNR,
+            k -> {
+              calls.incrementAndGet();
+              return CompletableFuture.completedFuture("other");
+            });
+
+    pending.complete("hcid");
+
+    assertEquals("hcid", first.get(1, TimeUnit.SECONDS));
+    assertEquals("hcid", second.get(1, TimeUnit.SECONDS));
+    assertEquals(1, calls.get());
+    assertEquals("hcid", cache.get(KVNR, () -> "unexpected"));
+  }
+
+  @Test
+  void put_seedsCache() {
+    cache.put(KVNR, "seeded");
+    assertEquals("seeded", cache.get(KVNR, () -> "unexpected"));
+
+    cache.invalidate(KVNR);
+    assertEquals("loaded", cache.get(KVNR, () -> "loaded"));
+  }
+
+  private static class MutableClock extends Clock {
+    private Instant now;
+
+    MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    void advance(Duration d) {
+      now = now.plus(d);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
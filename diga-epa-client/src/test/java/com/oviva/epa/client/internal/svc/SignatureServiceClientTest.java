@@ -0,0 +1,107 @@
+package com.oviva.epa.client.internal.svc;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.oviva.epa.client.internal.svc.model.KonnektorContext;
+import com.oviva.epa.client.model.KonnektorException;
+import com.oviva.epa.client.model.SignatureRequest;
+import jakarta.xml.bind.JAXBElement;
+import java.util.List;
+import oasis.names.tc.dss._1_0.core.schema.Base64Signature;
+import oasis.names.tc.dss._1_0.core.schema.SignatureObject;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import telematik.ws.conn.connectorcommon.xsd.v5_0.Status;
+import telematik.ws.conn.plus.CMSAttribute;
+import telematik.ws.conn.signatureservice.wsdl.v7_5.SignatureServicePortType;
+import telematik.ws.conn.signatureservice.xsd.v7_5.SignDocument;
+import telematik.ws.conn.signatureservice.xsd.v7_5.SignDocumentResponse;
+import telematik.ws.conn.signatureservice.xsd.v7_5.SignResponse;
+
+class SignatureServiceClientTest {
+
+  private final SignatureServicePortType port = mock(SignatureServicePortType.class);
+
+  private final SignatureServiceClient client =
+      new SignatureServiceClient(port, new KonnektorContext("m", "c", "w", "u"));
+
+  @Test
+  void signDocuments_oneCall_resultsInRequestOrder() {
+    // answered out of order, the second one failed
+    when(port.signDocument(any()))
+        .thenReturn(
+            new SignDocumentResponse()
+                .withSignResponse(
+                    signed("sig-2", new byte[] {3}),
+                    new SignResponse()
+                        .withRequestID("sig-1")
+                        .withStatus(new Status().withResult("ERROR")),
+                    signed("sig-0", new byte[] {1})));
+
+    var requests =
+        List.of(
+            SignatureRequest.detached(new byte[] {10}),
+            SignatureRequest.detached(new byte[] {20}),
+            SignatureRequest.attached(new byte[] {30}));
+    var results = client.signDocuments("h1", "ECC", requests);
+
+    assertEquals(3, results.size());
+    assertSame(requests.get(0), results.get(0).request());
+    assertArrayEquals(new byte[] {1}, results.get(0).signature());
+    assertNull(results.get(1).signature());
+    assertInstanceOf(KonnektorException.class, results.get(1).error());
+    assertArrayEquals(new byte[] {3}, results.get(2).signature());
+
+    var captor = ArgumentCaptor.forClass(SignDocument.class);
+    verify(port).signDocument(captor.capture());
+    var req = captor.getValue();
+    assertEquals("h1", req.getCardHandle());
+    assertEquals("ECC", req.getCrypt());
+    assertEquals(3, req.getSignRequest().size());
+    assertArrayEquals(
+        new byte[] {20}, req.getSignRequest().get(1).getDocument().getBase64Data().getValue());
+    assertTrue(req.getSignRequest().get(2).getOptionalInputs().isIncludeEContent());
+  }
+
+  @Test
+  void signDocuments_cmsAttributes() {
+    when(port.signDocument(any()))
+        .thenReturn(new SignDocumentResponse().withSignResponse(signed("sig-0", new byte[] {1})));
+
+    var request =
+        SignatureRequest.detached(new byte[] {10})
+            .withCmsAttributes(
+                List.of(
+                    new SignatureRequest.CmsAttribute("1.2.3", new byte[] {4}, true),
+                    new SignatureRequest.CmsAttribute("1.2.4", new byte[] {5}, false)));
+    client.signDocuments("h1", "RSA", List.of(request));
+
+    var captor = ArgumentCaptor.forClass(SignDocument.class);
+    verify(port).signDocument(captor.capture());
+    var properties = captor.getValue().getSignRequest().get(0).getOptionalInputs().getProperties();
+
+    var signed = properties.getSignedProperties().getProperty().get(0);
+    assertEquals("1.2.3", signed.getIdentifier());
+    var attribute = (JAXBElement<?>) signed.getValue().getAny().get(0);
+    assertArrayEquals(new byte[] {4}, ((CMSAttribute) attribute.getValue()).getValue());
+
+    assertEquals("1.2.4", properties.getUnsignedProperties().getProperty().get(0).getIdentifier());
+  }
+
+  private static SignResponse signed(String requestId, byte[] signature) {
+    return new SignResponse()
+        .withRequestID(requestId)
+        .withStatus(new Status().withResult("OK"))
+        .withSignatureObject(
+            new SignatureObject().withBase64Signature(new Base64Signature().withValue(signature)));
+  }
+}
@@ -0,0 +1,136 @@
+package com.oviva.epa.client.internal.svc.phr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.oviva.epa.client.internal.svc.CardRegistry;
+import com.oviva.epa.client.internal.svc.CertificateServiceClient;
+import com.oviva.epa.client.internal.svc.EventServiceClient;
+import jakarta.xml.ws.WebServiceException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import telematik.ws.conn.cardservice.xsd.v8_1.CardInfoType;
+import telematik.ws.conn.cardservice.xsd.v8_1.Cards;
+import telematik.ws.conn.eventservice.xsd.v6_1.GetCardsResponse;
+
+class SmbInformationServiceClientTest {
+
+  private final EventServiceClient eventService = mock(EventServiceClient.class);
+  private final CertificateServiceClient certificateService = mock(CertificateServiceClient.class);
+
+  // holds back the reads of slow cards until the test is done
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+  private final SmbInformationServiceClient client =
+      new SmbInformationServiceClient(
+          eventService,
+          certificateService,
+          CardRegistry.disabled(),
+          executor,
+          Duration.ofMillis(500));
+
+  @AfterEach
+  void tearDown() {
+    release.countDown();
+    executor.shutdownNow();
+  }
+
+  @Test
+  void retrieveSmbInformations_partialResults() throws Exception {
+    var failure = new WebServiceException("card broken");
+    cards("h1", "h2", "h3");
+    when(certificateService.getTelematikIdForCard("h1")).thenReturn("1-1");
+    when(certificateService.getTelematikIdForCard("h2")).thenThrow(failure);
+    var interrupted = new CountDownLatch(1);
+    when(certificateService.getTelematikIdForCard("h3"))
+        .thenAnswer(
+            inv -> {
+              try {
+                release.await();
+              } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+              }
+              return "1-3";
+            });
+
+    var results = client.retrieveSmbInformations();
+
+    assertEquals(3, results.size());
+    assertEquals("h1", results.get(0).cardHandle());
+    assertEquals("1-1", results.get(0).smbInformation().telematikId());
+    assertNull(results.get(0).error());
+
+    assertSame(failure, results.get(1).error());
+
+    assertEquals("h3", results.get(2).cardHandle());
+    assertInstanceOf(WebServiceException.class, results.get(2).error());
+    assertTrue(results.get(2).error().getMessage().contains("timed out"));
+
+    // the read past the deadline does not keep holding a thread
+    assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void getSmbInformations_failsOnFailedCard() {
+    var failure = new WebServiceException("card broken");
+    cards("h1", "h2", "h3");
+    when(certificateService.getTelematikIdForCard("h1")).thenReturn("1-1");
+    when(certificateService.getTelematikIdForCard("h2")).thenThrow(failure);
+    when(certificateService.getTelematikIdForCard("h3")).thenReturn("1-3");
+
+    assertSame(failure, assertThrows(WebServiceException.class, client::getSmbInformations));
+  }
+
+  @Test
+  void getSmbInformations_allRead() {
+    cards("h1", "h2");
+    when(certificateService.getTelematikIdForCard("h1")).thenReturn("1-1");
+    when(certificateService.getTelematikIdForCard("h2")).thenReturn("1-2");
+
+    var informations = client.getSmbInformations();
+
+    assertEquals(2, informations.size());
+    assertEquals("1-1", informations.get(0).telematikId());
+    assertEquals("1-2", informations.get(1).telematikId());
+  }
+
+  @Test
+  void getSmbInformations_allFailed_throws() {
+    var failure = new WebServiceException("card broken");
+    cards("h1", "h2");
+    when(certificateService.getTelematikIdForCard("h1")).thenThrow(failure);
+    when(certificateService.getTelematikIdForCard("h2"))
+        .thenThrow(new WebServiceException("also broken"));
+
+    assertSame(failure, assertThrows(WebServiceException.class, client::getSmbInformations));
+  }
+
+  @Test
+  void getSmbInformations_noCards() {
+    cards();
+
+    assertTrue(client.getSmbInformations().isEmpty());
+  }
+
+  private void cards(String... handles) {
+    var cards = new Cards();
+    for (var h : handles) {
+      cards.getCard().add(new CardInfoType().withCardHandle(h).withCardHolderName("holder " + h));
+    }
+    when(eventService.getSmbInfo()).thenReturn(new GetCardsResponse().withCards(cards));
+  }
+}
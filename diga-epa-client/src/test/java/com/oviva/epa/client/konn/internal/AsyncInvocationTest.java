@@ -0,0 +1,204 @@
+package com.oviva.epa.client.konn.internal;
+
+import static jakarta.xml.ws.soap.SOAPBinding.SOAP11HTTP_BINDING;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.oviva.epa.client.konn.internal.util.KonnektorUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.ws.WebServiceException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.cxf.jaxws.JaxWsProxyFactoryBean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import telematik.ws.conn.cardservice.xsd.v8_1.CardInfoType;
+import telematik.ws.conn.cardservice.xsd.v8_1.Cards;
+import telematik.ws.conn.connectorcommon.xsd.v5_0.Status;
+import telematik.ws.conn.eventservice.wsdl.v6_1.EventServicePortType;
+import telematik.ws.conn.eventservice.xsd.v6_1.GetCards;
+import telematik.ws.conn.eventservice.xsd.v6_1.GetCardsResponse;
+
+class AsyncInvocationTest {
+
+  private static final String FAULT =
+      """
+      <?xml version="1.0" encoding="UTF-8"?>
+      <soap:Envelope xmlns:soap="http://schemas.xmlsoap.org/soap/envelope/"><soap:Body>\
+      <soap:Fault><faultcode>soap:Server</faultcode><faultstring>card not found</faultstring>\
+      </soap:Fault></soap:Body></soap:Envelope>"""
+          .strip();
+
+  private final CountDownLatch release = new CountDownLatch(1);
+  private HttpServer konnektor;
+  private ExecutorService executor;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "test-executor"));
+
+    var response = soapEnvelope(getCardsResponse("handle-a"));
+    konnektor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    konnektor.setExecutor(Executors.newCachedThreadPool());
+    konnektor.createContext("/ws/EventService", exchange -> respond(exchange, 200, response));
+    konnektor.createContext(
+        "/ws/SlowEventService",
+        exchange -> {
+          try {
+            release.await(5, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          respond(exchange, 200, response);
+        });
+    konnektor.createContext(
+        "/ws/FaultyEventService",
+        exchange -> respond(exchange, 500, FAULT.getBytes(StandardCharsets.UTF_8)));
+    konnektor.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    release.countDown();
+    konnektor.stop(0);
+    executor.shutdownNow();
+  }
+
+  @Test
+  void call_cxfProxy_completesOnExecutor() throws Exception {
+    var port = eventService("/ws/EventService");
+
+    var thread = new String[1];
+    var res =
+        AsyncInvocation.call(
+                port, EventServicePortType.class, p -> p.getCards(new GetCards()), executor)
+            .thenApply(
+                r -> {
+                  thread[0] = Thread.currentThread().getName();
+                  return r;
+                })
+            .get(5, TimeUnit.SECONDS);
+
+    assertEquals("handle-a", res.getCards().getCard().get(0).getCardHandle());
+    assertEquals("test-executor", thread[0]);
+  }
+
+  @Test
+  void call_cxfProxy_doesNotBlockCaller() throws Exception {
+    var port = eventService("/ws/SlowEventService");
+
+    var future =
+        AsyncInvocation.call(
+            port, EventServicePortType.class, p -> p.getCards(new GetCards()), executor);
+
+    assertFalse(future.isDone());
+    release.countDown();
+    assertEquals(
+        "handle-a", future.get(5, TimeUnit.SECONDS).getCards().getCard().get(0).getCardHandle());
+  }
+
+  @Test
+  void call_cxfProxy_mapsSoapFault() {
+    var port = eventService("/ws/FaultyEventService");
+
+    var future =
+        AsyncInvocation.call(
+            port, EventServicePortType.class, p -> p.getCards(new GetCards()), executor);
+
+    var e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+    // a SOAPFaultException only if a SAAJ implementation is present, like the synchronous proxy
+    var fault = assertInstanceOf(WebServiceException.class, e.getCause());
+    assertEquals("card not found", fault.getMessage());
+    assertFalse(KonnektorUtils.isTransportError(fault));
+  }
+
+  @Test
+  void call_cxfProxy_transportError() {
+    var port = eventService("/ws/EventService");
+    konnektor.stop(0);
+
+    var future =
+        AsyncInvocation.call(
+            port, EventServicePortType.class, p -> p.getCards(new GetCards()), executor);
+
+    var e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+    assertInstanceOf(WebServiceException.class, e.getCause());
+    assertTrue(KonnektorUtils.isTransportError((WebServiceException) e.getCause()));
+  }
+
+  @Test
+  void call_plainImplementation_runsOnExecutor() throws Exception {
+    var port = mock(EventServicePortType.class);
+    var res = new GetCardsResponse();
+    when(port.getCards(any())).thenReturn(res);
+
+    var future =
+        AsyncInvocation.call(
+            port, EventServicePortType.class, p -> p.getCards(new GetCards()), executor);
+
+    assertSame(res, future.get(5, TimeUnit.SECONDS));
+  }
+
+  private EventServicePortType eventService(String path) {
+    var factory = new JaxWsProxyFactoryBean();
+    factory.setBindingId(SOAP11HTTP_BINDING);
+    factory.setServiceClass(EventServicePortType.class);
+    factory.setAddress("http://127.0.0.1:%d%s".formatted(konnektor.getAddress().getPort(), path));
+    return factory.create(EventServicePortType.class);
+  }
+
+  private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+    exchange.getRequestBody().readAllBytes();
+    exchange.getResponseHeaders().add("Content-Type", "text/xml; charset=UTF-8");
+    exchange.sendResponseHeaders(status, body.length);
+    try (var os = exchange.getResponseBody()) {
+      os.write(body);
+    }
+  }
+
+  private static GetCardsResponse getCardsResponse(String cardHandle) {
+    var card = new CardInfoType();
+    card.setCardHandle(cardHandle);
+
+    var cards = new Cards();
+    cards.getCard().add(card);
+
+    var status = new Status();
+    status.setResult("OK");
+
+    var res = new GetCardsResponse();
+    res.setStatus(status);
+    res.setCards(cards);
+    return res;
+  }
+
+  private static byte[] soapEnvelope(Object body) throws Exception {
+    var os = new ByteArrayOutputStream();
+    var marshaller = JAXBContext.newInstance(body.getClass()).createMarshaller();
+    marshaller.setProperty("jaxb.fragment", true);
+    marshaller.marshal(body, os);
+    return ("""
+        <?xml version="1.0" encoding="UTF-8"?>
+        <soap:Envelope xmlns:soap="http://schemas.xmlsoap.org/soap/envelope/"><soap:Body>%s</soap:Body></soap:Envelope>"""
+            .formatted(os.toString(StandardCharsets.UTF_8)))
+        .strip()
+        .getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,47 @@
+package com.oviva.epa.client.konn.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.oviva.epa.client.konn.KonnektorConnection.ConnectionPool;
+import org.junit.jupiter.api.Test;
+
+class ConnectionLimiterTest {
+
+  @Test
+  void acquireAsync_waitsInOrder() {
+    var limiter = new ConnectionLimiter(1);
+
+    assertTrue(limiter.acquireAsync().isDone());
+    var second = limiter.acquireAsync();
+    var third = limiter.acquireAsync();
+    assertFalse(second.isDone());
+    assertEquals(new ConnectionPool(1, 1, 2, 1), limiter.stats());
+
+    limiter.release();
+    assertTrue(second.isDone());
+    assertFalse(third.isDone());
+
+    limiter.release();
+    assertTrue(third.isDone());
+
+    limiter.release();
+    assertEquals(new ConnectionPool(1, 0, 0, 3), limiter.stats());
+  }
+
+  @Test
+  void release_skipsCancelledWaiters() {
+    var limiter = new ConnectionLimiter(1);
+    limiter.acquire();
+
+    var cancelled = limiter.acquireAsync();
+    var waiting = limiter.acquireAsync();
+    cancelled.cancel(false);
+    assertEquals(1, limiter.stats().waiting());
+
+    limiter.release();
+    assertTrue(waiting.isDone());
+    assertEquals(new ConnectionPool(1, 1, 0, 2), limiter.stats());
+  }
+}
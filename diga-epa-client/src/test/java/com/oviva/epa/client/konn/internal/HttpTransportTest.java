@@ -0,0 +1,200 @@
+package com.oviva.epa.client.konn.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.oviva.epa.client.konn.HttpTransport;
+import com.oviva.epa.client.konn.KonnektorConnection.ConnectionPool;
+import com.oviva.epa.client.konn.internal.KonnektorConnectionConfiguration.HttpTransportConfig;
+import com.oviva.epa.client.konn.internal.KonnektorConnectionConfiguration.SdsCacheConfig;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.xml.bind.JAXBContext;
+import java.io.ByteArrayOutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import telematik.ws.conn.cardservice.xsd.v8_1.CardInfoType;
+import telematik.ws.conn.cardservice.xsd.v8_1.Cards;
+import telematik.ws.conn.connectorcommon.xsd.v5_0.Status;
+import telematik.ws.conn.eventservice.wsdl.v6_1.EventService;
+import telematik.ws.conn.eventservice.xsd.v6_1.GetCards;
+import telematik.ws.conn.eventservice.xsd.v6_1.GetCardsResponse;
+import telematik.ws.conn.servicedirectory.xsd.v3_1.ConnectorServices;
+import telematik.ws.conn.serviceinformation.xsd.v2_0.EndpointType;
+import telematik.ws.conn.serviceinformation.xsd.v2_0.ServiceType;
+import telematik.ws.conn.serviceinformation.xsd.v2_0.ServicesType;
+import telematik.ws.conn.serviceinformation.xsd.v2_0.VersionType;
+import telematik.ws.conn.serviceinformation.xsd.v2_0.VersionsType;
+
+class HttpTransportTest {
+
+  @TempDir Path tempDir;
+
+  private HttpServer konnektor;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger maxInFlight = new AtomicInteger();
+  private final Set<String> connectionHeaders = ConcurrentHashMap.newKeySet();
+
+  @BeforeEach
+  void setUp() throws Exception {
+    var response = soapEnvelope(getCardsResponse());
+
+    konnektor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    konnektor.setExecutor(Executors.newCachedThreadPool());
+    konnektor.createContext(
+        "/ws/" + EventService.SERVICE.getLocalPart(),
+        exchange -> {
+          maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+          connectionHeaders.add(
+              String.valueOf(exchange.getRequestHeaders().getFirst("Connection")));
+          try {
+            exchange.getRequestBody().readAllBytes();
+            Thread.sleep(100);
+            exchange.getResponseHeaders().add("Content-Type", "text/xml; charset=UTF-8");
+            exchange.sendResponseHeaders(200, response.length);
+            try (var os = exchange.getResponseBody()) {
+              os.write(response);
+            }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } finally {
+            inFlight.decrementAndGet();
+          }
+        });
+    konnektor.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    konnektor.stop(0);
+  }
+
+  @Test
+  void httpClient_boundsConnections() throws Exception {
+    var connection = newFactory(HttpTransport.HTTP_CLIENT, 2).connect();
+
+    var pool = Executors.newFixedThreadPool(6);
+    try {
+      var futures = new ArrayList<Future<GetCardsResponse>>();
+      for (int i = 0; i < 6; i++) {
+        futures.add(pool.submit(() -> connection.eventService().getCards(new GetCards())));
+      }
+      for (var f : futures) {
+        assertEquals(
+            "handle-a", f.get(10, TimeUnit.SECONDS).getCards().getCard().get(0).getCardHandle());
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    assertTrue(maxInFlight.get() <= 2, "max in flight: " + maxInFlight.get());
+    assertEquals(new ConnectionPool(2, 0, 0, 6), connection.connectionPool());
+    // the HttpClient never sends one for HTTP/1.1
+    assertEquals(Set.of("null"), connectionHeaders);
+  }
+
+  @Test
+  void urlConnection_unbounded() throws Exception {
+    var connection = newFactory(HttpTransport.URL_CONNECTION, 2).connect();
+
+    connection.eventService().getCards(new GetCards());
+
+    assertNull(connection.connectionPool());
+    assertEquals(Set.of("keep-alive"), connectionHeaders);
+  }
+
+  private KonnektorConnectionFactoryImpl newFactory(HttpTransport transport, int maxConnections)
+      throws Exception {
+    var konnektorUri =
+        URI.create("http://127.0.0.1:%d".formatted(konnektor.getAddress().getPort()));
+
+    var snapshot = Files.createTempFile(tempDir, "connector", ".sds");
+    try (var os = Files.newOutputStream(snapshot)) {
+      JAXBContext.newInstance(ConnectorServices.class)
+          .createMarshaller()
+          .marshal(connectorServices(konnektorUri), os);
+    }
+
+    var cfg =
+        new KonnektorConnectionConfiguration(
+            konnektorUri,
+            null,
+            null,
+            null,
+            new SdsCacheConfig(Duration.ofHours(1), snapshot),
+            true,
+            null,
+            null,
+            new HttpTransportConfig(transport, maxConnections));
+    return new KonnektorConnectionFactoryImpl(cfg);
+  }
+
+  private static ConnectorServices connectorServices(URI konnektorUri) {
+    var endpoint = new EndpointType();
+    endpoint.setLocation(
+        konnektorUri.resolve("/ws/" + EventService.SERVICE.getLocalPart()).toString());
+
+    var v = new VersionType();
+    v.setVersion("7.2.0");
+    v.setEndpoint(endpoint);
+
+    var versions = new VersionsType();
+    versions.getVersion().add(v);
+
+    var service = new ServiceType();
+    service.setName(EventService.SERVICE.getLocalPart());
+    service.setVersions(versions);
+
+    var services = new ServicesType();
+    services.getService().addAll(List.of(service));
+
+    var connectorServices = new ConnectorServices();
+    connectorServices.setServiceInformation(services);
+    return connectorServices;
+  }
+
+  private static GetCardsResponse getCardsResponse() {
+    var card = new CardInfoType();
+    card.setCardHandle("handle-a");
+
+    var cards = new Cards();
+    cards.getCard().add(card);
+
+    var status = new Status();
+    status.setResult("OK");
+
+    var res = new GetCardsResponse();
+    res.setStatus(status);
+    res.setCards(cards);
+    return res;
+  }
+
+  private static byte[] soapEnvelope(Object body) throws Exception {
+    var os = new ByteArrayOutputStream();
+    var marshaller = JAXBContext.newInstance(body.getClass()).createMarshaller();
+    marshaller.setProperty("jaxb.fragment", true);
+    marshaller.marshal(body, os);
+    return ("""
+        <?xml version="1.0" encoding="UTF-8"?>
+        <soap:Envelope xmlns:soap="http://schemas.xmlsoap.org/soap/envelope/"><soap:Body>%s</soap:Body></soap:Envelope>"""
+            .formatted(os.toString(StandardCharsets.UTF_8)))
+        .strip()
+        .getBytes(StandardCharsets.UTF_8);
+  }
+}
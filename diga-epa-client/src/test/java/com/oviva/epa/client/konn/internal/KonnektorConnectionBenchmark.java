@@ -0,0 +1,165 @@
+package com.oviva.epa.client.konn.internal;
+
+import com.oviva.epa.client.konn.KonnektorConnection;
+import com.oviva.epa.client.konn.internal.KonnektorConnectionConfiguration.SdsCacheConfig;
+import jakarta.xml.bind.JAXBContext;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import telematik.ws.conn.authsignatureservice.wsdl.v7_4.AuthSignatureService;
+import telematik.ws.conn.cardservice.wsdl.v8_1.CardService;
+import telematik.ws.conn.certificateservice.wsdl.v6_0.CertificateService;
+import telematik.ws.conn.eventservice.wsdl.v6_1.EventService;
+import telematik.ws.conn.phrs.phrmanagementservice.wsdl.v2_5.PHRManagementService;
+import telematik.ws.conn.phrs.phrservice.wsdl.v2_0.PHRService;
+import telematik.ws.conn.servicedirectory.xsd.v3_1.ConnectorServices;
+import telematik.ws.conn.serviceinformation.xsd.v2_0.EndpointType;
+import telematik.ws.conn.serviceinformation.xsd.v2_0.ServiceType;
+import telematik.ws.conn.serviceinformation.xsd.v2_0.ServicesType;
+import telematik.ws.conn.serviceinformation.xsd.v2_0.VersionType;
+import telematik.ws.conn.serviceinformation.xsd.v2_0.VersionsType;
+import telematik.ws.conn.signatureservice.wsdl.v7_5.SignatureService;
+import telematik.ws.conn.vsds.vsdservice.wsdl.v5_2.VSDService;
+
+/**
+ * Reports the time of a cold and warm {@link KonnektorConnectionFactoryImpl#connect()} as well as
+ * the heap retained per connection. No Konnektor is needed, the service directory is served from a
+ * snapshot and proxies do not connect on creation.
+ *
+ * <p>Run with a fresh JVM, otherwise 'cold' numbers are meaningless:
+ *
+ * <pre>
+ * mvn test -pl diga-epa-client -Dtest=KonnektorConnectionBenchmark -Djunit.jupiter.conditions.deactivate=org.junit.*DisabledCondition
+ * </pre>
+ */
+@Disabled("benchmark, run manually")
+class KonnektorConnectionBenchmark {
+
+  private static final Logger log = LoggerFactory.getLogger(KonnektorConnectionBenchmark.class);
+
+  private static final int WARM_ITERATIONS = 20;
+  private static final int RETAINED_CONNECTIONS = 50;
+
+  @TempDir Path tempDir;
+
+  @Test
+  void connect() throws Exception {
+    var factory = newFactory(URI.create("http://127.0.0.1:1"));
+
+    var cold = time(factory::connect);
+
+    var warm = 0L;
+    for (int i = 0; i < WARM_ITERATIONS; i++) {
+      warm += time(factory::connect);
+    }
+
+    // a second Konnektor, e.g. another factory in the same process
+    var otherFactory = newFactory(URI.create("http://127.0.0.2:1"));
+    var otherKonnektor = time(otherFactory::connect);
+
+    var retained = retainedBytesPerConnection(factory);
+
+    log.atInfo()
+        .addKeyValue("coldMillis", cold / 1_000_000)
+        .addKeyValue("warmMillis", warm / WARM_ITERATIONS / 1_000_000)
+        .addKeyValue("otherKonnektorMillis", otherKonnektor / 1_000_000)
+        .addKeyValue("retainedKiBPerConnection", retained / 1024)
+        .log("connect() benchmark");
+  }
+
+  private long retainedBytesPerConnection(KonnektorConnectionFactoryImpl factory) {
+    var connections = new ArrayList<KonnektorConnection>(RETAINED_CONNECTIONS);
+    var before = usedHeapAfterGc();
+    for (int i = 0; i < RETAINED_CONNECTIONS; i++) {
+      connections.add(factory.connect());
+    }
+    var after = usedHeapAfterGc();
+
+    // keep the connections reachable until measured
+    if (connections.size() != RETAINED_CONNECTIONS) {
+      throw new IllegalStateException();
+    }
+    return (after - before) / RETAINED_CONNECTIONS;
+  }
+
+  private static long usedHeapAfterGc() {
+    var rt = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return rt.totalMemory() - rt.freeMemory();
+  }
+
+  private static long time(Runnable r) {
+    var start = System.nanoTime();
+    r.run();
+    return System.nanoTime() - start;
+  }
+
+  private KonnektorConnectionFactoryImpl newFactory(URI konnektorUri) throws Exception {
+    var snapshot = Files.createTempFile(tempDir, "connector", ".sds");
+    try (var os = Files.newOutputStream(snapshot)) {
+      JAXBContext.newInstance(ConnectorServices.class)
+          .createMarshaller()
+          .marshal(connectorServices(konnektorUri), os);
+    }
+
+    var cfg =
+        new KonnektorConnectionConfiguration(
+            konnektorUri,
+            null,
+            null,
+            null,
+            new SdsCacheConfig(Duration.ofHours(1), snapshot),
+            false,
+            null,
+            null,
+            null);
+    return new KonnektorConnectionFactoryImpl(cfg);
+  }
+
+  private static ConnectorServices connectorServices(URI konnektorUri) {
+    var services = new ServicesType();
+    services
+        .getService()
+        .addAll(
+            List.of(
+                service(konnektorUri, PHRService.SERVICE.getLocalPart(), "2.0.2"),
+                service(konnektorUri, PHRManagementService.SERVICE.getLocalPart(), "2.5.2"),
+                service(konnektorUri, EventService.SERVICE.getLocalPart(), "7.2.0"),
+                service(konnektorUri, CardService.SERVICE.getLocalPart(), "8.1.2"),
+                service(konnektorUri, CertificateService.SERVICE.getLocalPart(), "6.0.1"),
+                service(konnektorUri, SignatureService.SERVICE.getLocalPart(), "7.5.5"),
+                service(konnektorUri, VSDService.SERVICE.getLocalPart(), "5.2.0"),
+                service(konnektorUri, AuthSignatureService.SERVICE.getLocalPart(), "7.4.1")));
+
+    var connectorServices = new ConnectorServices();
+    connectorServices.setServiceInformation(services);
+    return connectorServices;
+  }
+
+  private static ServiceType service(URI konnektorUri, String name, String version) {
+    var endpoint = new EndpointType();
+    endpoint.setLocation(konnektorUri.resolve("/ws/" + name).toString());
+
+    var v = new VersionType();
+    v.setVersion(version);
+    v.setEndpoint(endpoint);
+
+    var versions = new VersionsType();
+    versions.getVersion().add(v);
+
+    var service = new ServiceType();
+    service.setName(name);
+    service.setVersions(versions);
+    return service;
+  }
+}
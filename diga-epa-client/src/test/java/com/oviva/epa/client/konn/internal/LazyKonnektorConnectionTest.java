@@ -0,0 +1,118 @@
+package com.oviva.epa.client.konn.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import com.oviva.epa.client.konn.KonnektorConnection.Service;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import telematik.ws.conn.authsignatureservice.wsdl.v7_4.AuthSignatureServicePortType;
+import telematik.ws.conn.cardservice.wsdl.v8_1.CardServicePortType;
+import telematik.ws.conn.certificateservice.wsdl.v6_0.CertificateServicePortType;
+import telematik.ws.conn.eventservice.wsdl.v6_1.EventServicePortType;
+import telematik.ws.conn.phrs.phrmanagementservice.wsdl.v2_5.PHRManagementServicePortType;
+import telematik.ws.conn.phrs.phrservice.wsdl.v2_0.PHRServicePortType;
+import telematik.ws.conn.signatureservice.wsdl.v7_5.SignatureServicePortType;
+import telematik.ws.conn.vsds.vsdservice.wsdl.v5_2.VSDServicePortType;
+
+class LazyKonnektorConnectionTest {
+
+  private final Map<Service, AtomicInteger> created = new EnumMap<>(Service.class);
+
+  @Test
+  void proxiesCreatedOnFirstAccess() {
+    var connection = new LazyKonnektorConnection(factories(), Runnable::run);
+
+    for (var service : Service.values()) {
+      assertFalse(connection.isCreated(service));
+    }
+
+    var phr = connection.phrService();
+
+    assertSame(phr, connection.phrService());
+    assertTrue(connection.isCreated(Service.PHR));
+    assertFalse(connection.isCreated(Service.VSD));
+    assertEquals(1, created.get(Service.PHR).get());
+  }
+
+  @Test
+  void warmUp_onlyRequestedServices() {
+    var connection = new LazyKonnektorConnection(factories(), Executors.newFixedThreadPool(2));
+
+    connection.warmUp(Set.of(Service.PHR, Service.EVENT));
+
+    assertTrue(connection.isCreated(Service.PHR));
+    assertTrue(connection.isCreated(Service.EVENT));
+    assertFalse(connection.isCreated(Service.SIGNATURE));
+  }
+
+  @Test
+  void concurrentAccess_createsOnce() throws InterruptedException {
+    var connection = new LazyKonnektorConnection(factories(), Runnable::run);
+    var threads = 8;
+    var start = new CountDownLatch(1);
+    var pool = Executors.newFixedThreadPool(threads);
+
+    for (int i = 0; i < threads; i++) {
+      pool.execute(
+          () -> {
+            try {
+              start.await();
+              connection.cardService();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          });
+    }
+    start.countDown();
+    pool.shutdown();
+    assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+
+    assertEquals(1, created.get(Service.CARD).get());
+  }
+
+  @Test
+  void missingFactory() {
+    Map<Service, Supplier<?>> factories = new EnumMap<>(Service.class);
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new LazyKonnektorConnection(factories, Runnable::run));
+  }
+
+  private Map<Service, Supplier<?>> factories() {
+    Map<Service, Supplier<?>> factories = new EnumMap<>(Service.class);
+    factories.put(Service.PHR, counting(Service.PHR, PHRServicePortType.class));
+    factories.put(
+        Service.PHR_MANAGEMENT,
+        counting(Service.PHR_MANAGEMENT, PHRManagementServicePortType.class));
+    factories.put(Service.EVENT, counting(Service.EVENT, EventServicePortType.class));
+    factories.put(Service.CARD, counting(Service.CARD, CardServicePortType.class));
+    factories.put(
+        Service.CERTIFICATE, counting(Service.CERTIFICATE, CertificateServicePortType.class));
+    factories.put(Service.SIGNATURE, counting(Service.SIGNATURE, SignatureServicePortType.class));
+    factories.put(Service.VSD, counting(Service.VSD, VSDServicePortType.class));
+    factories.put(
+        Service.AUTH_SIGNATURE,
+        counting(Service.AUTH_SIGNATURE, AuthSignatureServicePortType.class));
+    return factories;
+  }
+
+  private <T> Supplier<T> counting(Service service, Class<T> type) {
+    var counter = created.computeIfAbsent(service, s -> new AtomicInteger());
+    return () -> {
+      counter.incrementAndGet();
+      return mock(type);
+    };
+  }
+}
@@ -0,0 +1,130 @@
+package com.oviva.epa.client.konn.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.oviva.epa.client.konn.CircuitOpenException;
+import com.oviva.epa.client.konn.KonnektorConnection;
+import com.oviva.epa.client.konn.KonnektorConnection.Health;
+import com.oviva.epa.client.konn.KonnektorConnection.Service;
+import jakarta.xml.ws.WebServiceException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import telematik.ws.conn.eventservice.wsdl.v6_1.EventServicePortType;
+import telematik.ws.conn.eventservice.wsdl.v6_1.FaultMessage;
+import telematik.ws.conn.eventservice.xsd.v6_1.GetCardsResponse;
+
+class ResilientKonnektorConnectionTest {
+
+  private static final Duration OPEN_DURATION = Duration.ofSeconds(10);
+
+  private final AtomicLong now = new AtomicLong();
+
+  @Test
+  void opensAfterFailures_trialAfterOpenDuration() throws Exception {
+    var eventService = mock(EventServicePortType.class);
+    when(eventService.getCards(any())).thenThrow(new WebServiceException("connect timed out"));
+
+    var connection = guarded(eventService, null);
+
+    for (int i = 0; i < 2; i++) {
+      assertThrows(WebServiceException.class, () -> connection.eventService().getCards(null));
+    }
+    assertThrows(CircuitOpenException.class, () -> connection.eventService().getCards(null));
+    verify(eventService, times(2)).getCards(any());
+
+    now.addAndGet(OPEN_DURATION.toNanos());
+
+    // trial call fails, open again
+    assertThrows(WebServiceException.class, () -> connection.eventService().getCards(null));
+    assertThrows(CircuitOpenException.class, () -> connection.eventService().getCards(null));
+    verify(eventService, times(3)).getCards(any());
+  }
+
+  @Test
+  void faultsDoNotOpen() throws Exception {
+    var eventService = mock(EventServicePortType.class);
+    when(eventService.getCards(any())).thenThrow(new FaultMessage("no cards"));
+
+    var connection = guarded(eventService, null);
+
+    for (int i = 0; i < 5; i++) {
+      assertThrows(FaultMessage.class, () -> connection.eventService().getCards(null));
+    }
+    verify(eventService, times(5)).getCards(any());
+  }
+
+  @Test
+  void probeDownDoesNotBlock_probeUpAllowsTrial() throws Exception {
+    var eventService = mock(EventServicePortType.class);
+    var res = new GetCardsResponse();
+    when(eventService.getCards(any()))
+        .thenThrow(new WebServiceException("connect timed out"))
+        .thenThrow(new WebServiceException("connect timed out"))
+        .thenReturn(res);
+
+    var up = new AtomicBoolean(false);
+    var scheduler = mock(ScheduledExecutorService.class);
+    var probe =
+        new HealthProbe(
+            () -> {
+              if (!up.get()) {
+                throw new WebServiceException("connection refused");
+              }
+            },
+            Duration.ofSeconds(5),
+            scheduler,
+            Clock.systemUTC());
+
+    var connection = guarded(eventService, probe);
+    assertEquals(Health.UNKNOWN, connection.health());
+
+    probe.probe();
+    assertEquals(Health.State.DOWN, connection.health().state());
+
+    // the probe only checks the connector.sds, the services are still called
+    for (int i = 0; i < 2; i++) {
+      assertThrows(WebServiceException.class, () -> connection.eventService().getCards(null));
+    }
+    assertThrows(CircuitOpenException.class, () -> connection.eventService().getCards(null));
+
+    up.set(true);
+    probe.probe();
+    assertEquals(Health.State.UP, connection.health().state());
+    assertSame(res, connection.eventService().getCards(null));
+
+    probe.close();
+    probe.start();
+    verify(scheduler).shutdownNow();
+    verify(scheduler, never()).scheduleWithFixedDelay(any(), anyLong(), anyLong(), any());
+  }
+
+  private KonnektorConnection guarded(EventServicePortType eventService, HealthProbe probe) {
+    var delegate = mock(KonnektorConnection.class);
+    when(delegate.eventService()).thenReturn(eventService);
+
+    var breaker = new CircuitBreaker(2, OPEN_DURATION, now::get);
+    if (probe != null) {
+      probe.addListener(
+          h -> {
+            if (h.isUp()) {
+              breaker.allowTrial();
+            }
+          });
+    }
+    return new ResilientKonnektorConnection(delegate, Map.of(Service.EVENT, breaker), probe);
+  }
+}
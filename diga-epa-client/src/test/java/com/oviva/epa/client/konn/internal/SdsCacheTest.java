@@ -0,0 +1,157 @@
+package com.oviva.epa.client.konn.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import telematik.ws.conn.servicedirectory.xsd.v3_1.ConnectorServices;
+
+class SdsCacheTest {
+
+  private static final Instant NOW = Instant.parse("2024-05-01T10:00:00Z");
+
+  @TempDir Path tempDir;
+
+  @Test
+  void get_cachesWithinTtl() {
+    var loader = new CountingLoader();
+    var clock = Clock.fixed(NOW, ZoneOffset.UTC);
+    var cache = new SdsCache(loader, Duration.ofMinutes(5), null, clock, Runnable::run);
+
+    var first = cache.get();
+    var second = cache.get();
+
+    assertSame(first, second);
+    assertEquals(1, loader.count.get());
+  }
+
+  @Test
+  void get_zeroTtl_alwaysFetches() {
+    var loader = new CountingLoader();
+    var clock = Clock.fixed(NOW, ZoneOffset.UTC);
+    var cache = new SdsCache(loader, Duration.ZERO, null, clock, Runnable::run);
+
+    cache.get();
+    cache.get();
+
+    assertEquals(2, loader.count.get());
+  }
+
+  @Test
+  void get_freshSnapshot_servedAndRevalidated() throws Exception {
+    var snapshot = tempDir.resolve("connector.sds.xml");
+    var clock = Clock.fixed(NOW, ZoneOffset.UTC);
+
+    // write a snapshot with a previous instance
+    new SdsCache(new CountingLoader(), Duration.ofHours(1), snapshot, clock, Runnable::run).get();
+    assertTrue(Files.isRegularFile(snapshot));
+    Files.setLastModifiedTime(snapshot, FileTime.from(NOW.minusSeconds(60)));
+
+    var loader = new CountingLoader();
+    var revalidations = new AtomicInteger();
+    var cache =
+        new SdsCache(
+            loader,
+            Duration.ofHours(1),
+            snapshot,
+            clock,
+            r -> {
+              revalidations.incrementAndGet();
+              r.run();
+            });
+
+    var services = cache.get();
+
+    assertTrue(services.isTLSMandatory());
+    assertEquals(1, revalidations.get());
+    assertEquals(1, loader.count.get());
+  }
+
+  @Test
+  void get_staleSnapshot_fetchesLive() throws Exception {
+    var snapshot = tempDir.resolve("connector.sds.xml");
+    var clock = Clock.fixed(NOW, ZoneOffset.UTC);
+
+    new SdsCache(new CountingLoader(), Duration.ofHours(1), snapshot, clock, Runnable::run).get();
+    Files.setLastModifiedTime(snapshot, FileTime.from(NOW.minus(Duration.ofHours(2))));
+
+    var loader = new CountingLoader();
+    var revalidations = new AtomicInteger();
+    var cache =
+        new SdsCache(
+            loader, Duration.ofHours(1), snapshot, clock, r -> revalidations.incrementAndGet());
+
+    cache.get();
+
+    assertEquals(0, revalidations.get());
+    assertEquals(1, loader.count.get());
+  }
+
+  @Test
+  void check_neitherCachedNorPersisted() {
+    var snapshot = tempDir.resolve("connector.sds.xml");
+    var loader = new CountingLoader();
+    var clock = Clock.fixed(NOW, ZoneOffset.UTC);
+    var cache = new SdsCache(loader, Duration.ofHours(1), snapshot, clock, Runnable::run);
+
+    cache.check();
+    assertFalse(Files.exists(snapshot));
+
+    cache.get();
+    assertEquals(2, loader.count.get());
+  }
+
+  @Test
+  void revalidate_unchanged_snapshotOnlyTouched() throws Exception {
+    var snapshot = tempDir.resolve("connector.sds.xml");
+
+    new SdsCache(
+            new CountingLoader(),
+            Duration.ofHours(1),
+            snapshot,
+            Clock.fixed(NOW, ZoneOffset.UTC),
+            Runnable::run)
+        .get();
+    var written = Files.readAttributes(snapshot, BasicFileAttributes.class).fileKey();
+
+    // after a restart the snapshot is served and revalidated with the same content
+    var later = NOW.plusSeconds(60);
+    new SdsCache(
+            new CountingLoader(),
+            Duration.ofHours(1),
+            snapshot,
+            Clock.fixed(later, ZoneOffset.UTC),
+            Runnable::run)
+        .get();
+
+    var attributes = Files.readAttributes(snapshot, BasicFileAttributes.class);
+    assertEquals(written, attributes.fileKey());
+    assertEquals(FileTime.from(later), attributes.lastModifiedTime());
+  }
+
+  private static class CountingLoader implements Supplier<ConnectorServices> {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public ConnectorServices get() {
+      count.incrementAndGet();
+      var services = new ConnectorServices();
+      services.setTLSMandatory(true);
+      return services;
+    }
+  }
+}
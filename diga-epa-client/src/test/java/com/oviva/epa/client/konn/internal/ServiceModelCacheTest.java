@@ -0,0 +1,177 @@
+package com.oviva.epa.client.konn.internal;
+
+import static jakarta.xml.ws.soap.SOAPBinding.SOAP11HTTP_BINDING;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.sun.net.httpserver.HttpServer;
+import jakarta.xml.bind.JAXBContext;
+import java.io.ByteArrayOutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.cxf.frontend.ClientProxy;
+import org.apache.cxf.jaxws.JaxWsProxyFactoryBean;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import telematik.ws.conn.cardservice.xsd.v8_1.CardInfoType;
+import telematik.ws.conn.cardservice.xsd.v8_1.Cards;
+import telematik.ws.conn.connectorcommon.xsd.v5_0.Status;
+import telematik.ws.conn.eventservice.wsdl.v6_1.EventServicePortType;
+import telematik.ws.conn.eventservice.xsd.v6_1.GetCards;
+import telematik.ws.conn.eventservice.xsd.v6_1.GetCardsResponse;
+
+class ServiceModelCacheTest {
+
+  private HttpServer konnektorA;
+  private HttpServer konnektorB;
+  private final AtomicInteger callsA = new AtomicInteger();
+  private final AtomicInteger callsB = new AtomicInteger();
+
+  @BeforeEach
+  void setUp() throws Exception {
+    konnektorA = startKonnektor("handle-a", callsA);
+    konnektorB = startKonnektor("handle-b", callsB);
+  }
+
+  @AfterEach
+  void tearDown() {
+    konnektorA.stop(0);
+    konnektorB.stop(0);
+  }
+
+  @Test
+  void create_reusesModelAcrossKonnektors() {
+    var cache = new ServiceModelCache();
+
+    var first = createEventService(cache, konnektorA);
+    var other = createEventService(cache, konnektorB);
+    var second = createEventService(cache, konnektorA);
+
+    assertSame(serviceOf(first), serviceOf(second));
+    assertSame(serviceOf(first), serviceOf(other));
+    assertEquals(1, cache.size());
+
+    // each client keeps its own Konnektor, no matter which one was created last
+    assertEquals("handle-a", firstCardHandle(first));
+    assertEquals("handle-b", firstCardHandle(other));
+    assertEquals("handle-a", firstCardHandle(second));
+    assertEquals(2, callsA.get());
+    assertEquals(1, callsB.get());
+  }
+
+  @Test
+  void create_conduitTargetsOwnKonnektor() {
+    var cache = new ServiceModelCache();
+
+    var first = createEventService(cache, konnektorA);
+    createEventService(cache, konnektorB);
+
+    // the conduit configured after creation, e.g. for TLS, is the one used for calls
+    var client = ClientProxy.getClient(first);
+    var conduit = client.getConduit();
+    assertEquals(addressOf(konnektorA), conduit.getTarget().getAddress().getValue());
+
+    firstCardHandle(first);
+    assertSame(conduit, client.getConduit());
+    assertEquals(1, callsA.get());
+  }
+
+  @Test
+  void create_clientInterceptorsNotShared() {
+    var cache = new ServiceModelCache();
+    var first = createEventService(cache, konnektorA);
+    var endpointInterceptors =
+        ClientProxy.getClient(first).getEndpoint().getOutInterceptors().size();
+
+    var second = createEventService(cache, konnektorA);
+
+    assertEquals(
+        endpointInterceptors,
+        ClientProxy.getClient(second).getEndpoint().getOutInterceptors().size());
+    assertEquals(1, ClientProxy.getClient(second).getOutInterceptors().size());
+  }
+
+  private EventServicePortType createEventService(ServiceModelCache cache, HttpServer konnektor) {
+    var factory = new JaxWsProxyFactoryBean();
+    factory.setBindingId(SOAP11HTTP_BINDING);
+    factory.setServiceClass(EventServicePortType.class);
+    factory.setAddress(addressOf(konnektor));
+    factory.getOutInterceptors().add(new NoopInterceptor());
+    return cache.create(factory, EventServicePortType.class);
+  }
+
+  private static String addressOf(HttpServer konnektor) {
+    return "http://127.0.0.1:%d/ws/EventService".formatted(konnektor.getAddress().getPort());
+  }
+
+  private static Object serviceOf(EventServicePortType proxy) {
+    return ClientProxy.getClient(proxy).getEndpoint().getService();
+  }
+
+  private static String firstCardHandle(EventServicePortType proxy) {
+    return proxy.getCards(new GetCards()).getCards().getCard().get(0).getCardHandle();
+  }
+
+  private static HttpServer startKonnektor(String cardHandle, AtomicInteger calls)
+      throws Exception {
+    var response = soapEnvelope(getCardsResponse(cardHandle));
+
+    var server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext(
+        "/ws/EventService",
+        exchange -> {
+          calls.incrementAndGet();
+          exchange.getRequestBody().readAllBytes();
+          exchange.getResponseHeaders().add("Content-Type", "text/xml; charset=UTF-8");
+          exchange.sendResponseHeaders(200, response.length);
+          try (var os = exchange.getResponseBody()) {
+            os.write(response);
+          }
+        });
+    server.start();
+    return server;
+  }
+
+  private static GetCardsResponse getCardsResponse(String cardHandle) {
+    var card = new CardInfoType();
+    card.setCardHandle(cardHandle);
+
+    var cards = new Cards();
+    cards.getCard().add(card);
+
+    var status = new Status();
+    status.setResult("OK");
+
+    var res = new GetCardsResponse();
+    res.setStatus(status);
+    res.setCards(cards);
+    return res;
+  }
+
+  private static byte[] soapEnvelope(Object body) throws Exception {
+    var os = new ByteArrayOutputStream();
+    var marshaller = JAXBContext.newInstance(body.getClass()).createMarshaller();
+    marshaller.setProperty("jaxb.fragment", true);
+    marshaller.marshal(body, os);
+    return ("""
+        <?xml version="1.0" encoding="UTF-8"?>
+        <soap:Envelope xmlns:soap="http://schemas.xmlsoap.org/soap/envelope/"><soap:Body>%s</soap:Body></soap:Envelope>"""
+            .formatted(os.toString(StandardCharsets.UTF_8)))
+        .strip()
+        .getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static class NoopInterceptor extends AbstractPhaseInterceptor<Message> {
+    NoopInterceptor() {
+      super(Phase.PRE_STREAM);
+    }
+
+    @Override
+    public void handleMessage(Message message) {}
+  }
+}
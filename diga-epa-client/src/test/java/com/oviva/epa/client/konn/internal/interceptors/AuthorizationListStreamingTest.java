@@ -0,0 +1,109 @@
+package com.oviva.epa.client.konn.internal.interceptors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.oviva.epa.client.KonnektorService;
+import com.oviva.epa.client.KonnektorServiceBuilder;
+import com.oviva.epa.client.model.AuthorizationEntry;
+import com.oviva.epa.client.model.RecordIdentifier;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.datatype.DatatypeFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import telematik.ws.conn.connectorcommon.xsd.v5_0.Status;
+import telematik.ws.conn.phrs.phrmanagementservice.xsd.v2_5.GetAuthorizationListResponse;
+import telematik.ws.fd.phr.phrcommon.xsd.v1_1.InsurantIdType;
+import telematik.ws.fd.phr.phrcommon.xsd.v1_1.RecordIdentifierType;
+
+class AuthorizationListStreamingTest {
+
+  private static final int ENTRIES = 50;
+  private static final LocalDate VALID_TO = LocalDate.of(2030, 1, 31);
+
+  @TempDir Path tempDir;
+
+  private KonnektorStub konnektor;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    konnektor =
+        new KonnektorStub(
+            "PHRManagementService",
+            KonnektorStub.soapEnvelope(
+                authorizationListResponse(), GetAuthorizationListResponse.class));
+  }
+
+  @AfterEach
+  void tearDown() {
+    konnektor.close();
+  }
+
+  @Test
+  void getAuthorizationList_streamsEntries() throws Exception {
+    var service = newService();
+
+    var entries = new ArrayList<AuthorizationEntry>();
+    service.getAuthorizationList(entries::add);
+
+    assertEquals(expectedEntries(), entries);
+  }
+
+  @Test
+  void getAuthorizationList_collectsEntries() throws Exception {
+    var service = newService();
+
+    // the same port, streaming must not leak into regular calls
+    service.getAuthorizationList(e -> {});
+    assertEquals(expectedEntries(), service.getAuthorizationList());
+  }
+
+  private KonnektorService newService() throws Exception {
+    return KonnektorServiceBuilder.newBuilder()
+        .connection(konnektor.newFactory(tempDir).connect())
+        .workplaceId("a")
+        .clientSystemId("c")
+        .mandantId("m")
+        .userId("admin")
+        .userAgent("Test/1.0")
+        .build();
+  }
+
+  private static List<AuthorizationEntry> expectedEntries() {
+    var entries = new ArrayList<AuthorizationEntry>();
+    for (int i = 0; i < ENTRIES; i++) {
+      entries.add(new AuthorizationEntry(new RecordIdentifier(kvnr(i), "hcid-" + i), VALID_TO));
+    }
+    return entries;
+  }
+
+  private static GetAuthorizationListResponse authorizationListResponse() throws Exception {
+    var list = new GetAuthorizationListResponse.AuthorizationList();
+    var validTo = DatatypeFactory.newInstance().newXMLGregorianCalendar(VALID_TO.toString());
+    for (int i = 0; i < ENTRIES; i++) {
+      list.getAuthorizationEntry()
+          .add(
+              new GetAuthorizationListResponse.AuthorizationList.AuthorizationEntry()
+                  .withRecordIdentifier(
+                      new RecordIdentifierType()
+                          .withInsurantId(
+                              new InsurantIdType()
+                                  .withRoot("1.2.276.0.76.4.8")
+                                  .withExtension(kvnr(i)))
+                          .withHomeCommunityId("hcid-" + i))
+                  .withValidTo(validTo));
+    }
+
+    return new GetAuthorizationListResponse()
+        .withStatus(new Status().withResult("OK"))
+        .withAuthorizationList(list);
+  }
+
+  private static String kvnr(int i) {
+    return "X%09d".formatted(i);
+  }
+}
@@ -0,0 +1,142 @@
+package com.oviva.epa.client.konn.internal.interceptors;
+
+import com.oviva.epa.client.konn.internal.KonnektorConnectionConfiguration;
+import com.oviva.epa.client.konn.internal.KonnektorConnectionConfiguration.SdsCacheConfig;
+import com.oviva.epa.client.konn.internal.KonnektorConnectionFactoryImpl;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBElement;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import telematik.ws.conn.servicedirectory.xsd.v3_1.ConnectorServices;
+import telematik.ws.conn.serviceinformation.xsd.v2_0.EndpointType;
+import telematik.ws.conn.serviceinformation.xsd.v2_0.ServiceType;
+import telematik.ws.conn.serviceinformation.xsd.v2_0.ServicesType;
+import telematik.ws.conn.serviceinformation.xsd.v2_0.VersionType;
+import telematik.ws.conn.serviceinformation.xsd.v2_0.VersionsType;
+
+/** A Konnektor answering a single service with a canned SOAP 1.2 response. */
+class KonnektorStub implements AutoCloseable {
+
+  // the service needs all of them
+  private static final Map<String, String> VERSIONS =
+      Map.of(
+          "PHRService",
+          "2.0.2",
+          "PHRManagementService",
+          "2.5.2",
+          "AuthSignatureService",
+          "7.4.1",
+          "SignatureService",
+          "7.5.5",
+          "EventService",
+          "7.2.0",
+          "CertificateService",
+          "6.0.1",
+          "CardService",
+          "8.1.2",
+          "VSDService",
+          "5.2.0");
+
+  private final HttpServer server;
+  private final AtomicReference<byte[]> received = new AtomicReference<>();
+
+  KonnektorStub(String service, byte[] response) throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext(
+        "/ws/" + service,
+        exchange -> {
+          received.set(exchange.getRequestBody().readAllBytes());
+          exchange.getResponseHeaders().add("Content-Type", "application/soap+xml; charset=UTF-8");
+          exchange.sendResponseHeaders(200, response.length);
+          try (var os = exchange.getResponseBody()) {
+            os.write(response);
+          }
+        });
+    server.start();
+  }
+
+  /** the body of the last request received */
+  byte[] received() {
+    return received.get();
+  }
+
+  KonnektorConnectionFactoryImpl newFactory(Path tempDir) throws Exception {
+    var konnektorUri = URI.create("http://127.0.0.1:%d".formatted(server.getAddress().getPort()));
+
+    var snapshot = Files.createTempFile(tempDir, "connector", ".sds");
+    try (var os = Files.newOutputStream(snapshot)) {
+      JAXBContext.newInstance(ConnectorServices.class)
+          .createMarshaller()
+          .marshal(connectorServices(konnektorUri), os);
+    }
+
+    var cfg =
+        new KonnektorConnectionConfiguration(
+            konnektorUri,
+            null,
+            null,
+            null,
+            new SdsCacheConfig(Duration.ofHours(1), snapshot),
+            true,
+            null,
+            null,
+            null);
+    return new KonnektorConnectionFactoryImpl(cfg);
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+  }
+
+  static byte[] soapEnvelope(Object body, Class<?>... types) throws Exception {
+    var os = new ByteArrayOutputStream();
+    var marshaller = JAXBContext.newInstance(types).createMarshaller();
+    marshaller.setProperty("jaxb.fragment", true);
+    marshaller.marshal(body, os);
+    return ("""
+        <?xml version="1.0" encoding="UTF-8"?>
+        <soap:Envelope xmlns:soap="http://www.w3.org/2003/05/soap-envelope"><soap:Body>%s</soap:Body></soap:Envelope>"""
+            .formatted(os.toString(StandardCharsets.UTF_8)))
+        .strip()
+        .getBytes(StandardCharsets.UTF_8);
+  }
+
+  static byte[] soapEnvelope(JAXBElement<?> body) throws Exception {
+    return soapEnvelope(body, body.getDeclaredType());
+  }
+
+  private static ConnectorServices connectorServices(URI konnektorUri) {
+    var services = new ServicesType();
+    VERSIONS.forEach(
+        (name, version) -> {
+          var endpoint = new EndpointType();
+          endpoint.setLocation(konnektorUri.resolve("/ws/" + name).toString());
+
+          var v = new VersionType();
+          v.setVersion(version);
+          v.setEndpoint(endpoint);
+
+          var vs = new VersionsType();
+          vs.getVersion().add(v);
+
+          var service = new ServiceType();
+          service.setName(name);
+          service.setVersions(vs);
+          services.getService().add(service);
+        });
+
+    var connectorServices = new ConnectorServices();
+    connectorServices.setServiceInformation(services);
+    return connectorServices;
+  }
+}
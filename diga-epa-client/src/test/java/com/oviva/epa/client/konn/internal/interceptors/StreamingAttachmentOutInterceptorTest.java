@@ -0,0 +1,203 @@
+package com.oviva.epa.client.konn.internal.interceptors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.oviva.epa.client.KonnektorServiceBuilder;
+import com.oviva.epa.client.model.DocumentSource;
+import com.oviva.epa.client.model.RecordIdentifier;
+import de.gematik.epa.conversion.internal.enumerated.ClassCode;
+import de.gematik.epa.conversion.internal.enumerated.ConfidentialityCode;
+import de.gematik.epa.conversion.internal.enumerated.FormatCode;
+import de.gematik.epa.conversion.internal.enumerated.HealthcareFacilityCode;
+import de.gematik.epa.conversion.internal.enumerated.PracticeSettingCode;
+import de.gematik.epa.conversion.internal.enumerated.TypeCode;
+import de.gematik.epa.ihe.model.Author;
+import de.gematik.epa.ihe.model.document.DocumentMetadata;
+import de.gematik.epa.ihe.model.simple.AuthorInstitution;
+import jakarta.activation.DataHandler;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import oasis.names.tc.ebxml_regrep.xsd.rs._3.ObjectFactory;
+import oasis.names.tc.ebxml_regrep.xsd.rs._3.RegistryResponseType;
+import org.apache.cxf.attachment.AttachmentImpl;
+import org.apache.cxf.attachment.ByteDataSource;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.message.MessageImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import telematik.ws.conn.phrs.phrservice.wsdl.v2_0.PHRService;
+
+class StreamingAttachmentOutInterceptorTest {
+
+  @TempDir Path tempDir;
+
+  private KonnektorStub konnektor;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    konnektor =
+        new KonnektorStub(
+            PHRService.SERVICE.getLocalPart(),
+            KonnektorStub.soapEnvelope(
+                new ObjectFactory().createRegistryResponse(registryResponse())));
+  }
+
+  @AfterEach
+  void tearDown() {
+    konnektor.close();
+  }
+
+  @Test
+  void writeDocument_streamsContentAsAttachment() throws Exception {
+    var content = new byte[3 * 1024 * 1024];
+    new Random(42).nextBytes(content);
+    var file = Files.write(tempDir.resolve("export.pdf"), content);
+
+    var service =
+        KonnektorServiceBuilder.newBuilder()
+            .connection(konnektor.newFactory(tempDir).connect())
+            .workplaceId("a")
+            .clientSystemId("c")
+            .mandantId("m")
+            .userId("admin")
+            .userAgent("Test/1.0")
+            .build();
+
+    try (var source = DocumentSource.of(file)) {
+      var res =
+          service.writeDocument(
+              new RecordIdentifier("X110000000", "urn:oid:1.2.3"), metadata(), source);
+      assertEquals("4711", res.requestId());
+    }
+
+    var body = new String(konnektor.received(), StandardCharsets.ISO_8859_1);
+    assertTrue(body.contains("xop:Include") || body.contains(":Include "), "no xop include");
+    assertFalse(body.contains("streaming-attachment"), "placeholder sent");
+    assertTrue(
+        body.contains(new String(content, StandardCharsets.ISO_8859_1)), "content not attached");
+  }
+
+  @Test
+  void handleMessage_placeholderNotAttached_fails() {
+    var interceptor = new StreamingAttachmentOutInterceptor();
+    var content = new DataHandler(new ByteDataSource(new byte[] {1}));
+
+    try (var placeholder = StreamingAttachmentOutInterceptor.register(content)) {
+      // e.g. the content was inlined instead of sent as MTOM attachment
+      assertThrows(Fault.class, () -> interceptor.handleMessage(new MessageImpl()));
+      assertThrows(IllegalStateException.class, placeholder::requireAttached);
+    }
+
+    // nothing registered anymore, other requests are not affected
+    interceptor.handleMessage(new MessageImpl());
+  }
+
+  @Test
+  void handleMessage_otherThreadsContent_notAttached() throws Exception {
+    var interceptor = new StreamingAttachmentOutInterceptor();
+    var content = new DataHandler(new ByteDataSource(new byte[] {1}));
+
+    try (var placeholder = StreamingAttachmentOutInterceptor.register(content)) {
+      var message = new MessageImpl();
+      message.setAttachments(
+          List.of(
+              new AttachmentImpl("a1", new DataHandler(new ByteDataSource(placeholder.bytes())))));
+
+      var other = Executors.newSingleThreadExecutor();
+      try {
+        var failure =
+            assertThrows(
+                ExecutionException.class,
+                () -> other.submit(() -> interceptor.handleMessage(message)).get());
+        assertInstanceOf(Fault.class, failure.getCause());
+      } finally {
+        other.shutdownNow();
+      }
+
+      interceptor.handleMessage(message);
+      placeholder.requireAttached();
+    }
+  }
+
+  @Test
+  void documentSource_spoolsStream() throws Exception {
+    var content = "hello world".getBytes(StandardCharsets.UTF_8);
+
+    Path spool;
+    try (var source = DocumentSource.of(new ByteArrayInputStream(content))) {
+      assertEquals(content.length, source.size());
+      try (var in = source.dataHandler().getInputStream()) {
+        assertEquals("hello world", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+      }
+      spool = Path.of(source.dataHandler().getName());
+    }
+
+    assertFalse(Files.exists(spool));
+  }
+
+  private static DocumentMetadata metadata() {
+    var institution = new AuthorInstitution("Oviva AG", "9-2.58.00000040");
+    var author =
+        new Author(
+            institution.identifier(),
+            "Oviva",
+            "Oviva AG",
+            "",
+            "",
+            "",
+            "1.2.276.0.76.4.282",
+            List.of(institution),
+            List.of(),
+            List.of(),
+            List.of());
+    var id = "urn:uuid:" + UUID.randomUUID();
+    return new DocumentMetadata(
+        List.of(author),
+        "AVAILABLE",
+        List.of(ConfidentialityCode.NORMAL.getValue()),
+        ClassCode.DURCHFUEHRUNGSPROTOKOLL.getValue(),
+        "",
+        LocalDateTime.now(),
+        id,
+        List.of(),
+        FormatCode.DIGA.getValue(),
+        "",
+        HealthcareFacilityCode.PATIENT_AUSSERHALB_BETREUUNG.getValue(),
+        "de-DE",
+        "",
+        "application/pdf",
+        PracticeSettingCode.PATIENT_AUSSERHALB_BETREUUNG.getValue(),
+        List.of(),
+        null,
+        null,
+        null,
+        "export",
+        TypeCode.PATIENTENEIGENE_DOKUMENTE.getValue(),
+        id,
+        "export.pdf",
+        "urn:oid:1.2.3",
+        "",
+        "X110000000");
+  }
+
+  private static RegistryResponseType registryResponse() {
+    var res = new RegistryResponseType();
+    res.setStatus("urn:oasis:names:tc:ebxml-regrep:ResponseStatusType:Success");
+    res.setRequestId("4711");
+    return res;
+  }
+}